@@ -0,0 +1,89 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Times a whole job: reading the files, annealing with the default settings, and writing the results.<P>
+ * Each size is only run a few times, as the biggest take minutes. To run just 
+ * some of the sizes, pass them to JMH, for example:<BR>
+ * <CODE>java -jar benchmarks.jar EndToEnd -p numberOfAreas=1000 -p numberOfPeople=100</CODE>
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@State(Scope.Benchmark)
+public class EndToEndBenchmark {
+    
+    @Param({"1000", "100000", "1000000"})
+    public int numberOfAreas;
+    
+    @Param({"100", "100000", "10000000"})
+    public int numberOfPeople;
+    
+    private File tableFile = null;
+    private File microDataFile = null;
+    private File outputFile = null;
+    
+    
+    @Setup(Level.Trial)
+    public void make() throws IOException {
+	tableFile = File.createTempFile("table", ".csv");
+	microDataFile = File.createTempFile("microdata", ".csv");
+	outputFile = File.createTempFile("population", ".csv");
+	SyntheticDataGenerator generator = SyntheticInputs.makeGenerator(numberOfAreas, numberOfPeople);
+	generator.writeTable(tableFile);
+	generator.writeMicroData(microDataFile);
+    }
+    
+    
+    
+    
+    
+    @TearDown(Level.Trial)
+    public void delete() {
+	tableFile.delete();
+	microDataFile.delete();
+	outputFile.delete();
+    }
+    
+    
+    
+    
+    
+    @Benchmark
+    public void run() throws IOException {
+	Table table = new Table(tableFile.getPath());
+	MicroData microData = new MicroData(microDataFile.getPath());
+	RedistributionSettings settings = new RedistributionSettings();
+	settings.setSeed(3);
+	Redistributor redistributor = new Redistributor(table, microData, settings);
+	redistributor.run();
+	redistributor.write(outputFile);
+    }
+    
+// End of class.
+}
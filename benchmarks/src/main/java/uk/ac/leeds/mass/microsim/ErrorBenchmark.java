@@ -0,0 +1,90 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Compares the cost of the full error recount with the incremental error change, as areas get bigger.<P>
+ * calculateError recounts everyone in the area, so should go up with the area size, 
+ * while calculateErrorChange only looks at the two people being swapped, so shouldn't.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Thread)
+public class ErrorBenchmark {
+    
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int areaSize;
+    
+    private Redistributor redistributor = null;
+    private int [] people = null;
+    private int next = 0;
+    
+    
+    @Setup(Level.Trial)
+    public void make() {
+	
+	// One area of the right size, filled at random without annealing.
+	
+	Constraints constraints = new Constraints(SyntheticInputs.makeTable(1, areaSize, 1), 
+	    SyntheticInputs.makeMicroData(1000, 2));
+	RedistributionSettings settings = new RedistributionSettings();
+	settings.setMaxRuns(0);
+	settings.setShortcutAreas(false);
+	settings.setSeed(3);
+	redistributor = new Redistributor(constraints, settings);
+	redistributor.run();
+	
+	// Some pairs of people to try swapping.
+	
+	Random random = new Random(4);
+	people = new int[1024];
+	for (int i = 0; i < people.length; i++) people[i] = random.nextInt(1000);
+	
+    }
+    
+    
+    
+    
+    
+    @Benchmark
+    public int calculateError() {
+	return redistributor.calculateError(0);
+    }
+    
+    
+    
+    
+    
+    @Benchmark
+    public int calculateErrorChange() {
+	next = (next + 2) & (people.length - 1);
+	return redistributor.calculateErrorChange(0, people[next], people[next + 1]);
+    }
+    
+// End of class.
+}
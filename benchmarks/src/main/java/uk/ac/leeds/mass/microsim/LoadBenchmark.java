@@ -0,0 +1,110 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Times reading Table and MicroData files of different sizes.<P>
+ * The files are made once per trial in the temporary directory and deleted afterwards.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class LoadBenchmark {
+    
+    
+    /**
+     * A table file.
+     **/
+    @State(Scope.Benchmark)
+    public static class TableFile {
+	
+	@Param({"1000", "100000", "1000000"})
+	public int numberOfAreas;
+	
+	File file = null;
+	
+	@Setup(Level.Trial)
+	public void make() throws IOException {
+	    file = File.createTempFile("table", ".csv");
+	    SyntheticInputs.makeGenerator(numberOfAreas, 0).writeTable(file);
+	}
+	
+	@TearDown(Level.Trial)
+	public void delete() {
+	    file.delete();
+	}
+	
+    }
+    
+    
+    
+    
+    
+    /**
+     * A microdata file.
+     **/
+    @State(Scope.Benchmark)
+    public static class MicroDataFile {
+	
+	@Param({"100", "100000", "10000000"})
+	public int numberOfPeople;
+	
+	File file = null;
+	
+	@Setup(Level.Trial)
+	public void make() throws IOException {
+	    file = File.createTempFile("microdata", ".csv");
+	    SyntheticInputs.makeGenerator(0, numberOfPeople).writeMicroData(file);
+	}
+	
+	@TearDown(Level.Trial)
+	public void delete() {
+	    file.delete();
+	}
+	
+    }
+    
+    
+    
+    
+    
+    @Benchmark
+    public Table loadTable(TableFile tableFile) {
+	return new Table(tableFile.file.getPath());
+    }
+    
+    
+    
+    
+    
+    @Benchmark
+    public MicroData loadMicroData(MicroDataFile microDataFile) {
+	return new MicroData(microDataFile.file.getPath());
+    }
+    
+// End of class.
+}
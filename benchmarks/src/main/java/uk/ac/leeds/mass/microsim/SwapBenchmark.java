@@ -0,0 +1,107 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+
+/**
+ * Measures swaps per second in the annealing loop.<P>
+ * Each invocation anneals a fresh copy of the same areas for a fixed number of 
+ * swaps (the error margin is set below zero so no area stops early), and the 
+ * swaps proposed are counted as the operations, so the score is swaps per 
+ * second. The microdata size changes how well the people fit in the caches.
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Thread)
+public class SwapBenchmark {
+    
+    @Param({"1000"})
+    public int numberOfAreas;
+    
+    @Param({"100", "100000", "10000000"})
+    public int numberOfPeople;
+    
+    @Param({"50"})
+    public int maxRuns;
+    
+    private Constraints constraints = null;
+    private RedistributionSettings settings = null;
+    
+    
+    /**
+     * Counts the swaps, which JMH reports as operations per second.
+     **/
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Swaps {
+	public long swaps = 0;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Remembers how many swaps were proposed in a run.
+     **/
+    private static class SwapCounter extends NullProgressListener {
+	long swaps = 0;
+	public void runFinished(ProgressStats stats) {
+	    swaps = stats.getSwapsProposed();
+	}
+    }
+    
+    
+    
+    
+    
+    @Setup(Level.Trial)
+    public void make() {
+	constraints = new Constraints(SyntheticInputs.makeTable(numberOfAreas, SyntheticInputs.MEAN_AREA_SIZE, 1), 
+	    SyntheticInputs.makeMicroData(numberOfPeople, 2));
+	settings = new RedistributionSettings();
+	settings.setMaxRuns(maxRuns);
+	settings.setErrorMargin(-1);
+	settings.setShortcutAreas(false);
+	settings.setSeed(3);
+    }
+    
+    
+    
+    
+    
+    @Benchmark
+    public Redistributor anneal(Swaps swaps) {
+	Redistributor redistributor = new Redistributor(constraints, settings);
+	SwapCounter counter = new SwapCounter();
+	redistributor.setProgressListener(counter);
+	redistributor.run();
+	swaps.swaps = swaps.swaps + counter.swaps;
+	return redistributor;
+    }
+    
+// End of class.
+}
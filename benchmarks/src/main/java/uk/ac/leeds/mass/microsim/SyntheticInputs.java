@@ -0,0 +1,105 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+
+
+/**
+ * Makes made up tables and microdata for the benchmarks.<P>
+ * Everything is made from a seed, so the same sizes always give the same data 
+ * and benchmark runs can be compared. Areas have between half and one and a half 
+ * times meanAreaSize people, split between the categories at random, and people 
+ * are given a category each at random. Files are made with the SyntheticDataGenerator.
+ * @version 1.0
+ */
+class SyntheticInputs {
+    
+    static final int NUMBER_OF_CATEGORIES = 2;	// Categories in the tables, like the sample gender table.
+    static final int MEAN_AREA_SIZE = 100;	// The average number of people in an area.
+    
+    
+    /**
+     * Makes a table.<P>
+     * @param numberOfAreas: the number of areas.
+     * @param meanAreaSize: the average number of people in an area.
+     * @param seed: the seed for the random numbers.
+     **/
+    static Table makeTable(int numberOfAreas, int meanAreaSize, long seed) {
+	
+	Random random = new Random(seed);
+	String [] names = new String[NUMBER_OF_CATEGORIES];
+	for (int category = 0; category < names.length; category++) names[category] = "Value" + category;
+	Table table = new Table(numberOfAreas, names);
+	
+	for (int area = 0; area < numberOfAreas; area++) {
+	    table.setID(area, "A" + area);
+	    int size = meanAreaSize / 2 + random.nextInt(meanAreaSize + 1);
+	    for (int person = 0; person < size; person++) {
+		table.increment(area, random.nextInt(NUMBER_OF_CATEGORIES));
+	    }
+	}
+	return table;
+	
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes some microdata with one attribute.<P>
+     * @param numberOfPeople: the number of people.
+     * @param seed: the seed for the random numbers.
+     **/
+    static MicroData makeMicroData(int numberOfPeople, long seed) {
+	
+	Random random = new Random(seed);
+	PackedStrings ids = new PackedStrings();
+	int [][] columns = new int[1][numberOfPeople];
+	for (int person = 0; person < numberOfPeople; person++) {
+	    ids.add("P" + person);
+	    columns[0][person] = random.nextInt(NUMBER_OF_CATEGORIES);
+	}
+	ids.trim();
+	return new MicroData(new String[] {"Value"}, ids, columns);
+	
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes a generator for files like the tables and microdata made here.<P>
+     * @param numberOfAreas: the number of areas.
+     * @param numberOfPeople: the number of people.
+     **/
+    static SyntheticDataGenerator makeGenerator(int numberOfAreas, int numberOfPeople) {
+	SyntheticDataGenerator generator = new SyntheticDataGenerator();
+	generator.setNumberOfAreas(numberOfAreas);
+	generator.setAreaSizes(MEAN_AREA_SIZE / 2, MEAN_AREA_SIZE * 3 / 2);
+	generator.setNumberOfCategories(NUMBER_OF_CATEGORIES);
+	generator.setNumberOfPeople(numberOfPeople);
+	generator.setSeed(1);
+	return generator;
+    }
+    
+// End of class.
+}
@@ -0,0 +1,109 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * A CoolingSchedule that lowers the temperature according to how many uphill swaps are being kept.<P>
+ * If a lot of the swaps that make the error worse are being kept, the temperature 
+ * is higher than is useful and is cut quickly. Once only a few are being kept, 
+ * the temperature is lowered slowly, so the area gets plenty of swaps at the 
+ * temperatures where it's actually settling down. The schedule stops when the 
+ * temperature reaches endTemperature, or after maxSteps steps.
+ * @version 1.0
+ */
+public class AdaptiveCooling implements CoolingSchedule {
+    
+    private double startTemperature = 0;	// The first temperature.
+    private double endTemperature = 0;		// Stop when the temperature falls below this.
+    private int maxSteps = 0;			// The most steps to take.
+    private double targetAcceptRate = 0;	// Above this proportion of uphill swaps kept, cool quickly.
+    private double temperature = 0;		// The current temperature.
+    private int step = 0;			// The current step, counting up from zero.
+    
+    private static final double FAST = 0.5;	// What the temperature is multiplied by when it's too hot.
+    private static final double SLOW = 0.9;	// What the temperature is multiplied by otherwise.
+    
+    
+    /**
+     * Creates a new AdaptiveCooling.<P>
+     * @param startTemperature: the first temperature.
+     * @param endTemperature: stop when the temperature falls below this.
+     * @param maxSteps: the most steps to take.
+     * @param targetAcceptRate: the proportion of uphill swaps kept, from 0 to 1, above which the temperature is cut quickly.
+     **/
+    public AdaptiveCooling(double startTemperature, double endTemperature, int maxSteps, double targetAcceptRate) {
+	this.startTemperature = startTemperature;
+	this.endTemperature = endTemperature;
+	this.maxSteps = maxSteps;
+	this.targetAcceptRate = targetAcceptRate;
+    }
+    
+    
+    
+    
+    
+    public double start(int areaError) {
+	step = 0;
+	temperature = startTemperature;
+	return (maxSteps > 0) ? temperature : 0;
+    }
+    
+    
+    
+    
+    
+    public double next(int proposed, int accepted, int uphillProposed, int uphillAccepted, int areaError) {
+	
+	// If there were no uphill swaps at all we can't tell, so carry on cooling slowly.
+	
+	double acceptRate = (uphillProposed > 0) ? (double)uphillAccepted / (double)uphillProposed : 0;
+	temperature = temperature * ((acceptRate > targetAcceptRate) ? FAST : SLOW);
+	step++;
+	
+	if ((step >= maxSteps) || (temperature < endTemperature)) return 0;
+	return temperature;
+	
+    }
+    
+    
+    
+    
+    
+    public int getMaxSteps() {
+	return Math.max(0, maxSteps);
+    }
+    
+    
+    
+    
+    
+    public CoolingSchedule copy() {
+	return new AdaptiveCooling(startTemperature, endTemperature, maxSteps, targetAcceptRate);
+    }
+    
+    
+    
+    
+    
+    public String toString() {
+	return "AdaptiveCooling " + startTemperature + " " + endTemperature + " " + maxSteps + " " + targetAcceptRate;
+    }
+    
+// End of class.
+}
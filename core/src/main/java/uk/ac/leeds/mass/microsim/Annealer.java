@@ -0,0 +1,337 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+
+
+/**
+ * Anneals one area at a time, swapping whatever an area is made of in and out until its statistics are ok.<P>
+ * This is the Simulated Annealing loop shared by the Redistributor, which swaps single 
+ * people, and the HouseholdRedistributor, which swaps whole households. Each area is a 
+ * list of "units" (MicroData positions of people or households) in a Population, and 
+ * each area's statistics are a row of cells in an int array of live counts. What a 
+ * swap does to the counts, and how the unit swapped in is drawn, is left to a Moves, 
+ * so the loop doesn't need to know what it's swapping.<P>
+ * An Annealer is used by one thread, for one chunk of areas at a time (see AreaChunks). 
+ * It keeps its own copy of the cooling schedule, a SwapLog and a progress Counter, and 
+ * reuses them from one area to the next. If verifyErrors is set, every swap kept is 
+ * checked against a full recount of the area.
+ * @version 1.0
+ */
+public class Annealer {
+    
+    private RedistributionSettings settings = null;	// The annealing parameters.
+    private CoolingSchedule schedule = null;	// How to lower the temperature, copied for this thread.
+    private ProgressReporter progress = null;	// Who to tell about progress.
+    private ProgressReporter.Counter counter = null;	// Where this thread counts its swaps for progress reports.
+    private Population world = null;		// The units in each area.
+    private int [] currentCounts = null;	// The live counts, one row of cells per area.
+    private int numberOfCells = 0;		// The number of cells in each area's row.
+    private Moves moves = null;			// Works out what swaps do.
+    private RunMetrics metrics = null;		// Where to record how each area went, or null to not bother.
+    private SwapLog swapLog = new SwapLog();	// The swaps kept since the lowest error, so they can be undone.
+    
+    
+    /**
+     * What swapping one unit for another in an area does.<P>
+     * Each thread has its own Moves, so implementations can keep working arrays.
+     **/
+    public interface Moves {
+	
+	/**
+	 * Counts up an area's cells from scratch, into the live counts.<P>
+	 * @param area: the area.
+	 * @return the area's error.
+	 **/
+	public int recount(int area);
+	
+	/**
+	 * Draws a unit to swap into an area.<P>
+	 * @param area: the area.
+	 * @param random: the area's random number generator.
+	 * @return the MicroData position of the unit.
+	 **/
+	public int propose(int area, RandomSource random);
+	
+	/**
+	 * Gets how likely the swap back is to be proposed, compared with this swap.<P>
+	 * This is one if units are drawn evenly. Otherwise the chances of keeping the 
+	 * swap are multiplied by it (the Metropolis-Hastings correction).
+	 * @param area: the area.
+	 * @param leaving: the unit that would leave.
+	 * @param joining: the unit that would join.
+	 **/
+	public double getProposalRatio(int area, int leaving, int joining);
+	
+	/**
+	 * Works out how much a swap would change an area's error.<P>
+	 * This may move the units in the live counts already, in which case keep 
+	 * leaves them and reject moves them back; or it may leave the counts alone, 
+	 * in which case keep moves them.
+	 * @param area: the area.
+	 * @param leaving: the unit that would leave.
+	 * @param joining: the unit that would join.
+	 * @return the change in the area's error.
+	 **/
+	public int tryMove(int area, int leaving, int joining);
+	
+	/**
+	 * Makes sure a swap that's being kept is in the live counts.
+	 **/
+	public void keep(int area, int leaving, int joining);
+	
+	/**
+	 * Makes sure a swap that isn't being kept isn't in the live counts.
+	 **/
+	public void reject(int area, int leaving, int joining);
+	
+    } // End of Moves.
+    
+    
+    
+    
+    
+    /**
+     * Creates a new Annealer, for one thread.<P>
+     * @param settings: the annealing parameters.
+     * @param schedule: how to lower the temperature. It's copied, so can be shared.
+     * @param progress: who to tell about progress.
+     * @param world: the units in each area.
+     * @param currentCounts: the live counts, one row of numberOfCells cells per area.
+     * @param numberOfCells: the number of cells in each area's row.
+     * @param moves: works out what swaps do, for this thread.
+     **/
+    public Annealer(RedistributionSettings settings, CoolingSchedule schedule, ProgressReporter progress, 
+		    Population world, int[] currentCounts, int numberOfCells, Moves moves) {
+	this.settings = settings;
+	this.schedule = schedule.copy();
+	this.progress = progress;
+	this.world = world;
+	this.currentCounts = currentCounts;
+	this.numberOfCells = numberOfCells;
+	this.moves = moves;
+	counter = progress.newCounter();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets where to record the swaps, time and errors for each area annealed.<P>
+     * @param metrics: the metrics, or null to not record them.
+     **/
+    public void setMetrics(RunMetrics metrics) {
+	this.metrics = metrics;
+    }
+    
+    
+    
+    
+    
+    /**
+     * The meat of the annealing. Swaps units in and out of one area until its statistics are ok.<P>
+     * Random units are swapped out of the area, and replaced by another drawn by the 
+     * Moves. If the error goes down the change is kept, otherwise the old unit is put 
+     * back. This "gradient descent" style method is adjusted by the Simulated Annealing 
+     * algorithm, which allows worse errors to be kept with a probablity that reduces 
+     * over time. At the end the area is taken back to the lowest error seen.
+     * @param area: the area to work on.
+     * @param random: the area's random number generator.
+     * @return the area's error at the end.
+     **/
+    public int anneal(int area, RandomSource random) {
+	
+	int maxRuns = settings.getMaxRuns();
+	int errorMargin = settings.getErrorMargin();
+	long stallWindow = settings.getStallWindow();
+	
+	// Calculate the starting error for the area with a full rescan. After 
+	// this the live counts are kept up to date as units are swapped, so the 
+	// error only ever needs adjusting by the change each swap makes, rather 
+	// than recounting everyone in the area.
+	
+	long startTime = System.nanoTime();
+	int areaError = moves.recount(area);
+	int startingError = areaError;
+	
+	// The swaps are counted up here, for the metrics, as well as for the 
+	// progress reports and the schedule.
+	
+	long totalProposed = 0;
+	long totalAccepted = 0;
+	long totalUphill = 0;
+	long totalUphillAccepted = 0;
+	
+	// The algorithm can wander off into bad solutions and get lost, so 
+	// we keep track of the lowest error set of units we've seen. Rather 
+	// than copying the units, every swap kept since the lowest error 
+	// is noted in a log so it can be undone.
+	
+	int minError = areaError;
+	swapLog.clear();
+	
+	// If the lowest error hasn't improved for stallWindow swaps, the area is 
+	// stuck, and we give up on it.
+	
+	long swapsSinceImprovement = 0;
+	boolean stalled = false;
+	
+	// Set up the SA temperature to drop. The schedule says how. An empty 
+	// area has nothing to swap, whatever its error.
+	
+	double temperature = schedule.start(areaError);
+	
+	while ((temperature > 0) && (world.getAreaSize(area) > 0)) {
+	    
+	    // We're going to carry on until the error is low, or we exceed a fixed
+	    // number of runs. The swaps are counted for the schedule.
+	    
+	    int runs = 0;
+	    int accepted = 0;
+	    int uphill = 0;
+	    int uphillAccepted = 0;
+	    
+	    // Start swapping.
+	    
+	    while ((areaError > errorMargin) && (runs < maxRuns)) {
+		
+		// Pick one of the units in the area to replace with a new one.
+		
+		int slot = world.pickSlot(area, random);
+		int leaving = world.getPerson(area, slot);
+		int joining = moves.propose(area, random);
+		
+		// If units aren't all equally likely to be drawn, the chances of 
+		// keeping the swap have to be multiplied by how likely the swap back 
+		// would be to be drawn compared with this one, or the answers drift 
+		// towards the units that are easy to draw (this is the 
+		// Metropolis-Hastings correction). Drawing evenly, the two are the same.
+		
+		double proposalRatio = moves.getProposalRatio(area, leaving, joining);
+		
+		// Work out what the error would be after the swap, and decide whether 
+		// to keep the swap or not.
+		
+		int newAreaError = areaError + moves.tryMove(area, leaving, joining);
+		counter.swapsProposed++;
+		boolean keep = false;
+		if (newAreaError > areaError) {
+		    
+		    // Keep bad choices with a probablity relating to how bad they are and 
+		    // the current temperature.
+		    
+		    // The next line is lifted almost entirely from Dimitris' SimLeeds.
+		    
+		    keep = random.nextDouble() < Math.exp((-1 * ((double)newAreaError - (double)areaError))/temperature) * proposalRatio;
+		    uphill++;
+		    if (keep) uphillAccepted++;
+		    
+		} else {
+		    
+		    // Good choices are always kept, unless the swap back is much less 
+		    // likely to be drawn than this one was.
+		    
+		    keep = (proposalRatio >= 1) 
+			|| (random.nextDouble() < Math.exp((-1 * ((double)newAreaError - (double)areaError))/temperature) * proposalRatio);
+		    
+		}
+		
+		swapsSinceImprovement++;
+		if (keep) {
+		    swapLog.record(world.replacePerson(area, slot, joining), leaving);
+		    moves.keep(area, leaving, joining);
+		    if (settings.getVerifyErrors()) verifyCounts(area);
+		    counter.swapsAccepted++;
+		    counter.errorChange = counter.errorChange + newAreaError - areaError;
+		    areaError = newAreaError;
+		    accepted++;
+		    
+		    // If this is the lowest error we've seen, the current units are 
+		    // the ones to keep, so there's nothing to undo back to.
+		    if (areaError < minError) {
+			minError = areaError;
+			swapLog.clear();
+			swapsSinceImprovement = 0;
+		    }
+		} else {
+		    moves.reject(area, leaving, joining);
+		}
+		
+		// Every so often, let the progress reporter know how we're doing.
+		
+		if (--counter.countdown == 0) progress.flush(counter);
+		runs++;
+		
+		if ((stallWindow > 0) && (swapsSinceImprovement >= stallWindow)) {
+		    stalled = true;
+		    break;
+		}
+		
+	    } // End of swapping while loop.
+	    
+	    totalProposed = totalProposed + runs;
+	    totalAccepted = totalAccepted + accepted;
+	    totalUphill = totalUphill + uphill;
+	    totalUphillAccepted = totalUphillAccepted + uphillAccepted;
+	    
+	    // If we're ok with the current answer, or stuck, don't bother reducing the temperature.
+	    
+	    if ((areaError <= errorMargin) || stalled) break;
+	    
+	    temperature = schedule.next(runs, accepted, uphill, uphillAccepted, areaError);
+	    
+	} // End of temperature decrease loop.
+	
+	// Check to make sure the error is the lowest we've seen, and if it isn't, 
+	// undo the swaps back to the units that gave it.
+	
+	if (areaError > minError) {
+	    swapLog.undo(world, area);
+	    moves.recount(area);
+	    counter.errorChange = counter.errorChange + minError - areaError;
+	}
+	progress.areaFinished(counter);
+	if (metrics != null) {
+	    metrics.recordAnnealing(area, startingError, totalProposed, totalAccepted, totalUphill, totalUphillAccepted, System.nanoTime() - startTime);
+	}
+	return minError;
+	
+    } // End of anneal.
+    
+    
+    
+    
+    
+    /**
+     * Checks the live counts for an area against a full recount, for testing.
+     * @throws IllegalStateException if they differ.
+     **/
+    private void verifyCounts(int area) {
+	int row = area * numberOfCells;
+	int[] liveCounts = Arrays.copyOfRange(currentCounts, row, row + numberOfCells);
+	moves.recount(area);
+	if (!Arrays.equals(liveCounts, Arrays.copyOfRange(currentCounts, row, row + numberOfCells))) {
+	    throw new IllegalStateException("Incremental counts for area " + area + " differ from a full rescan");
+	}
+    }
+    
+// End of class.
+}
@@ -0,0 +1,151 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/**
+ * Shares the areas of a run out between threads, in chunks of consecutive areas.<P>
+ * Areas are split into chunks of roughly the same amount of work, guessed from 
+ * each area's population (see Constraints.getAreaPopulation) plus a fixed amount 
+ * for each area, such as the most swaps it can be given. Small areas therefore 
+ * get grouped together so each chunk is worth handing to a thread. With more than 
+ * one thread there are CHUNKS_PER_THREAD chunks for each, handed to a ForkJoinPool, 
+ * so threads that finish early steal chunks from the others. With one thread, 
+ * all the areas are one chunk, done on the calling thread.<P>
+ * Each chunk is done by one call to a Task, which can set up whatever a thread 
+ * needs (a SwapLog, a copy of the cooling schedule, and so on) once for all its 
+ * areas. This is used by the Redistributor, HouseholdRedistributor and IpfReweighter.
+ * @version 1.0
+ */
+public class AreaChunks {
+    
+    public static final int CHUNKS_PER_THREAD = 8;	// Areas are split into this many chunks per thread, so threads that finish early can take work from others.
+    
+    
+    /**
+     * Something to do to every area in a chunk.
+     **/
+    public interface Task {
+	
+	/**
+	 * Does the areas in one chunk, on the thread that calls it.<P>
+	 * @param firstArea: the first area in the chunk.
+	 * @param endArea: one more than the last area in the chunk.
+	 **/
+	public void run(int firstArea, int endArea);
+	
+    } // End of Task.
+    
+    
+    
+    
+    
+    /**
+     * Not used; everything is static.
+     **/
+    private AreaChunks() {
+    }
+    
+    
+    
+    
+    
+    /**
+     * Splits the areas into chunks and does them, on as many threads as asked for.<P>
+     * Returns once every chunk is done. If a Task throws an exception, it's thrown on here.
+     * @param constraints: the tables, for each area's population.
+     * @param workPerArea: the work each area is guessed to be on top of its population.
+     * @param numberOfThreads: the number of threads to use.
+     * @param task: what to do to each chunk.
+     **/
+    public static void run(Constraints constraints, long workPerArea, int numberOfThreads, final Task task) {
+	
+	int[] chunkStarts = split(constraints, workPerArea, (numberOfThreads == 1) ? 1 : numberOfThreads * CHUNKS_PER_THREAD);
+	
+	if (numberOfThreads == 1) {
+	    for (int chunk = 0; chunk < chunkStarts.length - 1; chunk++) task.run(chunkStarts[chunk], chunkStarts[chunk + 1]);
+	    return;
+	}
+	
+	final RecursiveAction[] chunks = new RecursiveAction[chunkStarts.length - 1];
+	for (int chunk = 0; chunk < chunks.length; chunk++) {
+	    final int firstArea = chunkStarts[chunk];
+	    final int endArea = chunkStarts[chunk + 1];
+	    chunks[chunk] = new RecursiveAction() {
+		protected void compute() {
+		    task.run(firstArea, endArea);
+		}
+	    };
+	}
+	
+	ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+	try {
+	    pool.invoke(new RecursiveAction() {
+		protected void compute() {
+		    invokeAll(chunks);
+		}
+	    });
+	} finally {
+	    pool.shutdown();
+	}
+	
+    } // End of run.
+    
+    
+    
+    
+    
+    /**
+     * Splits the areas into consecutive chunks of roughly the same amount of work.<P>
+     * @param constraints: the tables, for each area's population.
+     * @param workPerArea: the work each area is guessed to be on top of its population.
+     * @param numberOfChunks: the number of chunks wanted. There may be fewer if there are fewer areas.
+     * @return the first area of each chunk, followed by the number of areas.
+     **/
+    static int[] split(Constraints constraints, long workPerArea, int numberOfChunks) {
+	
+	int numberOfAreas = constraints.getNumberOfAreas();
+	long totalWork = 0;
+	for (int area = 0; area < numberOfAreas; area++) {
+	    totalWork = totalWork + constraints.getAreaPopulation(area) + workPerArea;
+	}
+	long workPerChunk = Math.max(1, totalWork / Math.max(1, numberOfChunks));
+	
+	int[] chunkStarts = new int[numberOfAreas + 1];
+	int chunks = 0;
+	long work = 0;
+	for (int area = 0; area < numberOfAreas; area++) {
+	    if (work == 0) {
+		chunkStarts[chunks] = area;
+		chunks++;
+	    }
+	    work = work + constraints.getAreaPopulation(area) + workPerArea;
+	    if (work >= workPerChunk) work = 0;
+	}
+	chunkStarts[chunks] = numberOfAreas;
+	
+	return Arrays.copyOf(chunkStarts, chunks + 1);
+	
+    } // End of split.
+    
+// End of class.
+}
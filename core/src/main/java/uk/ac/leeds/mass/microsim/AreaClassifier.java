@@ -0,0 +1,99 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * Sorts areas into those that need annealing and those that can be done without it.<P>
+ * Many areas don't need any swaps. An area with nobody in it is EMPTY. An area 
+ * where every table apart from the first has all its people in one category is 
+ * EXACT: everyone in it has to have those categories, so the first table just 
+ * says how many people to take of each kind, and if the MicroData has people of 
+ * every kind needed, picking them directly gets the area exactly right (IpfStart 
+ * does this, as IPF weights can only end up on those kinds). With only one table, 
+ * every area that has someone in the sample for each of its categories is EXACT. 
+ * An area that has to be annealed but is already right once it's been filled 
+ * is CONVERGED. Anything else needs annealing, and is ANNEAL.<P>
+ * The classifier keeps a working array between areas, so must only be used by one 
+ * thread at a time.
+ * @version 1.0
+ */
+public class AreaClassifier {
+    
+    public static final byte ANNEAL = 0;	// The area needs annealing.
+    public static final byte EMPTY = 1;		// The area has nobody in it.
+    public static final byte EXACT = 2;		// The area can be filled exactly right without annealing.
+    public static final byte CONVERGED = 3;	// The area was right as soon as it was filled.
+    
+    private Constraints constraints = null;	// The tables.
+    private Profiles profiles = null;		// The kinds of people in the MicroData.
+    private int [] cells = null;		// A cell for each table, for looking up profiles.
+    
+    
+    /**
+     * Creates a new AreaClassifier.<P>
+     * @param constraints: the tables and people.
+     * @param profiles: the kinds of people, grouped from the same constraints.
+     **/
+    public AreaClassifier(Constraints constraints, Profiles profiles) {
+	this.constraints = constraints;
+	this.profiles = profiles;
+	cells = new int[constraints.getNumberOfConstraints()];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Works out whether an area is EMPTY, EXACT or needs annealing, before it's filled.<P>
+     * Whether it's CONVERGED can only be known once it has been filled.
+     * @param area: the area.
+     * @return EMPTY, EXACT or ANNEAL.
+     **/
+    public byte classify(int area) {
+	
+	if (constraints.getAreaPopulation(area) == 0) return EMPTY;
+	
+	// Every table after the first must have just one category with people in.
+	
+	for (int constraint = 1; constraint < constraints.getNumberOfConstraints(); constraint++) {
+	    cells[constraint] = -1;
+	    for (int cell = constraints.getCellOffset(constraint); cell < constraints.getCellOffset(constraint + 1); cell++) {
+		if (constraints.getTarget(area, cell) == 0) continue;
+		if (cells[constraint] >= 0) return ANNEAL;
+		cells[constraint] = cell;
+	    }
+	    if (cells[constraint] < 0) return ANNEAL;
+	}
+	
+	// And there must be people with those categories for every category of 
+	// the first table the area has people in.
+	
+	for (int cell = 0; cell < constraints.getCellOffset(1); cell++) {
+	    if (constraints.getTarget(area, cell) == 0) continue;
+	    cells[0] = cell;
+	    if (profiles.findProfile(cells) < 0) return ANNEAL;
+	}
+	
+	return EXACT;
+	
+    } // End of classify.
+    
+// End of class.
+}
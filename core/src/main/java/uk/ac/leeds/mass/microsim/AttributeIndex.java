@@ -0,0 +1,152 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * The people in the microdata grouped by their value of one attribute.<P>
+ * For each value, the people with it are listed one after another in one big 
+ * array, in the order they are in the MicroData, with a second array saying where 
+ * each value's list starts. This is the "bucket" every table about the attribute 
+ * needs: the people in each of its categories. It only depends on the MicroData, 
+ * so it can be made once, when first needed, and kept with it (see 
+ * MicroData.getAttributeIndex), or saved with it (see MicroDataCache). People 
+ * with values below zero, which no table can use, are left out.
+ * @version 1.0
+ */
+public class AttributeIndex {
+    
+    private int [] valueStarts = null;	    // Where each value's people start in people, plus where the next would start.
+    private int [] people = null;	    // The MicroData positions of the people with each value, value by value.
+    
+    
+    /**
+     * Groups the people by one of their attributes.<P>
+     * @param microData: the people.
+     * @param attribute: the attribute, starting with zero.
+     **/
+    public AttributeIndex(MicroData microData, int attribute) {
+	
+	int numberOfPeople = microData.getNumberOfPeople();
+	int numberOfValues = 0;
+	for (int person = 0; person < numberOfPeople; person++) {
+	    numberOfValues = Math.max(numberOfValues, microData.getValue(person, attribute) + 1);
+	}
+	
+	// Count the people with each value, then turn the counts into start positions.
+	
+	valueStarts = new int[numberOfValues + 1];
+	for (int person = 0; person < numberOfPeople; person++) {
+	    int value = microData.getValue(person, attribute);
+	    if (value >= 0) valueStarts[value + 1]++;
+	}
+	for (int value = 0; value < numberOfValues; value++) {
+	    valueStarts[value + 1] = valueStarts[value + 1] + valueStarts[value];
+	}
+	
+	// Then put each person in, in the order they are in the MicroData.
+	
+	people = new int[valueStarts[numberOfValues]];
+	int [] next = new int[numberOfValues];
+	System.arraycopy(valueStarts, 0, next, 0, numberOfValues);
+	for (int person = 0; person < numberOfPeople; person++) {
+	    int value = microData.getValue(person, attribute);
+	    if (value >= 0) people[next[value]++] = person;
+	}
+	
+    } // End of constructor.
+    
+    
+    
+    
+    
+    /**
+     * Makes an AttributeIndex from arrays made earlier, for example ones read back from a file.<P>
+     * @param valueStarts: where each value's people start, followed by the number of people.
+     * @param people: the people, value by value.
+     **/
+    public AttributeIndex(int[] valueStarts, int[] people) {
+	this.valueStarts = valueStarts;
+	this.people = people;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets one more than the largest value anybody has.
+     **/
+    public int getNumberOfValues() {
+	return valueStarts.length - 1;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of people with a value.<P>
+     * @param value: the value. Values nobody has, however big, have no people.
+     **/
+    public int getSize(int value) {
+	if ((value < 0) || (value >= valueStarts.length - 1)) return 0;
+	return valueStarts[value + 1] - valueStarts[value];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Copies the people with a value into an array.<P>
+     * @param value: the value.
+     * @param destination: the array to copy into. There must be room for getSize(value) people.
+     * @param position: where to put them in the array.
+     * @return the position just after the copied people.
+     **/
+    public int copy(int value, int[] destination, int position) {
+	int size = getSize(value);
+	if (size > 0) System.arraycopy(people, valueStarts[value], destination, position, size);
+	return position + size;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets where each value's people start, followed by the number of people. Don't change them.
+     **/
+    public int[] getValueStarts() {
+	return valueStarts;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the people, value by value. Don't change them.
+     **/
+    public int[] getPeople() {
+	return people;
+    }
+    
+// End of class.
+}
@@ -0,0 +1,690 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+import java.io.*;
+
+
+/**
+ * Runs a redistribution from the command line, with no user interface.<P>
+ * This is for running large jobs on machines without a screen. It takes the 
+ * table to replicate, the microdata and the file to write to, followed by any 
+ * of the annealing parameters you want to change from the defaults:<BR>
+ * <CODE>java -jar microsimulation-core.jar table.csv microdata.csv output.csv [-maxRuns 2] 
+ * [-errorMargin 0] [-maxTemperature 20] [-temperatureConversion 5] [-threads 1] 
+ * [-seed 42] [-reportEverySwaps 1000000] [-reportEveryMillis 1000] [-quiet] 
+ * [-verifyErrors] [-targeted 0.5] [-random splittable] [-cooling linear] [-reheats 0] 
+ * [-stallWindow 0] [-start random] [-format csv] [-method anneal] [-weights dense] 
+ * [-shortcuts on] [-population expanded] [-checkpoint run.ckpt] [-checkpointEveryMillis 600000] [-resume] [-metrics report.json] 
+ * [-workers 1] [-workerHeap 4g] [-areas 0:1000] [-stream 64] [-cache microdata.cache] 
+ * [-table another.csv ...] [-households households.csv -personTable people.csv ...]</CODE><P>
+ * The files are in the same formats the Distributor GUI reads and writes. Progress 
+ * is printed now and then unless -quiet is given. To match several tables at once, 
+ * add each extra one with -table. The tables are matched against the MicroData 
+ * attributes in order: the first table against the first attribute, the first 
+ * -table against the second, and so on. -targeted sets the proportion of new 
+ * people drawn from the kinds each area is short of, rather than from everyone.<P>
+ * -format says how to write the output: csv (the default), gzip (gzipped csv, 
+ * also used if the output file name ends in .gz), binary (MicroData positions; 
+ * see BinaryPopulationWriter) or weights (how many times each person is used 
+ * in each area; see WeightsPopulationWriter) or indexed (MicroData positions with 
+ * an index, for reading an area at a time; see IndexedPopulationWriter and 
+ * IndexedPopulationFile). -random picks the random number 
+ * generator: splittable (the default; see SplittableRandomSource) or xoroshiro 
+ * (see XoroshiroRandomSource).<P>
+ * -cooling picks how the temperature is lowered: linear (the default), geometric 
+ * or adaptive, each going from temperatureConversion down to temperatureConversion 
+ * / maxTemperature (see LinearCooling, GeometricCooling and AdaptiveCooling). 
+ * -reheats runs the schedule again, at half the temperatures each time, up to that 
+ * many times for areas that aren't right (see ReheatingCooling). -stallWindow gives 
+ * up on an area once its error hasn't improved for that many swaps. -start ipf 
+ * fills the areas with people fitted to the tables before annealing, rather than 
+ * random people (see IpfStart). -shortcuts off anneals every area, rather than 
+ * filling the ones that can be got exactly right directly (see AreaClassifier). 
+ * -population weighted holds each area as MicroData people and how many copies 
+ * of each there are, rather than a slot for every person (see WeightedArea).<P>
+ * -method ipf makes the population by iterative proportional fitting instead of 
+ * annealing (see IpfReweighter), ignoring the annealing parameters. -weights sparse 
+ * keeps only its weights that aren't zero, which saves memory with detailed tables. 
+ * There are no swaps to save part way through or count, so it can't be used with 
+ * -checkpoint, -resume or -metrics.<P>
+ * -checkpoint saves the finished areas to a file every -checkpointEveryMillis (ten 
+ * minutes by default). Run the same command again with -resume to carry on from the 
+ * checkpoint, if there is one, with the seed saved in it; the results are the same 
+ * as if the first run hadn't stopped (see Checkpoint). A checkpoint made with 
+ * different options, tables or microdata is turned down.<P>
+ * -metrics writes the swaps, time and errors for the run (see RunMetrics): as JSON 
+ * totals, histograms and worst areas if the file name ends in .json, otherwise as 
+ * CSV with a line per area.<P>
+ * -households makes up whole households rather than single people (see 
+ * HouseholdRedistributor). The microdata file is then the people, with their 
+ * household's ID after their own (see Households). The table and any -table files 
+ * are matched against the household attributes, and each -personTable against 
+ * the people's attributes, in order. The people are written out, household by 
+ * household. Households can't be used with -workers, -areas, -stream, -checkpoint, 
+ * -metrics or -cache.<P>
+ * -workers splits the areas into that many consecutive parts and runs each in 
+ * its own Java process (see PartitionedRun), with -workerHeap as its -Xmx if given, 
+ * then joins their results in area order. With the same -seed, the results are 
+ * the same as a single process. Any -checkpoint and -metrics files get a part 
+ * number added for each worker, and -resume then needs the -seed of the first 
+ * run. Each worker is this program with -areas first:end, which does just those 
+ * rows of the tables, and can be run by hand to split a job between machines. 
+ * Workers are also given -result, which writes the total error to a file of its 
+ * own, for this process to add up.<P>
+ * -stream reads the tables that many rows at a time, and anneals and writes each 
+ * block of areas before going on, so memory doesn't grow with the number of areas 
+ * (see StreamingRun). The results are the same. It needs csv, gzip or weights 
+ * output, and can't be used with -method ipf, -checkpoint or -metrics.<P>
+ * -cache keeps the microdata, once read, in a binary file, and loads it from there 
+ * next time if the microdata file hasn't changed (see MicroDataCache). Running many 
+ * jobs against the same sample then only reads its CSV once.
+ * @version 1.0
+ */
+public class BatchDistributor {
+    
+    
+    /**
+     * Reads the arguments, runs the redistribution and writes the results.<P>
+     * Exits with a status of 1 if the arguments don't make sense or the 
+     * results can't be written.
+     **/
+    public static void main(String[] args) {
+	
+	if (args.length < 3) {
+	    usage("Need a table, microdata and output file.");
+	}
+	
+	// Work through the optional arguments, which come in name/value pairs, 
+	// apart from the ones that are just switches.
+	
+	RedistributionSettings settings = new RedistributionSettings();
+	boolean quiet = false;
+	String format = args[2].endsWith(".gz") ? "gzip" : "csv";
+	String generator = "splittable";
+	String cooling = "linear";
+	int reheats = 0;
+	String method = "anneal";
+	String weightStorage = "dense";
+	boolean resume = false;
+	boolean seedGiven = false;
+	File metricsFile = null;
+	File householdFile = null;
+	int workers = 1;
+	String workerHeap = null;
+	boolean areasGiven = false;
+	int firstArea = 0;
+	int endArea = Integer.MAX_VALUE;
+	int areasPerBlock = 0;
+	File cacheFile = null;
+	File resultFile = null;
+	ArrayList<File> personTableFiles = new ArrayList<File>();
+	ArrayList<File> tableFiles = new ArrayList<File>();
+	tableFiles.add(new File(args[0]));
+	
+	for (int i = 3; i < args.length; i++) {
+	    
+	    String name = args[i];
+	    
+	    if (name.equals("-quiet")) {
+		quiet = true;
+		continue;
+	    }
+	    if (name.equals("-verifyErrors")) {
+		settings.setVerifyErrors(true);
+		continue;
+	    }
+	    if (name.equals("-resume")) {
+		resume = true;
+		continue;
+	    }
+	    
+	    if (i + 1 >= args.length) usage("No value given for " + name);
+	    String value = args[++i];
+	    
+	    try {
+		if (name.equals("-maxRuns")) {
+		    settings.setMaxRuns(Integer.parseInt(value));
+		} else if (name.equals("-errorMargin")) {
+		    settings.setErrorMargin(Integer.parseInt(value));
+		} else if (name.equals("-maxTemperature")) {
+		    settings.setMaxTemperature(Integer.parseInt(value));
+		} else if (name.equals("-temperatureConversion")) {
+		    settings.setTemperatureConversion(Integer.parseInt(value));
+		} else if (name.equals("-threads")) {
+		    settings.setNumberOfThreads(Integer.parseInt(value));
+		} else if (name.equals("-seed")) {
+		    settings.setSeed(Long.parseLong(value));
+		    seedGiven = true;
+		} else if (name.equals("-reportEverySwaps")) {
+		    settings.setReportEverySwaps(Long.parseLong(value));
+		} else if (name.equals("-reportEveryMillis")) {
+		    settings.setReportEveryMillis(Long.parseLong(value));
+		} else if (name.equals("-targeted")) {
+		    settings.setTargetedProposals(Double.parseDouble(value));
+		} else if (name.equals("-format")) {
+		    format = value;
+		} else if (name.equals("-random")) {
+		    generator = value;
+		} else if (name.equals("-cooling")) {
+		    cooling = value;
+		} else if (name.equals("-reheats")) {
+		    reheats = Integer.parseInt(value);
+		} else if (name.equals("-stallWindow")) {
+		    settings.setStallWindow(Long.parseLong(value));
+		} else if (name.equals("-start")) {
+		    if (!value.equals("random") && !value.equals("ipf")) usage("Unknown start " + value);
+		    settings.setIpfStart(value.equals("ipf"));
+		} else if (name.equals("-households")) {
+		    householdFile = new File(value);
+		} else if (name.equals("-personTable")) {
+		    personTableFiles.add(new File(value));
+		} else if (name.equals("-shortcuts")) {
+		    if (!value.equals("on") && !value.equals("off")) usage("-shortcuts must be on or off");
+		    settings.setShortcutAreas(value.equals("on"));
+		} else if (name.equals("-population")) {
+		    if (!value.equals("expanded") && !value.equals("weighted")) usage("-population must be expanded or weighted");
+		    settings.setWeightedPopulation(value.equals("weighted"));
+		} else if (name.equals("-metrics")) {
+		    metricsFile = new File(value);
+		} else if (name.equals("-checkpoint")) {
+		    settings.setCheckpointFile(new File(value));
+		} else if (name.equals("-checkpointEveryMillis")) {
+		    settings.setCheckpointEveryMillis(Long.parseLong(value));
+		} else if (name.equals("-method")) {
+		    method = value;
+		} else if (name.equals("-weights")) {
+		    weightStorage = value;
+		} else if (name.equals("-table")) {
+		    tableFiles.add(new File(value));
+		} else if (name.equals("-workers")) {
+		    workers = Integer.parseInt(value);
+		} else if (name.equals("-cache")) {
+		    cacheFile = new File(value);
+		} else if (name.equals("-stream")) {
+		    areasPerBlock = Integer.parseInt(value);
+		    if (areasPerBlock < 1) usage("-stream needs at least one area per block");
+		} else if (name.equals("-result")) {
+		    resultFile = new File(value);
+		} else if (name.equals("-workerHeap")) {
+		    workerHeap = value;
+		} else if (name.equals("-areas")) {
+		    int colon = value.indexOf(':');
+		    if (colon < 0) usage("-areas must be first:end");
+		    firstArea = Integer.parseInt(value.substring(0, colon));
+		    endArea = Integer.parseInt(value.substring(colon + 1));
+		    if ((firstArea < 0) || (endArea < firstArea)) usage("-areas must be first:end, with first no more than end");
+		    areasGiven = true;
+		} else {
+		    usage("Unknown option " + name);
+		}
+	    } catch (NumberFormatException nfe) {
+		usage("Not a number for " + name + ": " + value);
+	    }
+	    
+	}
+	
+	// IPF has nothing to checkpoint or measure, so say so before reading any checkpoint.
+	
+	if (method.equals("ipf") && ((settings.getCheckpointFile() != null) || resume || (metricsFile != null))) {
+	    usage("-method ipf can't be used with -checkpoint, -resume or -metrics");
+	}
+	
+	// When resuming, the seed comes from the checkpoint, so the random numbers 
+	// carry on where they left off.
+	
+	Checkpoint checkpoint = null;
+	if (resume) {
+	    if (settings.getCheckpointFile() == null) usage("-resume needs a -checkpoint file.");
+	    if (settings.getCheckpointFile().isFile()) {
+		try {
+		    checkpoint = Checkpoint.read(settings.getCheckpointFile());
+		} catch (IOException ioe) {
+		    usage("Couldn't read checkpoint: " + ioe.getMessage());
+		}
+		if (!seedGiven) settings.setSeed(checkpoint.getSeed());
+	    }
+	}
+	
+	if (generator.equals("xoroshiro")) {
+	    settings.setRandomSource(new XoroshiroRandomSource(settings.getSeed()));
+	} else if (!generator.equals("splittable")) {
+	    usage("Unknown random number generator " + generator);
+	}
+	
+	double startTemperature = settings.getTemperatureConversion();
+	double endTemperature = startTemperature / Math.max(1, settings.getMaxTemperature());
+	CoolingSchedule schedule = null;
+	if (cooling.equals("linear")) {
+	    schedule = new LinearCooling(settings.getMaxTemperature(), settings.getTemperatureConversion());
+	} else if (cooling.equals("geometric")) {
+	    schedule = new GeometricCooling(startTemperature, endTemperature, settings.getMaxTemperature());
+	} else if (cooling.equals("adaptive")) {
+	    schedule = new AdaptiveCooling(startTemperature, endTemperature, settings.getMaxTemperature() * 2, 0.2);
+	} else {
+	    usage("Unknown cooling schedule " + cooling);
+	}
+	if (reheats > 0) schedule = new ReheatingCooling(schedule, reheats, 0.5, settings.getErrorMargin());
+	settings.setCoolingSchedule(schedule);
+	
+	if (!method.equals("anneal") && !method.equals("ipf")) usage("Unknown method " + method);
+	if (!weightStorage.equals("dense") && !weightStorage.equals("sparse")) usage("Unknown weights " + weightStorage);
+	
+	PopulationWriter writer = null;
+	if (format.equals("csv")) {
+	    writer = new CsvPopulationWriter(false);
+	} else if (format.equals("gzip")) {
+	    writer = new CsvPopulationWriter(true);
+	} else if (format.equals("binary")) {
+	    writer = new BinaryPopulationWriter();
+	} else if (format.equals("weights")) {
+	    writer = new WeightsPopulationWriter();
+	} else if (format.equals("indexed")) {
+	    writer = new IndexedPopulationWriter();
+	} else {
+	    usage("Unknown format " + format);
+	}
+	
+	// Check the input files are there before going any further.
+	
+	File microDataFile = new File(args[1]);
+	for (int table = 0; table < tableFiles.size(); table++) {
+	    if (!tableFiles.get(table).isFile()) usage("Can't find table file " + tableFiles.get(table));
+	}
+	if (!microDataFile.isFile()) usage("Can't find microdata file " + microDataFile);
+	
+	// With households, whole households are annealed, and there's a second set of tables.
+	
+	if (householdFile != null) {
+	    if ((workers > 1) || areasGiven) usage("Households can't be split by area");
+	    if (areasPerBlock > 0) usage("Households can't be streamed");
+	    if ((settings.getCheckpointFile() != null) || (metricsFile != null)) usage("Households can't be used with -checkpoint or -metrics");
+	    if (cacheFile != null) usage("Households can't be read from a -cache");
+	    if (!householdFile.isFile()) usage("Can't find household file " + householdFile);
+	    if (personTableFiles.isEmpty()) usage("Households need at least one -personTable");
+	    if (!method.equals("anneal")) usage("Households can only be annealed");
+	    for (int table = 0; table < personTableFiles.size(); table++) {
+		if (!personTableFiles.get(table).isFile()) usage("Can't find table file " + personTableFiles.get(table));
+	    }
+	    runHouseholds(householdFile, microDataFile, tableFiles, personTableFiles, new File(args[2]), settings, writer, quiet);
+	    return;
+	}
+	
+	if (areasPerBlock > 0) {
+	    if (!method.equals("anneal")) usage("-stream can only anneal");
+	    if ((settings.getCheckpointFile() != null) || (metricsFile != null)) usage("-stream can't be used with -checkpoint or -metrics");
+	    if (!(writer instanceof StreamingPopulationWriter)) usage("-stream needs csv, gzip or weights output");
+	}
+	
+	// With workers, this process just shares out the areas and joins up the results.
+	
+	if (workers > 1) {
+	    if (areasGiven) usage("-areas and -workers can't be used together");
+	    if (format.equals("indexed")) usage("-workers can't join indexed files, so needs another -format");
+	    if (resume && !seedGiven) usage("-resume with -workers needs the -seed of the first run");
+	    runPartitioned(args, workers, workerHeap, format, settings.getSeed(), new File(args[2]));
+	    return;
+	}
+	
+	// Read the data, and do the work. A worker only reads its own rows, and 
+	// numbers its areas from the first of them.
+	
+	MicroData microData = null;
+	try {
+	    if (cacheFile != null) {
+		microData = MicroDataCache.load(microDataFile, cacheFile);
+	    } else {
+		microData = new MicroData(microDataFile.getPath());
+	    }
+	} catch (IOException ioe) {
+	    usage("Couldn't read microdata: " + ioe.getMessage());
+	} catch (UncheckedIOException uioe) {
+	    usage(uioe.getMessage());
+	}
+	if (areasGiven) settings.setAreaOffset(firstArea);
+	if (areasPerBlock > 0) {
+	    runStreaming(tableFiles, microData, firstArea, endArea, areasPerBlock, settings, (StreamingPopulationWriter)writer, new File(args[2]), resultFile);
+	    return;
+	}
+	Table[] tables = new Table[tableFiles.size()];
+	int[] attributes = new int[tableFiles.size()];
+	for (int table = 0; table < tables.length; table++) {
+	    tables[table] = new Table(tableFiles.get(table).getPath(), firstArea, endArea);
+	    attributes[table] = table;
+	}
+	Table tableToReplicate = tables[0];
+	
+	Constraints constraints = null;
+	try {
+	    constraints = new Constraints(tables, attributes, microData);
+	} catch (IllegalArgumentException iae) {
+	    usage(iae.getMessage());
+	}
+	
+	long start = System.currentTimeMillis();
+	long totalError = 0;
+	
+	try {
+	    if (method.equals("ipf")) {
+		IpfReweighter reweighter = new IpfReweighter(constraints, settings);
+		reweighter.setSparse(weightStorage.equals("sparse"));
+		reweighter.run();
+		reweighter.write(new File(args[2]), writer);
+		totalError = reweighter.getTotalError();
+	    } else {
+		Redistributor redistributor = new Redistributor(constraints, settings);
+		if (!quiet) redistributor.setProgressListener(new LogProgressListener(System.out));
+		if (checkpoint != null) {
+		    redistributor.resume(checkpoint);
+		} else {
+		    redistributor.run();
+		}
+		redistributor.write(new File(args[2]), writer);
+		totalError = redistributor.getTotalError();
+		if (metricsFile != null) {
+		    if (metricsFile.getName().endsWith(".json")) {
+			redistributor.getMetrics().writeJson(metricsFile);
+		    } else {
+			redistributor.getMetrics().writeCsv(metricsFile);
+		    }
+		}
+	    }
+	} catch (IOException ioe) {
+	    System.err.println("Couldn't write results: " + ioe.getMessage());
+	    System.exit(1);
+	} catch (UncheckedIOException uioe) {
+	    System.err.println(uioe.getMessage());
+	    System.exit(1);
+	} catch (IllegalArgumentException iae) {
+	    usage(iae.getMessage());
+	}
+	
+	System.out.println();
+	writeResult(resultFile, totalError);
+	System.out.println("Areas: " + tableToReplicate.getNumberOfAreas() + " Total error: " + totalError 
+	    + " Seed: " + settings.getSeed() + " Time: " + (System.currentTimeMillis() - start) + "ms");
+	
+    } // End of main.
+    
+    
+    
+    
+    
+    /**
+     * Reads the households and both sets of tables, runs a HouseholdRedistributor and writes the people.
+     **/
+    private static void runHouseholds(File householdFile, File personFile, ArrayList<File> tableFiles, ArrayList<File> personTableFiles, 
+				      File output, RedistributionSettings settings, PopulationWriter writer, boolean quiet) {
+	
+	Households households = null;
+	try {
+	    households = new Households(householdFile.getPath(), personFile.getPath());
+	} catch (UncheckedIOException uioe) {
+	    usage(uioe.getMessage());
+	}
+	Constraints householdConstraints = null;
+	Constraints personConstraints = null;
+	try {
+	    householdConstraints = new Constraints(readTables(tableFiles), countUp(tableFiles.size()), households.getHouseholds());
+	    personConstraints = new Constraints(readTables(personTableFiles), countUp(personTableFiles.size()), households.getPeople());
+	} catch (IllegalArgumentException iae) {
+	    usage(iae.getMessage());
+	}
+	
+	long start = System.currentTimeMillis();
+	HouseholdRedistributor redistributor = null;
+	try {
+	    redistributor = new HouseholdRedistributor(households, householdConstraints, personConstraints, settings);
+	} catch (IllegalArgumentException iae) {
+	    usage(iae.getMessage());
+	}
+	if (!quiet) redistributor.setProgressListener(new LogProgressListener(System.out));
+	redistributor.run();
+	
+	try {
+	    redistributor.write(output, writer);
+	} catch (IOException ioe) {
+	    System.err.println("Couldn't write results: " + ioe.getMessage());
+	    System.exit(1);
+	}
+	
+	System.out.println();
+	System.out.println("Areas: " + householdConstraints.getNumberOfAreas() + " Household error: " + redistributor.getHouseholdError() 
+	    + " Person error: " + redistributor.getPersonError() + " Seed: " + settings.getSeed() 
+	    + " Time: " + (System.currentTimeMillis() - start) + "ms");
+	
+    } // End of runHouseholds.
+    
+    
+    
+    
+    
+    /**
+     * Runs the areas in parts on separate worker processes, and joins their results.<P>
+     * Each worker is given the same arguments as this process, apart from its own 
+     * output, -areas, and the seed, so they all use the same random numbers.
+     **/
+    private static void runPartitioned(String[] args, int workers, String workerHeap, String format, long seed, File output) {
+	
+	// Only the number of areas is needed here, so count the rows rather than reading them in.
+	
+	long start = System.currentTimeMillis();
+	int numberOfAreas = 0;
+	try {
+	    TableReader reader = new TableReader(args[0]);
+	    try {
+		numberOfAreas = reader.countRows();
+	    } finally {
+		reader.close();
+	    }
+	} catch (IOException ioe) {
+	    usage("Couldn't read table: " + ioe.getMessage());
+	}
+	PartitionedRun run = new PartitionedRun(numberOfAreas, workers);
+	if (workerHeap != null) run.setJavaOptions(new String[] {"-Xmx" + workerHeap});
+	
+	File[] parts = new File[run.getNumberOfWorkers()];
+	File[] logs = new File[run.getNumberOfWorkers()];
+	File[] results = new File[run.getNumberOfWorkers()];
+	String[][] workerArguments = new String[run.getNumberOfWorkers()][];
+	for (int worker = 0; worker < parts.length; worker++) {
+	    parts[worker] = new File(partName(output.getPath(), worker));
+	    logs[worker] = new File(parts[worker].getPath() + ".log");
+	    results[worker] = new File(parts[worker].getPath() + ".result");
+	    String areas = run.getFirstArea(worker) + ":" + run.getEndArea(worker);
+	    workerArguments[worker] = workerArguments(args, parts[worker], results[worker], worker, areas, format, seed);
+	}
+	
+	long totalError = 0;
+	try {
+	    totalError = run.run(workerArguments, logs, results);
+	    PartitionedRun.merge(parts, output, format);
+	} catch (IOException ioe) {
+	    System.err.println("Couldn't run the workers: " + ioe.getMessage());
+	    System.exit(1);
+	}
+	for (int worker = 0; worker < parts.length; worker++) {
+	    parts[worker].delete();
+	    logs[worker].delete();
+	    results[worker].delete();
+	}
+	
+	System.out.println();
+	System.out.println("Areas: " + numberOfAreas + " Total error: " + totalError + " Seed: " + seed 
+	    + " Time: " + (System.currentTimeMillis() - start) + "ms Workers: " + parts.length);
+	
+    } // End of runPartitioned.
+    
+    
+    
+    
+    
+    /**
+     * Anneals the areas a block at a time, writing each block as it's finished.
+     **/
+    private static void runStreaming(ArrayList<File> tableFiles, MicroData microData, int firstArea, int endArea, int areasPerBlock, 
+				     RedistributionSettings settings, StreamingPopulationWriter writer, File output, File resultFile) {
+	
+	long start = System.currentTimeMillis();
+	StreamingRun run = null;
+	try {
+	    TableReader[] readers = new TableReader[tableFiles.size()];
+	    for (int table = 0; table < readers.length; table++) {
+		readers[table] = new TableReader(tableFiles.get(table).getPath(), firstArea, endArea);
+	    }
+	    run = new StreamingRun(readers, countUp(readers.length), microData, settings);
+	    run.setAreasPerBlock(areasPerBlock);
+	    run.run(output, writer);
+	} catch (IOException ioe) {
+	    System.err.println("Couldn't stream the areas: " + ioe.getMessage());
+	    System.exit(1);
+	} catch (IllegalArgumentException iae) {
+	    usage(iae.getMessage());
+	}
+	
+	System.out.println();
+	writeResult(resultFile, run.getTotalError());
+	System.out.println("Areas: " + run.getNumberOfAreas() + " Total error: " + run.getTotalError() 
+	    + " Seed: " + settings.getSeed() + " Time: " + (System.currentTimeMillis() - start) + "ms");
+	
+    } // End of runStreaming.
+    
+    
+    
+    
+    
+    /**
+     * Makes the arguments for one worker from this process's arguments.<P>
+     * The options that only make sense here are dropped, and files each worker 
+     * writes for itself get the worker's part number.
+     **/
+    private static String[] workerArguments(String[] args, File part, File result, int worker, String areas, String format, long seed) {
+	
+	ArrayList<String> list = new ArrayList<String>();
+	list.add(args[0]);
+	list.add(args[1]);
+	list.add(part.getPath());
+	for (int i = 3; i < args.length; i++) {
+	    String name = args[i];
+	    if (name.equals("-quiet") || name.equals("-verifyErrors") || name.equals("-resume")) {
+		list.add(name);
+		continue;
+	    }
+	    String value = args[++i];
+	    if (name.equals("-workers") || name.equals("-workerHeap") || name.equals("-format") || name.equals("-seed") || name.equals("-result")) continue;
+	    if (name.equals("-checkpoint") || name.equals("-metrics")) value = partName(value, worker);
+	    list.add(name);
+	    list.add(value);
+	}
+	list.add("-format");
+	list.add(format);
+	list.add("-seed");
+	list.add(String.valueOf(seed));
+	list.add("-areas");
+	list.add(areas);
+	list.add("-result");
+	list.add(result.getPath());
+	return list.toArray(new String[list.size()]);
+	
+    } // End of workerArguments.
+    
+    
+    
+    
+    
+    /**
+     * Writes the total error to a file of its own, if one was given with -result, for PartitionedRun to read back.
+     **/
+    private static void writeResult(File resultFile, long totalError) {
+	if (resultFile == null) return;
+	try {
+	    Writer out = new FileWriter(resultFile);
+	    try {
+		out.write(totalError + "\n");
+	    } finally {
+		out.close();
+	    }
+	} catch (IOException ioe) {
+	    System.err.println("Couldn't write result: " + ioe.getMessage());
+	    System.exit(1);
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Adds a worker's part number to a file name, before its extension if it has one.
+     **/
+    private static String partName(String name, int worker) {
+	int dot = name.lastIndexOf('.');
+	int separator = Math.max(name.lastIndexOf('/'), name.lastIndexOf(File.separatorChar));
+	if (dot <= separator + 1) return name + ".part" + worker;
+	return name.substring(0, dot) + ".part" + worker + name.substring(dot);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads a list of table files.
+     **/
+    private static Table[] readTables(ArrayList<File> files) {
+	Table[] tables = new Table[files.size()];
+	for (int table = 0; table < tables.length; table++) tables[table] = new Table(files.get(table).getPath());
+	return tables;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes the list 0, 1, 2... for matching tables against attributes in order.
+     **/
+    private static int[] countUp(int size) {
+	int[] numbers = new int[size];
+	for (int i = 0; i < size; i++) numbers[i] = i;
+	return numbers;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Tells the user what's gone wrong and how to run the program, then exits.
+     **/
+    private static void usage(String problem) {
+	System.err.println(problem);
+	System.err.println("Usage: java -jar microsimulation-core.jar table microdata output [-maxRuns n] [-errorMargin n] "
+	    + "[-maxTemperature n] [-temperatureConversion n] [-threads n] [-seed n] "
+	    + "[-reportEverySwaps n] [-reportEveryMillis n] [-quiet] [-verifyErrors] [-targeted p] "
+	    + "[-random splittable|xoroshiro] [-cooling linear|geometric|adaptive] [-reheats n] [-stallWindow n] [-start random|ipf] "
+	    + "[-format csv|gzip|binary|weights|indexed] [-method anneal|ipf] [-weights dense|sparse] "
+	    + "[-shortcuts on|off] [-population expanded|weighted] [-checkpoint file] [-checkpointEveryMillis n] [-resume] [-metrics file] [-table file ...] "
+	    + "[-workers n] [-workerHeap size] [-areas first:end] [-stream n] [-cache file] [-households file -personTable file ...]");
+	System.exit(1);
+    }
+    
+// End of class.
+}
@@ -0,0 +1,91 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.charset.*;
+
+
+/**
+ * Writes a population as a compact binary file of MicroData positions.<P>
+ * Rather than writing out each person's ID and values, this just writes where 
+ * they are in the MicroData, as four bytes, so the file is a fraction of the 
+ * size of a CSV file and needs the same MicroData to make sense of it. All 
+ * numbers are written high byte first, as DataInputStream reads them. The 
+ * file is laid out as:<BR>
+ * <CODE>int magic number (0x4D535042, "MSPB")<BR>
+ * int version (1)<BR>
+ * int number of areas<BR>
+ * int number of people in the MicroData<BR></CODE>
+ * and then for each area, in order:<BR>
+ * <CODE>int length of the area ID in bytes, then the ID as UTF-8<BR>
+ * int number of people in the area<BR>
+ * int MicroData position of each person in the area</CODE>
+ * @version 1.0
+ */
+public class BinaryPopulationWriter implements PopulationWriter {
+    
+    public static final int MAGIC = 0x4D535042;	// Marks the start of the file.
+    public static final int VERSION = 1;	// The version of the layout.
+    
+    
+    /**
+     * Creates a new BinaryPopulationWriter.
+     **/
+    public BinaryPopulationWriter() {
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes the population to a file.
+     **/
+    public void write(Population world, Constraints constraints, File file) throws IOException {
+	
+	OutputBuffer out = new OutputBuffer(new FileOutputStream(file));
+	
+	try {
+	    
+	    Table areas = constraints.getTable(0);
+	    
+	    out.writeInt(MAGIC);
+	    out.writeInt(VERSION);
+	    out.writeInt(world.getNumberOfAreas());
+	    out.writeInt(constraints.getMicroData().getNumberOfPeople());
+	    
+	    for (int area = 0; area < world.getNumberOfAreas(); area++) {
+		byte [] areaID = String.valueOf(areas.getID(area)).getBytes(StandardCharsets.UTF_8);
+		out.writeInt(areaID.length);
+		out.writeBytes(areaID);
+		out.writeInt(world.getAreaSize(area));
+		for (int slot = 0; slot < world.getNumberOfSlots(area); slot++) {
+		    for (int copy = 0; copy < world.getSlotCount(area, slot); copy++) out.writeInt(world.getPerson(area, slot));
+		}
+	    }
+	    
+	} finally {
+	    out.close();
+	}
+	
+    } // End of write.
+    
+// End of class.
+}
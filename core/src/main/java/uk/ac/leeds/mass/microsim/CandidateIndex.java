@@ -0,0 +1,101 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * The people in the microdata grouped by which cell they fall in for each table.<P>
+ * Drawing people uniformly from the whole sample wastes most swaps in areas 
+ * that are very unlike the sample as a whole: in an area with no men, half the 
+ * people drawn are men, and every one is rejected. This index lets the annealer 
+ * ask instead for "someone in this cell", so it can propose people of the kinds 
+ * an area is short of.<P>
+ * For each cell, the people in it are listed one after another in one big 
+ * array, with a second array saying where each cell's list starts. Each person 
+ * appears once for each table, in the cell they fall in for that table.
+ * @version 1.0
+ */
+public class CandidateIndex {
+    
+    private int [] cellStarts = null;	    // Where each cell's people start in people, plus where the next would start.
+    private int [] people = null;	    // The MicroData positions of the people in each cell, cell by cell.
+    
+    
+    /**
+     * Builds the index.<P>
+     * @param constraints: the tables and the people.
+     **/
+    public CandidateIndex(Constraints constraints) {
+	
+	int numberOfCells = constraints.getNumberOfCells();
+	int numberOfConstraints = constraints.getNumberOfConstraints();
+	MicroData microData = constraints.getMicroData();
+	
+	// Each table's cells are its attribute's values, so the people in them are 
+	// already grouped in the MicroData's AttributeIndex (which may have come from 
+	// a MicroDataCache). Work out where each cell starts, then copy the groups in.
+	
+	cellStarts = new int[numberOfCells + 1];
+	for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+	    AttributeIndex index = microData.getAttributeIndex(constraints.getAttribute(constraint));
+	    for (int cell = constraints.getCellOffset(constraint); cell < constraints.getCellOffset(constraint + 1); cell++) {
+		cellStarts[cell + 1] = index.getSize(cell - constraints.getCellOffset(constraint));
+	    }
+	}
+	for (int cell = 0; cell < numberOfCells; cell++) {
+	    cellStarts[cell + 1] = cellStarts[cell + 1] + cellStarts[cell];
+	}
+	
+	people = new int[cellStarts[numberOfCells]];
+	for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+	    AttributeIndex index = microData.getAttributeIndex(constraints.getAttribute(constraint));
+	    for (int cell = constraints.getCellOffset(constraint); cell < constraints.getCellOffset(constraint + 1); cell++) {
+		index.copy(cell - constraints.getCellOffset(constraint), people, cellStarts[cell]);
+	    }
+	}
+	
+    } // End of constructor.
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of people in a cell.<P>
+     * @param cell: the cell, as numbered by the Constraints.
+     **/
+    public int getCellSize(int cell) {
+	return cellStarts[cell + 1] - cellStarts[cell];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets one of the people in a cell.<P>
+     * @param cell: the cell, as numbered by the Constraints.
+     * @param i: which of the people in the cell, from zero to getCellSize(cell) - 1.
+     * @return the person's MicroData position.
+     **/
+    public int getPerson(int cell, int i) {
+	return people[cellStarts[cell] + i];
+    }
+    
+// End of class.
+}
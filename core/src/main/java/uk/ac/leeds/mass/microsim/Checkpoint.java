@@ -0,0 +1,334 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.charset.*;
+
+
+/**
+ * The state of a redistribution part way through, saved so a long run can carry on after a crash.<P>
+ * Each area is annealed on its own, with random numbers derived from the seed and 
+ * the area number alone, so an area's final people don't depend on any other area 
+ * or on when it was done. All that needs saving, then, is the seed and the people 
+ * in the areas that are finished. A resumed run fills and anneals the rest exactly 
+ * as an uninterrupted run would have, and ends up with the same population. The 
+ * random number state is the seed; nothing else is needed to carry on.<P>
+ * That only holds if the rest of the run is the same too, so the file also keeps 
+ * the class of RandomSource, the settings' fingerprint (see 
+ * RedistributionSettings.getFingerprint), and a checksum of the tables and 
+ * MicroData (see Constraints.getChecksum), and the Redistributor won't resume 
+ * from a checkpoint if any of them are different.<P>
+ * The file holds MicroData positions, like a BinaryPopulationWriter file, so it 
+ * needs the same MicroData and tables to make sense of it. All numbers are 
+ * written high byte first, and text as an int number of bytes followed by the 
+ * bytes in UTF-8. It is laid out as:<BR>
+ * <CODE>int magic number (0x4D53434B, "MSCK")<BR>
+ * int version (2)<BR>
+ * long seed<BR>
+ * text RandomSource class name<BR>
+ * text settings fingerprint<BR>
+ * int checksum of the tables and MicroData<BR>
+ * int number of areas<BR>
+ * int number of people in the MicroData<BR></CODE>
+ * and then for each area, in order:<BR>
+ * <CODE>int the area's final error, or -1 if it isn't finished<BR></CODE>
+ * and, only for finished areas:<BR>
+ * <CODE>int number of people in the area<BR>
+ * int MicroData position of each person in the area</CODE><P>
+ * Files are written to a temporary file next to the real one and then moved over 
+ * it, so a crash while writing leaves the last checkpoint as it was.
+ * @version 1.0
+ */
+public class Checkpoint {
+    
+    public static final int MAGIC = 0x4D53434B;	// Marks the start of the file.
+    public static final int VERSION = 2;	// The version of the layout.
+    public static final int NOT_FINISHED = -1;	// The error given for areas that aren't finished.
+    private static final int MAX_TEXT = 65536;	// The longest text expected in the header, in bytes.
+    
+    private long seed = 0;			// The seed the run was started with.
+    private String generator = null;		// The class of RandomSource the run was using.
+    private String fingerprint = null;		// The settings' fingerprint.
+    private int dataChecksum = 0;		// The checksum of the tables and MicroData.
+    private int numberOfPeople = 0;		// The number of people in the MicroData.
+    private int [] errors = null;		// Each area's final error, or NOT_FINISHED.
+    private int [][] people = null;		// The MicroData positions of the people in each finished area, or null.
+    
+    
+    /**
+     * Creates a new Checkpoint. Use read to get one from a file.
+     **/
+    private Checkpoint(long seed, String generator, String fingerprint, int dataChecksum, int numberOfPeople, int[] errors, int[][] people) {
+	this.seed = seed;
+	this.generator = generator;
+	this.fingerprint = fingerprint;
+	this.dataChecksum = dataChecksum;
+	this.numberOfPeople = numberOfPeople;
+	this.errors = errors;
+	this.people = people;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads a checkpoint file.<P>
+     * @param file: the file to read.
+     * @throws IOException if the file can't be read or isn't a checkpoint.
+     **/
+    public static Checkpoint read(File file) throws IOException {
+	
+	DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+	
+	try {
+	    
+	    if (in.readInt() != MAGIC) throw new IOException(file + " isn't a checkpoint file.");
+	    int version = in.readInt();
+	    if (version != VERSION) throw new IOException(file + " is checkpoint version " + version + "; only version " + VERSION + " can be read.");
+	    long seed = in.readLong();
+	    String generator = readText(in, file);
+	    String fingerprint = readText(in, file);
+	    int dataChecksum = in.readInt();
+	    int numberOfAreas = in.readInt();
+	    int numberOfPeople = in.readInt();
+	    
+	    int [] errors = new int[numberOfAreas];
+	    int [][] people = new int[numberOfAreas][];
+	    for (int area = 0; area < numberOfAreas; area++) {
+		errors[area] = in.readInt();
+		if (errors[area] == NOT_FINISHED) continue;
+		people[area] = new int[in.readInt()];
+		for (int slot = 0; slot < people[area].length; slot++) {
+		    people[area][slot] = in.readInt();
+		    if ((people[area][slot] < 0) || (people[area][slot] >= numberOfPeople)) {
+			throw new IOException(file + " has a person outside the MicroData in area " + area + ".");
+		    }
+		}
+	    }
+	    
+	    return new Checkpoint(seed, generator, fingerprint, dataChecksum, numberOfPeople, errors, people);
+	    
+	} catch (EOFException eofe) {
+	    throw new IOException(file + " is cut short.");
+	} finally {
+	    in.close();
+	}
+	
+    } // End of read.
+    
+    
+    
+    
+    
+    /**
+     * Writes a checkpoint file.<P>
+     * Only the finished areas' people are written, so the other areas can be 
+     * changing while this is going on.
+     * @param file: the file to write.
+     * @param settings: the run's settings, for the seed, generator and fingerprint.
+     * @param dataChecksum: the checksum of the tables and MicroData (see Constraints.getChecksum).
+     * @param numberOfPeople: the number of people in the MicroData.
+     * @param errors: each area's final error, or NOT_FINISHED.
+     * @param world: the population.
+     **/
+    public static void write(File file, RedistributionSettings settings, int dataChecksum, int numberOfPeople, int[] errors, Population world) throws IOException {
+	
+	File temporary = new File(file.getPath() + ".tmp");
+	OutputBuffer out = new OutputBuffer(new FileOutputStream(temporary));
+	
+	try {
+	    out.writeInt(MAGIC);
+	    out.writeInt(VERSION);
+	    out.writeLong(settings.getSeed());
+	    writeText(out, settings.getRandomSource().getClass().getName());
+	    writeText(out, settings.getFingerprint());
+	    out.writeInt(dataChecksum);
+	    out.writeInt(errors.length);
+	    out.writeInt(numberOfPeople);
+	    for (int area = 0; area < errors.length; area++) {
+		out.writeInt(errors[area]);
+		if (errors[area] == NOT_FINISHED) continue;
+		out.writeInt(world.getAreaSize(area));
+		for (int slot = 0; slot < world.getNumberOfSlots(area); slot++) {
+		    for (int copy = 0; copy < world.getSlotCount(area, slot); copy++) out.writeInt(world.getPerson(area, slot));
+		}
+	    }
+	} finally {
+	    out.close();
+	}
+	
+	try {
+	    Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	} catch (AtomicMoveNotSupportedException amnse) {
+	    Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+	
+    } // End of write.
+    
+    
+    
+    
+    
+    /**
+     * Writes some text as its length in bytes followed by the bytes in UTF-8.
+     **/
+    private static void writeText(OutputBuffer out, String text) throws IOException {
+	byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+	out.writeInt(bytes.length);
+	out.writeBytes(bytes);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads some text written by writeText.
+     * @throws IOException if the length is silly, as it would be in a damaged file.
+     **/
+    private static String readText(DataInputStream in, File file) throws IOException {
+	int length = in.readInt();
+	if ((length < 0) || (length > MAX_TEXT)) throw new IOException(file + " is damaged.");
+	byte[] bytes = new byte[length];
+	in.readFully(bytes);
+	return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the seed the run was started with.
+     **/
+    public long getSeed() {
+	return seed;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the name of the class of RandomSource the run was using.
+     **/
+    public String getGenerator() {
+	return generator;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the fingerprint of the run's settings (see RedistributionSettings.getFingerprint).
+     **/
+    public String getFingerprint() {
+	return fingerprint;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the checksum of the tables and MicroData the run was using (see Constraints.getChecksum).
+     **/
+    public int getDataChecksum() {
+	return dataChecksum;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas in the run.
+     **/
+    public int getNumberOfAreas() {
+	return errors.length;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of people in the MicroData the run was using.
+     **/
+    public int getNumberOfPeople() {
+	return numberOfPeople;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas that were finished.
+     **/
+    public int getNumberOfFinishedAreas() {
+	int finished = 0;
+	for (int area = 0; area < errors.length; area++) {
+	    if (errors[area] != NOT_FINISHED) finished++;
+	}
+	return finished;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets whether an area was finished.
+     * @param area: the area, starting with zero.
+     **/
+    public boolean isFinished(int area) {
+	return errors[area] != NOT_FINISHED;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets an area's final error, or NOT_FINISHED.
+     * @param area: the area, starting with zero.
+     **/
+    public int getError(int area) {
+	return errors[area];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the MicroData positions of the people in a finished area, or null if it isn't finished.
+     * @param area: the area, starting with zero.
+     **/
+    public int[] getPeople(int area) {
+	return people[area];
+    }
+    
+// End of class.
+}
@@ -0,0 +1,390 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+import java.util.zip.*;
+import java.nio.*;
+import java.nio.charset.*;
+
+
+/**
+ * The set of statistics tables a made up population has to match at once.<P>
+ * Each Table is about one of the MicroData attributes: for example an age by sex 
+ * table matched against the people's age-sex code, a tenure table matched against 
+ * their tenure code, and so on. Every table must have the same areas, with the same 
+ * IDs, in the same order. The number of people in each area comes from the first table.<P>
+ * To keep the swapping loop fast everything is flattened into int arrays. The 
+ * categories of all the tables are laid end to end as "cells", so each area has 
+ * one row of cells covering every table. Each person is turned, once, into the 
+ * list of cells they fall in (one per table), so working out what a swap does 
+ * only costs one look-up per table, however many categories the tables have.
+ * @version 1.0
+ */
+public class Constraints {
+    
+    private Table [] tables = null;		// The tables to match.
+    private int [] attributes = null;		// For each table, the MicroData attribute it is about.
+    private MicroData microData = null;		// The sample of people.
+    private int numberOfAreas = 0;		// The number of areas.
+    private int numberOfConstraints = 0;	// The number of tables.
+    private int numberOfCells = 0;		// The number of categories over all the tables.
+    private int [] cellOffsets = null;		// For each table, the cell its first category is in.
+    private int [] targets = null;		// The table values, numberOfCells per area.
+    private int [] personCells = null;		// For each person, the cell they fall in for each table.
+    
+    
+    /**
+     * Makes a set of constraints with just one table, about the first MicroData attribute.<P>
+     * @param table: the table to match.
+     * @param microData: the sample of people.
+     **/
+    public Constraints(Table table, MicroData microData) {
+	this(new Table[] {table}, new int[] {0}, microData);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes a set of constraints.<P>
+     * @param tables: the tables to match.
+     * @param attributes: for each table, the MicroData attribute it is about, starting with zero.
+     * @param microData: the sample of people.
+     * @throws IllegalArgumentException if the tables don't have the same areas in the same order, 
+     * or a person has a value that isn't one of the categories in the matching table.
+     **/
+    public Constraints(Table[] tables, int[] attributes, MicroData microData) {
+	
+	if ((tables.length == 0) || (tables.length != attributes.length)) {
+	    throw new IllegalArgumentException("Need one attribute for each table");
+	}
+	
+	this.tables = tables.clone();
+	this.attributes = attributes.clone();
+	this.microData = microData;
+	numberOfConstraints = tables.length;
+	numberOfAreas = tables[0].getNumberOfAreas();
+	
+	// Lay the categories of all the tables end to end.
+	
+	cellOffsets = new int[numberOfConstraints + 1];
+	for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+	    if (tables[constraint].getNumberOfAreas() != numberOfAreas) {
+		throw new IllegalArgumentException("Table " + constraint + " has " + tables[constraint].getNumberOfAreas() 
+		    + " areas, but the first table has " + numberOfAreas);
+	    }
+	    checkAreaIDs(tables, constraint);
+	    if ((attributes[constraint] < 0) || (attributes[constraint] >= microData.getNumberOfAttributes())) {
+		throw new IllegalArgumentException("Table " + constraint + " is about attribute " + attributes[constraint] 
+		    + ", but the MicroData only has " + microData.getNumberOfAttributes());
+	    }
+	    cellOffsets[constraint + 1] = cellOffsets[constraint] + tables[constraint].getNumberOfCategories();
+	}
+	numberOfCells = cellOffsets[numberOfConstraints];
+	
+	// Copy the table values into one row of cells per area.
+	
+	targets = new int[numberOfAreas * numberOfCells];
+	for (int area = 0; area < numberOfAreas; area++) {
+	    for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+		for (int category = 0; category < tables[constraint].getNumberOfCategories(); category++) {
+		    targets[area * numberOfCells + cellOffsets[constraint] + category] = tables[constraint].getValue(area, category);
+		}
+	    }
+	}
+	
+	// Work out which cells each person falls in.
+	
+	personCells = new int[microData.getNumberOfPeople() * numberOfConstraints];
+	for (int person = 0; person < microData.getNumberOfPeople(); person++) {
+	    for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+		int category = microData.getValue(person, attributes[constraint]);
+		if ((category < 0) || (category >= tables[constraint].getNumberOfCategories())) {
+		    throw new IllegalArgumentException("Person " + microData.getID(person) + " has " 
+			+ microData.getAttributeName(attributes[constraint]) + " " + category 
+			+ ", but table " + constraint + " only has " + tables[constraint].getNumberOfCategories() + " categories");
+		}
+		personCells[person * numberOfConstraints + constraint] = cellOffsets[constraint] + category;
+	    }
+	}
+	
+    } // End of constructor.
+    
+    
+    
+    
+    
+    /**
+     * Checks a table has the same areas as the first table, in the same order.<P>
+     * A row that can't be read is skipped (see Table and TableReader), so a bad 
+     * row in one table would otherwise shift every later area out of line with 
+     * the others without anyone noticing.
+     * @param tables: the tables, with the same number of areas.
+     * @param constraint: the table to check.
+     * @throws IllegalArgumentException if an area's ID isn't the same as in the first table.
+     **/
+    private static void checkAreaIDs(Table[] tables, int constraint) {
+	for (int area = 0; area < tables[0].getNumberOfAreas(); area++) {
+	    if (!Objects.equals(tables[constraint].getID(area), tables[0].getID(area))) {
+		throw new IllegalArgumentException("Row " + area + " of table " + constraint + " is area " + tables[constraint].getID(area) 
+		    + ", but in the first table it's area " + tables[0].getID(area));
+	    }
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes an empty set of constraints, for forAreas to fill in.
+     **/
+    private Constraints() {
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes constraints for a different set of areas, with the same kinds of tables and the same people.<P>
+     * Working out which cells each person falls in means going through the whole 
+     * MicroData, which is a waste when the only thing that's changed is the areas. 
+     * The new constraints share that with these, and just copy the new table values.
+     * This is for working through the areas a few at a time (see StreamingRun).
+     * @param tables: the new tables, with the same categories as these, in the same order.
+     * @throws IllegalArgumentException if there are the wrong number of tables, they 
+     * have different categories, or they don't have the same areas in the same order.
+     **/
+    public Constraints forAreas(Table[] tables) {
+	
+	if (tables.length != numberOfConstraints) {
+	    throw new IllegalArgumentException("Need " + numberOfConstraints + " tables, not " + tables.length);
+	}
+	
+	Constraints other = new Constraints();
+	other.tables = tables.clone();
+	other.attributes = attributes;
+	other.microData = microData;
+	other.numberOfAreas = tables[0].getNumberOfAreas();
+	other.numberOfConstraints = numberOfConstraints;
+	other.numberOfCells = numberOfCells;
+	other.cellOffsets = cellOffsets;
+	other.personCells = personCells;
+	
+	for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+	    if (tables[constraint].getNumberOfAreas() != other.numberOfAreas) {
+		throw new IllegalArgumentException("Table " + constraint + " has " + tables[constraint].getNumberOfAreas() 
+		    + " areas, but the first table has " + other.numberOfAreas);
+	    }
+	    checkAreaIDs(tables, constraint);
+	    if (tables[constraint].getNumberOfCategories() != cellOffsets[constraint + 1] - cellOffsets[constraint]) {
+		throw new IllegalArgumentException("Table " + constraint + " has " + tables[constraint].getNumberOfCategories() 
+		    + " categories, not " + (cellOffsets[constraint + 1] - cellOffsets[constraint]));
+	    }
+	}
+	
+	other.targets = new int[other.numberOfAreas * numberOfCells];
+	for (int area = 0; area < other.numberOfAreas; area++) {
+	    for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+		for (int category = 0; category < tables[constraint].getNumberOfCategories(); category++) {
+		    other.targets[area * numberOfCells + cellOffsets[constraint] + category] = tables[constraint].getValue(area, category);
+		}
+	    }
+	}
+	
+	return other;
+	
+    } // End of forAreas.
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas.
+     **/
+    public int getNumberOfAreas() {
+	return numberOfAreas;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of tables.
+     **/
+    public int getNumberOfConstraints() {
+	return numberOfConstraints;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of categories over all the tables, which is the number of cells in each area.
+     **/
+    public int getNumberOfCells() {
+	return numberOfCells;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets one of the tables.
+     * @param constraint: the table, starting with zero.
+     **/
+    public Table getTable(int constraint) {
+	return tables[constraint];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the MicroData attribute a table is about.
+     * @param constraint: the table, starting with zero.
+     **/
+    public int getAttribute(int constraint) {
+	return attributes[constraint];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the cell a table's first category is in.<P>
+     * @param constraint: the table, starting with zero. Passing the number of tables gives the number of cells.
+     **/
+    public int getCellOffset(int constraint) {
+	return cellOffsets[constraint];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the sample of people.
+     **/
+    public MicroData getMicroData() {
+	return microData;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of people that should be in an area.<P>
+     * This comes from the first table.
+     * @param area: the area, starting with zero.
+     **/
+    public int getAreaPopulation(int area) {
+	return tables[0].getTotalAreaPopulation(area);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the value an area should have in one of its cells.
+     * @param area: the area, starting with zero.
+     * @param cell: the cell, starting with zero.
+     **/
+    public int getTarget(int area, int cell) {
+	return targets[area * numberOfCells + cell];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the cell a person falls in for one of the tables.
+     * @param person: the person's position in the MicroData.
+     * @param constraint: the table, starting with zero.
+     **/
+    public int getPersonCell(int person, int constraint) {
+	return personCells[person * numberOfConstraints + constraint];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Works out a CRC32C checksum of the tables and the people.<P>
+     * This covers the area IDs, every table value, and each person's ID and 
+     * the cells they fall in, so it changes if any of the tables or the MicroData 
+     * do, even if they're still the same size. Checkpoints keep it so a run can't 
+     * be carried on with different data (see Checkpoint). Everything is gone 
+     * through, so don't call it more than needed.
+     **/
+    public int getChecksum() {
+	
+	CRC32C crc = new CRC32C();
+	ByteBuffer buffer = ByteBuffer.allocate(65536);
+	int numberOfPeople = microData.getNumberOfPeople();
+	update(crc, buffer, new int[] {numberOfAreas, numberOfCells, numberOfPeople}, 3);
+	
+	for (int area = 0; area < numberOfAreas; area++) {
+	    crc.update(String.valueOf(tables[0].getID(area)).getBytes(StandardCharsets.UTF_8));
+	    crc.update('\n');
+	}
+	update(crc, buffer, targets, numberOfAreas * numberOfCells);
+	
+	PackedStrings ids = microData.getIDs();
+	update(crc, buffer, ids.getStarts(), numberOfPeople + 1);
+	crc.update(ids.getBytes(), 0, ids.getStarts()[numberOfPeople]);
+	update(crc, buffer, personCells, numberOfPeople * numberOfConstraints);
+	
+	return (int)crc.getValue();
+	
+    } // End of getChecksum.
+    
+    
+    
+    
+    
+    /**
+     * Adds the start of an int array to a checksum, high byte first, a buffer full at a time.
+     **/
+    private static void update(CRC32C crc, ByteBuffer buffer, int[] values, int length) {
+	int perBuffer = buffer.capacity() / 4;
+	for (int start = 0; start < length; start += perBuffer) {
+	    int count = Math.min(perBuffer, length - start);
+	    buffer.clear();
+	    buffer.asIntBuffer().put(values, start, count);
+	    buffer.limit(count * 4);
+	    crc.update(buffer);
+	}
+    }
+    
+// End of class.
+}
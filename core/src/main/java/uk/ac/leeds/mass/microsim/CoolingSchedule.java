@@ -0,0 +1,90 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * An interface for the ways the temperature can be lowered while annealing an area.<P>
+ * Each area is annealed in steps, with up to maxRuns swaps at each step. Before the 
+ * first step the schedule's start method gives the first temperature, and after each 
+ * step its next method is told how the step went and gives the temperature for the 
+ * next one. When it gives a temperature of zero or less, the area is done.<P>
+ * Schedules can remember things about the area they're working on, such as how far 
+ * through they are, so a schedule is only used by one thread. The Redistributor 
+ * gives each thread its own copy, made with copy, and calls start for each area.
+ * @version 1.0
+ */
+public interface CoolingSchedule {
+    
+    
+    /**
+     * Starts a new area.<P>
+     * @param areaError: the area's error before any swapping.
+     * @return the temperature for the first step, or zero or less to not swap at all.
+     **/
+    public double start(int areaError);
+    
+    
+    
+    
+    
+    /**
+     * Works out the temperature for the next step from how the last one went.<P>
+     * Swaps that make the error worse are counted as uphill.
+     * @param proposed: the number of swaps tried in the step.
+     * @param accepted: the number of them that were kept.
+     * @param uphillProposed: the number of swaps tried that would have made the error worse.
+     * @param uphillAccepted: the number of those that were kept.
+     * @param areaError: the area's error after the step.
+     * @return the temperature for the next step, or zero or less to stop.
+     **/
+    public double next(int proposed, int accepted, int uphillProposed, int uphillAccepted, int areaError);
+    
+    
+    
+    
+    
+    /**
+     * Gets the most steps the schedule can take for one area, for guessing how much work areas are.
+     **/
+    public int getMaxSteps();
+    
+    
+    
+    
+    
+    /**
+     * Makes a new copy of the schedule, with the same settings, for another thread.
+     **/
+    public CoolingSchedule copy();
+    
+    
+    
+    
+    
+    /**
+     * Describes the schedule and all its settings, on one line.<P>
+     * Two schedules with the same description must give the same temperatures. 
+     * This goes into the settings' fingerprint, which checkpoints are checked 
+     * against (see RedistributionSettings.getFingerprint), so a schedule that 
+     * doesn't describe itself can't be resumed with.
+     **/
+    public String toString();
+    
+// End of interface.
+}
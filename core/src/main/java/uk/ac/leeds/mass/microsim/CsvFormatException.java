@@ -0,0 +1,59 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+
+
+/**
+ * An exception for lines in a data file that can't be made sense of.<P>
+ * Says which file and line the problem is on.
+ * @version 1.0
+ */
+public class CsvFormatException extends IOException {
+    
+    private static final long serialVersionUID = 1L;	// For serialising, as all Exceptions can be.
+    
+    private int lineNumber = 0;	    // The line the problem is on, starting with one.
+    
+    
+    /**
+     * Creates a new CsvFormatException.<P>
+     * @param filename: the file the problem is in.
+     * @param lineNumber: the line the problem is on, starting with one.
+     * @param problem: what's wrong.
+     **/
+    public CsvFormatException(String filename, int lineNumber, String problem) {
+	super(filename + " line " + lineNumber + ": " + problem);
+	this.lineNumber = lineNumber;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the line the problem is on, starting with one.
+     **/
+    public int getLineNumber() {
+	return lineNumber;
+    }
+    
+// End of class.
+}
@@ -0,0 +1,142 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.zip.*;
+
+
+/**
+ * Writes a population as a CSV file with a line for each person, optionally gzipped.<P>
+ * The file contains a header:<BR>
+ * <CODE>Area,Person,Value</CODE><BR>
+ * and then a line containing this data for each person. If the people have 
+ * more than one attribute, there's a value for each, and the header uses the 
+ * attribute names from the MicroData instead of "Value".<P>
+ * Lines are put together as bytes in an OutputBuffer, so no Strings are made per 
+ * person. Gzipped files are typically a tenth of the size, which for big 
+ * populations can make them quicker to write as well as to move about.
+ * @version 1.0
+ */
+public class CsvPopulationWriter implements StreamingPopulationWriter {
+    
+    private boolean gzip = false;	// Whether to gzip the file.
+    
+    
+    /**
+     * Creates a new CsvPopulationWriter.<P>
+     * @param gzip: whether to gzip the file.
+     **/
+    public CsvPopulationWriter(boolean gzip) {
+	this.gzip = gzip;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes the population to a file.
+     **/
+    public void write(Population world, Constraints constraints, File file) throws IOException {
+	OutputBuffer out = open(file);
+	try {
+	    writeHeader(constraints, out);
+	    writeAreas(world, constraints, out);
+	} finally {
+	    out.close();
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Opens a file to write to, gzipped if asked.
+     **/
+    public OutputBuffer open(File file) throws IOException {
+	OutputStream stream = new FileOutputStream(file);
+	if (gzip) stream = new GZIPOutputStream(stream, 1 << 16);
+	return new OutputBuffer(stream);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes the header line.
+     **/
+    public void writeHeader(Constraints constraints, OutputBuffer out) throws IOException {
+	MicroData microData = constraints.getMicroData();
+	int numberOfAttributes = microData.getNumberOfAttributes();
+	if (numberOfAttributes == 1) {
+	    out.writeString("Area,Person,Value");
+	} else {
+	    out.writeString("Area,Person");
+	    for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+		out.writeByte(',');
+		out.writeString(microData.getAttributeName(attribute));
+	    }
+	}
+	out.writeByte('\n');
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes a line for each person in some areas.
+     **/
+    public void writeAreas(Population world, Constraints constraints, OutputBuffer out) throws IOException {
+	
+	MicroData microData = constraints.getMicroData();
+	PackedStrings ids = microData.getIDs();
+	Table areas = constraints.getTable(0);
+	int numberOfAttributes = microData.getNumberOfAttributes();
+	
+	// Run though areas and write each person.
+	
+	for (int area = 0; area < world.getNumberOfAreas(); area++) {
+	    
+	    byte [] areaID = String.valueOf(areas.getID(area)).getBytes(StandardCharsets.UTF_8);
+	    
+	    for (int slot = 0; slot < world.getNumberOfSlots(area); slot++) {
+		int person = world.getPerson(area, slot);
+		for (int copy = 0; copy < world.getSlotCount(area, slot); copy++) {
+		    out.writeBytes(areaID);
+		    out.writeByte(',');
+		    out.writeString(ids, person);
+		    for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+			out.writeByte(',');
+			out.writeDecimal(microData.getValue(person, attribute));
+		    }
+		    out.writeByte('\n');
+		}
+	    }
+	    
+	}
+	
+    } // End of writeAreas.
+    
+// End of class.
+}
@@ -0,0 +1,331 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+
+
+/**
+ * A fast reader for the comma separated files the Table and MicroData classes read.<P>
+ * The file is read in big blocks straight into a byte array, and numbers are 
+ * worked out from the bytes as they're read, so nothing gets made as objects 
+ * apart from the Strings you ask for. Use it a line at a time: call nextLine, 
+ * then read the fields in order with readString and readInt.<P>
+ * Fields can be separated by commas, colons, spaces or tabs, and runs of 
+ * separators count as one, as they did with the old StreamTokenizer reading. 
+ * Strings can be wrapped in double quotes. If a field isn't what was asked for, 
+ * a CsvFormatException is thrown that says which line the problem is on.
+ * @version 1.0
+ */
+public class CsvReader {
+    
+    private FileChannel channel = null;	// Where the bytes come from.
+    private String filename = null;	// The file's name, for error messages.
+    private byte [] buffer = null;	// The bytes read from the file but not yet used.
+    private int bufferEnd = 0;		// The number of bytes in the buffer.
+    private int lineStart = 0;		// Where the current line starts in the buffer.
+    private int lineEnd = 0;		// Where the current line ends in the buffer (at the newline).
+    private int position = 0;		// Where the next field starts in the buffer.
+    private int lineNumber = 0;		// The current line number, starting with one.
+    private int fieldStart = 0;		// Where the last String field read starts in the buffer.
+    private int fieldEnd = 0;		// Where the last String field read ends in the buffer.
+    private boolean endOfFile = false;	// Whether all the file has been read into the buffer.
+    
+    private static final int BUFFER_SIZE = 1 << 20;	// Bytes to read at a time.
+    
+    
+    /**
+     * Opens a file for reading.<P>
+     * @param filename: the path and filename of the file to read.
+     **/
+    public CsvReader(String filename) throws IOException {
+	this.filename = filename;
+	channel = new FileInputStream(filename).getChannel();
+	buffer = new byte[BUFFER_SIZE];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Moves on to the next line that has something on it.<P>
+     * Blank lines are skipped, but still counted in the line numbers.
+     * @return false if there are no more lines.
+     **/
+    public boolean nextLine() throws IOException {
+	
+	while (true) {
+	    
+	    // Step past the newline on the end of the last line, if there was one.
+	    
+	    if (lineNumber > 0) lineStart = lineEnd + 1;
+	    
+	    // Look for the end of this line, reading more of the file if we run out.
+	    
+	    int scan = lineStart;
+	    while (true) {
+		while ((scan < bufferEnd) && (buffer[scan] != '\n')) scan++;
+		if ((scan < bufferEnd) || endOfFile) break;
+		int used = lineStart;
+		fill();
+		scan = scan - used;
+	    }
+	    
+	    if ((lineStart >= bufferEnd) && endOfFile) return false;
+	    
+	    lineEnd = scan;
+	    position = lineStart;
+	    lineNumber++;
+	    
+	    if (skipSeparators()) return true;
+	    
+	}
+	
+    } // End of nextLine.
+    
+    
+    
+    
+    
+    /**
+     * Reads the next field on the line as a String.<P>
+     * @throws CsvFormatException if there's nothing left on the line.
+     **/
+    public String readString() throws IOException {
+	findString();
+	return new String(buffer, fieldStart, fieldEnd - fieldStart, StandardCharsets.UTF_8);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads the next field on the line as a String, adding its bytes straight 
+     * to the end of a PackedStrings so no String object is made.<P>
+     * @param strings: where to put the field.
+     * @throws CsvFormatException if there's nothing left on the line.
+     **/
+    public void readString(PackedStrings strings) throws IOException {
+	findString();
+	strings.add(buffer, fieldStart, fieldEnd - fieldStart);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Finds where the next String field on the line starts and ends, and moves the position past it.<P>
+     * @throws CsvFormatException if there's nothing left on the line.
+     **/
+    private void findString() throws IOException {
+	
+	if (!skipSeparators()) throw error("expected a value but the line ended");
+	
+	int start = position;
+	int end = 0;
+	
+	if (buffer[position] == '"') {
+	    
+	    // Quoted strings run to the next quote, whatever is in them.
+	    
+	    start++;
+	    end = start;
+	    while ((end < lineEnd) && (buffer[end] != '"')) end++;
+	    if (end == lineEnd) throw error("quoted value has no closing quote");
+	    position = end + 1;
+	    
+	} else {
+	    
+	    end = start;
+	    while ((end < lineEnd) && !isSeparator(buffer[end])) end++;
+	    position = end;
+	    
+	}
+	
+	fieldStart = start;
+	fieldEnd = end;
+	
+    } // End of findString.
+    
+    
+    
+    
+    
+    /**
+     * Reads the next field on the line as an int.<P>
+     * Anything after a decimal point is dropped, as it was with the old 
+     * StreamTokenizer reading.
+     * @throws CsvFormatException if the field isn't a whole number or there's nothing left on the line.
+     **/
+    public int readInt() throws IOException {
+	
+	if (!skipSeparators()) throw error("expected a number but the line ended");
+	
+	int start = position;
+	boolean negative = false;
+	if ((buffer[position] == '-') || (buffer[position] == '+')) {
+	    negative = (buffer[position] == '-');
+	    position++;
+	}
+	
+	long value = 0;
+	int digits = 0;
+	while ((position < lineEnd) && (buffer[position] >= '0') && (buffer[position] <= '9')) {
+	    value = value * 10 + (buffer[position] - '0');
+	    if (value > Integer.MAX_VALUE) throw error("number too big: " + fieldText(start));
+	    position++;
+	    digits++;
+	}
+	
+	// Drop any decimal part.
+	
+	if ((position < lineEnd) && (buffer[position] == '.')) {
+	    position++;
+	    while ((position < lineEnd) && (buffer[position] >= '0') && (buffer[position] <= '9')) position++;
+	}
+	
+	if ((digits == 0) || ((position < lineEnd) && !isSeparator(buffer[position]))) {
+	    throw error("not a number: " + fieldText(start));
+	}
+	
+	return (int)(negative ? -value : value);
+	
+    } // End of readInt.
+    
+    
+    
+    
+    
+    /**
+     * Returns whether there's anything left on the current line.
+     **/
+    public boolean hasMoreFields() {
+	return skipSeparators();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of the current line, starting with one.
+     **/
+    public int getLineNumber() {
+	return lineNumber;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Closes the file.
+     **/
+    public void close() throws IOException {
+	channel.close();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes an exception saying what went wrong and where.
+     **/
+    public CsvFormatException error(String problem) {
+	return new CsvFormatException(filename, lineNumber, problem);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Moves the position past any separators.<P>
+     * @return false if the line has ended.
+     **/
+    private boolean skipSeparators() {
+	while ((position < lineEnd) && isSeparator(buffer[position])) position++;
+	return position < lineEnd;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Whether a byte separates fields. Carriage returns from Windows line endings count too.
+     **/
+    private static boolean isSeparator(byte b) {
+	return (b == ',') || (b == ':') || (b == ' ') || (b == '\t') || (b == '\r');
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the text of the field starting at a position, for error messages.
+     **/
+    private String fieldText(int start) {
+	int end = start;
+	while ((end < lineEnd) && !isSeparator(buffer[end])) end++;
+	return "\"" + new String(buffer, start, end - start, StandardCharsets.UTF_8) + "\"";
+    }
+    
+    
+    
+    
+    
+    /**
+     * Throws away the bytes before the current line and reads more of the file in after the rest.<P>
+     * If the current line is bigger than the buffer, the buffer is made bigger.
+     **/
+    private void fill() throws IOException {
+	
+	int kept = bufferEnd - lineStart;
+	if (kept == buffer.length) {
+	    byte [] bigger = new byte[buffer.length * 2];
+	    System.arraycopy(buffer, lineStart, bigger, 0, kept);
+	    buffer = bigger;
+	} else {
+	    System.arraycopy(buffer, lineStart, buffer, 0, kept);
+	}
+	bufferEnd = kept;
+	lineStart = 0;
+	
+	ByteBuffer wrapper = ByteBuffer.wrap(buffer, bufferEnd, buffer.length - bufferEnd);
+	while (wrapper.hasRemaining()) {
+	    if (channel.read(wrapper) < 0) {
+		endOfFile = true;
+		break;
+	    }
+	}
+	bufferEnd = wrapper.position();
+	
+    } // End of fill.
+    
+// End of class.
+}
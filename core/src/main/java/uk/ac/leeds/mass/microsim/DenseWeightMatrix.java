@@ -0,0 +1,112 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * A WeightMatrix that keeps every weight, in one flat array, area by area.<P>
+ * This is the quickest to fill and read, but needs eight bytes for every 
+ * profile in every area, whether the weight is zero or not.
+ * @version 1.0
+ */
+public class DenseWeightMatrix implements WeightMatrix {
+    
+    private int numberOfAreas = 0;	// The number of rows.
+    private int numberOfProfiles = 0;	// The number of columns.
+    private double [] weights = null;	// The weights, one row of profiles per area.
+    
+    
+    /**
+     * Creates a new DenseWeightMatrix, with all the weights zero.<P>
+     * @param numberOfAreas: the number of areas.
+     * @param numberOfProfiles: the number of profiles.
+     * @throws IllegalArgumentException if there would be too many weights to fit in an array.
+     **/
+    public DenseWeightMatrix(int numberOfAreas, int numberOfProfiles) {
+	if ((long)numberOfAreas * (long)numberOfProfiles > Integer.MAX_VALUE - 8) {
+	    throw new IllegalArgumentException("Too many weights for a dense matrix (" + numberOfAreas + " areas by " 
+		+ numberOfProfiles + " profiles); use a sparse one.");
+	}
+	this.numberOfAreas = numberOfAreas;
+	this.numberOfProfiles = numberOfProfiles;
+	weights = new double[numberOfAreas * numberOfProfiles];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas (rows).
+     **/
+    public int getNumberOfAreas() {
+	return numberOfAreas;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of profiles (columns).
+     **/
+    public int getNumberOfProfiles() {
+	return numberOfProfiles;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the weight of one profile in one area.<P>
+     * @param area: the area.
+     * @param profile: the profile.
+     **/
+    public double getWeight(int area, int profile) {
+	return weights[area * numberOfProfiles + profile];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Stores the weights for an area.<P>
+     * @param area: the area.
+     * @param weights: the weight of each profile in the area.
+     **/
+    public void setRow(int area, double[] weights) {
+	System.arraycopy(weights, 0, this.weights, area * numberOfProfiles, numberOfProfiles);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the weights for an area.<P>
+     * @param area: the area.
+     * @param weights: where to put the weight of each profile.
+     **/
+    public void getRow(int area, double[] weights) {
+	System.arraycopy(this.weights, area * numberOfProfiles, weights, 0, numberOfProfiles);
+    }
+    
+// End of class.
+}
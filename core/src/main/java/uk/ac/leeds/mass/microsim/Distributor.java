@@ -0,0 +1,213 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.awt.*;
+import java.awt.event.*;
+import java.util.*;
+import java.io.*;
+
+/**
+ * This is a toy application that does a very basic population redistribution for microsimulation.<P>
+ * It's a kind of cut down version of the SimLeeds reweighter classes by 
+ * <A href="http://www.geog.leeds.ac.uk/people/d.ballas/>Dimitris Ballas</A>. The idea 
+ * is to take a small set of people with an attribute, and a set of areas with aggregate 
+ * statistics about that attribute, and put enough people into each area to get the right 
+ * statistics. For example, say we have a small sample of people, and we know their gender. 
+ * We also have census areas, for which we have total numbers of men and women. We want 
+ * to use this small sample of people to generate a convincing population of people for 
+ * each census area, such that the amounts of each gender match the statistics for each area 
+ * we have. We want to randomly pick from our sample of people and dump each random person 
+ * into an area, and keep doing that until the stats are correct, using each person multiple 
+ * times if necessary. The problem is getting the stats to match. This program uses a 
+ * method called Simulated Annealing (SA).<P>
+ * This class is just the user interface: the work itself is done by a Redistributor, 
+ * which can also be run without a screen using BatchDistributor.
+ * @author <A href="http://www.geog.leeds.ac.uk/people/a.evans/">Andy Evans</A>
+ * @version 1.0
+ */
+public class Distributor extends Frame {
+    
+    // Variables used throughout the code. They're up here so all the code can see them.
+    
+    private TextArea messageBox = null;		// An area on the user interface for messages.
+    private Table tableToReplicate = null;	// The statistics table we'd like to replicate.
+    private MicroData microData = null;		// The sample of people we have to work with.
+    private RedistributionSettings settings = new RedistributionSettings();	// The annealing parameters. The defaults are fine for the toy data.
+    private Redistributor redistributor = null;	// The engine that does the actual work.
+    
+    
+    /** 
+     * Creates a new instance of Distributor.<P>
+     * Sets up a little GUI first that asks you to pick the table to 
+     * replicate and then the sample of people. 
+     */
+    public Distributor() {
+	
+	// Set up GUI.
+	
+	messageBox = new TextArea("",20,20,TextArea.SCROLLBARS_BOTH);
+	add(messageBox);
+	setLocation(200,200);
+	setSize(300,300);
+	
+	// The next bit of code sets up an anonymous inner class that just handles shutting down.
+	// when the X-icon on the frame is hit.
+	
+	addWindowListener(new WindowAdapter(){
+	    public void windowClosing(WindowEvent e) {
+		System.exit(0);
+	    }
+	});
+	
+	// Show the GUI.
+	
+	setVisible(true);
+	
+	// Get the user to pick the data files.
+	
+	readData();
+	
+	// Hand the data to the engine, which randomly fills the areas and then 
+	// redistributes until the statistics are correct. Its progress gets 
+	// shown in the messageBox.
+	
+	redistributor = new Redistributor(tableToReplicate, microData, settings);
+	redistributor.setProgressListener(new TextAreaProgressListener(messageBox));
+	redistributor.run();
+	
+	// Show the user how each area turned out. The Table class has a method 
+	// for outputting rows as text summaries.
+	
+	messageBox.append("\n\nDone:\n");
+	for (int area = 0; area < tableToReplicate.getNumberOfAreas(); area++) {
+	    messageBox.append(tableToReplicate.rowToString(area) + " Target " + redistributor.getCurrentTable().rowToString(area) + "\n");
+	}
+	
+	// Write the people with their area ids to a file.
+	
+	write();
+	
+    } // End of Constructor.
+    
+    
+    
+    
+    
+    /**
+     * Asks the user to pick two files.<P>
+     * The user is first asked to select a file containing the statistics data to be 
+     * replicated. The format should be comma separated, with a header line. Each row 
+     * should contain the statistics for an area, in the format:<BR>
+     * <CODE>Name, Value0, Value1, ... ValueN</CODE><BR>
+     * with a header line naming the categories, for example: 
+     * <CODE>EDName, NumberOfFemales, NumberOfMales</CODE><P>
+     * The user is then asked to pick a file containing the individuals (MicroData) 
+     * we shall use to try and replicate these statistics. The file should 
+     * be in the form:<BR>
+     * <CODE>Name, Value</CODE><BR>
+     * where the value is the number of the column (above) the person should fall 
+     * in, starting with zero for Value0. The GUI only matches one table; use 
+     * BatchDistributor to match several at once.
+     **/
+    private void readData () {
+	
+	// Open a suitable dialog. The program waits after this is setVisible until 
+	// the user picks something.
+	
+	FileDialog openDialog = new FileDialog(this, "Pick a Table to replicate", FileDialog.LOAD);
+	openDialog.setVisible(true);
+	
+	// Check they've picked something sensible - if not (for example, they've pushed 
+	// 'Cancel', then shut down the program.
+	
+	if ((openDialog.getDirectory() == null) || (openDialog.getFile() == null)) {
+	    System.exit(0);
+	} 
+	
+	// Turn the tableToReplicate object into a new, filled, table using 
+	// the Table constructor that reads in files.
+	
+	tableToReplicate = new Table(openDialog.getDirectory()+openDialog.getFile());
+	
+	// Use the Table.toString method to print out to the user what we've read in.
+	
+	messageBox.setText(tableToReplicate.toString());
+        
+	// Do the same for the people in the sample file.
+	
+	openDialog = new FileDialog(this, "Pick a set of MicroData", FileDialog.LOAD);
+	openDialog.setVisible(true);
+	
+	if ((openDialog.getDirectory() == null) || (openDialog.getFile() == null)) {
+	    System.exit(0);
+	} 
+	
+	microData = new MicroData(openDialog.getDirectory()+openDialog.getFile());
+	messageBox.append(microData.toString());
+	
+    } // End of readData.
+    
+    
+    
+    
+    
+    /**
+     * Write the people to a file with their area id.<P>
+     * The file contains a header:<BR>
+     * <CODE>Area,Person,Value</CODE><BR>
+     * and then a line containing this data for each person.
+     **/
+    private void write() {
+    
+        // Get a filename from the user.
+        
+        FileDialog saveDialog = new FileDialog(new Frame(), "Save file of people and area ids", FileDialog.SAVE);
+        saveDialog.show();
+        File file = new File(saveDialog.getDirectory() + saveDialog.getFile());
+        
+        if ((saveDialog.getDirectory() == null) || (saveDialog.getFile() == null)) return;
+        
+        // Start writing process.
+        
+        try {
+            redistributor.write(file);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        
+	messageBox.append("\n\nFinished writing file");
+	
+    } // End of write.
+
+    
+    
+    
+    
+    /**
+     * Just starts everything off.<P>
+     * We do everything in the constructor to avoid having to deal 
+     * with the problems associated with static.
+     */
+    public static void main(String[] args) {
+	new Distributor();
+    }
+
+// End of class.
+}
@@ -0,0 +1,96 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * A CoolingSchedule that multiplies the temperature by the same amount at each step.<P>
+ * The temperature drops quickly while it's high and slowly while it's low, so less 
+ * time is spent swapping at temperatures where nearly everything is kept, and more 
+ * at the low temperatures where the fine adjustments are made.
+ * @version 1.0
+ */
+public class GeometricCooling implements CoolingSchedule {
+    
+    private double startTemperature = 0;	// The first temperature.
+    private double ratio = 0;			// What the temperature is multiplied by each step.
+    private int steps = 0;			// The number of steps.
+    private double temperature = 0;		// The current temperature.
+    private int step = 0;			// The current step, counting up from zero.
+    
+    
+    /**
+     * Creates a new GeometricCooling.<P>
+     * @param startTemperature: the first temperature.
+     * @param endTemperature: the last temperature. Must be more than zero.
+     * @param steps: the number of steps.
+     **/
+    public GeometricCooling(double startTemperature, double endTemperature, int steps) {
+	this.startTemperature = startTemperature;
+	this.steps = steps;
+	ratio = (steps > 1) ? Math.pow(endTemperature / startTemperature, 1.0 / (steps - 1)) : 1;
+    }
+    
+    
+    
+    
+    
+    public double start(int areaError) {
+	step = 0;
+	temperature = startTemperature;
+	return (steps > 0) ? temperature : 0;
+    }
+    
+    
+    
+    
+    
+    public double next(int proposed, int accepted, int uphillProposed, int uphillAccepted, int areaError) {
+	step++;
+	temperature = temperature * ratio;
+	return (step < steps) ? temperature : 0;
+    }
+    
+    
+    
+    
+    
+    public int getMaxSteps() {
+	return Math.max(0, steps);
+    }
+    
+    
+    
+    
+    
+    public CoolingSchedule copy() {
+	GeometricCooling copy = new GeometricCooling(startTemperature, startTemperature, steps);
+	copy.ratio = ratio;
+	return copy;
+    }
+    
+    
+    
+    
+    
+    public String toString() {
+	return "GeometricCooling " + startTemperature + " " + ratio + " " + steps;
+    }
+    
+// End of class.
+}
@@ -0,0 +1,412 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+import java.io.*;
+
+
+/**
+ * Makes up a population of whole households, matching household tables and tables of people at once.<P>
+ * This works like the Redistributor, but what's swapped in and out of areas is a 
+ * household, with everyone in it, rather than a single person. The number of 
+ * households in each area comes from the first household table; the number of 
+ * people then depends on which households are picked, and the tables of people 
+ * pull the choice towards households with the right sorts of people in. The 
+ * error for an area is the error against the household tables plus the error 
+ * against the tables of people.<P>
+ * Household cells and people cells are laid end to end in one row per area, and 
+ * each household is turned, once, into the list of cells it changes: one for each 
+ * household table, and one for each of its members in each table of people. A swap 
+ * only looks at the cells in the two households' lists, so it costs about the 
+ * size of the households, whatever the size of the area.<P>
+ * The swapping is done by the same Annealer as the Redistributor's, with a 
+ * HouseholdMover saying what swapping one household for another does, so the 
+ * annealing settings, threads, seeds, cooling schedules, stall window and 
+ * progress reports are used as by the Redistributor, and for a given seed the 
+ * results are the same whatever the number of threads. Targeted proposals, IPF 
+ * starts, area shortcuts, checkpoints and metrics are only for people, and aren't 
+ * used here.
+ * @version 1.0
+ */
+public class HouseholdRedistributor {
+    
+    private Households households = null;	// The sample of households and their people.
+    private Constraints householdConstraints = null;	// The household tables.
+    private Constraints personConstraints = null;	// The tables of people.
+    private RedistributionSettings settings = null;	// The annealing parameters and how to do the work.
+    private Population world = null;		// The households in each area.
+    private int numberOfAreas = 0;		// The number of areas.
+    private int householdCells = 0;		// The number of household cells, which come first in each row.
+    private int numberOfCells = 0;		// The number of cells in each area's row.
+    private int [] targets = null;		// The table values, one row of cells per area.
+    private int [] currentCounts = null;	// The counts for the households in each area, one row of cells per area.
+    private int [] unitStarts = null;		// Where each household's cells start in unitCells, plus where the next would start.
+    private int [] unitCells = null;		// The cells each household adds to, household by household.
+    private ProgressListener progressListener = new NullProgressListener();	// Who to tell about progress.
+    private ProgressReporter progress = null;	// Collects progress from the threads for the progressListener.
+    
+    private static final long FILLING = 0;		// The key for the random numbers used to fill the areas at the start.
+    private static final long ANNEALING = 1;		// The key for the random numbers used to anneal the areas.
+    
+    
+    /**
+     * Creates a new HouseholdRedistributor.<P>
+     * @param households: the sample of households and their people.
+     * @param householdConstraints: the household tables, about households.getHouseholds().
+     * @param personConstraints: the tables of people, about households.getPeople().
+     * @param settings: the annealing parameters and how to do the work.
+     * @throws IllegalArgumentException if the constraints aren't about those households and 
+     * people, or the two sets of tables don't have the same areas.
+     **/
+    public HouseholdRedistributor(Households households, Constraints householdConstraints, Constraints personConstraints, 
+				  RedistributionSettings settings) {
+	
+	if ((householdConstraints.getMicroData() != households.getHouseholds()) || (personConstraints.getMicroData() != households.getPeople())) {
+	    throw new IllegalArgumentException("The tables must be matched against the households' own MicroData");
+	}
+	numberOfAreas = householdConstraints.getNumberOfAreas();
+	Table householdAreas = householdConstraints.getTable(0);
+	Table personAreas = personConstraints.getTable(0);
+	if (personConstraints.getNumberOfAreas() != numberOfAreas) {
+	    throw new IllegalArgumentException("The household tables have " + numberOfAreas + " areas, but the tables of people have " 
+		+ personConstraints.getNumberOfAreas());
+	}
+	for (int area = 0; area < numberOfAreas; area++) {
+	    if (!householdAreas.getID(area).equals(personAreas.getID(area))) {
+		throw new IllegalArgumentException("Area " + area + " is " + householdAreas.getID(area) 
+		    + " in the household tables, but " + personAreas.getID(area) + " in the tables of people");
+	    }
+	}
+	
+	this.households = households;
+	this.householdConstraints = householdConstraints;
+	this.personConstraints = personConstraints;
+	this.settings = settings;
+	householdCells = householdConstraints.getNumberOfCells();
+	numberOfCells = householdCells + personConstraints.getNumberOfCells();
+	
+	// Put both sets of table values in one row per area.
+	
+	targets = new int[numberOfAreas * numberOfCells];
+	for (int area = 0; area < numberOfAreas; area++) {
+	    for (int cell = 0; cell < householdCells; cell++) {
+		targets[area * numberOfCells + cell] = householdConstraints.getTarget(area, cell);
+	    }
+	    for (int cell = householdCells; cell < numberOfCells; cell++) {
+		targets[area * numberOfCells + cell] = personConstraints.getTarget(area, cell - householdCells);
+	    }
+	}
+	
+	// List the cells each household adds to.
+	
+	int numberOfHouseholds = households.getNumberOfHouseholds();
+	int householdTables = householdConstraints.getNumberOfConstraints();
+	int personTables = personConstraints.getNumberOfConstraints();
+	unitStarts = new int[numberOfHouseholds + 1];
+	for (int household = 0; household < numberOfHouseholds; household++) {
+	    unitStarts[household + 1] = unitStarts[household] + householdTables + households.getNumberOfMembers(household) * personTables;
+	}
+	unitCells = new int[unitStarts[numberOfHouseholds]];
+	for (int household = 0; household < numberOfHouseholds; household++) {
+	    int next = unitStarts[household];
+	    for (int constraint = 0; constraint < householdTables; constraint++) {
+		unitCells[next++] = householdConstraints.getPersonCell(household, constraint);
+	    }
+	    for (int i = 0; i < households.getNumberOfMembers(household); i++) {
+		int person = households.getMember(household, i);
+		for (int constraint = 0; constraint < personTables; constraint++) {
+		    unitCells[next++] = householdCells + personConstraints.getPersonCell(person, constraint);
+		}
+	    }
+	}
+	
+    } // End of constructor.
+    
+    
+    
+    
+    
+    /**
+     * Sets who to tell about progress.<P>
+     * @param listener: the listener to tell.
+     **/
+    public void setProgressListener(ProgressListener listener) {
+	progressListener = listener;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Does the redistribution.<P>
+     * Randomly fills the areas with households and then anneals them until the 
+     * statistics are as close as we can get them.
+     **/
+    public void run() {
+	
+	progress = new ProgressReporter(progressListener, settings);
+	
+	// Fill each area with the right number of households drawn at random, 
+	// each area with its own random numbers, and count them up.
+	
+	world = new Population(numberOfAreas);
+	currentCounts = new int[numberOfAreas * numberOfCells];
+	RandomSource randoms = settings.getRandomSource().derive(FILLING);
+	int numberOfHouseholds = households.getNumberOfHouseholds();
+	for (int area = 0; area < numberOfAreas; area++) {
+	    RandomSource random = randoms.derive(area);
+	    world.createArea(area, householdConstraints.getAreaPopulation(area));
+	    for (int slot = 0; slot < world.getAreaSize(area); slot++) {
+		world.setPerson(area, slot, random.nextInt(numberOfHouseholds));
+	    }
+	    countArea(area);
+	}
+	
+	progress.start(numberOfAreas, getTotalError());
+	
+	// Anneal the areas, in chunks, on as many threads as we've been asked for.
+	
+	final RandomSource annealing = settings.getRandomSource().derive(ANNEALING);
+	final CoolingSchedule schedule = settings.getCoolingSchedule();
+	long swapBudget = (long)settings.getMaxRuns() * (long)schedule.getMaxSteps();
+	AreaChunks.run(householdConstraints, swapBudget, settings.getNumberOfThreads(), new AreaChunks.Task() {
+	    public void run(int firstArea, int endArea) {
+		Annealer annealer = new Annealer(settings, schedule, progress, world, currentCounts, numberOfCells, new HouseholdMover());
+		for (int area = firstArea; area < endArea; area++) annealer.anneal(area, annealing.derive(area));
+	    }
+	});
+	
+	progress.finish();
+	
+    } // End of run.
+    
+    
+    
+    
+    
+    /**
+     * Gets the households in each area, as positions in households.getHouseholds(). Only filled once run has been called.
+     **/
+    public Population getPopulation() {
+	return world;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the people in each area, as positions in households.getPeople(), household by household. 
+     * Made afresh each time from the households. Only filled once run has been called.
+     **/
+    public Population getPersonPopulation() {
+	Population people = new Population(numberOfAreas);
+	for (int area = 0; area < numberOfAreas; area++) {
+	    int size = 0;
+	    for (int slot = 0; slot < world.getAreaSize(area); slot++) size = size + households.getNumberOfMembers(world.getPerson(area, slot));
+	    people.createArea(area, size);
+	    int next = 0;
+	    for (int slot = 0; slot < world.getAreaSize(area); slot++) {
+		int household = world.getPerson(area, slot);
+		for (int i = 0; i < households.getNumberOfMembers(household); i++) people.setPerson(area, next++, households.getMember(household, i));
+	    }
+	}
+	return people;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the total error, households and people, over all areas.
+     **/
+    public long getTotalError() {
+	return getHouseholdError() + getPersonError();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the error against the household tables over all areas.
+     **/
+    public long getHouseholdError() {
+	return getError(0, householdCells);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the error against the tables of people over all areas.
+     **/
+    public long getPersonError() {
+	return getError(householdCells, numberOfCells);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Adds up the differences between the counts and the tables for some of the cells in every area.
+     **/
+    private long getError(int firstCell, int endCell) {
+	long error = 0;
+	for (int area = 0; area < numberOfAreas; area++) {
+	    for (int cell = firstCell; cell < endCell; cell++) {
+		error = error + Math.abs(targets[area * numberOfCells + cell] - currentCounts[area * numberOfCells + cell]);
+	    }
+	}
+	return error;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Counts up the households and people in an area from scratch.
+     **/
+    private void countArea(int area) {
+	int row = area * numberOfCells;
+	Arrays.fill(currentCounts, row, row + numberOfCells, 0);
+	for (int slot = 0; slot < world.getAreaSize(area); slot++) {
+	    int household = world.getPerson(area, slot);
+	    for (int i = unitStarts[household]; i < unitStarts[household + 1]; i++) currentCounts[row + unitCells[i]]++;
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Works out an area's error from its counts.
+     **/
+    private int calculateError(int area) {
+	int row = area * numberOfCells;
+	int error = 0;
+	for (int cell = 0; cell < numberOfCells; cell++) error = error + Math.abs(targets[row + cell] - currentCounts[row + cell]);
+	return error;
+    }
+    
+    
+    
+    
+    
+    /**
+     * What swapping one household for another does, for the Annealer.<P>
+     * Households are drawn evenly from the whole sample. A swap is tried by moving 
+     * the households in the area's counts straight away, and moved back if it isn't 
+     * kept. Two households can share cells (two people of the same age, say), so each cell 
+     * is only looked at once: the error in the cells touched is added up before 
+     * and after the move, and the difference is the change. Cells are marked as 
+     * touched with a number that goes up with each move, so nothing needs clearing 
+     * between moves. Each thread has its own.
+     **/
+    private class HouseholdMover implements Annealer.Moves {
+	
+	private int [] marks = new int[numberOfCells];	// The move that last touched each cell.
+	private int mark = 0;				// The number of the current move.
+	private int [] touched = new int[64];		// The cells touched by the current move.
+	
+	/**
+	 * Takes one household out of an area's counts and puts another in.<P>
+	 * @return the change in the area's error.
+	 **/
+	int move(int area, int leaving, int joining) {
+	    
+	    if (++mark == Integer.MAX_VALUE) {
+		Arrays.fill(marks, 0);
+		mark = 1;
+	    }
+	    int row = area * numberOfCells;
+	    int size = 0;
+	    int before = 0;
+	    
+	    for (int pass = 0; pass < 2; pass++) {
+		int household = (pass == 0) ? leaving : joining;
+		for (int i = unitStarts[household]; i < unitStarts[household + 1]; i++) {
+		    int cell = unitCells[i];
+		    if (marks[cell] == mark) continue;
+		    marks[cell] = mark;
+		    if (size == touched.length) touched = Arrays.copyOf(touched, size * 2);
+		    touched[size++] = cell;
+		    before = before + Math.abs(targets[row + cell] - currentCounts[row + cell]);
+		}
+	    }
+	    
+	    for (int i = unitStarts[leaving]; i < unitStarts[leaving + 1]; i++) currentCounts[row + unitCells[i]]--;
+	    for (int i = unitStarts[joining]; i < unitStarts[joining + 1]; i++) currentCounts[row + unitCells[i]]++;
+	    
+	    int after = 0;
+	    for (int i = 0; i < size; i++) after = after + Math.abs(targets[row + touched[i]] - currentCounts[row + touched[i]]);
+	    return after - before;
+	    
+	}
+	
+	public int recount(int area) {
+	    countArea(area);
+	    return calculateError(area);
+	}
+	
+	public int propose(int area, RandomSource random) {
+	    return random.nextInt(households.getNumberOfHouseholds());
+	}
+	
+	public double getProposalRatio(int area, int leaving, int joining) {
+	    return 1;
+	}
+	
+	public int tryMove(int area, int leaving, int joining) {
+	    return move(area, leaving, joining);
+	}
+	
+	public void keep(int area, int leaving, int joining) {
+	}
+	
+	public void reject(int area, int leaving, int joining) {
+	    move(area, joining, leaving);
+	}
+	
+    } // End of HouseholdMover.
+    
+    
+    
+    
+    
+    /**
+     * Write the people to a file, with the same formats as the Redistributor.<P>
+     * The people in each area are written household by household, and the 
+     * MicroData they're from is households.getPeople().
+     * @param file: the file to write to.
+     * @param writer: the format to write in (see PopulationWriter).
+     **/
+    public void write(File file, PopulationWriter writer) throws IOException {
+	writer.write(getPersonPopulation(), personConstraints, file);
+    }
+    
+// End of class.
+}
@@ -0,0 +1,277 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+import java.io.*;
+
+
+/**
+ * Sample microdata of households and the people living in them.<P>
+ * Holds two sets of MicroData: one of households, with household attributes such 
+ * as tenure and size, and one of people, with personal attributes such as age and 
+ * sex. Each person belongs to one household, and each household has a list of its 
+ * members, so whole households can be put into areas at once (see 
+ * HouseholdRedistributor). The members of every household are listed one after 
+ * another in one big array, with a second array saying where each household's 
+ * list starts, as in Profiles.
+ * @version 1.0
+ */
+public class Households {
+    
+    private MicroData households = null;	// The households and their attributes.
+    private MicroData people = null;		// The people and their attributes.
+    private int [] householdOfPerson = null;	// For each person, the position of their household.
+    private int [] memberStarts = null;		// Where each household's members start in members, plus where the next would start.
+    private int [] members = null;		// The positions of the members of each household, household by household.
+    
+    
+    /**
+     * Reads linked household and people files.<P>
+     * The household file is a MicroData file:<BR>
+     * <CODE>HouseholdID, Value0, Value1, ... ValueN</CODE><BR>
+     * with a header line naming the attributes. The people file is the same, but 
+     * with the ID of the person's household after their own ID:<BR>
+     * <CODE>ID, HouseholdID, Value0, Value1, ... ValueN</CODE><BR>
+     * People whose household isn't in the household file are reported and skipped.
+     * @param householdFilename: the households.
+     * @param personFilename: the people in them.
+     * @throws UncheckedIOException if either file can't be read at all.
+     **/
+    public Households(String householdFilename, String personFilename) {
+	
+	households = new MicroData(householdFilename);
+	
+	HashMap<String, Integer> householdPositions = new HashMap<String, Integer>(households.getNumberOfPeople() * 2);
+	for (int household = 0; household < households.getNumberOfPeople(); household++) {
+	    householdPositions.put(households.getID(household), Integer.valueOf(household));
+	}
+	
+	readPeople(personFilename, householdPositions);
+	group();
+	
+    } // End of constructor.
+    
+    
+    
+    
+    
+    /**
+     * Links households and people already in memory.<P>
+     * @param households: the households.
+     * @param people: the people.
+     * @param householdOfPerson: for each person, the position of their household in households.
+     * @throws IllegalArgumentException if a person's household isn't one of the households.
+     **/
+    public Households(MicroData households, MicroData people, int[] householdOfPerson) {
+	this.households = households;
+	this.people = people;
+	this.householdOfPerson = householdOfPerson;
+	for (int person = 0; person < people.getNumberOfPeople(); person++) {
+	    if ((householdOfPerson[person] < 0) || (householdOfPerson[person] >= households.getNumberOfPeople())) {
+		throw new IllegalArgumentException("Person " + people.getID(person) + " is in household " 
+		    + householdOfPerson[person] + ", but there are only " + households.getNumberOfPeople());
+	    }
+	}
+	group();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads the people file, with a CsvReader, in the same way as MicroData does.
+     **/
+    private void readPeople(String filename, HashMap<String, Integer> householdPositions) {
+	
+	PackedStrings ids = new PackedStrings();
+	int [][] columns = new int[0][];
+	int numberOfAttributes = 0;
+	String [] attributeNames = new String[0];
+	householdOfPerson = new int[1024];
+	int numberOfRows = 0;
+	
+	try {
+	    
+	    CsvReader reader = new CsvReader(filename);
+	    
+	    try {
+		
+		// The first line is a header. The first two names on it are for the 
+		// IDs, and the rest are the attribute names.
+		
+		if (reader.nextLine()) {
+		    reader.readString();
+		    if (reader.hasMoreFields()) reader.readString();
+		    ArrayList<String> names = new ArrayList<String>();
+		    while (reader.hasMoreFields()) names.add(reader.readString());
+		    attributeNames = names.toArray(new String[names.size()]);
+		    numberOfAttributes = attributeNames.length;
+		}
+		columns = new int[numberOfAttributes][1024];
+		
+		while (reader.nextLine()) {
+		    
+		    // If we've run out of room, double the size of the arrays.
+		    
+		    if (numberOfRows == householdOfPerson.length) {
+			householdOfPerson = Arrays.copyOf(householdOfPerson, numberOfRows * 2);
+			for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+			    columns[attribute] = Arrays.copyOf(columns[attribute], numberOfRows * 2);
+			}
+		    }
+		    
+		    // Read the row straight into the end of the arrays. If it goes 
+		    // wrong we just don't count the row, so it's overwritten by the next, 
+		    // and take its ID back off the end if it got that far.
+		    
+		    boolean idAdded = false;
+		    try {
+			reader.readString(ids);
+			idAdded = true;
+			String householdID = reader.readString();
+			Integer household = householdPositions.get(householdID);
+			if (household == null) throw reader.error("household " + householdID + " isn't in the household file");
+			householdOfPerson[numberOfRows] = household.intValue();
+			for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+			    columns[attribute][numberOfRows] = reader.readInt();
+			}
+		    } catch (CsvFormatException cfe) {
+			if (idAdded) ids.removeLast();
+			System.err.println("Skipping " + cfe.getMessage());
+			continue;
+		    }
+		    
+		    numberOfRows++;
+		    
+		}
+		
+	    } finally {
+		reader.close();
+	    }
+	    
+	} catch (IOException ioe) {
+	    throw new UncheckedIOException("Couldn't read " + filename + ": " + ioe.getMessage(), ioe);
+	}
+	
+	ids.trim();
+	householdOfPerson = Arrays.copyOf(householdOfPerson, numberOfRows);
+	for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+	    columns[attribute] = Arrays.copyOf(columns[attribute], numberOfRows);
+	}
+	people = new MicroData(attributeNames, ids, columns);
+	
+    } // End of readPeople.
+    
+    
+    
+    
+    
+    /**
+     * Lists the members of each household.
+     **/
+    private void group() {
+	int numberOfHouseholds = households.getNumberOfPeople();
+	memberStarts = new int[numberOfHouseholds + 1];
+	for (int person = 0; person < householdOfPerson.length; person++) memberStarts[householdOfPerson[person] + 1]++;
+	for (int household = 0; household < numberOfHouseholds; household++) {
+	    memberStarts[household + 1] = memberStarts[household + 1] + memberStarts[household];
+	}
+	members = new int[householdOfPerson.length];
+	int [] next = Arrays.copyOf(memberStarts, numberOfHouseholds);
+	for (int person = 0; person < householdOfPerson.length; person++) {
+	    members[next[householdOfPerson[person]]++] = person;
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the households, as MicroData, so they can be matched against household tables.
+     **/
+    public MicroData getHouseholds() {
+	return households;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the people, as MicroData, so they can be matched against tables of people.
+     **/
+    public MicroData getPeople() {
+	return people;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of households.
+     **/
+    public int getNumberOfHouseholds() {
+	return households.getNumberOfPeople();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of people living in a household.
+     * @param household: the household's position.
+     **/
+    public int getNumberOfMembers(int household) {
+	return memberStarts[household + 1] - memberStarts[household];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets one of the people living in a household.
+     * @param household: the household's position.
+     * @param i: which of its members, starting with zero.
+     * @return the person's position in getPeople.
+     **/
+    public int getMember(int household, int i) {
+	return members[memberStarts[household] + i];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the household a person lives in.
+     * @param person: the person's position in getPeople.
+     * @return the household's position.
+     **/
+    public int getHousehold(int person) {
+	return householdOfPerson[person];
+    }
+    
+// End of class.
+}
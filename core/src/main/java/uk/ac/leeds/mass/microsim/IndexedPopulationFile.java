@@ -0,0 +1,311 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+
+
+/**
+ * Reads a population file written by an IndexedPopulationWriter, an area at a time, by memory mapping it.<P>
+ * Opening the file only reads the header. Everything else is read straight from the 
+ * mapped file when it's asked for, so getting one area's people touches the pages 
+ * holding its entry in the index and its people, and nothing else, however big the 
+ * file is. The operating system keeps the pages that are used in memory, and drops 
+ * them again if it needs to, so files much bigger than memory can be read.<P>
+ * Files bigger than a ByteBuffer can hold are mapped in pieces of a gigabyte. The 
+ * writer lines every number up so none straddles two pieces. Reading doesn't change 
+ * anything, so any number of threads can read from one IndexedPopulationFile at once.
+ * @version 1.0
+ */
+public class IndexedPopulationFile implements Closeable {
+    
+    private RandomAccessFile file = null;	// The file.
+    private ByteBuffer [] pieces = null;	// The file, mapped a gigabyte at a time.
+    private int numberOfAreas = 0;		// The number of areas.
+    private int numberOfPeople = 0;		// The number of people in the MicroData.
+    private int bytesPerPerson = 0;		// The number of bytes each person is written in.
+    private long areaIDsStart = 0;		// Where the area IDs start.
+    private long personIDsStart = 0;		// Where the MicroData IDs start.
+    private long indexStart = 0;		// Where the area index starts.
+    private long peopleStart = 0;		// Where the people start.
+    private HashMap<String, Integer> areaLookup = null;		// The number of each area ID, made the first time an area is looked up by ID.
+    
+    private static final int PIECE_BITS = 30;	// Pieces are 2 to the power of this bytes long.
+    private static final long PIECE_MASK = (1L << PIECE_BITS) - 1;	// Gives the position within a piece.
+    
+    
+    /**
+     * Opens a file and maps it.<P>
+     * @param path: the file.
+     * @throws IOException if it can't be read, or isn't a whole indexed population file.
+     **/
+    public IndexedPopulationFile(File path) throws IOException {
+	
+	file = new RandomAccessFile(path, "r");
+	
+	try {
+	    
+	    FileChannel channel = file.getChannel();
+	    long length = channel.size();
+	    if (length < IndexedPopulationWriter.HEADER_LENGTH) throw new IOException(path + " is too short to be an indexed population file.");
+	    pieces = new ByteBuffer[(int)((length + PIECE_MASK) >>> PIECE_BITS)];
+	    for (int piece = 0; piece < pieces.length; piece++) {
+		long start = (long)piece << PIECE_BITS;
+		pieces[piece] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(PIECE_MASK + 1, length - start));
+	    }
+	    
+	    if (getInt(0) != IndexedPopulationWriter.MAGIC) throw new IOException(path + " isn't an indexed population file.");
+	    if (getInt(4) != IndexedPopulationWriter.VERSION) {
+		throw new IOException(path + " is version " + getInt(4) + "; only version " + IndexedPopulationWriter.VERSION + " can be read.");
+	    }
+	    numberOfAreas = getInt(8);
+	    numberOfPeople = getInt(12);
+	    bytesPerPerson = getInt(16);
+	    areaIDsStart = getLong(24);
+	    personIDsStart = getLong(32);
+	    indexStart = getLong(40);
+	    peopleStart = getLong(48);
+	    if (getLong(56) != length) throw new IOException(path + " is " + length + " bytes long, but should be " + getLong(56) + ".");
+	    
+	} catch (IOException ioe) {
+	    file.close();
+	    throw ioe;
+	}
+	
+    } // End of constructor.
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas.
+     **/
+    public int getNumberOfAreas() {
+	return numberOfAreas;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of people in the MicroData the population was made from.
+     **/
+    public int getNumberOfPeople() {
+	return numberOfPeople;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets an area's ID.
+     * @param area: the area, starting with zero.
+     **/
+    public String getAreaID(int area) {
+	return getString(areaIDsStart, numberOfAreas, area);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Finds an area by its ID.<P>
+     * The first time this is called, every area ID is read to make a look-up table.
+     * @param id: the area's ID.
+     * @return the area, or -1 if there isn't one with that ID.
+     **/
+    public synchronized int findArea(String id) {
+	if (areaLookup == null) {
+	    areaLookup = new HashMap<String, Integer>(numberOfAreas * 2);
+	    for (int area = 0; area < numberOfAreas; area++) areaLookup.put(getAreaID(area), Integer.valueOf(area));
+	}
+	Integer area = areaLookup.get(id);
+	return (area == null) ? -1 : area.intValue();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of people in an area.
+     * @param area: the area, starting with zero.
+     **/
+    public int getAreaSize(int area) {
+	return (int)(getLong(indexStart + 8L * (area + 1)) - getLong(indexStart + 8L * area));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the MicroData position of one of the people in an area.
+     * @param area: the area, starting with zero.
+     * @param slot: the person's place in the area, starting with zero.
+     **/
+    public int getPerson(int area, int slot) {
+	return getPerson(getLong(indexStart + 8L * area) + slot);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the MicroData positions of all the people in an area.
+     * @param area: the area, starting with zero.
+     **/
+    public int[] getPeople(int area) {
+	long first = getLong(indexStart + 8L * area);
+	int[] people = new int[(int)(getLong(indexStart + 8L * (area + 1)) - first)];
+	for (int slot = 0; slot < people.length; slot++) people[slot] = getPerson(first + slot);
+	return people;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets a person's MicroData ID.
+     * @param person: the person's MicroData position.
+     **/
+    public String getPersonID(int person) {
+	return getString(personIDsStart, numberOfPeople, person);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Prints the people in some areas in the same form as the CSV population files.<P>
+     * <CODE>java uk.ac.leeds.mass.microsim.IndexedPopulationFile population.mspi areaID [areaID ...]</CODE>
+     **/
+    public static void main(String[] args) throws IOException {
+	
+	if (args.length < 2) {
+	    System.err.println("Usage: java uk.ac.leeds.mass.microsim.IndexedPopulationFile file areaID [areaID ...]");
+	    System.exit(1);
+	}
+	
+	IndexedPopulationFile population = new IndexedPopulationFile(new File(args[0]));
+	try {
+	    for (int i = 1; i < args.length; i++) {
+		int area = population.findArea(args[i]);
+		if (area < 0) {
+		    System.err.println("No area " + args[i]);
+		    continue;
+		}
+		int[] people = population.getPeople(area);
+		for (int slot = 0; slot < people.length; slot++) {
+		    System.out.println(args[i] + "," + population.getPersonID(people[slot]));
+		}
+	    }
+	} finally {
+	    population.close();
+	}
+	
+    } // End of main.
+    
+    
+    
+    
+    
+    /**
+     * Closes the file. The mappings go when they're garbage collected.
+     **/
+    public void close() throws IOException {
+	file.close();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the person at some place in the people, counting from the first person in the first area.
+     **/
+    private int getPerson(long record) {
+	long position = peopleStart + record * bytesPerPerson;
+	if (bytesPerPerson == 4) return getInt(position);
+	if (bytesPerPerson == 2) return ((getByte(position) & 0xFF) << 8) | (getByte(position + 1) & 0xFF);
+	return getByte(position) & 0xFF;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets one of the strings in a block of them, laid out as their starts and then their bytes.
+     **/
+    private String getString(long blockStart, int size, int i) {
+	int start = getInt(blockStart + 4L * i);
+	int end = getInt(blockStart + 4L * (i + 1));
+	long bytesStart = blockStart + 4L * (size + 1);
+	byte[] bytes = new byte[end - start];
+	for (int b = 0; b < bytes.length; b++) bytes[b] = getByte(bytesStart + start + b);
+	return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets a byte from the file.
+     **/
+    private byte getByte(long position) {
+	return pieces[(int)(position >>> PIECE_BITS)].get((int)(position & PIECE_MASK));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets an int from the file. It must start on a multiple of four bytes.
+     **/
+    private int getInt(long position) {
+	return pieces[(int)(position >>> PIECE_BITS)].getInt((int)(position & PIECE_MASK));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets a long from the file. It must start on a multiple of eight bytes.
+     **/
+    private long getLong(long position) {
+	return pieces[(int)(position >>> PIECE_BITS)].getLong((int)(position & PIECE_MASK));
+    }
+    
+// End of class.
+}
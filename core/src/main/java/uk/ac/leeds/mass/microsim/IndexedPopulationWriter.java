@@ -0,0 +1,191 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+
+
+/**
+ * Writes a population as a binary file that can be read an area at a time without reading the rest.<P>
+ * Unlike the BinaryPopulationWriter's file, which has to be read from the start, this 
+ * one starts with an index saying where each area's people are, and carries the area 
+ * IDs and MicroData IDs with it, so it can be used without the tables or MicroData. 
+ * It's meant to be memory mapped (see IndexedPopulationFile): getting one area's 
+ * people is then a look in the index and a read of a few pages, however big the 
+ * file. Each person is written as their MicroData position, in as few bytes as 
+ * the size of the MicroData allows (one, two or four).<P>
+ * All numbers are written high byte first, and each section starts on a multiple 
+ * of eight bytes, so no number ever straddles a boundary the reader maps at. The 
+ * file is laid out as:<BR>
+ * <CODE>int magic number (0x4D535049, "MSPI")<BR>
+ * int version (1)<BR>
+ * int number of areas<BR>
+ * int number of people in the MicroData<BR>
+ * int bytes per person (1, 2 or 4)<BR>
+ * int unused (0)<BR>
+ * long where the area IDs start<BR>
+ * long where the MicroData IDs start<BR>
+ * long where the area index starts<BR>
+ * long where the people start<BR>
+ * long the length of the file<BR></CODE>
+ * then the area IDs: an int for where each ID starts in the bytes that follow, plus 
+ * one for where the next would start, then the IDs as UTF-8; then the MicroData IDs 
+ * laid out the same way; then the area index: a long for the number of people 
+ * before each area, plus one for the total; then the people, area by area.
+ * @version 1.0
+ */
+public class IndexedPopulationWriter implements PopulationWriter {
+    
+    public static final int MAGIC = 0x4D535049;	// Marks the start of the file.
+    public static final int VERSION = 1;	// The version of the layout.
+    public static final int HEADER_LENGTH = 64;	// The length of the header, in bytes.
+    
+    
+    /**
+     * Creates a new IndexedPopulationWriter.
+     **/
+    public IndexedPopulationWriter() {
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes the population to a file.
+     **/
+    public void write(Population world, Constraints constraints, File file) throws IOException {
+	
+	int numberOfAreas = world.getNumberOfAreas();
+	Table areas = constraints.getTable(0);
+	PackedStrings areaIDs = new PackedStrings();
+	for (int area = 0; area < numberOfAreas; area++) areaIDs.add(areas.getID(area));
+	PackedStrings personIDs = constraints.getMicroData().getIDs();
+	int numberOfPeople = personIDs.size();
+	int bytesPerPerson = (numberOfPeople <= 0x100) ? 1 : ((numberOfPeople <= 0x10000) ? 2 : 4);
+	
+	// Work out where everything goes before writing anything.
+	
+	long totalPeople = 0;
+	for (int area = 0; area < numberOfAreas; area++) totalPeople = totalPeople + world.getAreaSize(area);
+	long areaIDsStart = HEADER_LENGTH;
+	long personIDsStart = pad(areaIDsStart + 4L * (numberOfAreas + 1) + (areaIDs.getStarts()[numberOfAreas] - areaIDs.getStarts()[0]));
+	long indexStart = pad(personIDsStart + 4L * (numberOfPeople + 1) + (personIDs.getStarts()[numberOfPeople] - personIDs.getStarts()[0]));
+	long peopleStart = indexStart + 8L * (numberOfAreas + 1);
+	long fileLength = peopleStart + totalPeople * bytesPerPerson;
+	
+	OutputBuffer out = new OutputBuffer(new FileOutputStream(file));
+	
+	try {
+	    
+	    out.writeInt(MAGIC);
+	    out.writeInt(VERSION);
+	    out.writeInt(numberOfAreas);
+	    out.writeInt(numberOfPeople);
+	    out.writeInt(bytesPerPerson);
+	    out.writeInt(0);
+	    out.writeLong(areaIDsStart);
+	    out.writeLong(personIDsStart);
+	    out.writeLong(indexStart);
+	    out.writeLong(peopleStart);
+	    out.writeLong(fileLength);
+	    
+	    long position = writeStrings(out, areaIDs, areaIDsStart);
+	    position = writePadding(out, position);
+	    position = writeStrings(out, personIDs, position);
+	    writePadding(out, position);
+	    
+	    long before = 0;
+	    for (int area = 0; area < numberOfAreas; area++) {
+		out.writeLong(before);
+		before = before + world.getAreaSize(area);
+	    }
+	    out.writeLong(before);
+	    
+	    for (int area = 0; area < numberOfAreas; area++) {
+		for (int slot = 0; slot < world.getNumberOfSlots(area); slot++) {
+		    int person = world.getPerson(area, slot);
+		    for (int copy = 0; copy < world.getSlotCount(area, slot); copy++) {
+			if (bytesPerPerson == 4) {
+			    out.writeInt(person);
+			} else {
+			    if (bytesPerPerson == 2) out.writeByte(person >>> 8);
+			    out.writeByte(person);
+			}
+		    }
+		}
+	    }
+	    
+	} finally {
+	    out.close();
+	}
+	
+    } // End of write.
+    
+    
+    
+    
+    
+    /**
+     * Rounds a position up to the next multiple of eight.
+     **/
+    private static long pad(long position) {
+	return (position + 7) & ~7L;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes zeros up to the next multiple of eight bytes.<P>
+     * @return the position after the padding.
+     **/
+    private static long writePadding(OutputBuffer out, long position) throws IOException {
+	while ((position & 7) != 0) {
+	    out.writeByte(0);
+	    position++;
+	}
+	return position;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes some strings as their start positions followed by their bytes.<P>
+     * @return the position after the last byte.
+     * @throws IOException if the strings are too long to give their starts as ints.
+     **/
+    private static long writeStrings(OutputBuffer out, PackedStrings strings, long position) throws IOException {
+	int size = strings.size();
+	int start = 0;
+	for (int i = 0; i < size; i++) {
+	    out.writeInt(start);
+	    if ((long)start + strings.getLength(i) > Integer.MAX_VALUE) throw new IOException("Too many bytes of IDs for an indexed population file.");
+	    start = start + strings.getLength(i);
+	}
+	out.writeInt(start);
+	for (int i = 0; i < size; i++) out.writeString(strings, i);
+	return position + 4L * (size + 1) + start;
+    }
+    
+// End of class.
+}
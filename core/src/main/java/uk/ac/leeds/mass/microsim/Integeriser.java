@@ -0,0 +1,99 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * Turns fractional weights into whole numbers of people.<P>
+ * Fitting methods like IPF give each kind of person a weight, such as 2.6, saying 
+ * how many of them an area should have, but an area can only have whole people. 
+ * This uses the "truncate, replicate, sample" method of Lovelace and Ballas (2013): 
+ * each weight is cut down to a whole number (truncate), that many copies are 
+ * used (replicate), and the places left over are filled by drawing from the 
+ * fractions that were cut off, without drawing any one twice (sample). The 
+ * total always comes out right, and no count is ever more than one away from 
+ * its weight.
+ * @version 1.0
+ */
+public class Integeriser {
+    
+    
+    /**
+     * Integerises some of the entries in an array of weights.<P>
+     * @param weights: the weights.
+     * @param entries: which weights to use, as positions in the weights array.
+     * @param firstEntry: the first of the entries to use.
+     * @param endEntry: one more than the last of the entries to use.
+     * @param total: what the whole numbers should add up to. Normally the weights 
+     * add up to this, but if they don't the places are still filled from the fractions.
+     * @param random: the random number generator for the sampling.
+     * @param counts: where to put the whole numbers, at the same positions as the weights.
+     **/
+    public static void truncateReplicateSample(double[] weights, int[] entries, int firstEntry, int endEntry, int total, 
+	    RandomSource random, int[] counts) {
+	
+	// Truncate and replicate.
+	
+	int placed = 0;
+	double fractionTotal = 0;
+	for (int i = firstEntry; i < endEntry; i++) {
+	    int entry = entries[i];
+	    int whole = (int)Math.floor(Math.max(0, weights[entry]));
+	    if (placed + whole > total) whole = total - placed;
+	    counts[entry] = whole;
+	    placed = placed + whole;
+	    fractionTotal = fractionTotal + (weights[entry] - Math.floor(weights[entry]));
+	}
+	
+	// Sample the rest from the fractions, taking each fraction out once it's drawn. 
+	// If the fractions run out, which only happens if the weights didn't add up to 
+	// the total, carry on drawing evenly from all the entries.
+	
+	int numberOfEntries = endEntry - firstEntry;
+	boolean [] drawn = new boolean[numberOfEntries];
+	while ((placed < total) && (numberOfEntries > 0)) {
+	    
+	    int chosen = -1;
+	    if (fractionTotal > 1e-9) {
+		
+		// If rounding means the pick never quite runs out, the last entry not yet drawn is used.
+		
+		double pick = random.nextDouble() * fractionTotal;
+		for (int i = 0; i < numberOfEntries; i++) {
+		    if (drawn[i]) continue;
+		    chosen = i;
+		    pick = pick - (weights[entries[firstEntry + i]] - Math.floor(weights[entries[firstEntry + i]]));
+		    if (pick < 0) break;
+		}
+	    }
+	    if (chosen >= 0) {
+		drawn[chosen] = true;
+		fractionTotal = fractionTotal - (weights[entries[firstEntry + chosen]] - Math.floor(weights[entries[firstEntry + chosen]]));
+	    } else {
+		chosen = random.nextInt(numberOfEntries);
+	    }
+	    
+	    counts[entries[firstEntry + chosen]]++;
+	    placed++;
+	    
+	}
+	
+    } // End of truncateReplicateSample.
+    
+// End of class.
+}
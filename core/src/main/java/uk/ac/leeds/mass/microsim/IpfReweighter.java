@@ -0,0 +1,252 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+import java.io.*;
+
+
+/**
+ * Makes up a population by iterative proportional fitting (IPF), rather than annealing.<P>
+ * Takes the same tables and MicroData as the Redistributor. For each area every 
+ * profile (kind of person, see Profiles) is given a weight, fitted to the tables 
+ * by IPF (see IpfStart.fitWeights), and the weights are kept in a WeightMatrix with 
+ * a row per area. There are no swaps to try, so this is far quicker than annealing 
+ * on big jobs, though where the tables conflict the fit is only as close as the 
+ * weights can get.<P>
+ * The weights can be used as they are, or turned into whole people for each area 
+ * (see IpfStart.fill), making a Population that can be written in any of the same 
+ * formats as the Redistributor's. With the same settings, the people are the same 
+ * as the Redistributor's IPF start before it anneals. Areas are fitted and filled 
+ * in parallel, with each area getting its own random numbers, so the results only 
+ * depend on the seed and not the number of threads.
+ * @version 1.0
+ */
+public class IpfReweighter {
+    
+    private Constraints constraints = null;	// The tables and people.
+    private RedistributionSettings settings = null;	// The seed, random number generator and number of threads.
+    private Profiles profiles = null;		// The kinds of people, which are the columns of the weights.
+    private WeightMatrix weights = null;	// The fitted weights.
+    private Population world = null;		// The integerised population.
+    private boolean sparse = false;		// Whether to keep only the weights that aren't zero.
+    private int numberOfAreas = 0;		// The number of areas.
+    
+    private static final long FILLING = 0;		// The key for the random numbers used to fill the areas, the same as the Redistributor's.
+    
+    
+    /**
+     * Creates a new IpfReweighter.<P>
+     * Only the seed, random number generator and number of threads in the settings are used.
+     * @param constraints: the tables to fit to, and the people to fit them with.
+     * @param settings: the seed, random number generator and number of threads.
+     **/
+    public IpfReweighter(Constraints constraints, RedistributionSettings settings) {
+	this.constraints = constraints;
+	this.settings = settings;
+	numberOfAreas = constraints.getNumberOfAreas();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets whether to keep only the weights that aren't zero (see SparseWeightMatrix).<P>
+     * This is worth it for detailed tables with many areas, where most kinds 
+     * of people are missing from most areas. Off by default.
+     * @param sparse: true for a SparseWeightMatrix, false for a DenseWeightMatrix.
+     **/
+    public void setSparse(boolean sparse) {
+	this.sparse = sparse;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Fits the weights, then turns them into people.
+     **/
+    public void run() {
+	fit();
+	integerise();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Fits the weights for every area.
+     **/
+    public void fit() {
+	
+	if (profiles == null) profiles = new Profiles(constraints);
+	int numberOfProfiles = profiles.getNumberOfProfiles();
+	weights = sparse ? (WeightMatrix)new SparseWeightMatrix(numberOfAreas, numberOfProfiles) 
+	    : (WeightMatrix)new DenseWeightMatrix(numberOfAreas, numberOfProfiles);
+	
+	AreaChunks.run(constraints, 1, settings.getNumberOfThreads(), new AreaChunk(false, null));
+	
+    } // End of fit.
+    
+    
+    
+    
+    
+    /**
+     * Turns the fitted weights into whole people for every area.<P>
+     * fit must have been called first.
+     **/
+    public void integerise() {
+	
+	if (weights == null) throw new IllegalStateException("The weights haven't been fitted yet.");
+	world = new Population(numberOfAreas);
+	
+	RandomSource randoms = settings.getRandomSource().derive(FILLING);
+	AreaChunks.run(constraints, 1, settings.getNumberOfThreads(), new AreaChunk(true, randoms));
+	
+    } // End of integerise.
+    
+    
+    
+    
+    
+    /**
+     * Gets the fitted weights, one row per area and one column per profile. Only filled once fit has been called.
+     **/
+    public WeightMatrix getWeights() {
+	return weights;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the kinds of people the weights are for. Only made once fit has been called.
+     **/
+    public Profiles getProfiles() {
+	return profiles;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the integerised population. Only filled once integerise has been called.
+     **/
+    public Population getPopulation() {
+	return world;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the total error of the integerised population: the differences between 
+     * its counts and the tables, added up over every cell of every area.
+     **/
+    public long getTotalError() {
+	
+	int numberOfCells = constraints.getNumberOfCells();
+	int numberOfConstraints = constraints.getNumberOfConstraints();
+	int[] counts = new int[numberOfCells];
+	long error = 0;
+	for (int area = 0; area < numberOfAreas; area++) {
+	    Arrays.fill(counts, 0);
+	    for (int slot = 0; slot < world.getAreaSize(area); slot++) {
+		int person = world.getPerson(area, slot);
+		for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+		    counts[constraints.getPersonCell(person, constraint)]++;
+		}
+	    }
+	    for (int cell = 0; cell < numberOfCells; cell++) {
+		error = error + Math.abs(constraints.getTarget(area, cell) - counts[cell]);
+	    }
+	}
+	return error;
+	
+    } // End of getTotalError.
+    
+    
+    
+    
+    
+    /**
+     * Fits or fills the areas in a chunk (see AreaChunks).<P>
+     * Each chunk has its own IpfStart, as they keep working arrays between areas.
+     **/
+    private class AreaChunk implements AreaChunks.Task {
+	
+	private boolean filling = false;	// Whether to fill the areas with people, rather than fit their weights.
+	private RandomSource randoms = null;	// Where each area's random number generator is derived from, when filling.
+	
+	AreaChunk(boolean filling, RandomSource randoms) {
+	    this.filling = filling;
+	    this.randoms = randoms;
+	}
+	
+	public void run(int firstArea, int endArea) {
+	    IpfStart ipf = new IpfStart(constraints, profiles);
+	    double[] row = new double[profiles.getNumberOfProfiles()];
+	    for (int area = firstArea; area < endArea; area++) {
+		if (filling) {
+		    weights.getRow(area, row);
+		    world.createArea(area, constraints.getAreaPopulation(area));
+		    ipf.fill(area, row, world, randoms.derive(settings.getAreaOffset() + area));
+		} else {
+		    ipf.fitWeights(area, row);
+		    weights.setRow(area, row);
+		}
+	    }
+	}
+	
+    } // End of AreaChunk.
+    
+    
+    
+    
+    
+    /**
+     * Write the people to a file in the same format as the Redistributor's write(File).<P>
+     * @param file: the file to write to.
+     **/
+    public void write(File file) throws IOException {
+	write(file, new CsvPopulationWriter(false));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Write the people to a file in some other format.<P>
+     * @param file: the file to write to.
+     * @param writer: the format to write in (see PopulationWriter).
+     **/
+    public void write(File file, PopulationWriter writer) throws IOException {
+	writer.write(world, constraints, file);
+    }
+    
+// End of class.
+}
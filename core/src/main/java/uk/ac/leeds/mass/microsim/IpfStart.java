@@ -0,0 +1,244 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+
+
+/**
+ * Fills areas with people fitted to the tables, rather than drawn at random, before annealing.<P>
+ * Starting from random people, the annealing spends most of its swaps on the easy 
+ * part of the job: getting roughly the right number of each kind of person. This 
+ * does that part directly. For each area, every profile (kind of person, see 
+ * Profiles) is given a weight by iterative proportional fitting (IPF): the weights 
+ * are scaled to match each table in turn, over and over, until they match them 
+ * all. The weights are then turned into whole numbers of people with the 
+ * Integeriser, separately for each category of the first table, so the first table 
+ * always comes out exactly right. Finally the right number of people are picked 
+ * from each profile, using every member equally before using any twice.<P>
+ * With one table, or tables that don't conflict, areas start with no error at all 
+ * and need no swaps. Otherwise the annealing just has to tidy up what's left.<P>
+ * The weights and counts are kept between areas to save making new arrays, so 
+ * an IpfStart must only be used by one thread at a time.
+ * @version 1.0
+ */
+public class IpfStart {
+    
+    private Constraints constraints = null;	// The tables and people.
+    private Profiles profiles = null;		// The kinds of people.
+    private int [] entryStarts = null;		// For each cell of the first table, where its profiles start in entries, plus where the next would start.
+    private int [] entries = null;		// The profiles in each cell of the first table, cell by cell.
+    private double [] weights = null;		// Each profile's weight in the area being filled.
+    private double [] sums = null;		// The total weight in each cell.
+    private int [] counts = null;		// The whole number of people from each profile.
+    private int [] picked = null;		// For each member of a profile, the pick it was last chosen in.
+    private int pick = 0;			// The number of the current pick, so picked needn't be cleared between them.
+    
+    private static final int MAX_ITERATIONS = 50;	// The most times to fit all the tables.
+    private static final double TOLERANCE = 1e-6;	// Stop once every cell's weight is this close to its table value.
+    
+    
+    /**
+     * Creates a new IpfStart.<P>
+     * @param constraints: the tables and people.
+     * @param profiles: the kinds of people, grouped from the same constraints.
+     **/
+    public IpfStart(Constraints constraints, Profiles profiles) {
+	
+	this.constraints = constraints;
+	this.profiles = profiles;
+	int numberOfProfiles = profiles.getNumberOfProfiles();
+	
+	// List the profiles in each cell of the first table, for integerising.
+	
+	int firstCells = constraints.getCellOffset(1);
+	entryStarts = new int[firstCells + 1];
+	for (int profile = 0; profile < numberOfProfiles; profile++) entryStarts[profiles.getCell(profile, 0) + 1]++;
+	for (int cell = 0; cell < firstCells; cell++) entryStarts[cell + 1] = entryStarts[cell + 1] + entryStarts[cell];
+	entries = new int[numberOfProfiles];
+	int [] next = new int[firstCells];
+	System.arraycopy(entryStarts, 0, next, 0, firstCells);
+	for (int profile = 0; profile < numberOfProfiles; profile++) entries[next[profiles.getCell(profile, 0)]++] = profile;
+	
+	weights = new double[numberOfProfiles];
+	sums = new double[constraints.getNumberOfCells()];
+	counts = new int[numberOfProfiles];
+	int biggest = 0;
+	for (int profile = 0; profile < numberOfProfiles; profile++) biggest = Math.max(biggest, profiles.getSize(profile));
+	picked = new int[biggest];
+	
+    } // End of constructor.
+    
+    
+    
+    
+    
+    /**
+     * Fills an area with people fitted to the tables.<P>
+     * @param area: the area.
+     * @param world: the population to fill. The area must already have been made the right size.
+     * @param random: the random number generator for the integerising and picking people.
+     **/
+    public void fill(int area, Population world, RandomSource random) {
+	fitWeights(area, weights);
+	fill(area, weights, world, random);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Fills an area with people, given weights already worked out for it.<P>
+     * @param area: the area.
+     * @param weights: the weight of each profile in the area, from fitWeights.
+     * @param world: the population to fill. The area must already have been made the right size.
+     * @param random: the random number generator for the integerising and picking people.
+     **/
+    public void fill(int area, double[] weights, Population world, RandomSource random) {
+	
+	// Integerise each category of the first table separately, so each gets exactly 
+	// the number of people the table says. Categories with nobody in the sample 
+	// to fill them are left, and made up with random people at the end.
+	
+	int slot = 0;
+	int areaSize = world.getAreaSize(area);
+	for (int cell = 0; cell < constraints.getCellOffset(1); cell++) {
+	    if (entryStarts[cell + 1] == entryStarts[cell]) continue;
+	    int total = Math.min(constraints.getTarget(area, cell), areaSize - slot);
+	    Integeriser.truncateReplicateSample(weights, entries, entryStarts[cell], entryStarts[cell + 1], total, random, counts);
+	    for (int i = entryStarts[cell]; i < entryStarts[cell + 1]; i++) {
+		slot = pickMembers(entries[i], counts[entries[i]], area, slot, world, random);
+	    }
+	}
+	
+	int numberOfPeople = constraints.getMicroData().getNumberOfPeople();
+	while (slot < areaSize) {
+	    world.fillPerson(area, slot, random.nextInt(numberOfPeople));
+	    slot++;
+	}
+	
+    } // End of fill.
+    
+    
+    
+    
+    
+    /**
+     * Works out each profile's weight in an area by iterative proportional fitting.<P>
+     * Every profile starts with a weight of the number of people in it. Then for each 
+     * table, the weights in each cell are added up, and the weights in the cell are 
+     * multiplied by the table value over that total, so the cell matches the table. 
+     * Matching one table can unmatch the ones before, so this is repeated until all 
+     * the cells match. The first table is matched last, so it always matches exactly.
+     * @param area: the area.
+     * @param weights: where to put the weights, one for each profile.
+     **/
+    public void fitWeights(int area, double[] weights) {
+	
+	int numberOfProfiles = profiles.getNumberOfProfiles();
+	for (int profile = 0; profile < numberOfProfiles; profile++) weights[profile] = profiles.getSize(profile);
+	
+	for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+	    
+	    double worst = 0;
+	    
+	    for (int constraint = constraints.getNumberOfConstraints() - 1; constraint >= 0; constraint--) {
+		
+		int firstCell = constraints.getCellOffset(constraint);
+		int endCell = constraints.getCellOffset(constraint + 1);
+		for (int cell = firstCell; cell < endCell; cell++) sums[cell] = 0;
+		for (int profile = 0; profile < numberOfProfiles; profile++) {
+		    sums[profiles.getCell(profile, constraint)] += weights[profile];
+		}
+		
+		// Cells with no weight can't be scaled up, so are left; they'll be 
+		// made up with random people when filling.
+		
+		for (int cell = firstCell; cell < endCell; cell++) {
+		    if (sums[cell] > 0) worst = Math.max(worst, Math.abs(constraints.getTarget(area, cell) - sums[cell]));
+		}
+		for (int profile = 0; profile < numberOfProfiles; profile++) {
+		    int cell = profiles.getCell(profile, constraint);
+		    if (sums[cell] > 0) weights[profile] = weights[profile] * constraints.getTarget(area, cell) / sums[cell];
+		}
+		
+	    }
+	    
+	    if (worst < TOLERANCE) break;
+	    
+	}
+	
+    } // End of fitWeights.
+    
+    
+    
+    
+    
+    /**
+     * Puts some of a profile's members into an area.<P>
+     * Each member is used count / size times, and then the rest are picked at random, 
+     * without picking anyone twice, using Floyd's method. Members already chosen 
+     * are marked with the number of the pick in picked, rather than looked for 
+     * in a list, so a pick takes a time that grows with the number of members 
+     * picked, not its square. Profiles often have many more members than an 
+     * area needs, so most of a big area can come from this one pick.
+     * @param profile: the profile.
+     * @param count: how many of its members to put in.
+     * @param area: the area.
+     * @param slot: the first slot to fill.
+     * @param world: the population.
+     * @param random: the random number generator.
+     * @return the slot after the last one filled.
+     **/
+    private int pickMembers(int profile, int count, int area, int slot, Population world, RandomSource random) {
+	
+	int size = profiles.getSize(profile);
+	if ((count == 0) || (size == 0)) return slot;
+	
+	for (int copy = 0; copy < count / size; copy++) {
+	    for (int member = 0; member < size; member++) {
+		world.fillPerson(area, slot++, profiles.getMember(profile, member));
+	    }
+	}
+	
+	int rest = count % size;
+	if (rest == 0) return slot;
+	
+	// Start a new pick, clearing the marks if the numbers have gone all the way round.
+	
+	pick++;
+	if (pick == 0) {
+	    Arrays.fill(picked, 0);
+	    pick = 1;
+	}
+	
+	for (int j = size - rest; j < size; j++) {
+	    int member = random.nextInt(j + 1);
+	    if (picked[member] == pick) member = j;
+	    picked[member] = pick;
+	    world.fillPerson(area, slot++, profiles.getMember(profile, member));
+	}
+	
+	return slot;
+	
+    } // End of pickMembers.
+    
+// End of class.
+}
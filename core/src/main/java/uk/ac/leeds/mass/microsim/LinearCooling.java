@@ -0,0 +1,104 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * A CoolingSchedule that lowers the temperature by the same amount at each step.<P>
+ * This is the schedule from Dimitris' SimLeeds, and the one used unless another is 
+ * set. With a maxTemperature of 20 and a temperatureConversion of 5, the temperature 
+ * goes 5, 4.75, 4.5 and so on down to 0.25, over 20 steps.
+ * @version 1.0
+ */
+public class LinearCooling implements CoolingSchedule {
+    
+    private int maxTemperature = 0;		// The number of steps.
+    private int temperatureConversion = 0;	// The first temperature.
+    private int step = 0;			// The steps left, counting down.
+    
+    
+    /**
+     * Creates a new LinearCooling.<P>
+     * @param maxTemperature: the number of steps.
+     * @param temperatureConversion: the first temperature.
+     **/
+    public LinearCooling(int maxTemperature, int temperatureConversion) {
+	this.maxTemperature = maxTemperature;
+	this.temperatureConversion = temperatureConversion;
+    }
+    
+    
+    
+    
+    
+    public double start(int areaError) {
+	step = maxTemperature;
+	return temperature();
+    }
+    
+    
+    
+    
+    
+    public double next(int proposed, int accepted, int uphillProposed, int uphillAccepted, int areaError) {
+	step--;
+	return temperature();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Works out the temperature for the current step, or zero if we've run out of steps.
+     **/
+    private double temperature() {
+	
+	if (step <= 0) return 0;
+	
+	// The next line is lifted almost entirely from Dimitris' SimLeeds.
+	
+	return (double)temperatureConversion*((double)step/(double)maxTemperature); 
+    }
+    
+    
+    
+    
+    
+    public int getMaxSteps() {
+	return Math.max(0, maxTemperature);
+    }
+    
+    
+    
+    
+    
+    public CoolingSchedule copy() {
+	return new LinearCooling(maxTemperature, temperatureConversion);
+    }
+    
+    
+    
+    
+    
+    public String toString() {
+	return "LinearCooling " + maxTemperature + " " + temperatureConversion;
+    }
+    
+// End of class.
+}
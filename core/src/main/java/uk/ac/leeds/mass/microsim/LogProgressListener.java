@@ -0,0 +1,55 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+
+
+/**
+ * A ProgressListener that prints a line of stats each time it hears anything.<P>
+ * Handy for batch runs, where the output ends up in a log file.
+ * @version 1.0
+ */
+public class LogProgressListener implements ProgressListener {
+    
+    private PrintStream out = null;	// Where to print the stats.
+    
+    
+    /**
+     * Creates a new LogProgressListener.<P>
+     * @param out: where to print the stats, for example System.out.
+     **/
+    public LogProgressListener(PrintStream out) {
+	this.out = out;
+    }
+    
+    public void runStarted(ProgressStats stats) {
+	out.println("Started " + stats);
+    }
+    
+    public void progress(ProgressStats stats) {
+	out.println(stats);
+    }
+    
+    public void runFinished(ProgressStats stats) {
+	out.println("Finished " + stats);
+    }
+    
+// End of class.
+}
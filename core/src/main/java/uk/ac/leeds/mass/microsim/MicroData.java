@@ -0,0 +1,386 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+import java.io.*;
+
+
+/**
+ * Class for encapsulating sample microdata.<P>
+ * Holds the people read from a file. You can get hold of the number of 
+ * people, and each person's ID and attribute values based on their position 
+ * in the original file. Each person has the same set of attributes, named in 
+ * the file's header line.<P>
+ * The people aren't held as separate objects. Instead each attribute is one 
+ * array with a value for every person, and the IDs are packed end to end in 
+ * a PackedStrings. Attributes whose values all fit between 0 and 255 (which 
+ * category codes nearly always do) are kept in byte arrays rather than int 
+ * arrays. This keeps a person down to their ID's length plus about five bytes 
+ * per attribute, rather than the hundred-odd bytes that objects, Strings and 
+ * pointers cost. If you want a Person object, getPerson will make one, but 
+ * it's better to use getID and getValue.
+ * @author <A href="http://www.geog.leeds.ac.uk/people/a.evans/">Andy Evans</A>
+ * @version 1.0
+ */
+public class MicroData {
+    
+    private PackedStrings ids = null;	    // The people's IDs.
+    private byte [][] smallValues = null;   // For each attribute, the people's values if they all fit in a byte, or null.
+    private int [][] values = null;	    // For each attribute, the people's values if they don't fit in a byte, or null.
+    private int numberOfRows = 0;	    // The number of people.
+    private String [] attributeNames = null;	// The names of the attributes, from the header line.
+    private AttributeIndex [] indexes = null;	// For each attribute, the people grouped by value, once asked for.
+    private MicroDataCache.Indexes cachedIndexes = null;	// Where to copy the indexes from, if this came from a MicroDataCache.
+    
+    
+    /** 
+     * Creates a new instance of MicroData.<P>
+     * Takes in a file path and reads the data from it.The file should 
+     * be in the form:<BR>
+     * <CODE>Name, Value0, Value1, ... ValueN</CODE><BR>
+     * with a header line naming the attributes, for example:<BR>
+     * <CODE>ID, Gender, AgeBand</CODE><BR>
+     * Each value is a category code starting at zero, saying which column 
+     * of the matching Table the person falls in. Lines that can't be read are 
+     * reported and skipped.
+     * @throws UncheckedIOException if the file can't be read at all.
+     */
+    public MicroData(String filename) {
+	read(filename);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Creates a new instance of MicroData from data already in memory.<P>
+     * @param attributeNames: the names of the attributes.
+     * @param ids: the people's IDs.
+     * @param columns: for each attribute, every person's value.
+     **/
+    public MicroData(String[] attributeNames, PackedStrings ids, int[][] columns) {
+	this.attributeNames = attributeNames;
+	this.ids = ids;
+	numberOfRows = ids.size();
+	store(columns);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Creates a new instance of MicroData from columns already stored, for example by a MicroDataCache.<P>
+     * @param attributeNames: the names of the attributes.
+     * @param ids: the people's IDs.
+     * @param smallValues: for each attribute, every person's value if they fit in a byte, or null.
+     * @param values: for each attribute, every person's value if they don't fit in a byte, or null.
+     * @param cachedIndexes: where to copy each attribute's index from when it's asked for, or null to make them.
+     **/
+    MicroData(String[] attributeNames, PackedStrings ids, byte[][] smallValues, int[][] values, MicroDataCache.Indexes cachedIndexes) {
+	this.attributeNames = attributeNames;
+	this.ids = ids;
+	this.smallValues = smallValues;
+	this.values = values;
+	this.cachedIndexes = cachedIndexes;
+	numberOfRows = ids.size();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads in a file of people.<P>
+     * The file is read in one go with a CsvReader, straight into arrays that 
+     * get bigger as needed. Lines that can't be read are reported with their 
+     * line number and skipped.
+     * @throws UncheckedIOException if the file can't be read at all.
+     **/
+    private void read(String filename) {
+	
+	ids = new PackedStrings();
+	int [][] columns = new int[0][];
+	int numberOfAttributes = 0;
+	attributeNames = new String[0];
+	numberOfRows = 0;
+	
+	try {
+	    
+	    CsvReader reader = new CsvReader(filename);
+	    
+	    try {
+		
+		// The first line is a header. The first name on it is for the 
+		// IDs, and the rest are the attribute names.
+		
+		if (reader.nextLine()) {
+		    reader.readString();
+		    ArrayList<String> names = new ArrayList<String>();
+		    while (reader.hasMoreFields()) names.add(reader.readString());
+		    attributeNames = names.toArray(new String[names.size()]);
+		    numberOfAttributes = attributeNames.length;
+		}
+		columns = new int[numberOfAttributes][1024];
+		
+		while (reader.nextLine()) {
+		    
+		    // If we've run out of room, double the size of the arrays.
+		    
+		    if ((numberOfAttributes > 0) && (numberOfRows == columns[0].length)) {
+			for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+			    columns[attribute] = Arrays.copyOf(columns[attribute], numberOfRows * 2);
+			}
+		    }
+		    
+		    // Read the row straight into the end of the arrays. If it goes 
+		    // wrong we just don't count the row, so it's overwritten by the next, 
+		    // and take its ID back off the end if it got that far.
+		    
+		    boolean idAdded = false;
+		    try {
+			reader.readString(ids);
+			idAdded = true;
+			for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+			    columns[attribute][numberOfRows] = reader.readInt();
+			}
+		    } catch (CsvFormatException cfe) {
+			if (idAdded) ids.removeLast();
+			System.err.println("Skipping " + cfe.getMessage());
+			continue;
+		    }
+		    
+		    numberOfRows++;
+		    
+		}
+		
+	    } finally {
+		reader.close();
+	    }
+	    
+	} catch (IOException ioe) {
+	    throw new UncheckedIOException("Couldn't read " + filename + ": " + ioe.getMessage(), ioe);
+	}
+	
+	// Now we've read through the file, we know how many people there are, 
+	// so we can cut the arrays down to size.
+	
+	ids.trim();
+	for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+	    columns[attribute] = Arrays.copyOf(columns[attribute], numberOfRows);
+	}
+	store(columns);
+	
+    } // End of read method.
+    
+    
+    
+    
+    
+    /**
+     * Keeps the attribute values, in byte arrays where they'll fit.
+     **/
+    private void store(int[][] columns) {
+	
+	smallValues = new byte[columns.length][];
+	values = new int[columns.length][];
+	
+	for (int attribute = 0; attribute < columns.length; attribute++) {
+	    
+	    boolean fits = true;
+	    for (int i = 0; i < numberOfRows; i++) {
+		if ((columns[attribute][i] < 0) || (columns[attribute][i] > 255)) {
+		    fits = false;
+		    break;
+		}
+	    }
+	    
+	    if (fits) {
+		smallValues[attribute] = new byte[numberOfRows];
+		for (int i = 0; i < numberOfRows; i++) smallValues[attribute][i] = (byte)columns[attribute][i];
+	    } else {
+		values[attribute] = columns[attribute];
+	    }
+	    
+	}
+	
+    } // End of store.
+    
+
+    
+    
+    
+    /**
+     * Returns the number of people in the sample microdata set.
+     **/
+    public int getNumberOfPeople () {
+	return numberOfRows;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns the number of attributes each person has.
+     **/
+    public int getNumberOfAttributes () {
+	return attributeNames.length;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns the name of an attribute, from the file's header line.
+     * @param attribute: the attribute, starting with zero.
+     **/
+    public String getAttributeName (int attribute) {
+	return attributeNames[attribute];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns a person's ID.<P>
+     * @param position: their row number in the original file, starting with zero.
+     **/
+    public String getID(int position) {
+	return ids.get(position);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns all the IDs, for writing them out without making Strings.
+     **/
+    public PackedStrings getIDs() {
+	return ids;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns one of a person's attribute values.<P>
+     * @param position: their row number in the original file, starting with zero.
+     * @param attribute: the attribute, starting with zero.
+     **/
+    public int getValue(int position, int attribute) {
+	byte [] small = smallValues[attribute];
+	if (small != null) return small[position] & 0xFF;
+	return values[attribute][position];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns the people grouped by their value of one attribute.<P>
+     * The index is made the first time it's asked for, and kept. If the MicroData 
+     * came from a MicroDataCache, it's copied from the cache instead, unless it 
+     * turns out to be damaged.
+     * @param attribute: the attribute, starting with zero.
+     **/
+    public synchronized AttributeIndex getAttributeIndex(int attribute) {
+	if (indexes == null) indexes = new AttributeIndex[attributeNames.length];
+	if ((indexes[attribute] == null) && (cachedIndexes != null)) {
+	    try {
+		indexes[attribute] = cachedIndexes.read(attribute);
+	    } catch (IOException ioe) {
+		System.err.println("Making the index for " + attributeNames[attribute] + " again: " + ioe.getMessage());
+	    }
+	}
+	if (indexes[attribute] == null) indexes[attribute] = new AttributeIndex(this, attribute);
+	return indexes[attribute];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns an attribute's values if they all fit in a byte, or null, for saving them.
+     **/
+    byte[] getByteColumn(int attribute) {
+	return smallValues[attribute];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns an attribute's values if they don't all fit in a byte, or null, for saving them.
+     **/
+    int[] getIntColumn(int attribute) {
+	return values[attribute];
+    }
+    
+    
+    
+    
+    
+    /** 
+     * Returns a particular person from inside the microdata set.<P>
+     * The Person is made new each time, as a copy of the data, so changing it 
+     * doesn't change the MicroData.
+     * @param position: their row number in the original file, starting with zero.
+     **/
+    public Person getPerson(int position) {
+	Person person = new Person();
+	person.setID(getID(position));
+	int [] personValues = new int[attributeNames.length];
+	for (int attribute = 0; attribute < personValues.length; attribute++) {
+	    personValues[attribute] = getValue(position, attribute);
+	}
+	person.setValues(personValues);
+	return person;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns the microdata as a text String that can be displayed.
+     **/
+    public String toString() {
+	StringBuilder microDataAsText = new StringBuilder("Read people: \n");
+	for (int i = 0; i < numberOfRows; i++) {
+	    microDataAsText.append(getID(i));
+	    for (int attribute = 0; attribute < attributeNames.length; attribute++) {
+		microDataAsText.append(" ").append(getValue(i, attribute));
+	    }
+	    microDataAsText.append("\n");
+	}
+	return microDataAsText.toString();
+    }
+    
+// End of class.  
+}
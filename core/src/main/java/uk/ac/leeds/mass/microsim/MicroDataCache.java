@@ -0,0 +1,520 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.zip.*;
+
+
+/**
+ * Keeps MicroData, already read, in a binary file, so it doesn't have to be read from CSV every run.<P>
+ * Reading a big sample from CSV means turning every field from text, which for 
+ * millions of people takes far longer than the runs that use it, and the same 
+ * sample is often used for hundreds of runs. The cache holds the MicroData as 
+ * it is in memory: each attribute as a column of bytes or ints, and the IDs 
+ * packed end to end. Loading it maps the file and copies each column straight 
+ * into its array, with no parsing at all. The people grouped by each attribute's 
+ * values (see AttributeIndex) are kept too, but aren't copied when the cache is 
+ * loaded, as most runs only need them for a few attributes, or none. Instead the 
+ * MicroData is told where each one is in the mapped file, and copies it from there 
+ * the first time it's asked for, rather than going through every person to make it.<P>
+ * The cache records the length and CRC32C checksum of the CSV it was made from. 
+ * The checksum is worked out again each time (again by mapping the file, which 
+ * is quick), and if either has changed, the CSV is read again and the cache 
+ * rewritten, as it is if the cache is damaged. A cache is written to a new 
+ * file and then moved into place, so runs sharing one never see half a cache. 
+ * The layout, all big-endian, is:<BR>
+ * <CODE>int magic, int version, long source length, int source checksum, 
+ * int people, int attributes, int 0</CODE><BR>
+ * then each attribute name (an int length and its UTF-8 bytes), each attribute's 
+ * column (an int saying whether it is 1 or 4 bytes a person, then the values), 
+ * the IDs (an int byte count, the start of each, then the bytes), and each 
+ * attribute's index (an int number of values, an int number of people, where 
+ * each value's people start, then the people), and last an int CRC32C checksum 
+ * of everything before it, which is checked before the rest is read, so it 
+ * covers the indexes that are only copied later. Everything after the names is padded to a multiple of four bytes, 
+ * so ints never straddle the gigabyte pieces big files are mapped in.
+ * @version 1.0
+ */
+public class MicroDataCache {
+    
+    public static final int MAGIC = 0x4D534D43;	// Marks the start of the file: "MSMC".
+    public static final int VERSION = 3;	// The version of the layout.
+    
+    private static final int HEADER_LENGTH = 32;	// The size of the header, in bytes.
+    private static final int PIECE_BITS = 30;	// Files are mapped in pieces of 2 to the power of this bytes.
+    private static final long PIECE_MASK = (1L << PIECE_BITS) - 1;	// Gives the position within a piece.
+    
+    
+    /**
+     * Not used; everything is static.
+     **/
+    private MicroDataCache() {
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the MicroData for a CSV file, from the cache if it is up to date.<P>
+     * Otherwise, or if the cache can't be read, the CSV is read and a new cache 
+     * written. If the cache can't be written, that's reported and the MicroData 
+     * is used anyway.
+     * @param source: the CSV file, as read by MicroData(String).
+     * @param cache: the cache file.
+     * @throws IOException if the CSV can't be checksummed.
+     **/
+    public static MicroData load(File source, File cache) throws IOException {
+	
+	long length = source.length();
+	int checksum = checksum(source);
+	
+	if (cache.isFile()) {
+	    try {
+		MicroData microData = read(cache, length, checksum);
+		if (microData != null) return microData;
+	    } catch (IOException ioe) {
+		System.err.println("Ignoring cache " + cache + ": " + ioe.getMessage());
+	    } catch (RuntimeException re) {
+		System.err.println("Ignoring cache " + cache + ": " + re);
+	    }
+	}
+	
+	MicroData microData = new MicroData(source.getPath());
+	try {
+	    write(cache, microData, length, checksum);
+	} catch (IOException ioe) {
+	    System.err.println("Couldn't write cache " + cache + ": " + ioe.getMessage());
+	}
+	return microData;
+	
+    } // End of load.
+    
+    
+    
+    
+    
+    /**
+     * Works out the CRC32C checksum of a file, by mapping it.
+     * @param file: the file.
+     **/
+    public static int checksum(File file) throws IOException {
+	ByteBuffer[] pieces = map(file);
+	long length = 0;
+	for (int piece = 0; piece < pieces.length; piece++) length = length + pieces[piece].limit();
+	return checksum(pieces, length);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Works out the CRC32C checksum of the start of a mapped file.
+     * @param pieces: the file, as mapped by map.
+     * @param length: the number of bytes to include.
+     **/
+    private static int checksum(ByteBuffer[] pieces, long length) {
+	CRC32C crc = new CRC32C();
+	for (int piece = 0; piece < pieces.length; piece++) {
+	    long start = (long)piece << PIECE_BITS;
+	    if (start >= length) break;
+	    ByteBuffer bytes = pieces[piece].duplicate();
+	    bytes.limit((int)Math.min(bytes.limit(), length - start));
+	    crc.update(bytes);
+	}
+	return (int)crc.getValue();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads MicroData from a cache, if it was made from a source with the given length and checksum.<P>
+     * @param cache: the cache file.
+     * @param sourceLength: the length the CSV should have had.
+     * @param sourceChecksum: the checksum the CSV should have had.
+     * @return the MicroData, or null if the cache was made from a different CSV.
+     * @throws IOException if the cache can't be read, or isn't a whole cache. Every 
+     * count and length is checked against what's left of the file before anything 
+     * is made from it, so a damaged cache ends up here too.
+     **/
+    public static MicroData read(File cache, long sourceLength, int sourceChecksum) throws IOException {
+	
+	ByteBuffer[] pieces = map(cache);
+	long length = 0;
+	for (int piece = 0; piece < pieces.length; piece++) length = length + pieces[piece].limit();
+	if (length < HEADER_LENGTH + 4) throw new IOException("too short to be a cache");
+	
+	Cursor in = new Cursor(pieces, length - 4);
+	if (in.readInt() != MAGIC) throw new IOException("not a MicroData cache");
+	int version = in.readInt();
+	if (version != VERSION) throw new IOException("version " + version + "; only version " + VERSION + " can be read");
+	if ((in.readLong() != sourceLength) || (in.readInt() != sourceChecksum)) return null;
+	if (new Cursor(pieces, length).skip(length - 4).readInt() != checksum(pieces, length - 4)) {
+	    throw new IOException("damaged: the checksum doesn't match");
+	}
+	int numberOfPeople = in.readCount(4);
+	int numberOfAttributes = in.readCount(4);
+	in.readInt();
+	
+	String[] names = new String[numberOfAttributes];
+	for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+	    byte[] name = new byte[in.readCount(1)];
+	    in.readBytes(name);
+	    names[attribute] = new String(name, StandardCharsets.UTF_8);
+	}
+	in.pad();
+	
+	byte[][] smallValues = new byte[numberOfAttributes][];
+	int[][] values = new int[numberOfAttributes][];
+	for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+	    int bytesEach = in.readInt();
+	    if (bytesEach == 1) {
+		in.check(numberOfPeople);
+		smallValues[attribute] = new byte[numberOfPeople];
+		in.readBytes(smallValues[attribute]);
+		in.pad();
+	    } else if (bytesEach == 4) {
+		in.check(4L * numberOfPeople);
+		values[attribute] = new int[numberOfPeople];
+		in.readInts(values[attribute]);
+	    } else {
+		throw new IOException("damaged column for attribute " + attribute);
+	    }
+	}
+	
+	byte[] idBytes = new byte[in.readCount(1)];
+	in.check(4L * (numberOfPeople + 1));
+	int[] starts = new int[numberOfPeople + 1];
+	in.readInts(starts);
+	in.readBytes(idBytes);
+	in.pad();
+	if ((starts[0] != 0) || (starts[numberOfPeople] != idBytes.length)) throw new IOException("damaged IDs");
+	for (int person = 0; person < numberOfPeople; person++) {
+	    if (starts[person] > starts[person + 1]) throw new IOException("damaged IDs");
+	}
+	
+	// Just note where each index is, checking it fits in the file.
+	
+	long[] indexPositions = new long[numberOfAttributes];
+	for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+	    indexPositions[attribute] = in.getPosition();
+	    int numberOfValues = in.readCount(4);
+	    int indexed = in.readCount(4);
+	    if (indexed > numberOfPeople) throw new IOException("damaged index for attribute " + attribute);
+	    in.skip(4L * (numberOfValues + 1) + 4L * indexed);
+	}
+	
+	return new MicroData(names, new PackedStrings(idBytes, starts), smallValues, values, 
+	    new Indexes(pieces, length - 4, indexPositions));
+	
+    } // End of read.
+    
+    
+    
+    
+    
+    /**
+     * Writes MicroData to a cache.<P>
+     * If anything goes wrong, the new file is deleted and any cache already 
+     * there is left as it was.
+     * @param cache: the cache file.
+     * @param microData: the MicroData.
+     * @param sourceLength: the length of the CSV it was read from.
+     * @param sourceChecksum: the checksum of the CSV it was read from.
+     **/
+    public static void write(File cache, MicroData microData, long sourceLength, int sourceChecksum) throws IOException {
+	
+	File directory = cache.getAbsoluteFile().getParentFile();
+	File temporary = File.createTempFile(cache.getName(), ".tmp", directory);
+	boolean moved = false;
+	
+	try {
+	    
+	    CRC32C crc = new CRC32C();
+	    OutputBuffer out = new OutputBuffer(new CheckedOutputStream(new FileOutputStream(temporary), crc));
+	    try {
+		writeContents(out, microData, sourceLength, sourceChecksum);
+		out.flush();
+		out.writeInt((int)crc.getValue());
+	    } finally {
+		out.close();
+	    }
+	    
+	    try {
+		Files.move(temporary.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	    } catch (AtomicMoveNotSupportedException amnse) {
+		Files.move(temporary.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	    }
+	    moved = true;
+	    
+	} finally {
+	    if (!moved) temporary.delete();
+	}
+	
+    } // End of write.
+    
+    
+    
+    
+    
+    /**
+     * Writes the header, names, columns and IDs, in the layout given above.
+     **/
+    private static void writeContents(OutputBuffer out, MicroData microData, long sourceLength, int sourceChecksum) throws IOException {
+	
+	int numberOfPeople = microData.getNumberOfPeople();
+	int numberOfAttributes = microData.getNumberOfAttributes();
+	
+	out.writeInt(MAGIC);
+	out.writeInt(VERSION);
+	out.writeLong(sourceLength);
+	out.writeInt(sourceChecksum);
+	out.writeInt(numberOfPeople);
+	out.writeInt(numberOfAttributes);
+	out.writeInt(0);
+	long position = HEADER_LENGTH;
+	
+	for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+	    byte[] name = microData.getAttributeName(attribute).getBytes(StandardCharsets.UTF_8);
+	    out.writeInt(name.length);
+	    out.writeBytes(name);
+	    position = position + 4 + name.length;
+	}
+	position = pad(out, position);
+	
+	for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+	    byte[] small = microData.getByteColumn(attribute);
+	    if (small != null) {
+		out.writeInt(1);
+		out.writeBytes(small, 0, numberOfPeople);
+		position = pad(out, position + 4 + numberOfPeople);
+	    } else {
+		out.writeInt(4);
+		position = writeInts(out, microData.getIntColumn(attribute), numberOfPeople, position + 4);
+	    }
+	}
+	
+	PackedStrings ids = microData.getIDs();
+	int[] starts = ids.getStarts();
+	out.writeInt(starts[numberOfPeople] - starts[0]);
+	for (int person = 0; person <= numberOfPeople; person++) out.writeInt(starts[person] - starts[0]);
+	out.writeBytes(ids.getBytes(), starts[0], starts[numberOfPeople] - starts[0]);
+	position = pad(out, position + 4 + 4L * (numberOfPeople + 1) + (starts[numberOfPeople] - starts[0]));
+	
+	// The indexes are made here just to be written, so they aren't all kept on the heap.
+	
+	for (int attribute = 0; attribute < numberOfAttributes; attribute++) {
+	    AttributeIndex index = new AttributeIndex(microData, attribute);
+	    int[] valueStarts = index.getValueStarts();
+	    int[] people = index.getPeople();
+	    out.writeInt(index.getNumberOfValues());
+	    out.writeInt(people.length);
+	    position = writeInts(out, valueStarts, valueStarts.length, position + 8);
+	    position = writeInts(out, people, people.length, position);
+	}
+	
+    } // End of writeContents.
+    
+    
+    
+    
+    
+    /**
+     * Writes some ints.
+     * @return the position after them.
+     **/
+    private static long writeInts(OutputBuffer out, int[] ints, int count, long position) throws IOException {
+	for (int i = 0; i < count; i++) out.writeInt(ints[i]);
+	return position + 4L * count;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes zeros up to the next multiple of four bytes.
+     * @return the position after them.
+     **/
+    private static long pad(OutputBuffer out, long position) throws IOException {
+	while ((position & 3) != 0) {
+	    out.writeByte(0);
+	    position++;
+	}
+	return position;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Maps a file, read only, in pieces of a gigabyte.
+     **/
+    private static ByteBuffer[] map(File path) throws IOException {
+	RandomAccessFile file = new RandomAccessFile(path, "r");
+	try {
+	    FileChannel channel = file.getChannel();
+	    long length = channel.size();
+	    ByteBuffer[] pieces = new ByteBuffer[(int)((length + PIECE_MASK) >>> PIECE_BITS)];
+	    for (int piece = 0; piece < pieces.length; piece++) {
+		long start = (long)piece << PIECE_BITS;
+		pieces[piece] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(PIECE_MASK + 1, length - start));
+	    }
+	    return pieces;
+	} finally {
+	    file.close();
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads through a mapped file from start to end, across its pieces.
+     **/
+    private static class Cursor {
+	
+	private ByteBuffer [] pieces = null;	// The file, mapped a gigabyte at a time.
+	private long length = 0;		// The length of the file.
+	private long position = 0;		// Where the next read starts.
+	
+	Cursor(ByteBuffer[] pieces, long length) {
+	    this.pieces = pieces;
+	    this.length = length;
+	}
+	
+	int readInt() throws IOException {
+	    check(4);
+	    int value = pieces[(int)(position >>> PIECE_BITS)].getInt((int)(position & PIECE_MASK));
+	    position = position + 4;
+	    return value;
+	}
+	
+	long readLong() throws IOException {
+	    long high = readInt();
+	    return (high << 32) | (readInt() & 0xFFFFFFFFL);
+	}
+	
+	void readBytes(byte[] into) throws IOException {
+	    check(into.length);
+	    int done = 0;
+	    while (done < into.length) {
+		ByteBuffer piece = pieces[(int)(position >>> PIECE_BITS)].duplicate();
+		piece.position((int)(position & PIECE_MASK));
+		int count = Math.min(into.length - done, piece.remaining());
+		piece.get(into, done, count);
+		done = done + count;
+		position = position + count;
+	    }
+	}
+	
+	void readInts(int[] into) throws IOException {
+	    check(4L * into.length);
+	    int done = 0;
+	    while (done < into.length) {
+		ByteBuffer piece = pieces[(int)(position >>> PIECE_BITS)].duplicate();
+		piece.position((int)(position & PIECE_MASK));
+		int count = Math.min(into.length - done, piece.remaining() / 4);
+		piece.asIntBuffer().get(into, done, count);
+		done = done + count;
+		position = position + 4L * count;
+	    }
+	}
+	
+	long getPosition() {
+	    return position;
+	}
+	
+	Cursor skip(long bytes) throws IOException {
+	    check(bytes);
+	    position = position + bytes;
+	    return this;
+	}
+	
+	int readCount(long bytesEach) throws IOException {
+	    int count = readInt();
+	    if (count < 0) throw new IOException("damaged: a count of " + count);
+	    check(bytesEach * count);
+	    return count;
+	}
+	
+	void pad() {
+	    position = (position + 3) & ~3L;
+	}
+	
+	void check(long bytes) throws IOException {
+	    if (position + bytes > length) throw new IOException("cut short");
+	}
+	
+    } // End of Cursor.
+    
+    
+    
+    
+    
+    /**
+     * Where each attribute's AttributeIndex is in a mapped cache, so each can be copied out when it's first asked for.<P>
+     * The cache's checksum has been checked by the time one of these is made, so 
+     * only the shape of an index is checked as it's copied.
+     **/
+    static class Indexes {
+	
+	private ByteBuffer [] pieces = null;	// The cache, mapped a gigabyte at a time.
+	private long length = 0;		// The length of the cache, less its checksum.
+	private long [] positions = null;	// Where each attribute's index starts.
+	
+	Indexes(ByteBuffer[] pieces, long length, long[] positions) {
+	    this.pieces = pieces;
+	    this.length = length;
+	    this.positions = positions;
+	}
+	
+	/**
+	 * Copies one attribute's index out of the cache.<P>
+	 * @throws IOException if the index is cut short or its values' starts don't add up.
+	 **/
+	AttributeIndex read(int attribute) throws IOException {
+	    Cursor in = new Cursor(pieces, length).skip(positions[attribute]);
+	    int[] valueStarts = new int[in.readCount(4) + 1];
+	    int[] people = new int[in.readCount(4)];
+	    in.readInts(valueStarts);
+	    in.readInts(people);
+	    if ((valueStarts[0] != 0) || (valueStarts[valueStarts.length - 1] != people.length)) {
+		throw new IOException("damaged index for attribute " + attribute);
+	    }
+	    for (int value = 1; value < valueStarts.length; value++) {
+		if (valueStarts[value - 1] > valueStarts[value]) throw new IOException("damaged index for attribute " + attribute);
+	    }
+	    return new AttributeIndex(valueStarts, people);
+	}
+	
+    } // End of Indexes.
+    
+// End of class.
+}
@@ -0,0 +1,38 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * A ProgressListener that ignores everything.<P>
+ * Used when nobody wants to hear about progress, for example in quiet batch runs.
+ * @version 1.0
+ */
+public class NullProgressListener implements ProgressListener {
+    
+    public void runStarted(ProgressStats stats) {
+    }
+    
+    public void progress(ProgressStats stats) {
+    }
+    
+    public void runFinished(ProgressStats stats) {
+    }
+    
+// End of class.
+}
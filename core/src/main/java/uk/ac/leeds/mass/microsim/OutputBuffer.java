@@ -0,0 +1,215 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.charset.*;
+
+
+/**
+ * A byte buffer for writing big output files quickly.<P>
+ * Writing a file a line at a time with Strings makes several objects for every 
+ * line, which for hundreds of millions of lines takes longer than the writing. 
+ * This keeps one byte array that text and numbers are put straight into, as 
+ * bytes, and only passes it on to the stream underneath when it's full. Numbers 
+ * can be written as text, for CSV files, or as four bytes, for binary files 
+ * (high byte first, as DataInputStream reads them). It's the writing 
+ * equivalent of the CsvReader.
+ * @version 1.0
+ */
+public class OutputBuffer {
+    
+    private OutputStream out = null;	// Where the bytes go when the buffer is full.
+    private byte [] buffer = null;	// The bytes not yet passed on.
+    private int size = 0;		// The number of bytes in the buffer.
+    
+    private static final int BUFFER_SIZE = 1 << 16;	// Bytes to hold before passing them on.
+    
+    
+    /**
+     * Creates a new OutputBuffer.<P>
+     * @param out: the stream to write to. It's closed when this is.
+     **/
+    public OutputBuffer(OutputStream out) {
+	this.out = out;
+	buffer = new byte[BUFFER_SIZE];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes one byte, for example a comma or a newline.
+     **/
+    public void writeByte(int b) throws IOException {
+	if (size == buffer.length) flush();
+	buffer[size++] = (byte)b;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes some bytes.
+     **/
+    public void writeBytes(byte[] bytes) throws IOException {
+	writeBytes(bytes, 0, bytes.length);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes some bytes.<P>
+     * @param bytes: the array the bytes are in.
+     * @param offset: where they start.
+     * @param length: how many there are.
+     **/
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+	if (size + length > buffer.length) {
+	    flush();
+	    if (length > buffer.length) {
+		out.write(bytes, offset, length);
+		return;
+	    }
+	}
+	System.arraycopy(bytes, offset, buffer, size, length);
+	size = size + length;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes one of a PackedStrings' Strings, without making it as a String object.
+     **/
+    public void writeString(PackedStrings strings, int i) throws IOException {
+	int length = strings.getLength(i);
+	if (size + length > buffer.length) {
+	    flush();
+	    if (length > buffer.length) {
+		out.write(strings.get(i).getBytes(StandardCharsets.UTF_8));
+		return;
+	    }
+	}
+	size = strings.copy(i, buffer, size);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes a String, as UTF-8. This makes objects, so is meant for headers 
+     * and the like, not things written on every line.
+     **/
+    public void writeString(String s) throws IOException {
+	writeBytes(s.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes a whole number as text.
+     **/
+    public void writeDecimal(int value) throws IOException {
+	
+	if (size + 11 > buffer.length) flush();
+	
+	long number = value;
+	if (number < 0) {
+	    buffer[size++] = '-';
+	    number = -number;
+	}
+	
+	// Work out how many digits there are, then fill them in from the right.
+	
+	int digits = 1;
+	for (long power = 10; power <= number; power = power * 10) digits++;
+	int position = size + digits;
+	size = position;
+	do {
+	    buffer[--position] = (byte)('0' + (number % 10));
+	    number = number / 10;
+	} while (number > 0);
+	
+    } // End of writeDecimal.
+    
+    
+    
+    
+    
+    /**
+     * Writes a whole number as four bytes, high byte first.
+     **/
+    public void writeInt(int value) throws IOException {
+	if (size + 4 > buffer.length) flush();
+	buffer[size++] = (byte)(value >>> 24);
+	buffer[size++] = (byte)(value >>> 16);
+	buffer[size++] = (byte)(value >>> 8);
+	buffer[size++] = (byte)value;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes a whole number as eight bytes, high byte first.
+     **/
+    public void writeLong(long value) throws IOException {
+	writeInt((int)(value >>> 32));
+	writeInt((int)value);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Passes everything in the buffer on to the stream underneath.
+     **/
+    public void flush() throws IOException {
+	out.write(buffer, 0, size);
+	size = 0;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Passes everything in the buffer on and closes the stream underneath.
+     **/
+    public void close() throws IOException {
+	try {
+	    flush();
+	} finally {
+	    out.close();
+	}
+    }
+    
+// End of class.
+}
@@ -0,0 +1,204 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.nio.charset.*;
+import java.util.*;
+
+
+/**
+ * A list of Strings packed end to end into one byte array.<P>
+ * Holding millions of IDs as String objects costs far more in object headers 
+ * and pointers than in the characters themselves. Here the characters (as UTF-8 
+ * bytes) go into one big array, with a second array saying where each one 
+ * starts, so each String costs its length plus four bytes. Strings are only 
+ * made as objects when asked for with get; the bytes can also be copied out 
+ * directly, which is handy for writing them to files.
+ * @version 1.0
+ */
+public class PackedStrings {
+    
+    private byte [] bytes = null;	    // The characters of all the Strings, end to end.
+    private int [] starts = null;	    // Where each String starts in bytes, plus where the next would start.
+    private int size = 0;		    // The number of Strings.
+    
+    
+    /**
+     * Creates a new, empty, PackedStrings.
+     **/
+    public PackedStrings() {
+	bytes = new byte[1024];
+	starts = new int[1024];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Creates a PackedStrings from arrays made earlier, for example ones read back from a file.<P>
+     * @param bytes: the characters of all the Strings, end to end.
+     * @param starts: where each String starts, followed by the length of bytes used.
+     **/
+    public PackedStrings(byte[] bytes, int[] starts) {
+	this.bytes = bytes;
+	this.starts = starts;
+	size = starts.length - 1;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Adds some bytes to the end of the list as a new String.<P>
+     * @param source: the array the bytes are in.
+     * @param offset: where they start.
+     * @param length: how many there are.
+     **/
+    public void add(byte[] source, int offset, int length) {
+	
+	// If we've run out of room, double the size of the arrays.
+	
+	if (size + 1 >= starts.length) {
+	    starts = Arrays.copyOf(starts, starts.length * 2);
+	}
+	int end = starts[size];
+	if (end + length > bytes.length) {
+	    bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, end + length));
+	}
+	
+	System.arraycopy(source, offset, bytes, end, length);
+	size++;
+	starts[size] = end + length;
+	
+    }
+    
+    
+    
+    
+    
+    /**
+     * Adds a String to the end of the list.
+     **/
+    public void add(String s) {
+	byte [] b = s.getBytes(StandardCharsets.UTF_8);
+	add(b, 0, b.length);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Takes the last String off the end of the list, for example when the rest 
+     * of the line it came from turns out to be bad.
+     **/
+    public void removeLast() {
+	if (size > 0) size--;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of Strings in the list.
+     **/
+    public int size() {
+	return size;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets one of the Strings, made as a new String object.
+     * @param i: its position in the list, starting with zero.
+     **/
+    public String get(int i) {
+	return new String(bytes, starts[i], starts[i + 1] - starts[i], StandardCharsets.UTF_8);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of bytes in one of the Strings.
+     * @param i: its position in the list, starting with zero.
+     **/
+    public int getLength(int i) {
+	return starts[i + 1] - starts[i];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Copies the bytes of one of the Strings into an array.<P>
+     * @param i: its position in the list, starting with zero.
+     * @param destination: the array to copy into. There must be room for getLength(i) bytes.
+     * @param position: where to put them in the array.
+     * @return the position just after the copied bytes.
+     **/
+    public int copy(int i, byte[] destination, int position) {
+	int length = starts[i + 1] - starts[i];
+	System.arraycopy(bytes, starts[i], destination, position, length);
+	return position + length;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Shrinks the arrays down to what's actually used, once everything has been added.
+     **/
+    public void trim() {
+	bytes = Arrays.copyOf(bytes, starts[size]);
+	starts = Arrays.copyOf(starts, size + 1);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the characters of all the Strings, end to end. Don't change them.
+     **/
+    public byte[] getBytes() {
+	return bytes;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets where each String starts in getBytes, followed by where the next would start. Don't change them.
+     **/
+    public int[] getStarts() {
+	return starts;
+    }
+    
+// End of class.
+}
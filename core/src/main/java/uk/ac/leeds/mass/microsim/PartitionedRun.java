@@ -0,0 +1,334 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+
+/**
+ * Splits a run into parts by area, runs each part in its own Java process, and puts the results back together.<P>
+ * Areas don't depend on each other, only on the MicroData, so a big job can be 
+ * cut into consecutive runs of areas and each done by a separate worker. Each worker 
+ * is a BatchDistributor started with -areas, so it reads the MicroData once and 
+ * only its own rows of the tables, and only holds its own areas' people. The 
+ * workers here are processes on the same machine, but as they only share files 
+ * they could be anywhere that can see them.<P>
+ * Each area's random numbers come from its number in the whole run (see 
+ * RedistributionSettings.setAreaOffset), so with the same seed the merged results 
+ * are the same as one process doing everything. Each worker's output is written 
+ * to a log file, and its total error to a small result file of its own (see 
+ * BatchDistributor -result), which is read back once all the workers are done.
+ * @version 1.0
+ */
+public class PartitionedRun {
+    
+    private int numberOfAreas = 0;		// The number of areas in the whole run.
+    private int numberOfWorkers = 0;		// The number of parts to split it into.
+    private String [] javaOptions = new String[0];	// Options for each worker's Java, for example -Xmx.
+    
+    
+    /**
+     * Creates a new PartitionedRun.<P>
+     * There are never more workers than areas.
+     * @param numberOfAreas: the number of areas in the whole run.
+     * @param numberOfWorkers: the number of parts to split it into.
+     **/
+    public PartitionedRun(int numberOfAreas, int numberOfWorkers) {
+	this.numberOfAreas = numberOfAreas;
+	this.numberOfWorkers = Math.max(1, Math.min(numberOfWorkers, numberOfAreas));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of workers.
+     **/
+    public int getNumberOfWorkers() {
+	return numberOfWorkers;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the first area a worker does.<P>
+     * The areas are shared out as evenly as they can be.
+     * @param worker: the worker, starting with zero.
+     **/
+    public int getFirstArea(int worker) {
+	return (int) ((long) numberOfAreas * worker / numberOfWorkers);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets one more than the last area a worker does.
+     * @param worker: the worker, starting with zero.
+     **/
+    public int getEndArea(int worker) {
+	return getFirstArea(worker + 1);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the options given to each worker's Java, before the class name.
+     * @param options: the options, for example {"-Xmx4g"}.
+     **/
+    public void setJavaOptions(String[] options) {
+	javaOptions = options.clone();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Runs the workers, all at once, and waits for them to finish.<P>
+     * Each is a BatchDistributor, with the same class path as this process. The 
+     * workers are watched in the order they finish, so as soon as any fails, or 
+     * this thread is interrupted, the rest are stopped.
+     * @param workerArguments: the BatchDistributor arguments for each worker.
+     * @param logs: the file to write each worker's output to.
+     * @param results: the file each worker writes its total error to, given to it with -result.
+     * @return the total error of all the areas, added up from the workers.
+     * @throws IOException if a worker can't be started or fails.
+     **/
+    public long run(String[][] workerArguments, File[] logs, File[] results) throws IOException {
+	
+	Process [] processes = new Process[numberOfWorkers];
+	final BlockingQueue<Integer> finished = new LinkedBlockingQueue<Integer>();
+	
+	try {
+	    
+	    // Clear out any results left from an earlier run, so they can't be taken for this one's.
+	    
+	    for (int worker = 0; worker < numberOfWorkers; worker++) {
+		results[worker].delete();
+		ProcessBuilder builder = new ProcessBuilder(command(workerArguments[worker]));
+		builder.redirectErrorStream(true);
+		builder.redirectOutput(logs[worker]);
+		processes[worker] = builder.start();
+		final int number = worker;
+		processes[worker].onExit().thenRun(new Runnable() {
+		    public void run() {
+			finished.add(number);
+		    }
+		});
+	    }
+	    
+	    for (int done = 0; done < numberOfWorkers; done++) {
+		int worker = finished.take();
+		int status = processes[worker].exitValue();
+		if (status != 0) throw new IOException("Worker " + worker + " failed with status " + status + ", see " + logs[worker]);
+	    }
+	    
+	} catch (InterruptedException ie) {
+	    Thread.currentThread().interrupt();
+	    throw new InterruptedIOException("Interrupted while waiting for the workers");
+	} finally {
+	    for (int worker = 0; worker < numberOfWorkers; worker++) {
+		if ((processes[worker] != null) && processes[worker].isAlive()) processes[worker].destroy();
+	    }
+	}
+	
+	long totalError = 0;
+	for (int worker = 0; worker < numberOfWorkers; worker++) totalError = totalError + readTotalError(results[worker]);
+	return totalError;
+	
+    } // End of run.
+    
+    
+    
+    
+    
+    /**
+     * Makes the command line to start a worker.
+     **/
+    private List<String> command(String[] arguments) {
+	ArrayList<String> command = new ArrayList<String>();
+	command.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath());
+	for (int i = 0; i < javaOptions.length; i++) command.add(javaOptions[i]);
+	command.add("-cp");
+	command.add(System.getProperty("java.class.path"));
+	command.add(BatchDistributor.class.getName());
+	for (int i = 0; i < arguments.length; i++) command.add(arguments[i]);
+	return command;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads the total error a worker wrote to its result file.<P>
+     * The file is just the number, on a line of its own (see BatchDistributor).
+     * @throws IOException if the file isn't there or doesn't hold a number.
+     **/
+    private static long readTotalError(File result) throws IOException {
+	
+	String line = null;
+	BufferedReader reader = new BufferedReader(new FileReader(result));
+	try {
+	    line = reader.readLine();
+	} finally {
+	    reader.close();
+	}
+	
+	try {
+	    return Long.parseLong(String.valueOf(line).trim());
+	} catch (NumberFormatException nfe) {
+	    throw new IOException("Can't read the total error in " + result);
+	}
+	
+    } // End of readTotalError.
+    
+    
+    
+    
+    
+    /**
+     * Puts the workers' results together, in order, into one file.<P>
+     * Text formats (csv, gzip and weights) keep the first part's header line and 
+     * drop the rest. Binary parts are joined under one header with the total 
+     * number of areas. Indexed files can't be joined, as their index covers the 
+     * whole file.
+     * @param parts: each worker's results, in area order.
+     * @param output: the file to write.
+     * @param format: the BatchDistributor format the parts were written in.
+     * @throws IOException if the parts can't be read or the output written.
+     **/
+    public static void merge(File[] parts, File output, String format) throws IOException {
+	if (format.equals("binary")) {
+	    mergeBinary(parts, output);
+	} else if (format.equals("csv") || format.equals("weights") || format.equals("gzip")) {
+	    mergeText(parts, output, format.equals("gzip"));
+	} else {
+	    throw new IllegalArgumentException("Can't merge " + format + " files");
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Joins text parts, keeping just the first header line.
+     **/
+    private static void mergeText(File[] parts, File output, boolean gzip) throws IOException {
+	
+	OutputStream out = new FileOutputStream(output);
+	if (gzip) out = new GZIPOutputStream(out, 1 << 16);
+	out = new BufferedOutputStream(out, 1 << 16);
+	
+	try {
+	    for (int part = 0; part < parts.length; part++) {
+		InputStream in = new FileInputStream(parts[part]);
+		if (gzip) in = new GZIPInputStream(in, 1 << 16);
+		in = new BufferedInputStream(in, 1 << 16);
+		try {
+		    if (part > 0) {
+			int b = in.read();
+			while ((b != -1) && (b != '\n')) b = in.read();
+		    }
+		    copy(in, out);
+		} finally {
+		    in.close();
+		}
+	    }
+	} finally {
+	    out.close();
+	}
+	
+    } // End of mergeText.
+    
+    
+    
+    
+    
+    /**
+     * Joins binary parts under one header (see BinaryPopulationWriter).
+     **/
+    private static void mergeBinary(File[] parts, File output) throws IOException {
+	
+	// Check the headers all match, and add up the areas.
+	
+	int totalAreas = 0;
+	int numberOfPeople = 0;
+	for (int part = 0; part < parts.length; part++) {
+	    DataInputStream in = new DataInputStream(new FileInputStream(parts[part]));
+	    try {
+		if ((in.readInt() != BinaryPopulationWriter.MAGIC) || (in.readInt() != BinaryPopulationWriter.VERSION)) {
+		    throw new IOException(parts[part] + " isn't a binary population file");
+		}
+		totalAreas = totalAreas + in.readInt();
+		int people = in.readInt();
+		if ((part > 0) && (people != numberOfPeople)) throw new IOException(parts[part] + " was made from different MicroData");
+		numberOfPeople = people;
+	    } finally {
+		in.close();
+	    }
+	}
+	
+	DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output), 1 << 16));
+	try {
+	    out.writeInt(BinaryPopulationWriter.MAGIC);
+	    out.writeInt(BinaryPopulationWriter.VERSION);
+	    out.writeInt(totalAreas);
+	    out.writeInt(numberOfPeople);
+	    for (int part = 0; part < parts.length; part++) {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(parts[part]), 1 << 16));
+		try {
+		    in.readFully(new byte[16]);
+		    copy(in, out);
+		} finally {
+		    in.close();
+		}
+	    }
+	} finally {
+	    out.close();
+	}
+	
+    } // End of mergeBinary.
+    
+    
+    
+    
+    
+    /**
+     * Copies the rest of a stream to another.
+     **/
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+	byte [] buffer = new byte[1 << 16];
+	int read = 0;
+	while ((read = in.read(buffer)) != -1) out.write(buffer, 0, read);
+    }
+    
+// End of class.
+}
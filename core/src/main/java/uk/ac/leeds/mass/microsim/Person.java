@@ -16,16 +16,23 @@
  *
  */
 
+package uk.ac.leeds.mass.microsim;
+
 /**
  * A class to encapsulate a person.<P>
- * Currently people have a id and a value.
+ * People have an id and a set of values, one for each of their attributes 
+ * (for example, their sex, age band and tenure). Each value is a category 
+ * code, starting at zero, saying which column of the matching Table the 
+ * person falls in.<P>
+ * The MicroData class doesn't keep people as Person objects, as they take up 
+ * a lot of memory; it makes them when asked, as a handy view of one person.
  * @author <A href="http://www.geog.leeds.ac.uk/people/a.evans/">Andy Evans</A>
  * @version 1.0
  */
 public class Person {
     
     private String id = "";	// The person's id.
-    private int value = 0;
+    private int [] values = new int[1];	// The person's attribute values.
     
     
     /** 
@@ -50,10 +57,21 @@ public class Person {
     
     
     /**
-     * Sets the person's value.
+     * Sets the person's first attribute value.
      **/
     public void setValue (int val) {
-	value = val;
+	values[0] = val;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets all the person's attribute values.
+     **/
+    public void setValues (int [] vals) {
+	values = vals;
     }
     
     
@@ -72,11 +90,34 @@ public class Person {
     
     
     /**
-     * Gets the person's value.
+     * Gets the person's first attribute value.
      **/
     public int getValue () {
-	return value;
+	return values[0];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets one of the person's attribute values.<P>
+     * @param attribute: the attribute, in the order they are in the MicroData file, starting with zero.
+     **/
+    public int getValue (int attribute) {
+	return values[attribute];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of attributes the person has.
+     **/
+    public int getNumberOfAttributes () {
+	return values.length;
     }
 
 // End of class.
-}
+}
\ No newline at end of file
@@ -0,0 +1,252 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * A class to encapsulate the made up population of every area.<P>
+ * Rather than holding Person objects, each area is a flat array of ints, each 
+ * int being the position of a person in the MicroData. The same person can 
+ * appear many times, in many areas. Each position in an area's array is a "slot" 
+ * that one person fills, and people are swapped in and out of slots in place, 
+ * so an area never changes size once it has been made.<P>
+ * A Population can instead be made "weighted", where each area is a WeightedArea: 
+ * a slot holds one person and the number of copies of them in the area. Memory 
+ * then grows with the number of different people used, not the number of people. 
+ * Code that runs through an area should go through its slots with getNumberOfSlots, 
+ * and take each person getSlotCount times, which works for both kinds. Code that 
+ * changes people should pick slots with pickSlot, fill new areas with fillPerson, 
+ * and swap with replacePerson, keeping the slot it returns.
+ * @version 1.0
+ */
+public class Population {
+    
+    private int [][] areas = null;	    // For each area, the MicroData positions of the people in it.
+    private WeightedArea [] weightedAreas = null;	// Or, if weighted, the people in each area and their counts.
+    
+    
+    /**
+     * Creates a new, empty, Population with a slot for every person.<P>
+     * Each area needs making with createArea before it can be filled.
+     * @param numberOfAreas: the number of areas in the world.
+     **/
+    public Population(int numberOfAreas) {
+	this(numberOfAreas, false);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Creates a new, empty, Population.<P>
+     * Each area needs making with createArea before it can be filled.
+     * @param numberOfAreas: the number of areas in the world.
+     * @param weighted: true to hold each area as people and counts, rather 
+     * than a slot for every person.
+     **/
+    public Population(int numberOfAreas, boolean weighted) {
+	if (weighted) {
+	    weightedAreas = new WeightedArea[numberOfAreas];
+	} else {
+	    areas = new int[numberOfAreas][];
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets whether each area is held as people and counts.
+     **/
+    public boolean isWeighted() {
+	return (weightedAreas != null);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes an area with a given number of slots for people.<P>
+     * All the slots start filled with the first person in the MicroData, 
+     * and should be filled with fillPerson.
+     * @param area: the area number, starting with zero.
+     * @param size: the number of people in the area.
+     **/
+    public void createArea(int area, int size) {
+	if (weightedAreas != null) {
+	    weightedAreas[area] = new WeightedArea(size, 0);
+	} else {
+	    areas[area] = new int[size];
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas in the Population.
+     **/
+    public int getNumberOfAreas() {
+	return (weightedAreas != null) ? weightedAreas.length : areas.length;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of people in an area.
+     * @param area: the area number, starting with zero.
+     **/
+    public int getAreaSize(int area) {
+	return (weightedAreas != null) ? weightedAreas[area].getSize() : areas[area].length;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of slots in an area.<P>
+     * This is the number of people, unless the Population is weighted, when 
+     * it's the number of different people (and maybe some empty slots).
+     * @param area: the area number, starting with zero.
+     **/
+    public int getNumberOfSlots(int area) {
+	return (weightedAreas != null) ? weightedAreas[area].getNumberOfSlots() : areas[area].length;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of copies of the person in one of an area's slots.<P>
+     * This is always one, unless the Population is weighted.
+     * @param area: the area number, starting with zero.
+     * @param slot: the slot in the area, starting with zero.
+     **/
+    public int getSlotCount(int area, int slot) {
+	return (weightedAreas != null) ? weightedAreas[area].getCount(slot) : 1;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the MicroData position of the person in one of an area's slots.
+     * @param area: the area number, starting with zero.
+     * @param slot: the slot in the area, starting with zero.
+     **/
+    public int getPerson(int area, int slot) {
+	return (weightedAreas != null) ? weightedAreas[area].getPerson(slot) : areas[area][slot];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Puts a person into one of an area's slots, replacing whoever was there.<P>
+     * If the Population is weighted, one copy of the person in the slot is 
+     * replaced, and the new person may end up in a different slot.
+     * @param area: the area number, starting with zero.
+     * @param slot: the slot in the area, starting with zero.
+     * @param person: the MicroData position of the new person.
+     * @return the MicroData position of the person who was replaced.
+     **/
+    public int setPerson(int area, int slot, int person) {
+	int oldPerson = getPerson(area, slot);
+	replacePerson(area, slot, person);
+	return oldPerson;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Replaces the person in one of an area's slots, saying where the new person went.<P>
+     * @param area: the area number, starting with zero.
+     * @param slot: the slot in the area, starting with zero.
+     * @param person: the MicroData position of the new person.
+     * @return the slot the new person is in. This is always the slot given, 
+     * unless the Population is weighted.
+     **/
+    public int replacePerson(int area, int slot, int person) {
+	if (weightedAreas != null) return weightedAreas[area].replace(slot, person);
+	areas[area][slot] = person;
+	return slot;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Picks one of the people in an area at random.<P>
+     * Every person in the area is equally likely, so if the Population is weighted 
+     * a slot is picked in proportion to its count. Either way, the same random 
+     * number is used up.
+     * @param area: the area number, starting with zero.
+     * @param random: the random number generator to use.
+     * @return the slot of the person picked.
+     **/
+    public int pickSlot(int area, RandomSource random) {
+	int rank = random.nextInt(getAreaSize(area));
+	return (weightedAreas != null) ? weightedAreas[area].findRank(rank) : rank;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Puts a person into a newly made area.<P>
+     * Each area should be filled by calling this once for each person, with i 
+     * running from zero up to one less than the size of the area. If the Population 
+     * is weighted, this replaces one of the copies of the person the area was made with.
+     * @param area: the area number, starting with zero.
+     * @param i: the number of people put in the area so far.
+     * @param person: the MicroData position of the person.
+     **/
+    public void fillPerson(int area, int i, int person) {
+	replacePerson(area, (weightedAreas != null) ? 0 : i, person);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Tidies up an area once it's finished being changed.<P>
+     * If the Population is weighted, this drops any slots with no one left in 
+     * them, and puts the rest in MicroData order. Otherwise it does nothing.
+     * @param area: the area number, starting with zero.
+     **/
+    public void trimArea(int area) {
+	if (weightedAreas != null) weightedAreas[area].trim();
+    }
+    
+// End of class.
+}
@@ -0,0 +1,45 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+
+
+/**
+ * An interface for the different ways of writing out a made up population.<P>
+ * The Redistributor hands over the people in each area and the constraints 
+ * (which give the area IDs and the MicroData), and the writer puts them in a 
+ * file in its own format. Writers should stream the areas out as they go, 
+ * rather than building the file up in memory, as national populations can 
+ * run to hundreds of millions of people.
+ * @version 1.0
+ */
+public interface PopulationWriter {
+    
+    
+    /**
+     * Writes the population to a file.<P>
+     * @param world: the people in each area, as MicroData positions.
+     * @param constraints: the tables and MicroData the population was made from.
+     * @param file: the file to write to.
+     **/
+    public void write(Population world, Constraints constraints, File file) throws IOException;
+    
+// End of interface.
+}
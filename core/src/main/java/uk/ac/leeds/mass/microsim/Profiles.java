@@ -0,0 +1,227 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+
+
+/**
+ * The people in the microdata grouped by the cells they fall in for every table at once.<P>
+ * As far as the tables are concerned, two people who fall in the same cell in 
+ * every table are the same. Each different combination of cells is a "profile", 
+ * and there are usually far fewer profiles than people (with a sex table and an 
+ * age table of ten bands there can only be twenty, however big the sample). 
+ * Fitting methods like IPF can work on the profiles rather than the people, 
+ * and only pick out individuals at the end.<P>
+ * Profiles are numbered from zero in the order their first member is in the 
+ * MicroData. The members of each profile are listed one after another in one 
+ * big array, with a second array saying where each profile's list starts.
+ * @version 1.0
+ */
+public class Profiles {
+    
+    private int numberOfConstraints = 0;	// The number of tables.
+    private int numberOfProfiles = 0;		// The number of different profiles.
+    private int [] profileCells = null;		// For each profile, the cell it falls in for each table.
+    private int [] memberStarts = null;		// Where each profile's members start in members, plus where the next would start.
+    private int [] members = null;		// The MicroData positions of the members of each profile, profile by profile.
+    private int [] cellOffsets = null;		// Where each table's cells start, plus where the next would, as in Constraints.
+    private long [] codes = null;		// The hash table of profile codes, for finding profiles by their cells.
+    private int [] ids = null;			// The profile for each code in the hash table, or -1 for an empty slot.
+    
+    
+    /**
+     * Groups the people.<P>
+     * @param constraints: the tables and the people.
+     * @throws IllegalArgumentException if the tables have so many categories between 
+     * them that the combinations can't be counted in a long.
+     **/
+    public Profiles(Constraints constraints) {
+	
+	numberOfConstraints = constraints.getNumberOfConstraints();
+	int numberOfPeople = constraints.getMicroData().getNumberOfPeople();
+	cellOffsets = new int[numberOfConstraints + 1];
+	for (int constraint = 0; constraint <= numberOfConstraints; constraint++) cellOffsets[constraint] = constraints.getCellOffset(constraint);
+	
+	// Each combination of cells is given a code, by treating the category in each 
+	// table as a digit, with as many possible values as the table has categories.
+	
+	long combinations = 1;
+	for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+	    long categories = constraints.getCellOffset(constraint + 1) - constraints.getCellOffset(constraint);
+	    if (combinations > Long.MAX_VALUE / Math.max(1, categories)) {
+		throw new IllegalArgumentException("Too many combinations of categories to group people by");
+	    }
+	    combinations = combinations * categories;
+	}
+	
+	// Give each person the number of their profile, numbering the profiles as they're 
+	// found. The codes are looked up in a hash table that grows as needed.
+	
+	int [] profileOfPerson = new int[numberOfPeople];
+	codes = new long[1024];
+	ids = new int[1024];
+	Arrays.fill(ids, -1);
+	int [] firstMembers = new int[1024];
+	
+	for (int person = 0; person < numberOfPeople; person++) {
+	    
+	    long code = 0;
+	    for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+		long categories = constraints.getCellOffset(constraint + 1) - constraints.getCellOffset(constraint);
+		code = code * categories + (constraints.getPersonCell(person, constraint) - constraints.getCellOffset(constraint));
+	    }
+	    
+	    int slot = find(codes, ids, code);
+	    if (ids[slot] < 0) {
+		codes[slot] = code;
+		ids[slot] = numberOfProfiles;
+		if (numberOfProfiles == firstMembers.length) firstMembers = Arrays.copyOf(firstMembers, numberOfProfiles * 2);
+		firstMembers[numberOfProfiles] = person;
+		numberOfProfiles++;
+		
+		// Keep the table no more than half full, so look-ups stay quick.
+		
+		if (numberOfProfiles * 2 > codes.length) {
+		    long [] oldCodes = codes;
+		    int [] oldIDs = ids;
+		    codes = new long[oldCodes.length * 2];
+		    ids = new int[oldIDs.length * 2];
+		    Arrays.fill(ids, -1);
+		    for (int i = 0; i < oldIDs.length; i++) {
+			if (oldIDs[i] < 0) continue;
+			int newSlot = find(codes, ids, oldCodes[i]);
+			codes[newSlot] = oldCodes[i];
+			ids[newSlot] = oldIDs[i];
+		    }
+		    slot = find(codes, ids, code);
+		}
+	    }
+	    profileOfPerson[person] = ids[slot];
+	    
+	}
+	
+	// Note down each profile's cells, from its first member.
+	
+	profileCells = new int[numberOfProfiles * numberOfConstraints];
+	for (int profile = 0; profile < numberOfProfiles; profile++) {
+	    for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+		profileCells[profile * numberOfConstraints + constraint] = constraints.getPersonCell(firstMembers[profile], constraint);
+	    }
+	}
+	
+	// Count the members of each profile, turn the counts into start positions, and 
+	// then put each person in their profile's list.
+	
+	memberStarts = new int[numberOfProfiles + 1];
+	for (int person = 0; person < numberOfPeople; person++) memberStarts[profileOfPerson[person] + 1]++;
+	for (int profile = 0; profile < numberOfProfiles; profile++) {
+	    memberStarts[profile + 1] = memberStarts[profile + 1] + memberStarts[profile];
+	}
+	members = new int[numberOfPeople];
+	int [] next = Arrays.copyOf(memberStarts, numberOfProfiles);
+	for (int person = 0; person < numberOfPeople; person++) {
+	    members[next[profileOfPerson[person]]++] = person;
+	}
+	
+    } // End of constructor.
+    
+    
+    
+    
+    
+    /**
+     * Finds the profile with a given cell in every table.<P>
+     * @param cells: the cell for each table, numbered as in Constraints.
+     * @return the profile, or -1 if nobody in the MicroData falls in all those cells.
+     **/
+    public int findProfile(int[] cells) {
+	long code = 0;
+	for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+	    code = code * (cellOffsets[constraint + 1] - cellOffsets[constraint]) + (cells[constraint] - cellOffsets[constraint]);
+	}
+	return ids[find(codes, ids, code)];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Finds where a code is in the hash table, or the empty slot where it should go.
+     **/
+    private static int find(long[] codes, int[] ids, long code) {
+	int mask = codes.length - 1;
+	long mixed = code * 0x9E3779B97F4A7C15L;
+	int slot = (int)(mixed ^ (mixed >>> 32)) & mask;
+	while ((ids[slot] >= 0) && (codes[slot] != code)) slot = (slot + 1) & mask;
+	return slot;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of different profiles.
+     **/
+    public int getNumberOfProfiles() {
+	return numberOfProfiles;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the cell a profile falls in for one of the tables.<P>
+     * @param profile: the profile.
+     * @param constraint: the table, starting with zero.
+     **/
+    public int getCell(int profile, int constraint) {
+	return profileCells[profile * numberOfConstraints + constraint];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of people with a profile.
+     **/
+    public int getSize(int profile) {
+	return memberStarts[profile + 1] - memberStarts[profile];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets one of the people with a profile.<P>
+     * @param profile: the profile.
+     * @param i: which of its people, from zero to getSize(profile) - 1.
+     * @return the person's MicroData position.
+     **/
+    public int getMember(int profile, int i) {
+	return members[memberStarts[profile] + i];
+    }
+    
+// End of class.
+}
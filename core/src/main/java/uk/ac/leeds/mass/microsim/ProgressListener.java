@@ -0,0 +1,57 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * An interface for things that want to hear how a redistribution is getting on.<P>
+ * A Redistributor tells its listener when it starts, every so often while it's 
+ * working (how often is set in the RedistributionSettings), and when it's done. 
+ * The same ProgressStats object is handed over each time and changes afterwards, 
+ * so copy anything you want to keep. The calls may come from any of the threads 
+ * doing the work, but never from two at once.
+ * @version 1.0
+ */
+public interface ProgressListener {
+    
+    
+    /**
+     * Called once the areas have been filled with their starting people, before any swapping.
+     **/
+    public void runStarted(ProgressStats stats);
+    
+    
+    
+    
+    
+    /**
+     * Called every so often while the areas are being annealed.
+     **/
+    public void progress(ProgressStats stats);
+    
+    
+    
+    
+    
+    /**
+     * Called when all the areas are done.
+     **/
+    public void runFinished(ProgressStats stats);
+    
+// End of interface.
+}
@@ -0,0 +1,210 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.concurrent.atomic.*;
+
+
+/**
+ * Collects up progress from the threads doing a redistribution and passes it to a ProgressListener now and then.<P>
+ * Each thread counts its swaps in its own Counter, which is just a few ints, so 
+ * counting costs nothing in the swapping loop. Every so often (FLUSH_INTERVAL 
+ * swaps, or at the end of an area) a Counter is flushed into the shared totals, 
+ * and if enough swaps or enough time have gone by since the last report, the 
+ * listener is told. Nothing gets made as objects except when a report is due, 
+ * so with a NullProgressListener there's no garbage from reporting at all.
+ * @version 1.0
+ */
+public class ProgressReporter {
+    
+    private ProgressListener listener = null;	// Who to tell.
+    private long reportEverySwaps = 0;		// Report after this many swaps, or zero to ignore swaps.
+    private long reportEveryMillis = 0;		// Report after this many milliseconds, or zero to ignore time.
+    private int numberOfAreas = 0;		// The number of areas in the run.
+    private long startingError = 0;		// The total error before any swapping.
+    private long startTime = 0;			// When the run started.
+    private AtomicInteger areasDone = new AtomicInteger();	// The areas finished so far.
+    private AtomicLong swapsProposed = new AtomicLong();	// The swaps tried so far.
+    private AtomicLong swapsAccepted = new AtomicLong();	// The swaps kept so far.
+    private AtomicLong totalError = new AtomicLong();		// The current total error over all areas.
+    private volatile long nextReportSwaps = 0;	// The number of swaps at which the next report is due.
+    private volatile long nextReportTime = 0;	// The time at which the next report is due.
+    private ProgressStats stats = new ProgressStats();	// Reused for every report.
+    
+    static final int FLUSH_INTERVAL = 1024;	// Counters are added to the totals after this many swaps.
+    
+    
+    /**
+     * Creates a new ProgressReporter.<P>
+     * @param listener: who to tell about progress.
+     * @param settings: how often to tell them.
+     **/
+    public ProgressReporter(ProgressListener listener, RedistributionSettings settings) {
+	this.listener = listener;
+	reportEverySwaps = settings.getReportEverySwaps();
+	reportEveryMillis = settings.getReportEveryMillis();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Starts the clock and tells the listener the run has started.<P>
+     * @param numberOfAreas: the number of areas in the run.
+     * @param startingError: the total error over all areas before any swapping.
+     **/
+    public void start(int numberOfAreas, long startingError) {
+	start(numberOfAreas, 0, startingError);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Starts the clock and tells the listener the run has started, with some areas already done.<P>
+     * @param numberOfAreas: the number of areas in the run.
+     * @param areasAlreadyDone: the number of areas finished before the run started, for example in a checkpoint.
+     * @param startingError: the total error over all areas before any swapping.
+     **/
+    public synchronized void start(int numberOfAreas, int areasAlreadyDone, long startingError) {
+	this.numberOfAreas = numberOfAreas;
+	areasDone.set(areasAlreadyDone);
+	this.startingError = startingError;
+	totalError.set(startingError);
+	startTime = System.currentTimeMillis();
+	nextReportSwaps = (reportEverySwaps > 0) ? reportEverySwaps : Long.MAX_VALUE;
+	nextReportTime = (reportEveryMillis > 0) ? startTime + reportEveryMillis : Long.MAX_VALUE;
+	fillStats();
+	listener.runStarted(stats);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes a new Counter for a thread to count its swaps in.
+     **/
+    public Counter newCounter() {
+	return new Counter();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Adds a Counter to the totals and empties it, reporting if a report is due.
+     **/
+    public void flush(Counter counter) {
+	
+	long proposed = swapsProposed.addAndGet(counter.swapsProposed);
+	swapsAccepted.addAndGet(counter.swapsAccepted);
+	totalError.addAndGet(counter.errorChange);
+	counter.swapsProposed = 0;
+	counter.swapsAccepted = 0;
+	counter.errorChange = 0;
+	counter.countdown = FLUSH_INTERVAL;
+	
+	// Only look at the clock if the swaps haven't already made a report due.
+	
+	if ((proposed >= nextReportSwaps) || (System.currentTimeMillis() >= nextReportTime)) {
+	    report();
+	}
+	
+    }
+    
+    
+    
+    
+    
+    /**
+     * Flushes a Counter at the end of an area, and counts the area as done.
+     **/
+    public void areaFinished(Counter counter) {
+	areasDone.incrementAndGet();
+	flush(counter);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Tells the listener the run is finished.
+     **/
+    public synchronized void finish() {
+	fillStats();
+	listener.runFinished(stats);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Tells the listener about progress, unless another thread has just done so.
+     **/
+    private synchronized void report() {
+	
+	long now = System.currentTimeMillis();
+	if ((swapsProposed.get() < nextReportSwaps) && (now < nextReportTime)) return;
+	
+	fillStats();
+	listener.progress(stats);
+	
+	if (reportEverySwaps > 0) nextReportSwaps = swapsProposed.get() + reportEverySwaps;
+	if (reportEveryMillis > 0) nextReportTime = now + reportEveryMillis;
+	
+    }
+    
+    
+    
+    
+    
+    /**
+     * Copies the current totals into the stats.
+     **/
+    private void fillStats() {
+	stats.set(numberOfAreas, areasDone.get(), swapsProposed.get(), swapsAccepted.get(), 
+	    startingError, totalError.get(), System.currentTimeMillis() - startTime);
+    }
+    
+    
+    
+    
+    
+    /**
+     * The swaps one thread has made since it last flushed.<P>
+     * The thread updates the fields directly as it swaps, and calls flush 
+     * when countdown reaches zero.
+     **/
+    public static class Counter {
+	
+	int swapsProposed = 0;		// Swaps tried.
+	int swapsAccepted = 0;		// Swaps kept.
+	long errorChange = 0;		// The change in error from the swaps kept.
+	int countdown = FLUSH_INTERVAL;	// Swaps left before the next flush.
+	
+    } // End of Counter.
+    
+// End of class.
+}
@@ -0,0 +1,178 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * A summary of how far a redistribution has got.<P>
+ * Filled in by a ProgressReporter and handed to ProgressListeners.
+ * @version 1.0
+ */
+public class ProgressStats {
+    
+    private int numberOfAreas = 0;	    // The number of areas in the run.
+    private int areasDone = 0;		    // The number of areas finished.
+    private long swapsProposed = 0;	    // The number of swaps tried so far.
+    private long swapsAccepted = 0;	    // The number of swaps kept so far.
+    private long startingError = 0;	    // The total error over all areas before any swapping.
+    private long totalError = 0;	    // The total error over all areas now.
+    private long elapsedMillis = 0;	    // The time since the run started.
+    
+    
+    /**
+     * Creates a new, empty, set of stats.
+     **/
+    public ProgressStats() {
+    }
+    
+    
+    
+    
+    
+    /**
+     * Fills in all the stats at once.
+     **/
+    void set(int numberOfAreas, int areasDone, long swapsProposed, long swapsAccepted, 
+		long startingError, long totalError, long elapsedMillis) {
+	this.numberOfAreas = numberOfAreas;
+	this.areasDone = areasDone;
+	this.swapsProposed = swapsProposed;
+	this.swapsAccepted = swapsAccepted;
+	this.startingError = startingError;
+	this.totalError = totalError;
+	this.elapsedMillis = elapsedMillis;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas in the run.
+     **/
+    public int getNumberOfAreas() {
+	return numberOfAreas;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas finished.
+     **/
+    public int getAreasDone() {
+	return areasDone;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of swaps tried so far.
+     **/
+    public long getSwapsProposed() {
+	return swapsProposed;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of swaps kept so far.
+     **/
+    public long getSwapsAccepted() {
+	return swapsAccepted;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the fraction of the swaps tried that were kept, between zero and one.
+     **/
+    public double getAcceptRate() {
+	if (swapsProposed == 0) return 0;
+	return (double)swapsAccepted / (double)swapsProposed;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of swaps tried per second since the run started.
+     **/
+    public double getSwapsPerSecond() {
+	if (elapsedMillis == 0) return 0;
+	return (double)swapsProposed * 1000.0 / (double)elapsedMillis;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the total error over all the areas before any swapping.
+     **/
+    public long getStartingError() {
+	return startingError;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the total error over all the areas now.
+     **/
+    public long getTotalError() {
+	return totalError;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the time since the run started, in milliseconds.
+     **/
+    public long getElapsedMillis() {
+	return elapsedMillis;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns the stats as a line of text that can be displayed.
+     **/
+    public String toString() {
+	return "Areas " + areasDone + "/" + numberOfAreas 
+	    + " swaps " + swapsProposed + " (" + Math.round(getSwapsPerSecond()) + "/s)" 
+	    + " accepted " + Math.round(getAcceptRate() * 1000.0) / 10.0 + "%" 
+	    + " error " + totalError + " (from " + startingError + ")" 
+	    + " time " + elapsedMillis + "ms";
+    }
+    
+// End of class.
+}
@@ -0,0 +1,63 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * An interface for the random number generators the Redistributor uses.<P>
+ * Each generator is only used by one thread, so it needn't be thread safe, 
+ * and can be as fast as possible. Rather than sharing one generator, each area 
+ * gets its own, made with derive from the run's generator and the area's number. 
+ * This means every area gets the same random numbers however the areas are 
+ * shared between threads, so a run's results depend only on its seed.
+ * @version 1.0
+ */
+public interface RandomSource {
+    
+    
+    /**
+     * Returns a random number from zero up to, but not including, one.
+     **/
+    public double nextDouble();
+    
+    
+    
+    
+    
+    /**
+     * Returns a random whole number from zero up to, but not including, bound.<P>
+     * @param bound: one more than the biggest number wanted. Must be more than zero.
+     **/
+    public int nextInt(int bound);
+    
+    
+    
+    
+    
+    /**
+     * Makes a new generator of the same kind, from this one's seed and a key.<P>
+     * The new generator's numbers depend only on this generator's seed and the key, 
+     * not on how many numbers this one has given out, and generators with different 
+     * keys give unrelated numbers. Keys can be derived again, for example to give a 
+     * generator for each stage of a run, and from that one for each area.
+     * @param key: which of the new generators to make, for example an area number.
+     **/
+    public RandomSource derive(long key);
+    
+// End of interface.
+}
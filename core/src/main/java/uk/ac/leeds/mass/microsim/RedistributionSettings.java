@@ -0,0 +1,565 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+
+
+/**
+ * A class to encapsulate the settings for a redistribution.<P>
+ * Holds the Simulated Annealing parameters and how the work should be done. 
+ * Each setting starts with a sensible default, so you only need to set the 
+ * ones you want to change before handing the settings to a Redistributor.
+ * @version 1.0
+ */
+public class RedistributionSettings implements Cloneable {
+    
+    private int maxRuns = 2;			// The maximum attempts at getting each area right at each temperature.
+    private int errorMargin = 0;		// If the error falls below this for any area, we stop for that area and don't keep going until maxRuns.
+    private int maxTemperature = 20;		// The maximum temperature for the Simulated Annealing.
+    private int temperatureConversion = 5;	// Alters rate of temperature change each Simulated Annealing iteration.
+    private int numberOfThreads = 1;		// The number of threads to anneal areas on. One does the areas one after another.
+    private long seed = System.currentTimeMillis();	// The seed for all the random numbers. The same seed gives the same results.
+    private RandomSource randomSource = null;	// Where all the random numbers come from, or null for a SplittableRandomSource made from the seed.
+    private CoolingSchedule coolingSchedule = null;	// How the temperature is lowered, or null for a LinearCooling made from maxTemperature and temperatureConversion.
+    private long stallWindow = 0;		// Give up on an area if its lowest error hasn't improved in this many swaps, or zero to never give up.
+    private boolean ipfStart = false;		// If true, areas start with people fitted to the tables by IPF, rather than random people.
+    private boolean shortcutAreas = true;	// If true, areas that don't need annealing are done without it.
+    private boolean weightedPopulation = false;	// If true, each area is held as people and counts, rather than a slot per person.
+    private int areaOffset = 0;			// The number of the first area in the whole run, if this is just part of it.
+    private File checkpointFile = null;		// Where to save the finished areas now and then, or null to not bother.
+    private long checkpointEveryMillis = 600000;	// How often to save them, in milliseconds.
+    private boolean verifyErrors = false;	// If true, every incremental error change is checked against a full rescan of the area. Slow; for testing only.
+    private double targetedProposals = 0;	// The proportion of new people drawn from the kinds an area is short of, rather than from everyone.
+    private long reportEverySwaps = 1000000;	// Progress is reported after this many swaps, or zero to ignore swaps.
+    private long reportEveryMillis = 1000;	// Progress is reported after this many milliseconds, or zero to ignore time.
+    
+    
+    /**
+     * Creates a new set of settings, filled with the defaults.
+     **/
+    public RedistributionSettings() {
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes a copy of the settings, which can be changed without changing these.<P>
+     * The RandomSource and CoolingSchedule are shared with the copy, not copied.
+     **/
+    public RedistributionSettings copy() {
+	try {
+	    return (RedistributionSettings)clone();
+	} catch (CloneNotSupportedException cnse) {
+	    throw new IllegalStateException(cnse.getMessage());
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Describes every setting that changes which people end up in which areas.<P>
+     * The seed and RandomSource are left out, as are the number of threads, 
+     * checkpointing, checking and reporting, which make no difference to the 
+     * results. Runs with the same fingerprint, seed, generator, tables and 
+     * MicroData make the same population. Checkpoints keep the fingerprint so 
+     * a run can't be carried on with different settings (see Checkpoint).
+     **/
+    public String getFingerprint() {
+	return "maxRuns " + maxRuns + ", errorMargin " + errorMargin + ", cooling " + getCoolingSchedule() 
+	    + ", stallWindow " + stallWindow + ", ipfStart " + ipfStart + ", shortcutAreas " + shortcutAreas 
+	    + ", weightedPopulation " + weightedPopulation + ", targetedProposals " + targetedProposals 
+	    + ", areaOffset " + areaOffset;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the maximum attempts at getting each area right at each temperature.
+     **/
+    public int getMaxRuns() {
+	return maxRuns;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the maximum attempts at getting each area right at each temperature.
+     **/
+    public void setMaxRuns(int runs) {
+	maxRuns = runs;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the error below which we stop working on an area.
+     **/
+    public int getErrorMargin() {
+	return errorMargin;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the error below which we stop working on an area.
+     **/
+    public void setErrorMargin(int margin) {
+	errorMargin = margin;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the maximum temperature for the Simulated Annealing.<P>
+     * This is also the number of times the temperature is dropped.
+     **/
+    public int getMaxTemperature() {
+	return maxTemperature;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the maximum temperature for the Simulated Annealing.
+     **/
+    public void setMaxTemperature(int temperature) {
+	maxTemperature = temperature;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number that alters the rate of temperature change each Simulated Annealing iteration.
+     **/
+    public int getTemperatureConversion() {
+	return temperatureConversion;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the number that alters the rate of temperature change each Simulated Annealing iteration.
+     **/
+    public void setTemperatureConversion(int conversion) {
+	temperatureConversion = conversion;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of threads to anneal areas on.
+     **/
+    public int getNumberOfThreads() {
+	return numberOfThreads;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the number of threads to anneal areas on.<P>
+     * @param threads: the number of threads. One does the areas one after another.
+     **/
+    public void setNumberOfThreads(int threads) {
+	numberOfThreads = Math.max(1, threads);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the seed for all the random numbers.
+     **/
+    public long getSeed() {
+	return seed;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the seed for all the random numbers.<P>
+     * The same seed always gives the same results, whatever the number of threads.
+     **/
+    public void setSeed(long s) {
+	seed = s;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets where all the random numbers come from.<P>
+     * Unless one has been set, this is a new SplittableRandomSource made from the seed.
+     **/
+    public RandomSource getRandomSource() {
+	if (randomSource != null) return randomSource;
+	return new SplittableRandomSource(seed);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets where all the random numbers come from.<P>
+     * The Redistributor derives a generator for each area from this one, so it's 
+     * only ever used to derive from and its own numbers aren't used. Once this is 
+     * set, the seed is ignored, so make the RandomSource with the seed you want.
+     * @param source: the generator, or null to go back to a SplittableRandomSource made from the seed.
+     **/
+    public void setRandomSource(RandomSource source) {
+	randomSource = source;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets how the temperature is lowered while annealing each area.<P>
+     * Unless one has been set, this is a new LinearCooling made from maxTemperature 
+     * and temperatureConversion, as in SimLeeds.
+     **/
+    public CoolingSchedule getCoolingSchedule() {
+	if (coolingSchedule != null) return coolingSchedule;
+	return new LinearCooling(maxTemperature, temperatureConversion);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets how the temperature is lowered while annealing each area.<P>
+     * Once this is set, maxTemperature and temperatureConversion are ignored, so 
+     * make the schedule with the temperatures you want.
+     * @param schedule: the schedule, or null to go back to the LinearCooling.
+     **/
+    public void setCoolingSchedule(CoolingSchedule schedule) {
+	coolingSchedule = schedule;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of swaps without the error improving after which an area is given up on, or zero to never give up.
+     **/
+    public long getStallWindow() {
+	return stallWindow;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the number of swaps without the error improving after which an area is given up on.<P>
+     * Areas that can't be made exactly right carry on swapping until they run out 
+     * of steps, which can be a lot of wasted swaps. With this set, an area stops 
+     * once its lowest error hasn't gone down for this many swaps in a row.
+     * @param swaps: the number of swaps, or zero to never give up.
+     **/
+    public void setStallWindow(long swaps) {
+	stallWindow = Math.max(0, swaps);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets whether areas start with people fitted to the tables, rather than random people.
+     **/
+    public boolean getIpfStart() {
+	return ipfStart;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets whether areas start with people fitted to the tables, rather than random people.<P>
+     * The fitting is done with IPF followed by integerisation (see IpfStart). With one 
+     * table, or tables that don't conflict, this gets every area right before any 
+     * swapping; otherwise it leaves the annealing much less to do.
+     **/
+    public void setIpfStart(boolean ipf) {
+	ipfStart = ipf;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets whether areas that don't need annealing are done without it.
+     **/
+    public boolean getShortcutAreas() {
+	return shortcutAreas;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets whether areas that don't need annealing are done without it.<P>
+     * Empty areas, areas that can be filled exactly right directly, and areas that 
+     * are right as soon as they're filled are then finished before annealing starts 
+     * (see AreaClassifier). This is on by default. Turning it off anneals every area, 
+     * as earlier versions did, which is only worth doing to time the annealing.
+     **/
+    public void setShortcutAreas(boolean shortcut) {
+	shortcutAreas = shortcut;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets whether each area is held as people and counts.
+     **/
+    public boolean getWeightedPopulation() {
+	return weightedPopulation;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets whether each area is held as people and counts (see WeightedArea).<P>
+     * Memory then grows with the number of different MicroData people used in 
+     * each area, not the number of people in it, which is worth it when areas 
+     * are large and the sample small. Swaps are a little slower, as picking a 
+     * person to swap out has to search the counts. The same seed gives different 
+     * people to a run without it, but the results are just as good.
+     **/
+    public void setWeightedPopulation(boolean weighted) {
+	weightedPopulation = weighted;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of the first area in the whole run.
+     **/
+    public int getAreaOffset() {
+	return areaOffset;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the number of the first area in the whole run, if the tables are just part of it.<P>
+     * Each area's random numbers are derived from its number, and this is added 
+     * to it first, so a run split into parts by area (see PartitionedRun) gives 
+     * each area the same people as a run that does them all. It's zero by default.
+     **/
+    public void setAreaOffset(int offset) {
+	areaOffset = offset;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the file the finished areas are saved in now and then, or null if they aren't.
+     **/
+    public File getCheckpointFile() {
+	return checkpointFile;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the file to save the finished areas in now and then, so a run can be resumed (see Checkpoint).<P>
+     * @param file: the file, or null to not save them.
+     **/
+    public void setCheckpointFile(File file) {
+	checkpointFile = file;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets how often the finished areas are saved, in milliseconds.
+     **/
+    public long getCheckpointEveryMillis() {
+	return checkpointEveryMillis;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets how often the finished areas are saved, in milliseconds.<P>
+     * Each save writes every finished area, so very short gaps slow the run down. 
+     * The default is ten minutes.
+     * @param millis: the time between saves.
+     **/
+    public void setCheckpointEveryMillis(long millis) {
+	checkpointEveryMillis = Math.max(0, millis);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets whether every swap is checked against a full recount of the area.
+     **/
+    public boolean getVerifyErrors() {
+	return verifyErrors;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets whether every swap is checked against a full recount of the area.<P>
+     * This is very slow, and only meant for testing the incremental error calculation.
+     **/
+    public void setVerifyErrors(boolean verify) {
+	verifyErrors = verify;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the proportion of new people drawn from the kinds an area is short of.
+     **/
+    public double getTargetedProposals() {
+	return targetedProposals;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the proportion of new people drawn from the kinds an area is short of.<P>
+     * Normally the people swapped into an area are drawn from the whole sample. 
+     * In areas very unlike the sample, most of these make things worse and are 
+     * rejected. With this set above zero, that proportion of the people are 
+     * instead drawn from the table categories the area is short of, weighted by 
+     * how short it is. The chances of keeping each swap are adjusted to make up 
+     * for the draw not being even, so the annealing still settles on the same 
+     * kinds of answer, it just gets there in fewer swaps.
+     * @param proportion: from zero (draw everyone evenly, the default) to one (always draw by shortfall).
+     **/
+    public void setTargetedProposals(double proportion) {
+	targetedProposals = Math.max(0, Math.min(1, proportion));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of swaps between progress reports, or zero if swaps are ignored.
+     **/
+    public long getReportEverySwaps() {
+	return reportEverySwaps;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the number of swaps between progress reports.<P>
+     * Progress is reported when either this many swaps or reportEveryMillis 
+     * milliseconds have gone by, whichever comes first.
+     * @param swaps: the number of swaps, or zero to only report on time.
+     **/
+    public void setReportEverySwaps(long swaps) {
+	reportEverySwaps = Math.max(0, swaps);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of milliseconds between progress reports, or zero if time is ignored.
+     **/
+    public long getReportEveryMillis() {
+	return reportEveryMillis;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the number of milliseconds between progress reports.<P>
+     * @param millis: the number of milliseconds, or zero to only report on swaps.
+     **/
+    public void setReportEveryMillis(long millis) {
+	reportEveryMillis = Math.max(0, millis);
+    }
+    
+// End of class.
+}
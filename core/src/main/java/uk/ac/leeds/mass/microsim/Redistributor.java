@@ -0,0 +1,814 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+import java.io.*;
+import java.util.concurrent.atomic.*;
+
+
+/**
+ * The engine that does the population redistribution, without any user interface.<P>
+ * Give it the Table of statistics to replicate, the MicroData sample of people to 
+ * replicate them with, and the settings to use, then call run. Afterwards the 
+ * made up population and its statistics can be got at, or written to a file. 
+ * Progress can be reported to a ProgressListener if wanted; by default 
+ * the engine is quiet. Nothing here needs a screen, so it can be used from the 
+ * command line (see BatchDistributor) or behind a GUI (see Distributor).
+ * @version 1.0
+ */
+public class Redistributor {
+    
+    private Population world = null;		// A representation of the world. Has "areas" filled with "people".
+    private int numberOfAreas = 0;		// The number of areas we're trying to redistribute people into.
+    private Constraints constraints = null;	// The statistics tables we'd like to replicate.
+    private Table tableToReplicate = null;	// The first of those tables, which gives the area IDs.
+    private int [] currentCounts = null;	// The statistics representing our world at any given moment in the process, one row of Constraints cells per area.
+    private int numberOfCells = 0;		// The number of cells in each area's row.
+    private MicroData microData = null;		// The sample of people we have to work with.
+    private RedistributionSettings settings = null;	// The annealing parameters and how to do the work.
+    private ProgressListener progressListener = new NullProgressListener();	// Who to tell about progress.
+    private ProgressReporter progress = null;	// Collects progress from the threads for the progressListener.
+    private CandidateIndex candidates = null;	// The people grouped by cell, for drawing people of the kinds an area is short of.
+    private Checkpoint resumeFrom = null;	// The checkpoint being resumed from, or null for a fresh run.
+    private int dataChecksum = 0;		// The checksum of the tables and MicroData, for checkpoints.
+    private AtomicIntegerArray finalErrors = null;	// Each area's error once it's finished, or Checkpoint.NOT_FINISHED.
+    private AtomicLong nextCheckpointTime = new AtomicLong();	// When the next checkpoint is due.
+    private RunMetrics metrics = null;		// How each area's annealing went.
+    private byte [] areaKinds = null;		// Whether each area was annealed, or done another way (see AreaClassifier).
+    private Profiles profiles = null;		// The kinds of people, for IPF starts and shortcuts, if given or once needed.
+    
+    private static final long FILLING = 0;		// The key for the random numbers used to fill the areas at the start.
+    private static final long ANNEALING = 1;		// The key for the random numbers used to anneal the areas.
+    
+    
+    /**
+     * Creates a new Redistributor that matches a single table against the first MicroData attribute.<P>
+     * @param tableToReplicate: the statistics we'd like the made up population to have.
+     * @param microData: the sample of people to make the population from.
+     * @param settings: the annealing parameters and how to do the work.
+     **/
+    public Redistributor(Table tableToReplicate, MicroData microData, RedistributionSettings settings) {
+	this(new Constraints(tableToReplicate, microData), settings);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Creates a new Redistributor that matches several tables at once.<P>
+     * @param constraints: the statistics we'd like the made up population to have, and the people to make it from.
+     * @param settings: the annealing parameters and how to do the work.
+     **/
+    public Redistributor(Constraints constraints, RedistributionSettings settings) {
+	this.constraints = constraints;
+	this.settings = settings;
+	tableToReplicate = constraints.getTable(0);
+	microData = constraints.getMicroData();
+	numberOfAreas = constraints.getNumberOfAreas();
+	numberOfCells = constraints.getNumberOfCells();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets who to tell about progress.<P>
+     * How often they're told is set in the RedistributionSettings. 
+     * By default nobody is told.
+     * @param listener: the listener to tell.
+     **/
+    public void setProgressListener(ProgressListener listener) {
+	progressListener = listener;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gives the Redistributor the kinds of people, so it doesn't have to work them out.<P>
+     * They're only needed for IPF starts and shortcut areas, and take a pass through 
+     * the MicroData to make. When lots of Redistributors work on the same people with 
+     * the same kinds of tables (see StreamingRun), they can all share one set.
+     * @param profiles: the kinds of people, from constraints with the same tables and people.
+     **/
+    public void setProfiles(Profiles profiles) {
+	this.profiles = profiles;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gives the Redistributor the people grouped by cell, so it doesn't have to group them.<P>
+     * They're only needed for targeted proposals. As with setProfiles, this lets 
+     * Redistributors working on the same people share them.
+     * @param candidates: the people grouped by cell, from constraints with the same tables and people.
+     **/
+    public void setCandidateIndex(CandidateIndex candidates) {
+	this.candidates = candidates;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Does the redistribution.<P>
+     * Randomly fills the areas and then anneals them until the statistics are 
+     * as close as we can get them.
+     **/
+    public void run() {
+	
+	// Start by randomly filling the areas without thinking about the statistics.
+	
+	progress = new ProgressReporter(progressListener, settings);
+	if ((settings.getTargetedProposals() > 0) && (candidates == null)) candidates = new CandidateIndex(constraints);
+	metrics = new RunMetrics(constraints);
+	if ((settings.getCheckpointFile() != null) && (resumeFrom == null)) dataChecksum = constraints.getChecksum();
+	randomizeStartingDistribution();
+	
+	// Tell the listener the starting conditions so they can see how much things change.
+	
+	int areasAlreadyDone = 0;
+	for (int area = 0; area < numberOfAreas; area++) {
+	    if (finalErrors.get(area) != Checkpoint.NOT_FINISHED) areasAlreadyDone++;
+	}
+	progress.start(numberOfAreas, areasAlreadyDone, getTotalError());
+	nextCheckpointTime.set(System.currentTimeMillis() + settings.getCheckpointEveryMillis());
+	
+	// Redistribute until the statistics are correct.
+	
+	redistribute();
+	for (int area = 0; area < numberOfAreas; area++) {
+	    metrics.recordCounts(area, currentCounts, area * numberOfCells);
+	}
+	progress.finish();
+	
+    } // End of run.
+    
+    
+    
+    
+    
+    /**
+     * Carries on a run that was saved in a checkpoint (see Checkpoint).<P>
+     * The areas finished in the checkpoint get their people back, and the rest are 
+     * filled and annealed as normal. With the same settings, tables and MicroData 
+     * as the run that saved the checkpoint, the results are the same as if that run 
+     * had never stopped, so anything else is turned down.
+     * @param checkpoint: the checkpoint to carry on from.
+     * @throws IllegalArgumentException if the checkpoint was made with a different seed, 
+     * generator or settings, or different tables or MicroData.
+     **/
+    public void resume(Checkpoint checkpoint) {
+	
+	String generator = settings.getRandomSource().getClass().getName();
+	if (!checkpoint.getGenerator().equals(generator)) {
+	    throw new IllegalArgumentException("The checkpoint was made with random numbers from " + checkpoint.getGenerator() + ", not " + generator + ".");
+	}
+	if (checkpoint.getSeed() != settings.getSeed()) {
+	    throw new IllegalArgumentException("The checkpoint was made with seed " + checkpoint.getSeed() + ", not " + settings.getSeed() + ".");
+	}
+	if (!checkpoint.getFingerprint().equals(settings.getFingerprint())) {
+	    throw new IllegalArgumentException("The checkpoint was made with settings " + checkpoint.getFingerprint() 
+		+ ", not " + settings.getFingerprint() + ".");
+	}
+	if ((checkpoint.getNumberOfAreas() != numberOfAreas) || (checkpoint.getNumberOfPeople() != microData.getNumberOfPeople())) {
+	    throw new IllegalArgumentException("The checkpoint has " + checkpoint.getNumberOfAreas() + " areas and " 
+		+ checkpoint.getNumberOfPeople() + " people, but the tables have " + numberOfAreas + " areas and the MicroData " 
+		+ microData.getNumberOfPeople() + " people.");
+	}
+	dataChecksum = constraints.getChecksum();
+	if (checkpoint.getDataChecksum() != dataChecksum) {
+	    throw new IllegalArgumentException("The checkpoint was made with different tables or MicroData.");
+	}
+	for (int area = 0; area < numberOfAreas; area++) {
+	    if (checkpoint.isFinished(area) && (checkpoint.getPeople(area).length != constraints.getAreaPopulation(area))) {
+		throw new IllegalArgumentException("The checkpoint has " + checkpoint.getPeople(area).length + " people in area " 
+		    + tableToReplicate.getID(area) + ", but the table has " + constraints.getAreaPopulation(area) + ".");
+	    }
+	}
+	
+	resumeFrom = checkpoint;
+	try {
+	    run();
+	} finally {
+	    resumeFrom = null;
+	}
+	
+    } // End of resume.
+    
+    
+    
+    
+    
+    /**
+     * Gets the made up population. Only filled once run has been called.
+     **/
+    public Population getPopulation() {
+	return world;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the swaps, times and errors for each area and the whole run. Only filled once run has been called.<P>
+     * Areas finished in a checkpoint that was resumed have no swaps or time, and start with their final error.
+     **/
+    public RunMetrics getMetrics() {
+	return metrics;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets how an area was done: AreaClassifier.ANNEAL if it was annealed, otherwise 
+     * EMPTY, EXACT or CONVERGED. Only filled once run has been called.<P>
+     * Areas finished in a checkpoint that was resumed count as ANNEAL.
+     * @param area: the area, starting with zero.
+     **/
+    public byte getAreaKind(int area) {
+	return areaKinds[area];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the statistics of the made up population for the first table. Only filled once run has been called.
+     **/
+    public Table getCurrentTable() {
+	return getCurrentTable(0);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the statistics of the made up population for one of the tables. Only filled once run has been called.<P>
+     * The Table is made afresh each time, with the same categories as the table being replicated.
+     * @param constraint: the table, starting with zero.
+     **/
+    public Table getCurrentTable(int constraint) {
+	
+	Table target = constraints.getTable(constraint);
+	String[] categoryNames = new String[target.getNumberOfCategories()];
+	for (int category = 0; category < categoryNames.length; category++) {
+	    categoryNames[category] = target.getCategoryName(category);
+	}
+	
+	Table currentTable = new Table(numberOfAreas, categoryNames);
+	int offset = constraints.getCellOffset(constraint);
+	for (int area = 0; area < numberOfAreas; area++) {
+	    for (int category = 0; category < categoryNames.length; category++) {
+		currentTable.setValue(area, category, currentCounts[area * numberOfCells + offset + category]);
+	    }
+	}
+	return currentTable;
+	
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the first table of statistics we're trying to replicate.
+     **/
+    public Table getTableToReplicate() {
+	return tableToReplicate;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets all the tables of statistics we're trying to replicate.
+     **/
+    public Constraints getConstraints() {
+	return constraints;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the sample of people the population is made from.
+     **/
+    public MicroData getMicroData() {
+	return microData;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the error for the whole made up population, summed over all the areas.<P>
+     * Only meaningful once run has been called.
+     **/
+    public long getTotalError() {
+	long error = 0;
+	for (int area = 0; area < numberOfAreas; area++) {
+	    for (int cell = 0; cell < numberOfCells; cell++) {
+		error = error + Math.abs(constraints.getTarget(area, cell) - currentCounts[area * numberOfCells + cell]);
+	    }
+	}
+	return error;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Start by randomly filling the areas without thinking about the statistics.<P>
+     * If the settings ask for an IPF start, the areas are instead filled with people 
+     * fitted to the tables (see IpfStart), so the annealing only has to polish them.
+     **/
+    private void randomizeStartingDistribution() {
+	
+	// Make the world anew, with the correct number of areas in it we want.
+	
+	world = new Population(numberOfAreas, settings.getWeightedPopulation());
+	
+	// For each area in the world, find out what the total population is 
+	// and fill it with that number of people drawn randomly from our sample, 
+	// or, if asked, people fitted to the tables by IPF.
+	
+	// Each area gets its own random numbers, so areas can be filled in any 
+	// order and still get the same people.
+	
+	// Areas finished in a checkpoint being resumed just get their people back.
+	
+	// If asked, areas that can be got exactly right without annealing are filled 
+	// with the right people straight away, by IPF (see AreaClassifier).
+	
+	finalErrors = new AtomicIntegerArray(numberOfAreas);
+	areaKinds = new byte[numberOfAreas];
+	if ((profiles == null) && (settings.getIpfStart() || settings.getShortcutAreas())) profiles = new Profiles(constraints);
+	IpfStart ipfStart = (settings.getIpfStart() || settings.getShortcutAreas()) ? new IpfStart(constraints, profiles) : null;
+	AreaClassifier classifier = settings.getShortcutAreas() ? new AreaClassifier(constraints, profiles) : null;
+	RandomSource randoms = settings.getRandomSource().derive(FILLING);
+	for (int area = 0; area < numberOfAreas; area++) {
+	    RandomSource random = randoms.derive(settings.getAreaOffset() + area);
+	    world.createArea(area, constraints.getAreaPopulation(area));
+	    finalErrors.set(area, Checkpoint.NOT_FINISHED);
+	    areaKinds[area] = AreaClassifier.ANNEAL;
+	    if ((resumeFrom != null) && resumeFrom.isFinished(area)) {
+		int[] people = resumeFrom.getPeople(area);
+		for (int slot = 0; slot < people.length; slot++) world.fillPerson(area, slot, people[slot]);
+		world.trimArea(area);
+		finalErrors.set(area, resumeFrom.getError(area));
+		metrics.recordAnnealing(area, resumeFrom.getError(area), 0, 0, 0, 0, 0);
+		continue;
+	    }
+	    if (classifier != null) areaKinds[area] = classifier.classify(area);
+	    if ((areaKinds[area] == AreaClassifier.EXACT) || (settings.getIpfStart() && (areaKinds[area] == AreaClassifier.ANNEAL))) {
+		ipfStart.fill(area, world, random);
+	    } else {
+		for (int slot = 0; slot < world.getAreaSize(area); slot++) {
+		    world.fillPerson(area, slot, getRandomPerson(random));
+		}
+	    }
+	    world.trimArea(area);
+	}
+	
+	// Make a suitably sized set of counts so we can calculate the current statistics for 
+	// our brave new world, then calcuate each area's statistics. Each area is a 
+	// row of cells, just like the tables we're trying to replicate.
+	
+	currentCounts = new int[numberOfAreas * numberOfCells];
+	
+	for (int area = 0; area < numberOfAreas; area++) {
+	    buildCurrentTableRow(area);
+	}
+	
+	// Areas that don't need annealing are finished now. If an EXACT area somehow 
+	// isn't right, it's annealed like any other. Areas that are already right 
+	// would make no swaps anyway, so are just marked as CONVERGED.
+	
+	if (classifier == null) return;
+	for (int area = 0; area < numberOfAreas; area++) {
+	    if (finalErrors.get(area) != Checkpoint.NOT_FINISHED) continue;
+	    int error = calculateError(area);
+	    if (areaKinds[area] == AreaClassifier.ANNEAL) {
+		if (error > settings.getErrorMargin()) continue;
+		areaKinds[area] = AreaClassifier.CONVERGED;
+	    } else if ((areaKinds[area] == AreaClassifier.EXACT) && (error > settings.getErrorMargin())) {
+		areaKinds[area] = AreaClassifier.ANNEAL;
+		continue;
+	    }
+	    finalErrors.set(area, error);
+	    metrics.recordAnnealing(area, error, 0, 0, 0, 0, 0);
+	}
+	
+    } // End of randomizeStartingDistribution.
+    
+    
+    
+    
+    
+    /**
+     * Returns the position of a person randomly drawn from the sample microdata.
+     * @param random: the random number generator to use.
+     **/
+    private int getRandomPerson(RandomSource random) {
+	return random.nextInt(microData.getNumberOfPeople()); 
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns the position of a person drawn, some of the time, from the kinds of people an area is short of.<P>
+     * With probability targeted, one of the tables is picked at random, and then one 
+     * of its categories the area has fewer people in than it should, with the chance 
+     * of each going up with how many people it is short. Then someone in that category 
+     * is drawn from the CandidateIndex. Otherwise, or if the area isn't short of 
+     * anyone in that table, the person is drawn from everyone.
+     * @param area: the area the person is for.
+     * @param random: the random number generator to use.
+     * @param targeted: the proportion of people to draw by shortfall.
+     **/
+    private int getTargetedPerson(int area, RandomSource random, double targeted) {
+	
+	if (random.nextDouble() >= targeted) return getRandomPerson(random);
+	
+	int constraint = random.nextInt(constraints.getNumberOfConstraints());
+	int firstCell = constraints.getCellOffset(constraint);
+	int endCell = constraints.getCellOffset(constraint + 1);
+	
+	int totalShortfall = 0;
+	for (int cell = firstCell; cell < endCell; cell++) {
+	    totalShortfall = totalShortfall + getShortfall(area, cell, 0);
+	}
+	if (totalShortfall == 0) return getRandomPerson(random);
+	
+	int pick = random.nextInt(totalShortfall);
+	int cell = firstCell;
+	while (true) {
+	    pick = pick - getShortfall(area, cell, 0);
+	    if (pick < 0) break;
+	    cell++;
+	}
+	return candidates.getPerson(cell, random.nextInt(candidates.getCellSize(cell)));
+	
+    } // End of getTargetedPerson.
+    
+    
+    
+    
+    
+    /**
+     * Works out how likely getTargetedPerson is to draw a particular person.<P>
+     * This can be worked out for the area as it is, or as it would be after a swap, 
+     * which is needed for the chances of drawing the swap back.
+     * @param area: the area the person would be for.
+     * @param person: the person.
+     * @param leaving: the person who would have left the area in the swap, or -1 for the area as it is.
+     * @param joining: the person who would have joined the area in the swap, or -1 for the area as it is.
+     * @param targeted: the proportion of people drawn by shortfall.
+     **/
+    private double getProposalProbability(int area, int person, int leaving, int joining, double targeted) {
+	
+	double uniform = 1.0 / microData.getNumberOfPeople();
+	double byShortfall = 0;
+	
+	for (int constraint = 0; constraint < constraints.getNumberOfConstraints(); constraint++) {
+	    
+	    int leavingCell = (leaving < 0) ? -1 : constraints.getPersonCell(leaving, constraint);
+	    int joiningCell = (joining < 0) ? -1 : constraints.getPersonCell(joining, constraint);
+	    
+	    int totalShortfall = 0;
+	    for (int cell = constraints.getCellOffset(constraint); cell < constraints.getCellOffset(constraint + 1); cell++) {
+		totalShortfall = totalShortfall + getShortfall(area, cell, getChange(cell, leavingCell, joiningCell));
+	    }
+	    
+	    if (totalShortfall == 0) {
+		byShortfall = byShortfall + uniform;
+	    } else {
+		int cell = constraints.getPersonCell(person, constraint);
+		double shortfall = getShortfall(area, cell, getChange(cell, leavingCell, joiningCell));
+		if (shortfall > 0) byShortfall = byShortfall + (shortfall / totalShortfall) / candidates.getCellSize(cell);
+	    }
+	    
+	}
+	
+	return (1 - targeted) * uniform + targeted * byShortfall / constraints.getNumberOfConstraints();
+	
+    } // End of getProposalProbability.
+    
+    
+    
+    
+    
+    /**
+     * Gets how many people an area is short of in a cell, or zero if there's no-one in the sample to fill it.<P>
+     * @param area: the area.
+     * @param cell: the cell.
+     * @param change: a change to make to the area's count for the cell first.
+     **/
+    private int getShortfall(int area, int cell, int change) {
+	if (candidates.getCellSize(cell) == 0) return 0;
+	int shortfall = constraints.getTarget(area, cell) - (currentCounts[area * numberOfCells + cell] + change);
+	return (shortfall > 0) ? shortfall : 0;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the change a swap makes to the count in a cell.<P>
+     * @param cell: the cell.
+     * @param leavingCell: the cell of the person leaving, or -1 for none.
+     * @param joiningCell: the cell of the person joining, or -1 for none.
+     **/
+    private static int getChange(int cell, int leavingCell, int joiningCell) {
+	int change = 0;
+	if (cell == leavingCell) change--;
+	if (cell == joiningCell) change++;
+	return change;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Calculates the statistics for one area based on our made up world.<P>
+     * These are stored in the currentCounts for comparison with the tables we 
+     * want to replicate.
+     **/
+    private void buildCurrentTableRow(int area) {
+	
+	// Zero the current values for this area.
+	
+	int row = area * numberOfCells;
+	Arrays.fill(currentCounts, row, row + numberOfCells, 0);
+	
+	// Run through the people in the area, incrementing the statistics in 
+	// each table's cells.
+	
+	int numberOfConstraints = constraints.getNumberOfConstraints();
+	for (int slot = 0; slot < world.getNumberOfSlots(area); slot++) {
+	    int person = world.getPerson(area, slot);
+	    int count = world.getSlotCount(area, slot);
+	    for (int constraint = 0; constraint < numberOfConstraints; constraint++) {
+		int cell = row + constraints.getPersonCell(person, constraint);
+		currentCounts[cell] = currentCounts[cell] + count;
+	    }
+	}
+	
+    } // End of buildCurrentTableRow.
+    
+    
+    
+    
+    
+    /**
+     * The meat of this particular program. Takes each area in turn, and swaps people in and out until statistics ok.<P>
+     * The code works broadly by swapping random people out of the area, and replacing them by
+     * another random person. The new error between the current statistics and those we're hoping
+     * for is assessed, and if there's an improvement the change is kept, otherwise the old person is
+     * put back in and the new one removed. This "gradient descent" style method is adjusted by the
+     * Simulated Annealing algorithm, which allows worse errors to be kept with a probablity that
+     * reduces over time. As this is a toy application with only one
+     * attribute of two values, the SA routine actually slows down the basic gradient
+     * descent algorithm, but if there were multiple attributes that needed fitting, it would
+     * be a real boon. The swapping itself is done by an Annealer, with PersonMoves saying 
+     * what swapping one person for another does.<P>
+     * Each area only changes its own people and its own row of the currentCounts, so 
+     * areas can be done at the same time. The areas are split into chunks of roughly 
+     * equal work, and if the number of threads is more than one the chunks are handed to a 
+     * pool of threads, which steal chunks from each other as they run out (see AreaChunks). Each area 
+     * has its own random number generator, derived from the run's RandomSource and the 
+     * area's number, so for a given seed the results are always the same, whatever the 
+     * number of threads.
+     **/
+    private void redistribute() {
+	
+	final RandomSource randoms = settings.getRandomSource().derive(ANNEALING);
+	final CoolingSchedule schedule = settings.getCoolingSchedule();
+	long swapBudget = (long)settings.getMaxRuns() * (long)schedule.getMaxSteps();
+	
+	AreaChunks.run(constraints, swapBudget, settings.getNumberOfThreads(), new AreaChunks.Task() {
+	    public void run(int firstArea, int endArea) {
+		Annealer annealer = new Annealer(settings, schedule, progress, world, currentCounts, numberOfCells, new PersonMoves());
+		annealer.setMetrics(metrics);
+		for (int area = firstArea; area < endArea; area++) {
+		    if (finalErrors.get(area) != Checkpoint.NOT_FINISHED) continue;
+		    int error = annealer.anneal(area, randoms.derive(settings.getAreaOffset() + area));
+		    world.trimArea(area);
+		    finalErrors.set(area, error);
+		    checkpointIfDue();
+		}
+	    }
+	});
+	
+    } // End of redistribute.
+    
+    
+    
+    
+    
+    /**
+     * What swapping one person for another does, for the Annealer.<P>
+     * People are drawn from everyone, or some of the time from the kinds the area 
+     * is short of (see getTargetedPerson). The error change of a swap is worked out 
+     * from the live counts without changing them (see calculateErrorChange), so only 
+     * swaps that are kept change the counts.
+     **/
+    private class PersonMoves implements Annealer.Moves {
+	
+	private double targeted = settings.getTargetedProposals();	// The proportion of people drawn by shortfall.
+	
+	public int recount(int area) {
+	    return calculateError(area);
+	}
+	
+	public int propose(int area, RandomSource random) {
+	    return (targeted > 0) ? getTargetedPerson(area, random, targeted) : getRandomPerson(random);
+	}
+	
+	public double getProposalRatio(int area, int leaving, int joining) {
+	    if (targeted == 0) return 1;
+	    return getProposalProbability(area, leaving, leaving, joining, targeted) / getProposalProbability(area, joining, -1, -1, targeted);
+	}
+	
+	public int tryMove(int area, int leaving, int joining) {
+	    return calculateErrorChange(area, leaving, joining);
+	}
+	
+	public void keep(int area, int leaving, int joining) {
+	    int row = area * numberOfCells;
+	    for (int constraint = 0; constraint < constraints.getNumberOfConstraints(); constraint++) {
+		currentCounts[row + constraints.getPersonCell(leaving, constraint)]--;
+		currentCounts[row + constraints.getPersonCell(joining, constraint)]++;
+	    }
+	}
+	
+	public void reject(int area, int leaving, int joining) {
+	}
+	
+    } // End of PersonMoves.
+    
+    
+    
+    
+    
+    /**
+     * Saves the finished areas to the checkpoint file, if there is one and it's time.<P>
+     * Called by each thread as it finishes an area. Only the first thread to see 
+     * that a checkpoint is due writes it; the others carry on. Areas are never 
+     * changed after they're finished, so they can be written while other areas 
+     * are still being annealed.
+     * @throws UncheckedIOException if the checkpoint can't be written, rather than 
+     * carrying on for hours without one.
+     **/
+    private void checkpointIfDue() {
+	
+	if (settings.getCheckpointFile() == null) return;
+	long due = nextCheckpointTime.get();
+	long now = System.currentTimeMillis();
+	if ((now < due) || !nextCheckpointTime.compareAndSet(due, now + settings.getCheckpointEveryMillis())) return;
+	
+	int[] errors = new int[numberOfAreas];
+	for (int area = 0; area < numberOfAreas; area++) errors[area] = finalErrors.get(area);
+	try {
+	    Checkpoint.write(settings.getCheckpointFile(), settings, dataChecksum, microData.getNumberOfPeople(), errors, world);
+	} catch (IOException ioe) {
+	    throw new UncheckedIOException("Couldn't write checkpoint " + settings.getCheckpointFile() + ": " + ioe.getMessage(), ioe);
+	}
+	
+    } // End of checkpointIfDue.
+    
+    
+    
+    
+    
+    /**
+     * Compares the current state of our made up world with the statistics we want and gives an error.<P>
+     * The error in this case is just the absolute difference for each cell associated with the area, for 
+     * example, if our original table had 10 men and 12 women, and our made up area currently had 
+     * 5 men and 17 women, the error would be 10. With several tables, the differences for all 
+     * their cells are added up. Not private, so the benchmarks can time it.
+     **/
+    int calculateError(int area) {
+	
+	buildCurrentTableRow(area);
+	int error = 0;
+	int row = area * numberOfCells;
+	for (int cell = 0; cell < numberOfCells; cell++) {
+	    error = error + Math.abs(constraints.getTarget(area, cell) - currentCounts[row + cell]);
+	}
+	return error;
+	
+    }
+    
+    
+    
+    
+    
+    /**
+     * Works out how much the error for an area would change if one person was swapped for another.<P>
+     * In each table only the two cells the people fall in can change, so this just compares those 
+     * cells before and after the swap using the live counts in currentCounts, rather than 
+     * recounting everyone in the area like calculateError does. The cost goes up with the 
+     * number of tables, not the number of categories or people.
+     * @param area: the area the swap is happening in.
+     * @param oldPerson: the MicroData position of the person who would leave the area.
+     * @param newPerson: the MicroData position of the person who would join the area.
+     **/
+    int calculateErrorChange(int area, int oldPerson, int newPerson) {
+	
+	int row = area * numberOfCells;
+	int change = 0;
+	
+	for (int constraint = 0; constraint < constraints.getNumberOfConstraints(); constraint++) {
+	    
+	    int oldCell = constraints.getPersonCell(oldPerson, constraint);
+	    int newCell = constraints.getPersonCell(newPerson, constraint);
+	    
+	    // Swapping two people of the same kind makes no difference.
+	    
+	    if (oldCell == newCell) continue;
+	    
+	    int oldCellTarget = constraints.getTarget(area, oldCell);
+	    int oldCellCount = currentCounts[row + oldCell];
+	    int newCellTarget = constraints.getTarget(area, newCell);
+	    int newCellCount = currentCounts[row + newCell];
+	    
+	    change = change + Math.abs(oldCellTarget - (oldCellCount - 1)) - Math.abs(oldCellTarget - oldCellCount);
+	    change = change + Math.abs(newCellTarget - (newCellCount + 1)) - Math.abs(newCellTarget - newCellCount);
+	    
+	}
+	
+	return change;
+	
+    }
+    
+    
+    
+    
+    
+    /**
+     * Write the people to a file with their area id.<P>
+     * The file contains a header:<BR>
+     * <CODE>Area,Person,Value</CODE><BR>
+     * and then a line containing this data for each person. If the people have 
+     * more than one attribute, there's a value for each, and the header uses the 
+     * attribute names from the MicroData instead of "Value".
+     * @param file: the file to write to.
+     **/
+    public void write(File file) throws IOException {
+	write(file, new CsvPopulationWriter(false));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Write the people to a file in some other format.<P>
+     * @param file: the file to write to.
+     * @param writer: the format to write in, for example a gzipped CsvPopulationWriter, 
+     * a BinaryPopulationWriter or a WeightsPopulationWriter.
+     **/
+    public void write(File file, PopulationWriter writer) throws IOException {
+	writer.write(world, constraints, file);
+    }
+    
+// End of class.
+}
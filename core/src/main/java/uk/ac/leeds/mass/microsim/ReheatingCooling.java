@@ -0,0 +1,108 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * A CoolingSchedule that runs another schedule again, hotter, if the area isn't right when it finishes.<P>
+ * Annealing can settle into an answer that's not the best, where every single swap 
+ * makes things worse. Heating the area up again lets it climb out and try again. 
+ * Each time the schedule underneath finishes with the error above the errorMargin, 
+ * it's started again with its temperatures multiplied by reheatFactor, up to 
+ * reheats times. The best people seen are always what's kept in the end, so a 
+ * reheat can't make an area worse.
+ * @version 1.0
+ */
+public class ReheatingCooling implements CoolingSchedule {
+    
+    private CoolingSchedule schedule = null;	// The schedule to run, and run again.
+    private int reheats = 0;			// The most times to run it again.
+    private double reheatFactor = 0;		// What the temperatures are multiplied by each time it's run again.
+    private int errorMargin = 0;		// Don't reheat if the error is this or less.
+    private int reheat = 0;			// The number of times it's been run again for this area.
+    private double scale = 1;			// What the temperatures are multiplied by this time round.
+    
+    
+    /**
+     * Creates a new ReheatingCooling.<P>
+     * @param schedule: the schedule to run, and run again.
+     * @param reheats: the most times to run it again.
+     * @param reheatFactor: what the temperatures are multiplied by each time it's run again; less than one to reheat less each time.
+     * @param errorMargin: don't reheat if the error is this or less.
+     **/
+    public ReheatingCooling(CoolingSchedule schedule, int reheats, double reheatFactor, int errorMargin) {
+	this.schedule = schedule;
+	this.reheats = reheats;
+	this.reheatFactor = reheatFactor;
+	this.errorMargin = errorMargin;
+    }
+    
+    
+    
+    
+    
+    public double start(int areaError) {
+	reheat = 0;
+	scale = 1;
+	return schedule.start(areaError);
+    }
+    
+    
+    
+    
+    
+    public double next(int proposed, int accepted, int uphillProposed, int uphillAccepted, int areaError) {
+	
+	double temperature = schedule.next(proposed, accepted, uphillProposed, uphillAccepted, areaError);
+	if (temperature > 0) return temperature * scale;
+	
+	// The schedule underneath has finished. Start it again if the area still isn't right.
+	
+	if ((areaError <= errorMargin) || (reheat >= reheats)) return 0;
+	reheat++;
+	scale = scale * reheatFactor;
+	return schedule.start(areaError) * scale;
+	
+    }
+    
+    
+    
+    
+    
+    public int getMaxSteps() {
+	return schedule.getMaxSteps() * (reheats + 1);
+    }
+    
+    
+    
+    
+    
+    public CoolingSchedule copy() {
+	return new ReheatingCooling(schedule.copy(), reheats, reheatFactor, errorMargin);
+    }
+    
+    
+    
+    
+    
+    public String toString() {
+	return "ReheatingCooling " + reheats + " " + reheatFactor + " " + errorMargin + " (" + schedule + ")";
+    }
+    
+// End of class.
+}
@@ -0,0 +1,505 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.util.*;
+
+
+/**
+ * Measurements of how a redistribution went, area by area and overall.<P>
+ * For each area this keeps the swaps proposed, accepted and rejected, the uphill 
+ * (error raising) swaps proposed and accepted, the time spent annealing it, its 
+ * error before annealing and three measures of its error at the end:<BR>
+ * TAE, the total absolute error, which is what the annealing brings down: the 
+ * differences between the area's counts and the tables, added up over every cell;<BR>
+ * SAE, the standardised absolute error, which is the TAE over the number of people, 
+ * so big and small areas can be compared;<BR>
+ * RMSE, the root mean square error over the cells, which picks out areas with a few 
+ * badly wrong cells.<BR>
+ * The same are given for the whole run, along with histograms of the time and 
+ * error per area, and everything can be written out as CSV (a line per area) or 
+ * JSON (the totals, histograms and worst areas).<P>
+ * The counting itself is done in local variables by the thread annealing each area, 
+ * which fills in the area's slots once it's done. Each slot only ever has one thread 
+ * writing it, so there's no locking or sharing between threads, and the cost is a 
+ * few additions per swap and two looks at the clock per area.
+ * @version 1.0
+ */
+public class RunMetrics {
+    
+    private Constraints constraints = null;	// The tables, for area IDs, populations and the number of cells.
+    private long [] swapsProposed = null;	// The swaps tried in each area.
+    private long [] swapsAccepted = null;	// The swaps kept in each area.
+    private long [] uphillProposed = null;	// The swaps tried that would have raised each area's error.
+    private long [] uphillAccepted = null;	// Those that were kept anyway.
+    private long [] nanos = null;		// The time spent annealing each area, in nanoseconds.
+    private int [] startingErrors = null;	// Each area's error before annealing.
+    private int [] finalErrors = null;		// Each area's error at the end (its TAE).
+    private long [] squaredErrors = null;	// The squared differences between each area's counts and the tables, added up.
+    
+    private static final int WORST_AREAS = 20;	// The number of worst areas to put in the JSON.
+    
+    
+    /**
+     * Creates a new, empty, set of metrics.<P>
+     * @param constraints: the tables being matched.
+     **/
+    public RunMetrics(Constraints constraints) {
+	this.constraints = constraints;
+	int numberOfAreas = constraints.getNumberOfAreas();
+	swapsProposed = new long[numberOfAreas];
+	swapsAccepted = new long[numberOfAreas];
+	uphillProposed = new long[numberOfAreas];
+	uphillAccepted = new long[numberOfAreas];
+	nanos = new long[numberOfAreas];
+	startingErrors = new int[numberOfAreas];
+	finalErrors = new int[numberOfAreas];
+	squaredErrors = new long[numberOfAreas];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Notes down how the annealing of an area went. Only called by the thread that annealed it.
+     **/
+    void recordAnnealing(int area, int startingError, long proposed, long accepted, long uphill, long uphillKept, long time) {
+	startingErrors[area] = startingError;
+	swapsProposed[area] = proposed;
+	swapsAccepted[area] = accepted;
+	uphillProposed[area] = uphill;
+	uphillAccepted[area] = uphillKept;
+	nanos[area] = time;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Works out an area's final errors from its counts.<P>
+     * @param area: the area.
+     * @param counts: the area's counts, in the same cells as the Constraints.
+     * @param offset: where the area's counts start in the array.
+     **/
+    void recordCounts(int area, int[] counts, int offset) {
+	int error = 0;
+	long squared = 0;
+	for (int cell = 0; cell < constraints.getNumberOfCells(); cell++) {
+	    long difference = constraints.getTarget(area, cell) - counts[offset + cell];
+	    error = error + (int)Math.abs(difference);
+	    squared = squared + difference * difference;
+	}
+	finalErrors[area] = error;
+	squaredErrors[area] = squared;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas.
+     **/
+    public int getNumberOfAreas() {
+	return finalErrors.length;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the swaps tried in an area.
+     **/
+    public long getSwapsProposed(int area) {
+	return swapsProposed[area];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the swaps kept in an area.
+     **/
+    public long getSwapsAccepted(int area) {
+	return swapsAccepted[area];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the swaps thrown away in an area.
+     **/
+    public long getSwapsRejected(int area) {
+	return swapsProposed[area] - swapsAccepted[area];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the swaps tried in an area that would have raised its error.
+     **/
+    public long getUphillProposed(int area) {
+	return uphillProposed[area];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the swaps kept in an area even though they raised its error.
+     **/
+    public long getUphillAccepted(int area) {
+	return uphillAccepted[area];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the time spent annealing an area, in milliseconds.
+     **/
+    public double getMillis(int area) {
+	return nanos[area] / 1e6;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets an area's error before annealing.
+     **/
+    public int getStartingError(int area) {
+	return startingErrors[area];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets an area's total absolute error at the end.
+     **/
+    public int getTotalAbsoluteError(int area) {
+	return finalErrors[area];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets an area's standardised absolute error at the end: its total absolute error over its number of people.
+     **/
+    public double getStandardisedAbsoluteError(int area) {
+	int people = constraints.getAreaPopulation(area);
+	return (people == 0) ? 0 : (double)finalErrors[area] / people;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets an area's root mean square error over its cells at the end.
+     **/
+    public double getRootMeanSquareError(int area) {
+	return Math.sqrt((double)squaredErrors[area] / Math.max(1, constraints.getNumberOfCells()));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the swaps tried over all areas.
+     **/
+    public long getSwapsProposed() {
+	return sum(swapsProposed);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the swaps kept over all areas.
+     **/
+    public long getSwapsAccepted() {
+	return sum(swapsAccepted);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the swaps thrown away over all areas.
+     **/
+    public long getSwapsRejected() {
+	return getSwapsProposed() - getSwapsAccepted();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the swaps tried over all areas that would have raised the error.
+     **/
+    public long getUphillProposed() {
+	return sum(uphillProposed);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the swaps kept over all areas even though they raised the error.
+     **/
+    public long getUphillAccepted() {
+	return sum(uphillAccepted);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the time spent annealing all the areas, added up over the threads, in milliseconds.
+     **/
+    public double getMillis() {
+	return sum(nanos) / 1e6;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the error over all areas before annealing.
+     **/
+    public long getStartingError() {
+	long error = 0;
+	for (int area = 0; area < startingErrors.length; area++) error = error + startingErrors[area];
+	return error;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the total absolute error over all areas at the end.
+     **/
+    public long getTotalAbsoluteError() {
+	long error = 0;
+	for (int area = 0; area < finalErrors.length; area++) error = error + finalErrors[area];
+	return error;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the standardised absolute error over all areas at the end: the total absolute error over the total number of people.
+     **/
+    public double getStandardisedAbsoluteError() {
+	long people = 0;
+	for (int area = 0; area < finalErrors.length; area++) people = people + constraints.getAreaPopulation(area);
+	return (people == 0) ? 0 : (double)getTotalAbsoluteError() / people;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the root mean square error over every cell of every area at the end.
+     **/
+    public double getRootMeanSquareError() {
+	long cells = (long)Math.max(1, finalErrors.length) * Math.max(1, constraints.getNumberOfCells());
+	return Math.sqrt((double)sum(squaredErrors) / cells);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Counts the areas in power of two bands of some value.<P>
+     * Band zero holds the areas with a value of zero, band one those with one, band 
+     * two those with two or three, band three four to seven, and so on.
+     * @param values: the value for each area.
+     * @return the number of areas in each band, up to the highest band used.
+     **/
+    public static int[] histogram(long[] values) {
+	int[] bands = new int[65];
+	int highest = 0;
+	for (int area = 0; area < values.length; area++) {
+	    int band = 64 - Long.numberOfLeadingZeros(Math.max(0, values[area]));
+	    bands[band]++;
+	    highest = Math.max(highest, band);
+	}
+	return Arrays.copyOf(bands, highest + 1);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes a line for each area as CSV, with a header line.<P>
+     * @param file: the file to write.
+     **/
+    public void writeCsv(File file) throws IOException {
+	
+	OutputBuffer out = new OutputBuffer(new FileOutputStream(file));
+	
+	try {
+	    out.writeString("Area,People,SwapsProposed,SwapsAccepted,SwapsRejected,UphillProposed,UphillAccepted,"
+		+ "Millis,StartingError,TAE,SAE,RMSE\n");
+	    Table areas = constraints.getTable(0);
+	    for (int area = 0; area < finalErrors.length; area++) {
+		out.writeString(areas.getID(area) + "," + constraints.getAreaPopulation(area) + "," + swapsProposed[area] 
+		    + "," + swapsAccepted[area] + "," + getSwapsRejected(area) + "," + uphillProposed[area] 
+		    + "," + uphillAccepted[area] + "," + getMillis(area) + "," + startingErrors[area] 
+		    + "," + finalErrors[area] + "," + getStandardisedAbsoluteError(area) + "," + getRootMeanSquareError(area) + "\n");
+	    }
+	} finally {
+	    out.close();
+	}
+	
+    } // End of writeCsv.
+    
+    
+    
+    
+    
+    /**
+     * Writes the totals for the run, histograms of the time and error per area, and the worst areas, as JSON.<P>
+     * The histograms are in power of two bands (see histogram), of milliseconds 
+     * per area and total absolute error per area.
+     * @param file: the file to write.
+     **/
+    public void writeJson(File file) throws IOException {
+	
+	int numberOfAreas = finalErrors.length;
+	long[] millis = new long[numberOfAreas];
+	long[] errors = new long[numberOfAreas];
+	for (int area = 0; area < numberOfAreas; area++) {
+	    millis[area] = nanos[area] / 1000000;
+	    errors[area] = finalErrors[area];
+	}
+	
+	// Find the worst areas by TAE, worst first.
+	
+	Integer[] order = new Integer[numberOfAreas];
+	for (int area = 0; area < numberOfAreas; area++) order[area] = Integer.valueOf(area);
+	Arrays.sort(order, new Comparator<Integer>() {
+	    public int compare(Integer a, Integer b) {
+		return Integer.compare(finalErrors[b.intValue()], finalErrors[a.intValue()]);
+	    }
+	});
+	
+	OutputBuffer out = new OutputBuffer(new FileOutputStream(file));
+	
+	try {
+	    out.writeString("{\n");
+	    out.writeString("  \"areas\": " + numberOfAreas + ",\n");
+	    out.writeString("  \"swapsProposed\": " + getSwapsProposed() + ",\n");
+	    out.writeString("  \"swapsAccepted\": " + getSwapsAccepted() + ",\n");
+	    out.writeString("  \"swapsRejected\": " + getSwapsRejected() + ",\n");
+	    out.writeString("  \"uphillProposed\": " + getUphillProposed() + ",\n");
+	    out.writeString("  \"uphillAccepted\": " + getUphillAccepted() + ",\n");
+	    out.writeString("  \"millis\": " + getMillis() + ",\n");
+	    out.writeString("  \"startingError\": " + getStartingError() + ",\n");
+	    out.writeString("  \"tae\": " + getTotalAbsoluteError() + ",\n");
+	    out.writeString("  \"sae\": " + getStandardisedAbsoluteError() + ",\n");
+	    out.writeString("  \"rmse\": " + getRootMeanSquareError() + ",\n");
+	    out.writeString("  \"millisHistogram\": " + Arrays.toString(histogram(millis)) + ",\n");
+	    out.writeString("  \"taeHistogram\": " + Arrays.toString(histogram(errors)) + ",\n");
+	    out.writeString("  \"worstAreas\": [");
+	    Table areas = constraints.getTable(0);
+	    for (int i = 0; i < Math.min(WORST_AREAS, numberOfAreas); i++) {
+		int area = order[i].intValue();
+		out.writeString(((i == 0) ? "\n" : ",\n") + "    {\"area\": " + quote(areas.getID(area)) 
+		    + ", \"tae\": " + finalErrors[area] + ", \"sae\": " + getStandardisedAbsoluteError(area) 
+		    + ", \"rmse\": " + getRootMeanSquareError(area) + ", \"swapsProposed\": " + swapsProposed[area] 
+		    + ", \"millis\": " + getMillis(area) + "}");
+	    }
+	    out.writeString("\n  ]\n}\n");
+	} finally {
+	    out.close();
+	}
+	
+    } // End of writeJson.
+    
+    
+    
+    
+    
+    /**
+     * Adds up an array.
+     **/
+    private static long sum(long[] values) {
+	long total = 0;
+	for (int i = 0; i < values.length; i++) total = total + values[i];
+	return total;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Puts a string in quotes for JSON, escaping anything that needs it.
+     **/
+    private static String quote(String text) {
+	StringBuilder quoted = new StringBuilder(text.length() + 2);
+	quoted.append('"');
+	for (int i = 0; i < text.length(); i++) {
+	    char c = text.charAt(i);
+	    if ((c == '"') || (c == '\\')) {
+		quoted.append('\\').append(c);
+	    } else if (c < ' ') {
+		quoted.append(String.format("\\u%04x", Integer.valueOf(c)));
+	    } else {
+		quoted.append(c);
+	    }
+	}
+	quoted.append('"');
+	return quoted.toString();
+    }
+    
+// End of class.
+}
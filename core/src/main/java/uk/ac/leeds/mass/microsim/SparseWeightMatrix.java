@@ -0,0 +1,152 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+
+
+/**
+ * A WeightMatrix that only keeps the weights that aren't zero.<P>
+ * IPF can only scale weights, so a profile in a category an area has nobody in 
+ * ends up with a weight of zero there. With detailed tables most profiles are 
+ * missing from most areas, and this keeps just the rest: for each area, the 
+ * profiles with weight, in order, and their weights. Looking up a single weight 
+ * is a binary search of the area's profiles.
+ * @version 1.0
+ */
+public class SparseWeightMatrix implements WeightMatrix {
+    
+    private int numberOfProfiles = 0;		// The number of columns.
+    private int [][] profiles = null;		// For each area, the profiles with weight, in order.
+    private double [][] weights = null;		// For each area, the weights of those profiles.
+    
+    private static final int [] NO_PROFILES = new int[0];	// Shared by the areas with no weights.
+    private static final double [] NO_WEIGHTS = new double[0];	// Shared by the areas with no weights.
+    
+    
+    /**
+     * Creates a new SparseWeightMatrix, with all the weights zero.<P>
+     * @param numberOfAreas: the number of areas.
+     * @param numberOfProfiles: the number of profiles.
+     **/
+    public SparseWeightMatrix(int numberOfAreas, int numberOfProfiles) {
+	this.numberOfProfiles = numberOfProfiles;
+	profiles = new int[numberOfAreas][];
+	weights = new double[numberOfAreas][];
+	Arrays.fill(profiles, NO_PROFILES);
+	Arrays.fill(weights, NO_WEIGHTS);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas (rows).
+     **/
+    public int getNumberOfAreas() {
+	return profiles.length;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of profiles (columns).
+     **/
+    public int getNumberOfProfiles() {
+	return numberOfProfiles;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of weights kept for an area, which is the number of profiles with weight there.<P>
+     * @param area: the area.
+     **/
+    public int getNumberOfWeights(int area) {
+	return profiles[area].length;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the weight of one profile in one area.<P>
+     * @param area: the area.
+     * @param profile: the profile.
+     **/
+    public double getWeight(int area, int profile) {
+	int position = Arrays.binarySearch(profiles[area], profile);
+	return (position < 0) ? 0 : weights[area][position];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Stores the weights for an area, leaving out the zeros.<P>
+     * @param area: the area.
+     * @param weights: the weight of each profile in the area.
+     **/
+    public void setRow(int area, double[] weights) {
+	
+	int kept = 0;
+	for (int profile = 0; profile < numberOfProfiles; profile++) {
+	    if (weights[profile] != 0) kept++;
+	}
+	
+	int [] areaProfiles = (kept == 0) ? NO_PROFILES : new int[kept];
+	double [] areaWeights = (kept == 0) ? NO_WEIGHTS : new double[kept];
+	kept = 0;
+	for (int profile = 0; profile < numberOfProfiles; profile++) {
+	    if (weights[profile] != 0) {
+		areaProfiles[kept] = profile;
+		areaWeights[kept] = weights[profile];
+		kept++;
+	    }
+	}
+	profiles[area] = areaProfiles;
+	this.weights[area] = areaWeights;
+	
+    } // End of setRow.
+    
+    
+    
+    
+    
+    /**
+     * Gets the weights for an area.<P>
+     * @param area: the area.
+     * @param weights: where to put the weight of each profile, including the zeros.
+     **/
+    public void getRow(int area, double[] weights) {
+	Arrays.fill(weights, 0, numberOfProfiles, 0);
+	int [] areaProfiles = profiles[area];
+	double [] areaWeights = this.weights[area];
+	for (int i = 0; i < areaProfiles.length; i++) weights[areaProfiles[i]] = areaWeights[i];
+    }
+    
+// End of class.
+}
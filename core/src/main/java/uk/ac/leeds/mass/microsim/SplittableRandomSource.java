@@ -0,0 +1,88 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+
+
+/**
+ * A RandomSource using Java's SplittableRandom.<P>
+ * SplittableRandom is the quickest generator in Java's own library, and isn't 
+ * synchronized like Random is. Its numbers pass the usual statistical tests. 
+ * This is the RandomSource the RedistributionSettings uses unless told otherwise.
+ * @version 1.0
+ */
+public class SplittableRandomSource implements RandomSource {
+    
+    private long seed = 0;			// The seed the generator was made with.
+    private SplittableRandom random = null;	// The generator.
+    
+    
+    /**
+     * Creates a new SplittableRandomSource.<P>
+     * @param seed: the seed. The same seed always gives the same numbers.
+     **/
+    public SplittableRandomSource(long seed) {
+	this.seed = seed;
+	random = new SplittableRandom(seed);
+    }
+    
+    
+    
+    
+    
+    public double nextDouble() {
+	return random.nextDouble();
+    }
+    
+    
+    
+    
+    
+    public int nextInt(int bound) {
+	return random.nextInt(bound);
+    }
+    
+    
+    
+    
+    
+    public RandomSource derive(long key) {
+	return new SplittableRandomSource(deriveSeed(seed, key));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Mixes a seed and a key into a new seed.<P>
+     * Seeds next to each other give SplittableRandoms whose numbers overlap, so the 
+     * seed and key are scrambled together with the SplitMix64 mixing function, 
+     * which spreads every bit of its input over all the bits of its output.
+     **/
+    static long deriveSeed(long seed, long key) {
+	long z = seed + (key + 1) * 0x9E3779B97F4A7C15L;
+	z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+	z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+	return z ^ (z >>> 31);
+    }
+    
+// End of class.
+}
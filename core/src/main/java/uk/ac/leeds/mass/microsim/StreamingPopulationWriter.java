@@ -0,0 +1,67 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+
+
+/**
+ * A PopulationWriter that can also write a population a few areas at a time.<P>
+ * Formats that are just a header followed by the areas in order can be written 
+ * without ever having the whole population in memory: the file is opened, the 
+ * header written, and then each batch of areas is added as it's finished (see 
+ * StreamingRun). Formats whose header needs to know about every area first, 
+ * like the binary and indexed ones, can't do this.
+ * @version 1.0
+ */
+public interface StreamingPopulationWriter extends PopulationWriter {
+    
+    
+    /**
+     * Opens a file to write to.<P>
+     * @param file: the file to write to.
+     * @return the buffer to write through, which the caller closes when done.
+     **/
+    public OutputBuffer open(File file) throws IOException;
+    
+    
+    
+    
+    
+    /**
+     * Writes the header.<P>
+     * @param constraints: the tables and MicroData the population is made from.
+     * @param out: the buffer from open.
+     **/
+    public void writeHeader(Constraints constraints, OutputBuffer out) throws IOException;
+    
+    
+    
+    
+    
+    /**
+     * Writes some areas, after any written already.<P>
+     * @param world: the people in each of the areas.
+     * @param constraints: the tables for the same areas, which give their IDs.
+     * @param out: the buffer from open.
+     **/
+    public void writeAreas(Population world, Constraints constraints, OutputBuffer out) throws IOException;
+    
+// End of interface.
+}
@@ -0,0 +1,240 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+
+/**
+ * Works through the areas a block at a time, so memory stays the same however many areas there are.<P>
+ * A Redistributor fills every area before annealing any, and keeps them all until 
+ * they're written, so it needs memory for the whole population. Here the tables are 
+ * read a block of rows at a time (see TableReader), and each block is handed to a 
+ * worker thread that runs its own Redistributor on just those areas. Finished blocks 
+ * are written out in order and then forgotten.<P>
+ * The blocks waiting to be run, being run, and finished but waiting for the blocks 
+ * before them to be written, are kept in one queue of fixed size. When it's full, 
+ * reading stops until the oldest block has been written, so no more than that many 
+ * blocks are ever in memory. Each block's areas get their random numbers from their 
+ * number in the whole run (see RedistributionSettings.setAreaOffset), so the results 
+ * are the same as a Redistributor doing every area at once.<P>
+ * The people are only gone through once, for the first block; the rest share its 
+ * cells, profiles and candidates (see Constraints.forAreas). Checkpoints aren't 
+ * written, as a block is finished and written long before a checkpoint would help.
+ * @version 1.0
+ */
+public class StreamingRun {
+    
+    private TableReader [] readers = null;	// The tables, read a block at a time.
+    private int [] attributes = null;		// For each table, the MicroData attribute it is about.
+    private MicroData microData = null;		// The sample of people.
+    private RedistributionSettings settings = null;	// The annealing parameters; the threads are used for blocks.
+    private int areasPerBlock = 64;		// The number of areas in each block.
+    private int maxBlocks = 0;			// The most blocks held at once, or zero for two per thread.
+    private int numberOfAreas = 0;		// The number of areas done.
+    private long totalError = 0;		// The total error of the areas done.
+    private Constraints first = null;		// The constraints for the first block, shared with the rest.
+    private Profiles profiles = null;		// The kinds of people, shared by every block, if needed.
+    private CandidateIndex candidates = null;	// The people grouped by cell, shared by every block, if needed.
+    
+    
+    /**
+     * Creates a new StreamingRun.<P>
+     * @param readers: the tables to match, opened but not read.
+     * @param attributes: for each table, the MicroData attribute it is about, starting with zero.
+     * @param microData: the sample of people.
+     * @param settings: the annealing parameters. The number of threads is the 
+     * number of blocks run at once, each on one thread.
+     **/
+    public StreamingRun(TableReader[] readers, int[] attributes, MicroData microData, RedistributionSettings settings) {
+	this.readers = readers.clone();
+	this.attributes = attributes.clone();
+	this.microData = microData;
+	this.settings = settings;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the number of areas in each block.<P>
+     * Smaller blocks use less memory; bigger ones spend less time setting up. 
+     * The default is 64.
+     * @param areas: the number of areas.
+     **/
+    public void setAreasPerBlock(int areas) {
+	areasPerBlock = Math.max(1, areas);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the most blocks held in memory at once.<P>
+     * This needs to be at least the number of threads to keep them all busy, and 
+     * a few more stop a slow block holding the rest up. The default is two per thread.
+     * @param blocks: the number of blocks.
+     **/
+    public void setMaxBlocks(int blocks) {
+	maxBlocks = Math.max(1, blocks);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas done. Only set once run has been called.
+     **/
+    public int getNumberOfAreas() {
+	return numberOfAreas;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the total error of all the areas. Only set once run has been called.
+     **/
+    public long getTotalError() {
+	return totalError;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads, fits and writes every area, then closes the tables.<P>
+     * @param file: the file to write the population to.
+     * @param writer: how to write it.
+     * @throws IOException if the tables can't be read or the population can't be written.
+     * @throws IllegalArgumentException if the tables don't fit each other or the MicroData.
+     **/
+    public void run(File file, StreamingPopulationWriter writer) throws IOException {
+	
+	int threads = Math.max(1, settings.getNumberOfThreads());
+	int blocksAllowed = (maxBlocks > 0) ? maxBlocks : threads * 2;
+	ExecutorService pool = Executors.newFixedThreadPool(threads);
+	ArrayDeque<Future<Redistributor>> queue = new ArrayDeque<Future<Redistributor>>();
+	OutputBuffer out = writer.open(file);
+	numberOfAreas = 0;
+	totalError = 0;
+	
+	try {
+	    
+	    boolean tablesFinished = false;
+	    while (true) {
+		
+		// Fill the queue with blocks, then write the oldest when it's done.
+		
+		while (!tablesFinished && (queue.size() < blocksAllowed)) {
+		    Constraints constraints = readBlock();
+		    if (constraints == first) writer.writeHeader(constraints, out);
+		    if (constraints.getNumberOfAreas() == 0) {
+			tablesFinished = true;
+		    } else {
+			queue.addLast(pool.submit(new Block(constraints, numberOfAreas)));
+			numberOfAreas = numberOfAreas + constraints.getNumberOfAreas();
+		    }
+		}
+		if (queue.isEmpty()) break;
+		
+		Redistributor done = queue.removeFirst().get();
+		writer.writeAreas(done.getPopulation(), done.getConstraints(), out);
+		totalError = totalError + done.getTotalError();
+		
+	    }
+	    
+	} catch (InterruptedException ie) {
+	    Thread.currentThread().interrupt();
+	    throw new InterruptedIOException("Interrupted while waiting for a block");
+	} catch (ExecutionException ee) {
+	    Throwable cause = ee.getCause();
+	    if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+	    if (cause instanceof Error) throw (Error)cause;
+	    throw new IOException(cause);
+	} finally {
+	    pool.shutdownNow();
+	    out.close();
+	    for (int table = 0; table < readers.length; table++) readers[table].close();
+	}
+	
+    } // End of run.
+    
+    
+    
+    
+    
+    /**
+     * Reads the next block of rows from every table and makes constraints for them.<P>
+     * The first block's constraints go through the people; the rest share them. 
+     * @return the constraints, with no areas if the tables have run out.
+     **/
+    private Constraints readBlock() throws IOException {
+	
+	Table[] tables = new Table[readers.length];
+	for (int table = 0; table < tables.length; table++) tables[table] = readers[table].readRows(areasPerBlock);
+	if (first != null) return first.forAreas(tables);
+	
+	first = new Constraints(tables, attributes, microData);
+	if (settings.getIpfStart() || settings.getShortcutAreas()) profiles = new Profiles(first);
+	if (settings.getTargetedProposals() > 0) candidates = new CandidateIndex(first);
+	return first;
+	
+    } // End of readBlock.
+    
+    
+    
+    
+    
+    /**
+     * One block of areas, run on a Redistributor of its own with one thread.
+     **/
+    private class Block implements Callable<Redistributor> {
+	
+	private Constraints constraints = null;	// The tables for just this block.
+	private int firstArea = 0;		// The number of the block's first area in the run.
+	
+	Block(Constraints constraints, int firstArea) {
+	    this.constraints = constraints;
+	    this.firstArea = firstArea;
+	}
+	
+	public Redistributor call() {
+	    RedistributionSettings blockSettings = settings.copy();
+	    blockSettings.setNumberOfThreads(1);
+	    blockSettings.setAreaOffset(settings.getAreaOffset() + firstArea);
+	    blockSettings.setCheckpointFile(null);
+	    Redistributor redistributor = new Redistributor(constraints, blockSettings);
+	    redistributor.setProfiles(profiles);
+	    redistributor.setCandidateIndex(candidates);
+	    redistributor.run();
+	    return redistributor;
+	}
+	
+    } // End of Block.
+    
+// End of class.
+}
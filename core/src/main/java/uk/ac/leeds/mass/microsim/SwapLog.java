@@ -0,0 +1,112 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+
+
+/**
+ * A record of the swaps made in one area, so they can be undone.<P>
+ * During the Simulated Annealing we want to be able to go back to the best set 
+ * of people we've seen. Rather than copying the whole area each time we find a 
+ * new best, we clear this log, and then note down each swap made after that point 
+ * as the slot the new person went into and the person they replaced. Undoing the swaps in 
+ * reverse order then takes the area back to the best state. The log only 
+ * grows with the number of swaps kept, not the size of the area.
+ * @version 1.0
+ */
+public class SwapLog {
+    
+    private int [] slots = null;	    // The slots changed, in the order they were changed.
+    private int [] oldPeople = null;	    // The people that were in those slots before the change.
+    private int size = 0;		    // The number of swaps in the log.
+    
+    
+    /**
+     * Creates a new, empty, SwapLog.
+     **/
+    public SwapLog() {
+	slots = new int[64];
+	oldPeople = new int[64];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Notes down a swap.<P>
+     * @param slot: the slot in the area the new person went into (see Population.replacePerson).
+     * @param oldPerson: the MicroData position of the person who was in the slot before.
+     **/
+    public void record(int slot, int oldPerson) {
+	
+	// If we've run out of room, double the size of the arrays.
+	
+	if (size == slots.length) {
+	    slots = Arrays.copyOf(slots, size * 2);
+	    oldPeople = Arrays.copyOf(oldPeople, size * 2);
+	}
+	
+	slots[size] = slot;
+	oldPeople[size] = oldPerson;
+	size++;
+	
+    }
+    
+    
+    
+    
+    
+    /**
+     * Forgets all the swaps in the log, for example when a new best state is found.
+     **/
+    public void clear() {
+	size = 0;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of swaps in the log.
+     **/
+    public int size() {
+	return size;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Undoes all the swaps in the log, most recent first, and then clears it.<P>
+     * @param population: the population the swaps were made in.
+     * @param area: the area the swaps were made in.
+     **/
+    public void undo(Population population, int area) {
+	for (int i = size - 1; i >= 0; i--) {
+	    population.replacePerson(area, slots[i], oldPeople[i]);
+	}
+	size = 0;
+    }
+    
+// End of class.
+}
@@ -0,0 +1,319 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.util.*;
+
+
+/**
+ * Makes up Table and MicroData files for testing at scale.<P>
+ * The files are in the formats the Table and MicroData classes read. Everything 
+ * is made from a seed, so the same settings always give the same files. Lines 
+ * are written as they're made, through an OutputBuffer, so nothing is held in 
+ * memory and files of many gigabytes can be made.<P>
+ * Each area has a number of people between minAreaSize and maxAreaSize. They're 
+ * split between the categories at random, with each area having its own random 
+ * mix. To copy areas like I and J in the sample table, which only have people in 
+ * one category, each category can be left empty in an area with some chance 
+ * (though an area always has at least one category with people in). The 
+ * microdata people are given a category each at random, with the first few 
+ * people covering every category, so there's always someone to fill each one.<P>
+ * To run it from the command line:<BR>
+ * <CODE>java -cp microsimulation-core.jar uk.ac.leeds.mass.microsim.SyntheticDataGenerator 
+ * table.csv microdata.csv [-areas 1000] [-minAreaSize 50] [-maxAreaSize 150] 
+ * [-categories 2] [-emptyCategoryChance 0.1] [-people 1000] [-seed 42]</CODE>
+ * @version 1.0
+ */
+public class SyntheticDataGenerator {
+    
+    private int numberOfAreas = 1000;		// The number of areas in the table.
+    private int minAreaSize = 50;		// The fewest people in an area.
+    private int maxAreaSize = 150;		// The most people in an area.
+    private int numberOfCategories = 2;		// The number of categories in the table.
+    private double emptyCategoryChance = 0;	// The chance of each category being empty in an area.
+    private int numberOfPeople = 1000;		// The number of people in the microdata.
+    private long seed = 0;			// The seed for all the random numbers.
+    
+    
+    /**
+     * Creates a new SyntheticDataGenerator with the default settings.
+     **/
+    public SyntheticDataGenerator() {
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the number of areas in the table.
+     **/
+    public void setNumberOfAreas(int areas) {
+	numberOfAreas = Math.max(0, areas);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the fewest and most people in an area. Area sizes are spread evenly between the two.
+     **/
+    public void setAreaSizes(int min, int max) {
+	minAreaSize = Math.max(0, min);
+	maxAreaSize = Math.max(minAreaSize, max);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the number of categories in the table, and so the number of category codes in the microdata.
+     **/
+    public void setNumberOfCategories(int categories) {
+	numberOfCategories = Math.max(1, categories);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the chance of each category having no-one in it in an area.<P>
+     * @param chance: from zero (every category can have people) to one (only one category has people).
+     **/
+    public void setEmptyCategoryChance(double chance) {
+	emptyCategoryChance = Math.max(0, Math.min(1, chance));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the number of people in the microdata.
+     **/
+    public void setNumberOfPeople(int people) {
+	numberOfPeople = Math.max(0, people);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Sets the seed for all the random numbers.
+     **/
+    public void setSeed(long s) {
+	seed = s;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes a table, with a header line naming the categories Value0, Value1 and so on, 
+     * and then a line for each area with its ID (A0, A1 and so on) and the number of 
+     * people in each category.<P>
+     * @param file: the file to write to.
+     **/
+    public void writeTable(File file) throws IOException {
+	
+	Random random = new Random(seed);
+	OutputBuffer out = new OutputBuffer(new FileOutputStream(file));
+	
+	try {
+	    
+	    out.writeString("Area");
+	    for (int category = 0; category < numberOfCategories; category++) {
+		out.writeString(",Value" + category);
+	    }
+	    out.writeByte('\n');
+	    
+	    double [] mix = new double[numberOfCategories];
+	    int [] counts = new int[numberOfCategories];
+	    
+	    for (int area = 0; area < numberOfAreas; area++) {
+		
+		// Make up the area's mix of categories, leaving some empty. If they've 
+		// all been left empty, put one back.
+		
+		double total = 0;
+		for (int category = 0; category < numberOfCategories; category++) {
+		    mix[category] = (random.nextDouble() < emptyCategoryChance) ? 0 : random.nextDouble();
+		    total = total + mix[category];
+		}
+		if (total == 0) {
+		    int category = random.nextInt(numberOfCategories);
+		    mix[category] = 1;
+		    total = 1;
+		}
+		
+		// Share the area's people out between the categories one at a time.
+		
+		Arrays.fill(counts, 0);
+		int size = minAreaSize + random.nextInt(maxAreaSize - minAreaSize + 1);
+		for (int person = 0; person < size; person++) {
+		    double pick = random.nextDouble() * total - mix[0];
+		    int category = 0;
+		    while ((pick >= 0) && (category < numberOfCategories - 1)) {
+			category++;
+			pick = pick - mix[category];
+		    }
+		    
+		    // Rounding can leave us past the last category with people in, so step back to it.
+		    
+		    while (mix[category] == 0) category--;
+		    counts[category]++;
+		}
+		
+		out.writeByte('A');
+		out.writeDecimal(area);
+		for (int category = 0; category < numberOfCategories; category++) {
+		    out.writeByte(',');
+		    out.writeDecimal(counts[category]);
+		}
+		out.writeByte('\n');
+		
+	    }
+	    
+	} finally {
+	    out.close();
+	}
+	
+    } // End of writeTable.
+    
+    
+    
+    
+    
+    /**
+     * Writes microdata, with a header line <CODE>ID,Value</CODE> and then a line 
+     * for each person with their ID (P0, P1 and so on) and category code.<P>
+     * @param file: the file to write to.
+     **/
+    public void writeMicroData(File file) throws IOException {
+	
+	// Use different random numbers from the table, but still ones made from the seed.
+	
+	Random random = new Random(new Random(seed).nextLong() ^ 0x5DEECE66DL);
+	OutputBuffer out = new OutputBuffer(new FileOutputStream(file));
+	
+	try {
+	    
+	    out.writeString("ID,Value\n");
+	    
+	    for (int person = 0; person < numberOfPeople; person++) {
+		int category = (person < numberOfCategories) ? person : random.nextInt(numberOfCategories);
+		out.writeByte('P');
+		out.writeDecimal(person);
+		out.writeByte(',');
+		out.writeDecimal(category);
+		out.writeByte('\n');
+	    }
+	    
+	} finally {
+	    out.close();
+	}
+	
+    } // End of writeMicroData.
+    
+    
+    
+    
+    
+    /**
+     * Reads the arguments and writes the files.<P>
+     * Exits with a status of 1 if the arguments don't make sense or the 
+     * files can't be written.
+     **/
+    public static void main(String[] args) {
+	
+	if (args.length < 2) {
+	    usage("Need a table and microdata file to write.");
+	}
+	
+	SyntheticDataGenerator generator = new SyntheticDataGenerator();
+	int minAreaSize = generator.minAreaSize;
+	int maxAreaSize = generator.maxAreaSize;
+	generator.setSeed(System.currentTimeMillis());
+	
+	for (int i = 2; i < args.length; i++) {
+	    
+	    String name = args[i];
+	    if (i + 1 >= args.length) usage("No value given for " + name);
+	    String value = args[++i];
+	    
+	    try {
+		if (name.equals("-areas")) {
+		    generator.setNumberOfAreas(Integer.parseInt(value));
+		} else if (name.equals("-minAreaSize")) {
+		    minAreaSize = Integer.parseInt(value);
+		} else if (name.equals("-maxAreaSize")) {
+		    maxAreaSize = Integer.parseInt(value);
+		} else if (name.equals("-categories")) {
+		    generator.setNumberOfCategories(Integer.parseInt(value));
+		} else if (name.equals("-emptyCategoryChance")) {
+		    generator.setEmptyCategoryChance(Double.parseDouble(value));
+		} else if (name.equals("-people")) {
+		    generator.setNumberOfPeople(Integer.parseInt(value));
+		} else if (name.equals("-seed")) {
+		    generator.setSeed(Long.parseLong(value));
+		} else {
+		    usage("Unknown option " + name);
+		}
+	    } catch (NumberFormatException nfe) {
+		usage("Not a number for " + name + ": " + value);
+	    }
+	    
+	}
+	generator.setAreaSizes(minAreaSize, maxAreaSize);
+	
+	try {
+	    generator.writeTable(new File(args[0]));
+	    generator.writeMicroData(new File(args[1]));
+	} catch (IOException ioe) {
+	    System.err.println("Couldn't write the files: " + ioe.getMessage());
+	    System.exit(1);
+	}
+	
+	System.out.println("Seed: " + generator.seed);
+	
+    } // End of main.
+    
+    
+    
+    
+    
+    /**
+     * Tells the user what's gone wrong and how to run the program, then exits.
+     **/
+    private static void usage(String problem) {
+	System.err.println(problem);
+	System.err.println("Usage: java -cp microsimulation-core.jar uk.ac.leeds.mass.microsim.SyntheticDataGenerator "
+	    + "table microdata [-areas n] [-minAreaSize n] [-maxAreaSize n] [-categories n] "
+	    + "[-emptyCategoryChance p] [-people n] [-seed n]");
+	System.exit(1);
+    }
+    
+// End of class.
+}
@@ -0,0 +1,360 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+import java.io.*;
+
+
+/**
+ * A class to encapsulate statistical tables.<P>
+ * The table can be envisaged as a series of rows, each row being an 
+ * area about which statistics exist. Each area/row has an ID and a set of 
+ * values, one for each category of the variable the table is about (for example, 
+ * the number of people in each age band). The number of categories and their names 
+ * come from the file's header line. The values are held in one flat array, row 
+ * after row, so even big tables with lots of categories are just one object. 
+ * Tables can be read from a file or built programmatically, and there are 
+ * appropriate constructors.
+ * @author <A href="http://www.geog.leeds.ac.uk/people/a.evans/">Andy Evans</A>
+ * @version 1.0
+ */
+public class Table {
+    
+    private String ids [] = null;	    // Array holding row/area IDs.
+    private String categoryNames [] = null;	// Array holding the name of each category/value column.
+    private int values [] = null;	    // Array holding row/area values, numberOfCategories per row.
+    private int numberOfRows = 0;	    // The number of rows/areas.
+    private int numberOfCategories = 0;	    // The number of values in each row.
+    
+    
+    /**
+     * A constructor for those not wishing to read the table from a file.<P>
+     * Makes a table with two categories, called Value0 and Value1.
+     * @param size: the number of rows/areas you want in the table.
+     **/
+    public Table(int size) {
+	this(size, new String[] {"Value0", "Value1"});
+    }
+    
+    
+    
+    
+    
+    /**
+     * A constructor for those not wishing to read the table from a file.<P>
+     * @param size: the number of rows/areas you want in the table.
+     * @param categoryNames: the names of the categories. There will be one value per category in each row.
+     **/
+    public Table(int size, String[] categoryNames) {
+	ids = new String[size];
+	this.categoryNames = categoryNames.clone();
+	numberOfRows = size;
+	numberOfCategories = categoryNames.length;
+	values = new int[size * numberOfCategories];
+    }
+    
+    
+    
+    
+    
+    /**  
+     * A constructor for those wishing to fill the table from a file.<P>
+     * The format should be comma separated, with a header line. Each row 
+     * should contain the statistics for an area, in the format:<BR>
+     * <CODE>Name, Value0, Value1, ... ValueN</CODE><BR>
+     * The header line gives the names of the categories, for example: 
+     * <CODE>EDName, NumberOfFemales, NumberOfMales</CODE><BR>
+     * and the number of names in it sets how many values are read from each row.
+     * @param filename: the path and filename for the file containing the data.
+     **/
+    public Table(String filename) {
+	read(filename, 0, Integer.MAX_VALUE);
+    }
+    
+    
+    
+    
+    
+    /**  
+     * A constructor for those wanting just some of the rows in a file.<P>
+     * The file is read as for the other file constructor, but only the rows from 
+     * firstRow up to, but not including, endRow are kept, and the rest of the file 
+     * isn't read. Rows that can't be read don't count. This lets a big run be split 
+     * into parts by area (see PartitionedRun), each holding only its own rows.
+     * @param filename: the path and filename for the file containing the data.
+     * @param firstRow: the first row to keep, starting with zero.
+     * @param endRow: one more than the last row to keep.
+     **/
+    public Table(String filename, int firstRow, int endRow) {
+	read(filename, firstRow, endRow);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads in a file of area statistics.<P>
+     * The file is read in one go with a CsvReader, straight into arrays that 
+     * get bigger as needed. Lines that can't be read are reported with their 
+     * line number and skipped.
+     * @param filename: the path and filename for the file containing the data.
+     * @param firstRow: the first row to keep, starting with zero.
+     * @param endRow: one more than the last row to keep.
+     **/
+    private void read(String filename, int firstRow, int endRow) {
+	
+	ids = new String[1024];
+	categoryNames = new String[0];
+	numberOfRows = 0;
+	numberOfCategories = 0;
+	int rowsRead = 0;
+	
+	try {
+	    
+	    CsvReader reader = new CsvReader(filename);
+	    
+	    try {
+		
+		// The first line is a header. The first name on it is for the 
+		// area IDs, and the rest are the category names.
+		
+		if (reader.nextLine()) {
+		    reader.readString();
+		    ArrayList<String> names = new ArrayList<String>();
+		    while (reader.hasMoreFields()) names.add(reader.readString());
+		    categoryNames = names.toArray(new String[names.size()]);
+		    numberOfCategories = categoryNames.length;
+		}
+		values = new int[1024 * numberOfCategories];
+		
+		while ((rowsRead < endRow) && reader.nextLine()) {
+		    
+		    // If we've run out of room, double the size of the arrays.
+		    
+		    if (numberOfRows == ids.length) {
+			ids = Arrays.copyOf(ids, numberOfRows * 2);
+			values = Arrays.copyOf(values, numberOfRows * 2 * numberOfCategories);
+		    }
+		    
+		    // Read the row straight into the end of the values. If it goes 
+		    // wrong we just don't count the row, so it's overwritten by the next.
+		    
+		    try {
+			ids[numberOfRows] = reader.readString();
+			int start = numberOfRows * numberOfCategories;
+			for (int category = 0; category < numberOfCategories; category++) {
+			    values[start + category] = reader.readInt();
+			}
+		    } catch (CsvFormatException cfe) {
+			System.err.println("Skipping " + cfe.getMessage());
+			continue;
+		    }
+		    
+		    // Rows before the ones wanted are overwritten by the next, just 
+		    // like bad ones.
+		    
+		    rowsRead++;
+		    if (rowsRead > firstRow) numberOfRows++;
+		    
+		}
+		
+	    } finally {
+		reader.close();
+	    }
+	    
+	} catch (IOException ioe) {
+	    ioe.printStackTrace();
+	}
+	
+	// Trim the arrays down to the number of rows we actually read.
+	
+	ids = Arrays.copyOf(ids, numberOfRows);
+	values = Arrays.copyOf(values, numberOfRows * numberOfCategories);
+	
+    } // End of read method.
+
+    
+    
+    
+    
+    /** 
+     * Gets the number of areas stored in the Table.
+     **/
+    public int getNumberOfAreas() {
+	return numberOfRows;
+    }
+    
+    
+    
+    
+    
+    /** 
+     * Gets the number of categories, that is, values in each row.
+     **/
+    public int getNumberOfCategories() {
+	return numberOfCategories;
+    }
+    
+    
+    
+    
+    
+    /** 
+     * Gets the name of a category.<P>
+     * @param valuePosition: the value column in the original file. zero is the first value column, one the second, and so on.
+     **/
+    public String getCategoryName(int valuePosition) {
+	return categoryNames[valuePosition];
+    }
+    
+    
+    
+    
+    
+    /** 
+     * Gets the total population stored in one area.<P>
+     * This just adds up all the cell figures.
+     * @param area: the row number of the area in the original file, starting with zero.
+     **/    
+    public int getTotalAreaPopulation(int area) {
+	int total = 0;
+	int start = area * numberOfCategories;
+	for (int category = 0; category < numberOfCategories; category++) {
+	    total = total + values[start + category];
+	}
+	return total;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Increases the statistic in a row's column by one.<P>
+     * @param area: the row number of the area in the original file, starting with zero.
+     * @param valuePosition: the value column in the original file to increase. zero is the first value column, one the second, and so on.
+     **/
+    public void increment(int area, int valuePosition) {
+	values[area * numberOfCategories + valuePosition]++;
+    } 
+    
+    
+    
+    
+    
+    /**
+     * Decreases the statistic in a row's column by one.<P>
+     * @param area: the row number of the area in the original file, starting with zero.
+     * @param valuePosition: the value column in the original file to decrease. zero is the first value column, one the second, and so on.
+     **/
+    public void decrement(int area, int valuePosition) {
+	values[area * numberOfCategories + valuePosition]--;
+    } 
+    
+    
+    
+    
+    
+    /**
+     * Gets a value from the Table.<P>
+     * @param area: the row number of the area in the original file, starting with zero.
+     * @param valuePosition: the value column in the original file. zero is the first value column, one the second, and so on.
+     **/    
+    public int getValue(int area, int valuePosition) {
+	return values[area * numberOfCategories + valuePosition];
+    }
+   
+    
+   
+    
+    
+    /**
+     * Sets a value from the Table.<P>
+     * @param area: the row number of the area in the original file, starting with zero.
+     * @param valuePosition: the value column in the original file. zero is the first value column, one the second, and so on.
+     **/    
+    public void setValue(int area, int valuePosition, int value) {
+	values[area * numberOfCategories + valuePosition] = value;
+    }
+    
+    
+    
+    
+ 
+    /**
+     * Gets an ID from the Table.<P>
+     * @param area: the row number of the area in the original file, starting with zero.
+     **/    
+    public String getID(int area) {
+	return ids[area]; 
+    }
+    
+    
+    
+    
+ 
+    /**
+     * Sets an ID in the Table.<P>
+     * @param area: the row number of the area, starting with zero.
+     * @param id: the area's ID.
+     **/    
+    public void setID(int area, String id) {
+	ids[area] = id; 
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns the Table as a text String that can be displayed.
+     **/
+    public String toString() {
+	StringBuilder tableAsText = new StringBuilder("Read table: \n");
+	for (int i = 0; i < numberOfRows; i++) {
+	    tableAsText.append(ids[i]);
+	    for (int category = 0; category < numberOfCategories; category++) {
+		tableAsText.append(" ").append(values[i * numberOfCategories + category]);
+	    }
+	    tableAsText.append("\n");
+	}
+	return tableAsText.toString();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns a Table row as a text String that can be displayed.
+     **/   
+    public String rowToString(int position) {
+	StringBuilder rowAsText = new StringBuilder();
+	if (ids[position] != null) rowAsText.append("Area ").append(ids[position]);
+	for (int category = 0; category < numberOfCategories; category++) {
+	    rowAsText.append(" ").append(categoryNames[category]).append(" ").append(values[position * numberOfCategories + category]);
+	}
+	return rowAsText.toString();
+    }
+    
+    
+// End of class.    
+}
\ No newline at end of file
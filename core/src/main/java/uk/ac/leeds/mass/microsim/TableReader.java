@@ -0,0 +1,185 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.util.*;
+
+
+/**
+ * Reads a table file a few rows at a time, rather than all at once.<P>
+ * The file is the same as for a Table (see Table(String)), and rows that 
+ * can't be read are reported and skipped in the same way, so the rows come 
+ * out numbered just as they would in a Table of the whole file. Each call to 
+ * readRows gives a small Table of the next rows, so only those rows are held 
+ * in memory. This lets a run work through any number of areas a few at a 
+ * time (see StreamingRun).
+ * @version 1.0
+ */
+public class TableReader implements Closeable {
+    
+    private CsvReader reader = null;		// The file being read.
+    private String [] categoryNames = null;	// The names of the categories, from the header line.
+    private int rowsLeft = 0;			// The number of rows still wanted.
+    
+    
+    /**
+     * Opens a table file and reads its header.<P>
+     * @param filename: the path and filename for the file containing the data.
+     * @throws IOException if the file can't be opened.
+     **/
+    public TableReader(String filename) throws IOException {
+	this(filename, 0, Integer.MAX_VALUE);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Opens a table file, reads its header, and skips to a given row.<P>
+     * @param filename: the path and filename for the file containing the data.
+     * @param firstRow: the first row to read, starting with zero.
+     * @param endRow: one more than the last row to read.
+     * @throws IOException if the file can't be opened.
+     **/
+    public TableReader(String filename, int firstRow, int endRow) throws IOException {
+	
+	reader = new CsvReader(filename);
+	categoryNames = new String[0];
+	
+	// The first line is a header. The first name on it is for the 
+	// area IDs, and the rest are the category names.
+	
+	if (reader.nextLine()) {
+	    reader.readString();
+	    ArrayList<String> names = new ArrayList<String>();
+	    while (reader.hasMoreFields()) names.add(reader.readString());
+	    categoryNames = names.toArray(new String[names.size()]);
+	}
+	
+	rowsLeft = firstRow;
+	readRows(firstRow, null);
+	rowsLeft = endRow - firstRow;
+	
+    } // End of constructor.
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of categories, that is, values in each row.
+     **/
+    public int getNumberOfCategories() {
+	return categoryNames.length;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads the next rows.<P>
+     * @param maximumRows: the most rows to read.
+     * @return a Table of the rows read, with no rows if there are none left.
+     * @throws IOException if the file can't be read.
+     **/
+    public Table readRows(int maximumRows) throws IOException {
+	Table table = new Table(Math.min(maximumRows, rowsLeft), categoryNames);
+	int rows = readRows(maximumRows, table);
+	if (rows == table.getNumberOfAreas()) return table;
+	
+	// The file ran out first, so copy what was read into a Table of the right size.
+	
+	Table shorter = new Table(rows, categoryNames);
+	for (int row = 0; row < rows; row++) {
+	    shorter.setID(row, table.getID(row));
+	    for (int category = 0; category < categoryNames.length; category++) {
+		shorter.setValue(row, category, table.getValue(row, category));
+	    }
+	}
+	return shorter;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads past the rest of the rows, without keeping them.<P>
+     * Rows that can't be read aren't counted, so this is the number of areas 
+     * a Table of the same rows would have.
+     * @return the number of rows.
+     * @throws IOException if the file can't be read.
+     **/
+    public int countRows() throws IOException {
+	return readRows(rowsLeft, null);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads rows into a Table, or just past them if there's no Table.
+     * @return the number of rows read.
+     **/
+    private int readRows(int maximumRows, Table table) throws IOException {
+	
+	int rows = 0;
+	int[] values = new int[categoryNames.length];
+	while ((rows < maximumRows) && (rowsLeft > 0) && reader.nextLine()) {
+	    
+	    // Read the row, and if it goes wrong don't count it, as Table does.
+	    
+	    String id = null;
+	    try {
+		id = reader.readString();
+		for (int category = 0; category < values.length; category++) values[category] = reader.readInt();
+	    } catch (CsvFormatException cfe) {
+		System.err.println("Skipping " + cfe.getMessage());
+		continue;
+	    }
+	    
+	    if (table != null) {
+		table.setID(rows, id);
+		for (int category = 0; category < values.length; category++) table.setValue(rows, category, values[category]);
+	    }
+	    rows++;
+	    rowsLeft--;
+	    
+	}
+	return rows;
+	
+    } // End of readRows.
+    
+    
+    
+    
+    
+    /**
+     * Closes the file.
+     **/
+    public void close() throws IOException {
+	reader.close();
+    }
+    
+// End of class.
+}
@@ -0,0 +1,54 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.awt.*;
+
+
+/**
+ * A ProgressListener that shows the stats in a TextArea on a user interface.<P>
+ * @version 1.0
+ */
+public class TextAreaProgressListener implements ProgressListener {
+    
+    private TextArea messageBox = null;	// The area on the user interface for messages.
+    
+    
+    /**
+     * Creates a new TextAreaProgressListener.<P>
+     * @param messageBox: the TextArea to add the stats to.
+     **/
+    public TextAreaProgressListener(TextArea messageBox) {
+	this.messageBox = messageBox;
+    }
+    
+    public void runStarted(ProgressStats stats) {
+	messageBox.append("\n\nStarting conditions: " + stats + "\n");
+    }
+    
+    public void progress(ProgressStats stats) {
+	messageBox.append(stats + "\n");
+    }
+    
+    public void runFinished(ProgressStats stats) {
+	messageBox.append("Finished: " + stats + "\n");
+    }
+    
+// End of class.
+}
@@ -0,0 +1,83 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * The weights IPF gives to each profile (kind of person, see Profiles) in each area.<P>
+ * One row per area and one column per profile. Rows are filled a whole row at a 
+ * time, by the thread working on that area, so different rows can be filled by 
+ * different threads at once. A person's own weight is their profile's weight 
+ * shared equally between the profile's members. There is a dense version, which 
+ * keeps every weight, and a sparse one, which only keeps the weights that aren't 
+ * zero, for when there are many areas and most kinds of people are missing 
+ * from most of them.
+ * @version 1.0
+ */
+public interface WeightMatrix {
+    
+    
+    /**
+     * Gets the number of areas (rows).
+     **/
+    public int getNumberOfAreas();
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of profiles (columns).
+     **/
+    public int getNumberOfProfiles();
+    
+    
+    
+    
+    
+    /**
+     * Gets the weight of one profile in one area.<P>
+     * @param area: the area.
+     * @param profile: the profile.
+     **/
+    public double getWeight(int area, int profile);
+    
+    
+    
+    
+    
+    /**
+     * Stores the weights for an area.<P>
+     * @param area: the area.
+     * @param weights: the weight of each profile in the area. The array is copied, so can be used again.
+     **/
+    public void setRow(int area, double[] weights);
+    
+    
+    
+    
+    
+    /**
+     * Gets the weights for an area.<P>
+     * @param area: the area.
+     * @param weights: where to put the weight of each profile, including the zeros.
+     **/
+    public void getRow(int area, double[] weights);
+    
+// End of interface.
+}
@@ -0,0 +1,318 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.util.*;
+
+
+/**
+ * The people in one area, held as how many copies of each MicroData person there are.<P>
+ * Big areas made from a small sample use the same people over and over, and 
+ * keeping every copy in its own slot (as Population normally does) costs memory 
+ * for the population rather than for the people actually used. Here each slot 
+ * holds one person and a count of their copies, so a swap is just taking one 
+ * off a count and adding one to another.<P>
+ * People are found in their slot with an open addressing hash map of ints, so 
+ * there are no boxed Integers. Picking a person at random, with every copy 
+ * equally likely, uses a Fenwick tree of the counts, so takes a time that grows 
+ * with the log of the number of slots, not the number of people.<P>
+ * Slots never move or get reused while an area is being changed, as a SwapLog 
+ * relies on them staying put. Slots whose count has gone to zero are only dropped 
+ * when trim is called.
+ * @version 1.0
+ */
+public class WeightedArea {
+    
+    private int [] people = null;	    // The MicroData position of the person in each slot.
+    private int [] counts = null;	    // The number of copies of the person in each slot.
+    private int [] tree = null;		    // A Fenwick tree of the counts, starting at 1.
+    private int [] keys = null;		    // The hash map keys: one more than a person, or 0 for empty.
+    private int [] values = null;	    // The hash map values: the slot the person is in.
+    private int numberOfSlots = 0;	    // The number of slots used.
+    private int size = 0;		    // The number of people, counting every copy.
+    
+    
+    /**
+     * Creates a new WeightedArea, filled with copies of one person.<P>
+     * @param size: the number of people in the area.
+     * @param filler: the MicroData position of the person to fill it with.
+     **/
+    public WeightedArea(int size, int filler) {
+	people = new int[4];
+	counts = new int[4];
+	tree = new int[5];
+	keys = new int[8];
+	values = new int[8];
+	if (size > 0) add(filler, size);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of people in the area, counting every copy.
+     **/
+    public int getSize() {
+	return size;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of slots, including any emptied since the last trim.
+     **/
+    public int getNumberOfSlots() {
+	return numberOfSlots;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the MicroData position of the person in a slot.
+     * @param slot: the slot, starting with zero.
+     **/
+    public int getPerson(int slot) {
+	return people[slot];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of copies of the person in a slot.
+     * @param slot: the slot, starting with zero.
+     **/
+    public int getCount(int slot) {
+	return counts[slot];
+    }
+    
+    
+    
+    
+    
+    /**
+     * Finds the slot a person is in.<P>
+     * @param person: the MicroData position of the person.
+     * @return the slot, or -1 if the person has never been in the area since the last trim.
+     **/
+    public int findSlot(int person) {
+	int mask = keys.length - 1;
+	for (int i = hash(person) & mask; keys[i] != 0; i = (i + 1) & mask) {
+	    if (keys[i] == person + 1) return values[i];
+	}
+	return -1;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Adds copies of a person to the area.<P>
+     * @param person: the MicroData position of the person.
+     * @param copies: the number of copies to add.
+     * @return the slot the person is in.
+     **/
+    public int add(int person, int copies) {
+	
+	int slot = findSlot(person);
+	if (slot < 0) {
+	    
+	    // A new person needs a new slot, and an entry in the hash map. If 
+	    // either is full, it is doubled in size first.
+	    
+	    if (numberOfSlots == people.length) {
+		people = Arrays.copyOf(people, numberOfSlots * 2);
+		counts = Arrays.copyOf(counts, numberOfSlots * 2);
+		buildTree();
+	    }
+	    if ((numberOfSlots + 1) * 2 > keys.length) rehash(keys.length * 2);
+	    slot = numberOfSlots++;
+	    people[slot] = person;
+	    counts[slot] = 0;
+	    putKey(person, slot);
+	    
+	}
+	
+	counts[slot] = counts[slot] + copies;
+	size = size + copies;
+	for (int i = slot + 1; i < tree.length; i = i + (i & -i)) tree[i] = tree[i] + copies;
+	return slot;
+	
+    } // End of add.
+    
+    
+    
+    
+    
+    /**
+     * Takes copies of a person out of the area.<P>
+     * The slot is kept, even if its count goes to zero.
+     * @param slot: the slot the person is in.
+     * @param copies: the number of copies to take out.
+     **/
+    public void remove(int slot, int copies) {
+	if (counts[slot] < copies) throw new IllegalStateException("Slot " + slot + " only has " + counts[slot] + " copies");
+	counts[slot] = counts[slot] - copies;
+	size = size - copies;
+	for (int i = slot + 1; i < tree.length; i = i + (i & -i)) tree[i] = tree[i] - copies;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Replaces one copy of the person in a slot with a copy of someone else.<P>
+     * @param slot: the slot of the person leaving.
+     * @param person: the MicroData position of the person joining.
+     * @return the slot the person joining is in.
+     **/
+    public int replace(int slot, int person) {
+	remove(slot, 1);
+	return add(person, 1);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Finds the slot holding a given copy, if all the copies were laid out in slot order.<P>
+     * So a rank picked at random from the size of the area picks each person 
+     * in proportion to their count, just as picking a slot at random would if 
+     * every copy had its own slot.
+     * @param rank: the copy, from zero to one less than the size of the area.
+     **/
+    public int findRank(int rank) {
+	
+	// Walk down the tree, taking each step that doesn't pass the rank.
+	
+	int position = 0;
+	for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step = step >> 1) {
+	    int next = position + step;
+	    if ((next < tree.length) && (tree[next] <= rank)) {
+		position = next;
+		rank = rank - tree[next];
+	    }
+	}
+	return position;
+	
+    } // End of findRank.
+    
+    
+    
+    
+    
+    /**
+     * Drops the slots that have no copies left, and puts the rest in MicroData order.<P>
+     * This moves slots, so mustn't be called while there are swaps in a SwapLog 
+     * that might be undone.
+     **/
+    public void trim() {
+	
+	// Pack each slot that's still in use into a long, with the person at 
+	// the top so sorting puts them in order.
+	
+	long [] used = new long[numberOfSlots];
+	int numberUsed = 0;
+	for (int slot = 0; slot < numberOfSlots; slot++) {
+	    if (counts[slot] > 0) used[numberUsed++] = ((long) people[slot] << 32) | counts[slot];
+	}
+	Arrays.sort(used, 0, numberUsed);
+	
+	int capacity = Math.max(4, numberUsed);
+	people = new int[capacity];
+	counts = new int[capacity];
+	for (int slot = 0; slot < numberUsed; slot++) {
+	    people[slot] = (int) (used[slot] >>> 32);
+	    counts[slot] = (int) used[slot];
+	}
+	numberOfSlots = numberUsed;
+	buildTree();
+	rehash(Math.max(8, Integer.highestOneBit(Math.max(1, numberUsed)) * 4));
+	
+    } // End of trim.
+    
+    
+    
+    
+    
+    /**
+     * Rebuilds the Fenwick tree from the counts, to fit the size of the slot arrays.
+     **/
+    private void buildTree() {
+	tree = new int[people.length + 1];
+	for (int i = 1; i < tree.length; i++) {
+	    if (i <= numberOfSlots) tree[i] = tree[i] + counts[i - 1];
+	    int parent = i + (i & -i);
+	    if (parent < tree.length) tree[parent] = tree[parent] + tree[i];
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes a new hash map of a given size, holding the slots in use.
+     * @param capacity: the size of the map, a power of two.
+     **/
+    private void rehash(int capacity) {
+	keys = new int[capacity];
+	values = new int[capacity];
+	for (int slot = 0; slot < numberOfSlots; slot++) putKey(people[slot], slot);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Puts a person into the hash map. They mustn't be in it already.
+     **/
+    private void putKey(int person, int slot) {
+	int mask = keys.length - 1;
+	int i = hash(person) & mask;
+	while (keys[i] != 0) i = (i + 1) & mask;
+	keys[i] = person + 1;
+	values[i] = slot;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Spreads the bits of a MicroData position, so consecutive people don't 
+     * end up in a run of the hash map.
+     **/
+    private static int hash(int person) {
+	int h = person * 0x9E3779B9;
+	return h ^ (h >>> 16);
+    }
+    
+// End of class.
+}
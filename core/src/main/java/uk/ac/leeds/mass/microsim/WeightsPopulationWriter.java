@@ -0,0 +1,135 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+
+/**
+ * Writes a population as the number of times each MicroData person is used in each area.<P>
+ * If all that's wanted is weights for the sample, writing out every copy of every 
+ * person is a waste. This writes a line for each person used in an area, with 
+ * how many times they're used there:<BR>
+ * <CODE>Area,Person,Weight</CODE><BR>
+ * People not used in an area aren't written, so the file is never bigger than 
+ * the full CSV, and is usually much smaller when areas are big and the sample 
+ * is small. The weights for an area add up to its population. If the population 
+ * is weighted, the counts are already there, and an area takes a time that grows 
+ * with the number of different people in it rather than the number of people.
+ * @version 1.0
+ */
+public class WeightsPopulationWriter implements StreamingPopulationWriter {
+    
+    
+    /**
+     * Creates a new WeightsPopulationWriter.
+     **/
+    public WeightsPopulationWriter() {
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes the population to a file.
+     **/
+    public void write(Population world, Constraints constraints, File file) throws IOException {
+	OutputBuffer out = open(file);
+	try {
+	    writeHeader(constraints, out);
+	    writeAreas(world, constraints, out);
+	} finally {
+	    out.close();
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Opens a file to write to.
+     **/
+    public OutputBuffer open(File file) throws IOException {
+	return new OutputBuffer(new FileOutputStream(file));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes the header line.
+     **/
+    public void writeHeader(Constraints constraints, OutputBuffer out) throws IOException {
+	out.writeString("Area,Person,Weight\n");
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes a line for each person used in some areas.
+     **/
+    public void writeAreas(Population world, Constraints constraints, OutputBuffer out) throws IOException {
+	
+	PackedStrings ids = constraints.getMicroData().getIDs();
+	Table areas = constraints.getTable(0);
+	long [] people = new long[0];
+	
+	for (int area = 0; area < world.getNumberOfAreas(); area++) {
+	    
+	    byte [] areaID = String.valueOf(areas.getID(area)).getBytes(StandardCharsets.UTF_8);
+	    
+	    // Sort a copy of the area's slots, each packed into a long with the 
+	    // person at the top, so copies of the same person are next to each 
+	    // other and can be counted.
+	    
+	    int size = world.getNumberOfSlots(area);
+	    if (people.length < size) people = new long[size];
+	    for (int slot = 0; slot < size; slot++) people[slot] = ((long) world.getPerson(area, slot) << 32) | world.getSlotCount(area, slot);
+	    Arrays.sort(people, 0, size);
+	    
+	    int slot = 0;
+	    while (slot < size) {
+		int person = (int) (people[slot] >>> 32);
+		int weight = 0;
+		while ((slot < size) && ((int) (people[slot] >>> 32) == person)) {
+		    weight = weight + (int) people[slot];
+		    slot++;
+		}
+		if (weight == 0) continue;
+		out.writeBytes(areaID);
+		out.writeByte(',');
+		out.writeString(ids, person);
+		out.writeByte(',');
+		out.writeDecimal(weight);
+		out.writeByte('\n');
+	    }
+	    
+	}
+	
+    } // End of writeAreas.
+    
+// End of class.
+}
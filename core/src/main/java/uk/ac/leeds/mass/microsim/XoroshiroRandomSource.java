@@ -0,0 +1,113 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+/**
+ * A RandomSource using the xoroshiro128++ generator.<P>
+ * xoroshiro128++, by David Blackman and Sebastiano Vigna, keeps its state in 
+ * two longs and makes each number with a handful of shifts, rotations and 
+ * additions, so it's a little quicker than SplittableRandom, and its numbers 
+ * pass the usual statistical tests. See https://prng.di.unimi.it/ for details. 
+ * The state is filled from the seed with SplitMix64, as its authors suggest.
+ * @version 1.0
+ */
+public class XoroshiroRandomSource implements RandomSource {
+    
+    private long seed = 0;	// The seed the generator was made with.
+    private long state0 = 0;	// The first half of the generator's state.
+    private long state1 = 0;	// The second half of the generator's state.
+    
+    
+    /**
+     * Creates a new XoroshiroRandomSource.<P>
+     * @param seed: the seed. The same seed always gives the same numbers.
+     **/
+    public XoroshiroRandomSource(long seed) {
+	this.seed = seed;
+	state0 = SplittableRandomSource.deriveSeed(seed, 0);
+	state1 = SplittableRandomSource.deriveSeed(seed, 1);
+	
+	// The state must not be all zeros, or it stays that way.
+	
+	if ((state0 == 0) && (state1 == 0)) state1 = 1;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Returns the next 64 random bits.
+     **/
+    private long nextLong() {
+	long s0 = state0;
+	long s1 = state1;
+	long result = Long.rotateLeft(s0 + s1, 17) + s0;
+	s1 = s1 ^ s0;
+	state0 = Long.rotateLeft(s0, 49) ^ s1 ^ (s1 << 21);
+	state1 = Long.rotateLeft(s1, 28);
+	return result;
+    }
+    
+    
+    
+    
+    
+    public double nextDouble() {
+	
+	// The top 53 bits, which is all a double can hold, scaled down to below one.
+	
+	return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+    
+    
+    
+    
+    
+    public int nextInt(int bound) {
+	
+	if (bound <= 0) throw new IllegalArgumentException("bound must be positive: " + bound);
+	
+	// Multiply 32 random bits by the bound and take the top half, which is 
+	// quicker than dividing. A few results would come up slightly too often, 
+	// so those are thrown away and drawn again (Lemire's method).
+	
+	long product = (nextLong() >>> 32) * bound;
+	long low = product & 0xFFFFFFFFL;
+	if (low < bound) {
+	    long threshold = (0x100000000L - bound) % bound;
+	    while (low < threshold) {
+		product = (nextLong() >>> 32) * bound;
+		low = product & 0xFFFFFFFFL;
+	    }
+	}
+	return (int)(product >>> 32);
+	
+    }
+    
+    
+    
+    
+    
+    public RandomSource derive(long key) {
+	return new XoroshiroRandomSource(SplittableRandomSource.deriveSeed(seed, key));
+    }
+    
+// End of class.
+}
@@ -0,0 +1,132 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that areas that don't need annealing are picked out, and finished without any swaps.<P>
+ * The people are A (age 0, sex 0), B (age 0, sex 1), C (age 1, sex 0) and D (age 2, sex 1). 
+ * Area E is empty. Area X is all sex 0 and only needs ages 0 and 1, so is EXACT. Area V needs 
+ * both sexes, so has to be annealed, but the IPF start gets it right straight away. Area N 
+ * needs people of age 2 and sex 0, of which there are none, so has to be annealed and can't 
+ * be got right.
+ * @version 1.0
+ */
+class AreaClassifierTest {
+    
+    @TempDir
+    File directory;				// Where the made up files and results go.
+    
+    
+    /**
+     * Each area should be sorted by its tables and the people there are, before it's filled.
+     **/
+    @Test
+    void sortsAreasBeforeFilling() throws IOException {
+	
+	Constraints constraints = constraints();
+	AreaClassifier classifier = new AreaClassifier(constraints, new Profiles(constraints));
+	assertEquals(AreaClassifier.EMPTY, classifier.classify(0));
+	assertEquals(AreaClassifier.EXACT, classifier.classify(1));
+	assertEquals(AreaClassifier.ANNEAL, classifier.classify(2));
+	assertEquals(AreaClassifier.ANNEAL, classifier.classify(3));
+	
+	// With just the age table, there are people of every age, so every area with people in is EXACT.
+	
+	Constraints ages = new Constraints(constraints.getTable(0), constraints.getMicroData());
+	classifier = new AreaClassifier(ages, new Profiles(ages));
+	assertEquals(AreaClassifier.EMPTY, classifier.classify(0));
+	for (int area = 1; area < 4; area++) assertEquals(AreaClassifier.EXACT, classifier.classify(area));
+	
+    } // End of sortsAreasBeforeFilling.
+    
+    
+    
+    
+    
+    /**
+     * A run should fill the EXACT area and finish the CONVERGED one without swaps, and only anneal the last.
+     **/
+    @Test
+    void onlyAnnealsAreasThatNeedIt() throws IOException {
+	
+	RedistributionSettings settings = TestData.settings(2);
+	settings.setShortcutAreas(true);
+	settings.setIpfStart(true);
+	settings.setVerifyErrors(true);
+	Redistributor redistributor = new Redistributor(constraints(), settings);
+	redistributor.run();
+	
+	byte[] kinds = {AreaClassifier.EMPTY, AreaClassifier.EXACT, AreaClassifier.CONVERGED, AreaClassifier.ANNEAL};
+	RunMetrics metrics = redistributor.getMetrics();
+	for (int area = 0; area < 4; area++) {
+	    assertEquals(kinds[area], redistributor.getAreaKind(area), "area " + area);
+	    assertEquals(area == 3, metrics.getSwapsProposed(area) > 0, "area " + area);
+	    assertEquals((area == 3) ? 4 : 0, metrics.getTotalAbsoluteError(area), "area " + area);
+	}
+	assertEquals(4L, redistributor.getTotalError());
+	assertEquals(4L, TestData.recount(redistributor.getConstraints(), redistributor.getPopulation()));
+	
+    } // End of onlyAnnealsAreasThatNeedIt.
+    
+    
+    
+    
+    
+    /**
+     * With shortcuts off, every area should be annealed.
+     **/
+    @Test
+    void annealsEverythingWithoutShortcuts() throws IOException {
+	
+	RedistributionSettings settings = TestData.settings(2);
+	settings.setShortcutAreas(false);
+	settings.setIpfStart(true);
+	Redistributor redistributor = new Redistributor(constraints(), settings);
+	redistributor.run();
+	
+	for (int area = 0; area < 4; area++) assertEquals(AreaClassifier.ANNEAL, redistributor.getAreaKind(area), "area " + area);
+	assertEquals(4L, redistributor.getTotalError());
+	
+    } // End of annealsEverythingWithoutShortcuts.
+    
+    
+    
+    
+    
+    /**
+     * Writes out the people and an age and a sex table for the four areas, and reads them in.
+     **/
+    private Constraints constraints() throws IOException {
+	File people = new File(directory, "people.csv");
+	File ages = new File(directory, "ages.csv");
+	File sexes = new File(directory, "sexes.csv");
+	TestData.write(people, "ID,Age,Sex\nA,0,0\nB,0,1\nC,1,0\nD,2,1\n");
+	TestData.write(ages, "Area,A0,A1,A2\nE,0,0,0\nX,2,3,0\nV,2,0,0\nN,0,0,2\n");
+	TestData.write(sexes, "Area,Male,Female\nE,0,0\nX,5,0\nV,1,1\nN,2,0\n");
+	return new Constraints(new Table[] {new Table(ages.getPath()), new Table(sexes.getPath())}, new int[] {0, 1}, new MicroData(people.getPath()));
+    }
+    
+// End of class.
+}
@@ -0,0 +1,166 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.function.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that a run carried on from a checkpoint ends up the same as one that never stopped.<P>
+ * The run is stopped part way by a ProgressListener that throws once enough
+ * areas are done, which is as close to a crash as a test can get.
+ * @version 1.0
+ */
+class CheckpointTest {
+    
+    @TempDir
+    File directory;				// Where the made up files, checkpoints and results go.
+    
+    
+    /**
+     * A run stopped part way and resumed should give the same people as one run straight through.
+     **/
+    @Test
+    void resumedRunMatchesUninterruptedRun() throws IOException {
+	
+	TestData data = new TestData(directory, 30, 3);
+	File checkpointFile = new File(directory, "run.ckpt");
+	
+	Redistributor uninterrupted = new Redistributor(data.readConstraints(), TestData.settings(5));
+	uninterrupted.run();
+	byte[] expected = TestData.output(uninterrupted, new File(directory, "uninterrupted.csv"));
+	
+	Checkpoint checkpoint = interruptedRun(data, checkpointFile, 12);
+	assertTrue(checkpoint.getNumberOfFinishedAreas() > 0);
+	assertTrue(checkpoint.getNumberOfFinishedAreas() < data.getNumberOfAreas());
+	
+	Redistributor resumed = new Redistributor(data.readConstraints(), checkpointSettings(checkpointFile));
+	resumed.resume(checkpoint);
+	assertArrayEquals(expected, TestData.output(resumed, new File(directory, "resumed.csv")));
+	assertEquals(uninterrupted.getTotalError(), resumed.getTotalError());
+	
+    } // End of resumedRunMatchesUninterruptedRun.
+    
+    
+    
+    
+    
+    /**
+     * A checkpoint shouldn't be resumed with different settings, or different tables of the same size.
+     **/
+    @Test
+    void rejectsDifferentSettingsAndData() throws IOException {
+	
+	TestData data = new TestData(directory, 30, 3);
+	File checkpointFile = new File(directory, "run.ckpt");
+	Checkpoint checkpoint = interruptedRun(data, checkpointFile, 12);
+	
+	RedistributionSettings settings = checkpointSettings(checkpointFile);
+	settings.setMaxRuns(settings.getMaxRuns() + 1);
+	assertThrows(IllegalArgumentException.class, resumer(data.readConstraints(), settings, checkpoint));
+	
+	settings = checkpointSettings(checkpointFile);
+	settings.setCoolingSchedule(new GeometricCooling(5, 0.25, 20));
+	assertThrows(IllegalArgumentException.class, resumer(data.readConstraints(), settings, checkpoint));
+	
+	settings = checkpointSettings(checkpointFile);
+	settings.setRandomSource(new XoroshiroRandomSource(settings.getSeed()));
+	assertThrows(IllegalArgumentException.class, resumer(data.readConstraints(), settings, checkpoint));
+	
+	settings = checkpointSettings(checkpointFile);
+	settings.setTargetedProposals(0.5);
+	assertThrows(IllegalArgumentException.class, resumer(data.readConstraints(), settings, checkpoint));
+	
+	// Swap two areas' rows in one table, so it's the same size with the same totals.
+	
+	File tableFile = data.getTableFiles()[1];
+	List<String> lines = Files.readAllLines(tableFile.toPath());
+	String id1 = lines.get(1).substring(0, lines.get(1).indexOf(','));
+	String id2 = lines.get(2).substring(0, lines.get(2).indexOf(','));
+	String row1 = lines.get(1).substring(id1.length());
+	lines.set(1, id1 + lines.get(2).substring(id2.length()));
+	lines.set(2, id2 + row1);
+	Files.write(tableFile.toPath(), lines);
+	assertThrows(IllegalArgumentException.class, resumer(data.readConstraints(), checkpointSettings(checkpointFile), checkpoint));
+	
+    } // End of rejectsDifferentSettingsAndData.
+    
+    
+    
+    
+    
+    /**
+     * Starts a run that saves a checkpoint after every area, stops it after some areas, and reads the checkpoint back.
+     **/
+    private Checkpoint interruptedRun(TestData data, File checkpointFile, final int stopAfter) throws IOException {
+	
+	RedistributionSettings settings = checkpointSettings(checkpointFile);
+	settings.setReportEverySwaps(1);
+	final Redistributor redistributor = new Redistributor(data.readConstraints(), settings);
+	redistributor.setProgressListener(new NullProgressListener() {
+	    public void progress(ProgressStats stats) {
+		if (stats.getAreasDone() >= stopAfter) throw new IllegalStateException("Stopped");
+	    }
+	});
+	assertThrows(IllegalStateException.class, new Executable() {
+	    public void execute() {
+		redistributor.run();
+	    }
+	});
+	return Checkpoint.read(checkpointFile);
+	
+    } // End of interruptedRun.
+    
+    
+    
+    
+    
+    /**
+     * Makes the test settings, with a checkpoint saved every time an area finishes.
+     **/
+    private static RedistributionSettings checkpointSettings(File checkpointFile) {
+	RedistributionSettings settings = TestData.settings(5);
+	settings.setCheckpointFile(checkpointFile);
+	settings.setCheckpointEveryMillis(0);
+	return settings;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes something for assertThrows to run that resumes from a checkpoint.
+     **/
+    private static Executable resumer(final Constraints constraints, final RedistributionSettings settings, final Checkpoint checkpoint) {
+	return new Executable() {
+	    public void execute() {
+		new Redistributor(constraints, settings).resume(checkpoint);
+	    }
+	};
+    }
+    
+// End of class.
+}
@@ -0,0 +1,155 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.function.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that several tables with any number of categories are laid out and matched together.
+ * @version 1.0
+ */
+class ConstraintsTest {
+    
+    @TempDir
+    File directory;				// Where the made up files go.
+    
+    
+    /**
+     * Each table's categories should follow on from the last table's, with each person in one cell of each.
+     **/
+    @Test
+    void laysTablesEndToEnd() throws IOException {
+	
+	TestData data = new TestData(directory, 5, 3);
+	Constraints constraints = data.readConstraints();
+	MicroData microData = constraints.getMicroData();
+	
+	assertEquals(3, constraints.getNumberOfConstraints());
+	assertEquals(3 + 4 + 2, constraints.getNumberOfCells());
+	assertEquals(0, constraints.getCellOffset(0));
+	assertEquals(3, constraints.getCellOffset(1));
+	assertEquals(7, constraints.getCellOffset(2));
+	
+	for (int area = 0; area < constraints.getNumberOfAreas(); area++) {
+	    for (int constraint = 0; constraint < 3; constraint++) {
+		Table table = constraints.getTable(constraint);
+		for (int category = 0; category < table.getNumberOfCategories(); category++) {
+		    assertEquals(table.getValue(area, category), constraints.getTarget(area, constraints.getCellOffset(constraint) + category));
+		}
+	    }
+	}
+	for (int person = 0; person < microData.getNumberOfPeople(); person++) {
+	    for (int constraint = 0; constraint < 3; constraint++) {
+		assertEquals(constraints.getCellOffset(constraint) + microData.getValue(person, constraint), constraints.getPersonCell(person, constraint));
+	    }
+	}
+	
+    } // End of laysTablesEndToEnd.
+    
+    
+    
+    
+    
+    /**
+     * Tables that agree with each other should all be matched at once, given long enough.
+     **/
+    @Test
+    void matchesSeveralTablesAtOnce() throws IOException {
+	
+	TestData data = new TestData(directory, 10, 3);
+	Constraints constraints = data.readConstraints();
+	RedistributionSettings settings = TestData.settings(2);
+	settings.setMaxRuns(5000);
+	settings.setVerifyErrors(true);
+	
+	Redistributor redistributor = new Redistributor(constraints, settings);
+	redistributor.run();
+	
+	assertEquals(0L, redistributor.getTotalError());
+	assertEquals(0L, TestData.recount(constraints, redistributor.getPopulation()));
+	
+    } // End of matchesSeveralTablesAtOnce.
+    
+    
+    
+    
+    
+    /**
+     * A table whose rows are different areas from the first table's should be turned down, 
+     * even if it has the same number of rows.
+     **/
+    @Test
+    void rejectsMisalignedAreas() throws IOException {
+	
+	TestData data = new TestData(directory, 5, 3);
+	File tableFile = data.getTableFiles()[2];
+	List<String> lines = Files.readAllLines(tableFile.toPath());
+	lines.set(3, lines.get(3).replaceFirst("^Z2,", "Q2,"));
+	Files.write(tableFile.toPath(), lines);
+	
+	IllegalArgumentException iae = assertThrows(IllegalArgumentException.class, reader(data));
+	assertTrue(iae.getMessage().contains("Row 2 of table 2 is area Q2"), iae.getMessage());
+	
+    } // End of rejectsMisalignedAreas.
+    
+    
+    
+    
+    
+    /**
+     * A table with fewer categories than the people's attribute has should be turned down.
+     **/
+    @Test
+    void rejectsPeopleOutsideTheCategories() throws IOException {
+	
+	TestData data = new TestData(directory, 5, 3);
+	File tableFile = data.getTableFiles()[1];
+	List<String> lines = Files.readAllLines(tableFile.toPath());
+	for (int line = 0; line < lines.size(); line++) lines.set(line, lines.get(line).substring(0, lines.get(line).lastIndexOf(',')));
+	Files.write(tableFile.toPath(), lines);
+	
+	IllegalArgumentException iae = assertThrows(IllegalArgumentException.class, reader(data));
+	assertTrue(iae.getMessage().contains("table 1 only has 3 categories"), iae.getMessage());
+	
+    } // End of rejectsPeopleOutsideTheCategories.
+    
+    
+    
+    
+    
+    /**
+     * Makes something for assertThrows to run that reads the Constraints.
+     **/
+    private static Executable reader(final TestData data) {
+	return new Executable() {
+	    public void execute() {
+		data.readConstraints();
+	    }
+	};
+    }
+    
+// End of class.
+}
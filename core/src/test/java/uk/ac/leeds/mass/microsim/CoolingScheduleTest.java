@@ -0,0 +1,197 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests the temperatures each CoolingSchedule gives, and that stalled areas are given up on.
+ * @version 1.0
+ */
+class CoolingScheduleTest {
+    
+    @TempDir
+    File directory;				// Where the test files go.
+    
+    
+    /**
+     * The linear schedule should step down evenly from the first temperature, as the old loop did.
+     **/
+    @Test
+    void linearStepsDownEvenly() {
+	List<Double> temperatures = run(new LinearCooling(4, 10), 0, 0, 5);
+	assertEquals(Arrays.asList(10.0, 7.5, 5.0, 2.5), temperatures);
+    }
+    
+    
+    
+    
+    
+    /**
+     * The geometric schedule should go from the first temperature to the last in the number of steps given.
+     **/
+    @Test
+    void geometricReachesTheEndTemperature() {
+	
+	List<Double> temperatures = run(new GeometricCooling(8, 1, 4), 0, 0, 5);
+	
+	assertEquals(4, temperatures.size());
+	assertEquals(8, temperatures.get(0), 1e-9);
+	assertEquals(4, temperatures.get(1), 1e-9);
+	assertEquals(2, temperatures.get(2), 1e-9);
+	assertEquals(1, temperatures.get(3), 1e-9);
+	
+    } // End of geometricReachesTheEndTemperature.
+    
+    
+    
+    
+    
+    /**
+     * The adaptive schedule should cool fast while too many uphill swaps are kept, 
+     * slowly otherwise, and stop below the end temperature.
+     **/
+    @Test
+    void adaptiveCoolsFasterWhenTooHot() {
+	
+	List<Double> hot = run(new AdaptiveCooling(10, 1, 100, 0.2), 10, 5, 5);
+	assertEquals(Arrays.asList(10.0, 5.0, 2.5, 1.25), hot);
+	
+	List<Double> cool = run(new AdaptiveCooling(10, 1, 100, 0.2), 10, 1, 5);
+	assertEquals(10 * 0.9, cool.get(1), 1e-9);
+	assertEquals(22, cool.size(), "0.9 to the 21 is the last power above 0.1");
+	
+	assertEquals(3, run(new AdaptiveCooling(10, 1, 3, 0.2), 10, 1, 5).size());
+	
+    } // End of adaptiveCoolsFasterWhenTooHot.
+    
+    
+    
+    
+    
+    /**
+     * The reheating schedule should run the one underneath again, hotter or cooler by the factor,
+     * only while the area's error is above the margin.
+     **/
+    @Test
+    void reheatsOnlyWhileTheErrorIsTooHigh() {
+	
+	List<Double> temperatures = run(new ReheatingCooling(new LinearCooling(2, 4), 2, 0.5, 1), 0, 0, 5);
+	assertEquals(Arrays.asList(4.0, 2.0, 2.0, 1.0, 1.0, 0.5), temperatures);
+	
+	temperatures = run(new ReheatingCooling(new LinearCooling(2, 4), 2, 0.5, 1), 0, 0, 1);
+	assertEquals(Arrays.asList(4.0, 2.0), temperatures);
+	
+	assertEquals(6, new ReheatingCooling(new LinearCooling(2, 4), 2, 0.5, 1).getMaxSteps());
+	
+    } // End of reheatsOnlyWhileTheErrorIsTooHigh.
+    
+    
+    
+    
+    
+    /**
+     * A copy should describe itself the same way and give the same temperatures, whatever the original is part way through.
+     **/
+    @Test
+    void copiesGiveTheSameTemperatures() {
+	
+	CoolingSchedule[] schedules = {new LinearCooling(20, 5), new GeometricCooling(5, 0.25, 20), 
+				       new AdaptiveCooling(5, 0.25, 40, 0.2), new ReheatingCooling(new GeometricCooling(5, 0.25, 10), 3, 0.5, 0)};
+	for (int i = 0; i < schedules.length; i++) {
+	    schedules[i].start(10);
+	    schedules[i].next(10, 3, 5, 1, 10);
+	    CoolingSchedule copy = schedules[i].copy();
+	    assertNotSame(schedules[i], copy);
+	    assertEquals(schedules[i].toString(), copy.toString());
+	    assertEquals(run(schedules[i], 10, 1, 5), run(copy, 10, 1, 5));
+	}
+	
+    } // End of copiesGiveTheSameTemperatures.
+    
+    
+    
+    
+    
+    /**
+     * An area whose error can't go down at all should be given up on after exactly the stall window of swaps.<P>
+     * Everyone in the MicroData is in the first category, so no swap can ever change 
+     * the error, and without the stall window every area would use up every step.
+     **/
+    @Test
+    void givesUpOnStalledAreas() throws IOException {
+	
+	File microDataFile = new File(directory, "people.csv");
+	TestData.write(microDataFile, "ID,Sex\nA,0\nB,0\nC,0\n");
+	File tableFile = new File(directory, "table.csv");
+	TestData.write(tableFile, "Area,Females,Males\nX,5,5\nY,2,8\nZ,7,1\n");
+	
+	assertEquals(3 * 20 * 1000L, swapsProposed(tableFile, microDataFile, 0));
+	assertEquals(3 * 30L, swapsProposed(tableFile, microDataFile, 30));
+	
+    } // End of givesUpOnStalledAreas.
+    
+    
+    
+    
+    
+    /**
+     * Runs a Redistributor with a stall window and gets the number of swaps it tried.
+     **/
+    private static long swapsProposed(File tableFile, File microDataFile, long stallWindow) {
+	
+	RedistributionSettings settings = TestData.settings(1);
+	settings.setMaxRuns(1000);
+	settings.setStallWindow(stallWindow);
+	final long[] swaps = new long[1];
+	Redistributor redistributor = new Redistributor(new Table(tableFile.getPath()), new MicroData(microDataFile.getPath()), settings);
+	redistributor.setProgressListener(new NullProgressListener() {
+	    public void runFinished(ProgressStats stats) {
+		swaps[0] = stats.getSwapsProposed();
+	    }
+	});
+	redistributor.run();
+	assertEquals(10 + 16 + 2, redistributor.getTotalError());
+	return swaps[0];
+	
+    } // End of swapsProposed.
+    
+    
+    
+    
+    
+    /**
+     * Runs a schedule for an area, telling it the same thing about every step, and gets the temperatures it gives.
+     **/
+    private static List<Double> run(CoolingSchedule schedule, int uphillProposed, int uphillAccepted, int areaError) {
+	ArrayList<Double> temperatures = new ArrayList<Double>();
+	for (double temperature = schedule.start(areaError); temperature > 0; temperature = schedule.next(100, 50, uphillProposed, uphillAccepted, areaError)) {
+	    temperatures.add(temperature);
+	    if (temperatures.size() > 1000) fail("The schedule never stopped");
+	}
+	return temperatures;
+    }
+    
+// End of class.
+}
@@ -0,0 +1,186 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.function.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that the CsvReader reads fields the way StreamTokenizer did, and says where bad lines are.
+ * @version 1.0
+ */
+class CsvReaderTest {
+    
+    @TempDir
+    File directory;				// Where the test files go.
+    
+    
+    /**
+     * Fields can be split by commas, colons, spaces and tabs, quoted, or have decimals dropped.
+     **/
+    @Test
+    void readsFields() throws IOException {
+	
+	CsvReader reader = reader("ID,Value\r\n\n\"A b\", 12:-3\t4.75\r\n");
+	try {
+	    assertTrue(reader.nextLine());
+	    assertEquals("ID", reader.readString());
+	    assertEquals("Value", reader.readString());
+	    assertFalse(reader.hasMoreFields());
+	    
+	    assertTrue(reader.nextLine());
+	    assertEquals(3, reader.getLineNumber(), "blank lines are skipped but still counted");
+	    assertEquals("A b", reader.readString());
+	    assertEquals(12, reader.readInt());
+	    assertEquals(-3, reader.readInt());
+	    assertEquals(4, reader.readInt());
+	    assertFalse(reader.hasMoreFields());
+	    
+	    assertFalse(reader.nextLine());
+	} finally {
+	    reader.close();
+	}
+	
+    } // End of readsFields.
+    
+    
+    
+    
+    
+    /**
+     * A line longer than the reader's buffer, and a last line with no newline, should still be read whole.
+     **/
+    @Test
+    void readsLongLinesAndNoFinalNewline() throws IOException {
+	
+	StringBuilder text = new StringBuilder();
+	for (int i = 0; i < 300000; i++) text.append(i % 10).append(',');
+	text.append("end\nlast,7");
+	
+	CsvReader reader = reader(text);
+	try {
+	    assertTrue(reader.nextLine());
+	    for (int i = 0; i < 300000; i++) assertEquals(i % 10, reader.readInt());
+	    assertEquals("end", reader.readString());
+	    assertTrue(reader.nextLine());
+	    assertEquals("last", reader.readString());
+	    assertEquals(7, reader.readInt());
+	    assertFalse(reader.nextLine());
+	} finally {
+	    reader.close();
+	}
+	
+    } // End of readsLongLinesAndNoFinalNewline.
+    
+    
+    
+    
+    
+    /**
+     * Values that aren't numbers, numbers that are too big, missing values and unclosed quotes
+     * should each be reported with the file and the line they're on.
+     **/
+    @Test
+    void reportsBadLinesWithTheirLineNumbers() throws IOException {
+	
+	CsvReader reader = reader("ID,Value\nA,x1\n\nB,99999999999\nC\n\"D,1\n");
+	try {
+	    reader.nextLine();
+	    reader.nextLine();
+	    reader.readString();
+	    assertProblem(assertThrows(CsvFormatException.class, intReader(reader)), 2, "not a number: \"x1\"");
+	    
+	    reader.nextLine();
+	    reader.readString();
+	    assertProblem(assertThrows(CsvFormatException.class, intReader(reader)), 4, "number too big");
+	    
+	    reader.nextLine();
+	    reader.readString();
+	    assertProblem(assertThrows(CsvFormatException.class, intReader(reader)), 5, "expected a number but the line ended");
+	    
+	    reader.nextLine();
+	    assertProblem(assertThrows(CsvFormatException.class, stringReader(reader)), 6, "quoted value has no closing quote");
+	} finally {
+	    reader.close();
+	}
+	
+    } // End of reportsBadLinesWithTheirLineNumbers.
+    
+    
+    
+    
+    
+    /**
+     * Checks an exception gives the line, and that its message has the file, line and problem in it.
+     **/
+    private void assertProblem(CsvFormatException cfe, int lineNumber, String problem) {
+	assertEquals(lineNumber, cfe.getLineNumber());
+	assertTrue(cfe.getMessage().startsWith(new File(directory, "test.csv").getPath() + " line " + lineNumber + ": "), cfe.getMessage());
+	assertTrue(cfe.getMessage().contains(problem), cfe.getMessage());
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes some text to a file and opens a CsvReader on it.
+     **/
+    private CsvReader reader(CharSequence text) throws IOException {
+	File file = new File(directory, "test.csv");
+	TestData.write(file, text);
+	return new CsvReader(file.getPath());
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes something for assertThrows to run that reads an int.
+     **/
+    private static Executable intReader(final CsvReader reader) {
+	return new Executable() {
+	    public void execute() throws IOException {
+		reader.readInt();
+	    }
+	};
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes something for assertThrows to run that reads a String.
+     **/
+    private static Executable stringReader(final CsvReader reader) {
+	return new Executable() {
+	    public void execute() throws IOException {
+		reader.readString();
+	    }
+	};
+    }
+    
+// End of class.
+}
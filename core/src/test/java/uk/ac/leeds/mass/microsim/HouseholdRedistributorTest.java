@@ -0,0 +1,238 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.function.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that a HouseholdRedistributor fills areas with whole households that match both sets of tables.<P>
+ * The made up households have a tenure (two categories) and a size of one to four 
+ * people, and each person a sex and an age (three categories). Each area's tables 
+ * are counted from a sample of the households, so they can all be matched at once.
+ * @version 1.0
+ */
+class HouseholdRedistributorTest {
+    
+    @TempDir
+    File directory;				// Where the made up files go.
+    
+    private Households households = null;	// The households and their people.
+    private Constraints householdConstraints = null;	// The tenure and size tables.
+    private Constraints personConstraints = null;	// The sex and age tables.
+    
+    private static final int AREAS = 15;	// The number of areas.
+    
+    
+    /**
+     * Makes up the households, people and tables for each test.
+     **/
+    @BeforeEach
+    void makeData() throws IOException {
+	
+	Random random = new Random(8);
+	int[][] householdValues = new int[60][];
+	ArrayList<int[]> personValues = new ArrayList<int[]>();
+	StringBuilder householdText = new StringBuilder("ID,Tenure,Size\n");
+	StringBuilder personText = new StringBuilder("ID,HouseholdID,Sex,Age\n");
+	for (int household = 0; household < householdValues.length; household++) {
+	    int size = 1 + random.nextInt(4);
+	    householdValues[household] = new int[] {random.nextInt(2), size - 1};
+	    householdText.append("H" + household + "," + householdValues[household][0] + "," + householdValues[household][1] + "\n");
+	    int[] members = new int[size * 2];
+	    for (int i = 0; i < size; i++) {
+		members[i * 2] = random.nextInt(2);
+		members[i * 2 + 1] = random.nextInt(3);
+		personText.append("P" + household + "-" + i + ",H" + household + "," + members[i * 2] + "," + members[i * 2 + 1] + "\n");
+	    }
+	    personValues.add(members);
+	}
+	
+	// Count up each area's tables from a sample of the households.
+	
+	int[][][] counts = new int[4][AREAS][];
+	int[] categories = {2, 4, 2, 3};
+	for (int area = 0; area < AREAS; area++) {
+	    for (int table = 0; table < 4; table++) counts[table][area] = new int[categories[table]];
+	    int size = 5 + random.nextInt(20);
+	    for (int i = 0; i < size; i++) {
+		int household = random.nextInt(householdValues.length);
+		counts[0][area][householdValues[household][0]]++;
+		counts[1][area][householdValues[household][1]]++;
+		int[] members = personValues.get(household);
+		for (int person = 0; person < members.length; person = person + 2) {
+		    counts[2][area][members[person]]++;
+		    counts[3][area][members[person + 1]]++;
+		}
+	    }
+	}
+	Table[] tables = new Table[4];
+	for (int table = 0; table < 4; table++) {
+	    StringBuilder text = new StringBuilder("Area");
+	    for (int category = 0; category < categories[table]; category++) text.append(",C" + category);
+	    text.append("\n");
+	    for (int area = 0; area < AREAS; area++) {
+		text.append("Z" + area);
+		for (int category = 0; category < categories[table]; category++) text.append("," + counts[table][area][category]);
+		text.append("\n");
+	    }
+	    File file = new File(directory, "table" + table + ".csv");
+	    TestData.write(file, text);
+	    tables[table] = new Table(file.getPath());
+	}
+	
+	File householdFile = new File(directory, "households.csv");
+	File personFile = new File(directory, "people.csv");
+	TestData.write(householdFile, householdText);
+	TestData.write(personFile, personText);
+	households = new Households(householdFile.getPath(), personFile.getPath());
+	householdConstraints = new Constraints(new Table[] {tables[0], tables[1]}, new int[] {0, 1}, households.getHouseholds());
+	personConstraints = new Constraints(new Table[] {tables[2], tables[3]}, new int[] {0, 1}, households.getPeople());
+	
+    } // End of makeData.
+    
+    
+    
+    
+    
+    /**
+     * Given long enough, every area should have the right number of households, each with all 
+     * its people, and match both sets of tables.
+     **/
+    @Test
+    void matchesHouseholdAndPersonTables() {
+	
+	RedistributionSettings settings = TestData.settings(3);
+	settings.setMaxRuns(5000);
+	settings.setVerifyErrors(true);
+	HouseholdRedistributor redistributor = new HouseholdRedistributor(households, householdConstraints, personConstraints, settings);
+	redistributor.run();
+	
+	assertEquals(0L, redistributor.getTotalError());
+	Population world = redistributor.getPopulation();
+	Population people = redistributor.getPersonPopulation();
+	assertEquals(0L, TestData.recount(householdConstraints, world));
+	assertEquals(0L, TestData.recount(personConstraints, people));
+	for (int area = 0; area < AREAS; area++) {
+	    assertEquals(householdConstraints.getAreaPopulation(area), world.getAreaSize(area));
+	    assertEquals(personConstraints.getAreaPopulation(area), people.getAreaSize(area));
+	    int slot = 0;
+	    for (int i = 0; i < world.getAreaSize(area); i++) {
+		int household = world.getPerson(area, i);
+		for (int member = 0; member < households.getNumberOfMembers(household); member++) {
+		    assertEquals(household, households.getHousehold(people.getPerson(area, slot++)));
+		}
+	    }
+	}
+	
+    } // End of matchesHouseholdAndPersonTables.
+    
+    
+    
+    
+    
+    /**
+     * The households and people errors should add up to the total, and each match a recount, 
+     * when the run is too short to get every area right.
+     **/
+    @Test
+    void errorsMatchARecount() {
+	
+	RedistributionSettings settings = TestData.settings(3);
+	settings.setMaxRuns(2);
+	settings.setVerifyErrors(true);
+	HouseholdRedistributor redistributor = new HouseholdRedistributor(households, householdConstraints, personConstraints, settings);
+	redistributor.run();
+	
+	assertTrue(redistributor.getTotalError() > 0);
+	assertEquals(TestData.recount(householdConstraints, redistributor.getPopulation()), redistributor.getHouseholdError());
+	assertEquals(TestData.recount(personConstraints, redistributor.getPersonPopulation()), redistributor.getPersonError());
+	assertEquals(redistributor.getHouseholdError() + redistributor.getPersonError(), redistributor.getTotalError());
+	
+    } // End of errorsMatchARecount.
+    
+    
+    
+    
+    
+    /**
+     * The same seed should give the same households whatever the number of threads.
+     **/
+    @Test
+    void sameResultsWhateverTheNumberOfThreads() {
+	
+	Population expected = null;
+	for (int threads = 1; threads <= 3; threads++) {
+	    RedistributionSettings settings = TestData.settings(3);
+	    settings.setNumberOfThreads(threads);
+	    HouseholdRedistributor redistributor = new HouseholdRedistributor(households, householdConstraints, personConstraints, settings);
+	    redistributor.run();
+	    Population world = redistributor.getPopulation();
+	    if (expected == null) {
+		expected = world;
+		continue;
+	    }
+	    for (int area = 0; area < AREAS; area++) {
+		assertEquals(expected.getAreaSize(area), world.getAreaSize(area));
+		for (int slot = 0; slot < world.getAreaSize(area); slot++) {
+		    assertEquals(expected.getPerson(area, slot), world.getPerson(area, slot), threads + " threads, area " + area);
+		}
+	    }
+	}
+	
+    } // End of sameResultsWhateverTheNumberOfThreads.
+    
+    
+    
+    
+    
+    /**
+     * Tables about the wrong MicroData, or with different areas, should be turned down.
+     **/
+    @Test
+    void rejectsTablesThatDontGoTogether() throws IOException {
+	
+	Executable swapped = new Executable() {
+	    public void execute() {
+		new HouseholdRedistributor(households, personConstraints, householdConstraints, TestData.settings(3));
+	    }
+	};
+	assertThrows(IllegalArgumentException.class, swapped);
+	
+	File file = new File(directory, "renamed.csv");
+	TestData.write(file, "Area,C0,C1\nZ0,1,0\nQ1,1,0\n");
+	final Constraints renamed = new Constraints(new Table(file.getPath()), households.getPeople());
+	final Constraints shorter = new Constraints(new Table[] {new Table(new File(directory, "table0.csv").getPath(), 0, 2)}, new int[] {0}, households.getHouseholds());
+	Executable misaligned = new Executable() {
+	    public void execute() {
+		new HouseholdRedistributor(households, shorter, renamed, TestData.settings(3));
+	    }
+	};
+	assertEquals("Area 1 is Z1 in the household tables, but Q1 in the tables of people", 
+	    assertThrows(IllegalArgumentException.class, misaligned).getMessage());
+	
+    } // End of rejectsTablesThatDontGoTogether.
+    
+// End of class.
+}
@@ -0,0 +1,185 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.function.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that what an IndexedPopulationWriter writes is read back area by area by an IndexedPopulationFile.
+ * @version 1.0
+ */
+class IndexedPopulationFileTest {
+    
+    @TempDir
+    File directory;				// Where the made up files and results go.
+    
+    
+    /**
+     * Every area of a run should come back with the same people, and the same IDs, as the run's CSV.
+     **/
+    @Test
+    void readsBackARun() throws IOException {
+	
+	TestData data = new TestData(directory, 30, 4);
+	Redistributor redistributor = new Redistributor(data.readConstraints(), TestData.settings(9));
+	redistributor.run();
+	Population world = redistributor.getPopulation();
+	Constraints constraints = redistributor.getConstraints();
+	MicroData microData = constraints.getMicroData();
+	File file = new File(directory, "out.mspi");
+	redistributor.write(file, new IndexedPopulationWriter());
+	
+	IndexedPopulationFile indexed = new IndexedPopulationFile(file);
+	try {
+	    assertEquals(30, indexed.getNumberOfAreas());
+	    assertEquals(microData.getNumberOfPeople(), indexed.getNumberOfPeople());
+	    assertEquals(1, headerInt(file, 16), "200 people fit in a byte each");
+	    for (int area = 29; area >= 0; area--) {
+		String id = constraints.getTable(0).getID(area);
+		assertEquals(id, indexed.getAreaID(area));
+		assertEquals(area, indexed.findArea(id));
+		assertEquals(world.getAreaSize(area), indexed.getAreaSize(area));
+		int[] people = indexed.getPeople(area);
+		for (int slot = 0; slot < people.length; slot++) {
+		    assertEquals(world.getPerson(area, slot), people[slot]);
+		    assertEquals(people[slot], indexed.getPerson(area, slot));
+		    assertEquals(microData.getID(people[slot]), indexed.getPersonID(people[slot]));
+		}
+	    }
+	    assertEquals(-1, indexed.findArea("Nowhere"));
+	} finally {
+	    indexed.close();
+	}
+	
+    } // End of readsBackARun.
+    
+    
+    
+    
+    
+    /**
+     * More people than a byte can number should take two bytes each, and empty areas and 
+     * IDs that aren't plain ASCII should come back as they went in.
+     **/
+    @Test
+    void readsWiderPeopleEmptyAreasAndAnyIDs() throws IOException {
+	
+	StringBuilder text = new StringBuilder("ID,Sex\n");
+	for (int person = 0; person < 300; person++) text.append("Ü" + person + "," + (person % 2) + "\n");
+	File people = new File(directory, "people.csv");
+	TestData.write(people, text);
+	Table table = new Table(3);
+	String[] ids = {"Zürich", "Empty", "Łódź"};
+	int[][] slots = {{299, 0, 256}, {}, {1, 299}};
+	for (int area = 0; area < 3; area++) {
+	    table.setID(area, ids[area]);
+	    table.setValue(area, 0, slots[area].length);
+	}
+	Constraints constraints = new Constraints(table, new MicroData(people.getPath()));
+	Population world = new Population(3);
+	for (int area = 0; area < 3; area++) {
+	    world.createArea(area, slots[area].length);
+	    for (int slot = 0; slot < slots[area].length; slot++) world.fillPerson(area, slot, slots[area][slot]);
+	}
+	File file = new File(directory, "out.mspi");
+	new IndexedPopulationWriter().write(world, constraints, file);
+	
+	IndexedPopulationFile indexed = new IndexedPopulationFile(file);
+	try {
+	    assertEquals(2, headerInt(file, 16));
+	    for (int area = 0; area < 3; area++) {
+		assertEquals(ids[area], indexed.getAreaID(area));
+		assertEquals(area, indexed.findArea(ids[area]));
+		assertArrayEquals(slots[area], indexed.getPeople(area));
+	    }
+	    assertEquals("Ü299", indexed.getPersonID(299));
+	    assertEquals("Ü0", indexed.getPersonID(0));
+	} finally {
+	    indexed.close();
+	}
+	
+    } // End of readsWiderPeopleEmptyAreasAndAnyIDs.
+    
+    
+    
+    
+    
+    /**
+     * Files that are cut short, or aren't population files at all, should be turned down when opened.
+     **/
+    @Test
+    void rejectsOtherFiles() throws IOException {
+	
+	TestData data = new TestData(directory, 5, 4);
+	Redistributor redistributor = new Redistributor(data.readConstraints(), TestData.settings(9));
+	redistributor.run();
+	File file = new File(directory, "out.mspi");
+	redistributor.write(file, new IndexedPopulationWriter());
+	byte[] bytes = Files.readAllBytes(file.toPath());
+	
+	final File cut = new File(directory, "cut.mspi");
+	Files.write(cut.toPath(), Arrays.copyOf(bytes, bytes.length - 1));
+	assertTrue(assertThrows(IOException.class, opener(cut)).getMessage().contains("should be " + bytes.length), "cut short");
+	
+	final File csv = data.getMicroDataFile();
+	assertTrue(assertThrows(IOException.class, opener(csv)).getMessage().contains("isn't an indexed population file"), "CSV");
+	
+    } // End of rejectsOtherFiles.
+    
+    
+    
+    
+    
+    /**
+     * Reads an int from a file's header.
+     **/
+    private static int headerInt(File file, int position) throws IOException {
+	DataInputStream in = new DataInputStream(new FileInputStream(file));
+	try {
+	    in.skipBytes(position);
+	    return in.readInt();
+	} finally {
+	    in.close();
+	}
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes something for assertThrows to run that opens a file, and closes it if it opens.
+     **/
+    private static Executable opener(final File file) {
+	return new Executable() {
+	    public void execute() throws IOException {
+		new IndexedPopulationFile(file).close();
+	    }
+	};
+    }
+    
+// End of class.
+}
@@ -0,0 +1,124 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.file.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that the IpfReweighter's weights add up to the tables, and its people to the areas.
+ * @version 1.0
+ */
+class IpfReweighterTest {
+    
+    @TempDir
+    File directory;				// Where the made up files and results go.
+    
+    
+    /**
+     * With tables that agree, each area's weights should add up to every cell of every table.
+     **/
+    @Test
+    void weightsAddUpToTheTables() throws IOException {
+	
+	TestData data = new TestData(directory, 25, 6);
+	Constraints constraints = data.readConstraints();
+	IpfReweighter reweighter = new IpfReweighter(constraints, TestData.settings(1));
+	reweighter.fit();
+	
+	WeightMatrix weights = reweighter.getWeights();
+	Profiles profiles = reweighter.getProfiles();
+	assertEquals(25, weights.getNumberOfAreas());
+	assertEquals(profiles.getNumberOfProfiles(), weights.getNumberOfProfiles());
+	for (int area = 0; area < 25; area++) {
+	    double[] sums = new double[constraints.getNumberOfCells()];
+	    for (int profile = 0; profile < profiles.getNumberOfProfiles(); profile++) {
+		assertTrue(weights.getWeight(area, profile) >= 0);
+		for (int constraint = 0; constraint < 3; constraint++) sums[profiles.getCell(profile, constraint)] += weights.getWeight(area, profile);
+	    }
+	    for (int cell = 0; cell < sums.length; cell++) assertEquals(constraints.getTarget(area, cell), sums[cell], 1e-3, "area " + area + " cell " + cell);
+	}
+	
+    } // End of weightsAddUpToTheTables.
+    
+    
+    
+    
+    
+    /**
+     * The integerised people should fill every area to its size and match the first table exactly, 
+     * with the total error counted from them.
+     **/
+    @Test
+    void peopleFillTheAreas() throws IOException {
+	
+	TestData data = new TestData(directory, 25, 6);
+	Constraints constraints = data.readConstraints();
+	IpfReweighter reweighter = new IpfReweighter(constraints, TestData.settings(1));
+	reweighter.run();
+	
+	Population world = reweighter.getPopulation();
+	for (int area = 0; area < 25; area++) {
+	    assertEquals(constraints.getAreaPopulation(area), world.getAreaSize(area));
+	    int[] counts = new int[constraints.getCellOffset(1)];
+	    for (int slot = 0; slot < world.getAreaSize(area); slot++) counts[constraints.getPersonCell(world.getPerson(area, slot), 0)]++;
+	    for (int cell = 0; cell < counts.length; cell++) assertEquals(constraints.getTarget(area, cell), counts[cell]);
+	}
+	assertEquals(TestData.recount(constraints, world), reweighter.getTotalError());
+	
+    } // End of peopleFillTheAreas.
+    
+    
+    
+    
+    
+    /**
+     * Sparse weights, and any number of threads, should give the same people.
+     **/
+    @Test
+    void sameResultsWhateverTheStorageAndThreads() throws IOException {
+	
+	TestData data = new TestData(directory, 25, 6);
+	byte[] expected = null;
+	for (int threads = 1; threads <= 3; threads++) {
+	    for (int sparse = 0; sparse < 2; sparse++) {
+		RedistributionSettings settings = TestData.settings(4);
+		settings.setNumberOfThreads(threads);
+		IpfReweighter reweighter = new IpfReweighter(data.readConstraints(), settings);
+		reweighter.setSparse(sparse == 1);
+		reweighter.run();
+		File file = new File(directory, "out" + threads + sparse + ".csv");
+		reweighter.write(file);
+		byte[] output = Files.readAllBytes(file.toPath());
+		if (expected == null) {
+		    expected = output;
+		} else {
+		    assertArrayEquals(expected, output, threads + " threads, sparse " + sparse);
+		}
+	    }
+	}
+	
+    } // End of sameResultsWhateverTheStorageAndThreads.
+    
+// End of class.
+}
@@ -0,0 +1,113 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that an IpfStart fills areas with the right people before any annealing.
+ * @version 1.0
+ */
+class IpfStartTest {
+    
+    @TempDir
+    File directory;				// Where the test files go.
+    
+    
+    /**
+     * With one table, every area should start exactly right, so not one swap is needed.
+     **/
+    @Test
+    void oneTableNeedsNoSwaps() throws IOException {
+	
+	TestData data = new TestData(directory, 30, 4);
+	Constraints constraints = new Constraints(new Table(data.getTableFiles()[0].getPath()), new MicroData(data.getMicroDataFile().getPath()));
+	RedistributionSettings settings = TestData.settings(3);
+	settings.setIpfStart(true);
+	settings.setVerifyErrors(true);
+	
+	final long[] swaps = new long[1];
+	Redistributor redistributor = new Redistributor(constraints, settings);
+	redistributor.setProgressListener(new NullProgressListener() {
+	    public void runFinished(ProgressStats stats) {
+		swaps[0] = stats.getSwapsProposed();
+	    }
+	});
+	redistributor.run();
+	
+	assertEquals(0L, redistributor.getTotalError());
+	assertEquals(0L, TestData.recount(constraints, redistributor.getPopulation()));
+	assertEquals(0L, swaps[0]);
+	
+    } // End of oneTableNeedsNoSwaps.
+    
+    
+    
+    
+    
+    /**
+     * Members of a profile should all be used the same number of times, give or take one, 
+     * whether the area needs fewer of them than there are or more.
+     **/
+    @Test
+    void usesMembersEvenly() throws IOException {
+	
+	File microDataFile = new File(directory, "people.csv");
+	StringBuilder people = new StringBuilder("ID,Sex\n");
+	for (int person = 0; person < 1000; person++) people.append("P" + person + "," + (person % 2) + "\n");
+	TestData.write(microDataFile, people);
+	Table table = new Table(3);
+	int[][] targets = {{300, 200}, {1300, 0}, {0, 2499}};
+	for (int area = 0; area < 3; area++) {
+	    table.setID(area, "A" + area);
+	    table.setValue(area, 0, targets[area][0]);
+	    table.setValue(area, 1, targets[area][1]);
+	}
+	Constraints constraints = new Constraints(table, new MicroData(microDataFile.getPath()));
+	IpfStart start = new IpfStart(constraints, new Profiles(constraints));
+	Population world = new Population(3);
+	RandomSource random = new SplittableRandomSource(8);
+	
+	for (int area = 0; area < 3; area++) {
+	    world.createArea(area, targets[area][0] + targets[area][1]);
+	    start.fill(area, world, random);
+	    int[] uses = new int[1000];
+	    for (int slot = 0; slot < world.getAreaSize(area); slot++) uses[world.getPerson(area, slot)]++;
+	    for (int sex = 0; sex < 2; sex++) {
+		int least = Integer.MAX_VALUE;
+		int most = 0;
+		int total = 0;
+		for (int person = sex; person < 1000; person += 2) {
+		    least = Math.min(least, uses[person]);
+		    most = Math.max(most, uses[person]);
+		    total = total + uses[person];
+		}
+		assertEquals(targets[area][sex], total);
+		assertTrue(most - least <= 1, "area " + area + " uses people between " + least + " and " + most + " times");
+	    }
+	}
+	
+    } // End of usesMembersEvenly.
+    
+// End of class.
+}
@@ -0,0 +1,207 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that a MicroDataCache gives back the MicroData and indexes it was made from, and is 
+ * only used while it matches the CSV.
+ * @version 1.0
+ */
+class MicroDataCacheTest {
+    
+    @TempDir
+    File directory;				// Where the test files go.
+    
+    private File source = null;			// The microdata CSV.
+    private File cache = null;			// Its cache.
+    
+    private static final String PEOPLE = "ID,Sex,Income,Tenure\nÄ1,0,25000,2\nB2,1,-7,0\nC3,0,0,2\nD4,1,70000,5\n";	// The people, with a column too big for bytes.
+    
+    
+    /**
+     * Writes the CSV for each test.
+     **/
+    @BeforeEach
+    void writeSource() throws IOException {
+	source = new File(directory, "people.csv");
+	cache = new File(directory, "people.cache");
+	TestData.write(source, PEOPLE);
+    }
+    
+    
+    
+    
+    
+    /**
+     * The first load should read the CSV and write the cache, and the next should give back 
+     * the same people, values and indexes from it.
+     **/
+    @Test
+    void givesBackTheSameMicroData() throws IOException {
+	
+	MicroData expected = new MicroData(source.getPath());
+	assertFalse(cache.exists());
+	assertEquals(expected.getNumberOfPeople(), MicroDataCache.load(source, cache).getNumberOfPeople());
+	assertTrue(cache.isFile());
+	
+	MicroData cached = MicroDataCache.load(source, cache);
+	assertMatches(expected, cached);
+	assertNotNull(cached.getByteColumn(0));
+	assertNotNull(cached.getIntColumn(1));
+	
+    } // End of givesBackTheSameMicroData.
+    
+    
+    
+    
+    
+    /**
+     * While the CSV is the same, the MicroData should come from the cache, not the CSV.<P>
+     * This is shown by putting different people in the cache, under the CSV's length and checksum.
+     **/
+    @Test
+    void usesTheCacheWhileTheSourceIsTheSame() throws IOException {
+	
+	PackedStrings ids = new PackedStrings();
+	ids.add("X");
+	ids.add("Y");
+	MicroData other = new MicroData(new String[] {"Sex", "Income", "Tenure"}, ids, new int[][] {{1, 0}, {3, 300}, {0, 1}});
+	MicroDataCache.write(cache, other, source.length(), MicroDataCache.checksum(source));
+	
+	MicroData cached = MicroDataCache.load(source, cache);
+	assertMatches(other, cached);
+	
+    } // End of usesTheCacheWhileTheSourceIsTheSame.
+    
+    
+    
+    
+    
+    /**
+     * Changing the CSV, even without changing its length, should mean it's read again and the cache rewritten.
+     **/
+    @Test
+    void rebuildsWhenTheSourceChanges() throws IOException {
+	
+	MicroDataCache.load(source, cache);
+	long oldLength = source.length();
+	int oldChecksum = MicroDataCache.checksum(source);
+	TestData.write(source, PEOPLE.replace("B2,1,-7,0", "B2,1,-7,1"));
+	assertEquals(oldLength, source.length());
+	
+	MicroData reloaded = MicroDataCache.load(source, cache);
+	assertEquals(1, reloaded.getValue(1, 2));
+	assertMatches(new MicroData(source.getPath()), reloaded);
+	assertNull(MicroDataCache.read(cache, oldLength, oldChecksum));
+	assertNotNull(MicroDataCache.read(cache, source.length(), MicroDataCache.checksum(source)));
+	
+    } // End of rebuildsWhenTheSourceChanges.
+    
+    
+    
+    
+    
+    /**
+     * A cache with a byte changed, cut short, or that isn't a cache at all, should be 
+     * ignored, the CSV read instead, and a good cache written in its place. The byte 
+     * changed is in the last index, which is only copied when asked for, but is still 
+     * covered by the checksum.
+     **/
+    @Test
+    void fallsBackOnADamagedCache() throws IOException {
+	
+	MicroData expected = new MicroData(source.getPath());
+	MicroDataCache.load(source, cache);
+	byte[] good = Files.readAllBytes(cache.toPath());
+	
+	byte[][] damaged = {good.clone(), Arrays.copyOf(good, good.length - 9), PEOPLE.getBytes("UTF-8"), new byte[0]};
+	damaged[0][good.length - 20] ^= 0x10;
+	for (int i = 0; i < damaged.length; i++) {
+	    Files.write(cache.toPath(), damaged[i]);
+	    assertMatches(expected, MicroDataCache.load(source, cache));
+	    assertArrayEquals(good, Files.readAllBytes(cache.toPath()), "damage " + i);
+	}
+	
+    } // End of fallsBackOnADamagedCache.
+    
+    
+    
+    
+    
+    /**
+     * A run with targeted swaps, which use the cached indexes, should be the same as one from the CSV.
+     **/
+    @Test
+    void targetedRunMatchesRunFromTheSource() throws IOException {
+	
+	TestData data = new TestData(directory, 20, 8);
+	File[] tableFiles = data.getTableFiles();
+	Table[] tables = new Table[tableFiles.length];
+	for (int table = 0; table < tables.length; table++) tables[table] = new Table(tableFiles[table].getPath());
+	File dataCache = new File(directory, "data.cache");
+	MicroDataCache.load(data.getMicroDataFile(), dataCache);
+	
+	byte[][] outputs = new byte[2][];
+	for (int run = 0; run < 2; run++) {
+	    MicroData microData = (run == 0) ? new MicroData(data.getMicroDataFile().getPath()) : MicroDataCache.load(data.getMicroDataFile(), dataCache);
+	    RedistributionSettings settings = TestData.settings(4);
+	    settings.setTargetedProposals(0.5);
+	    Redistributor redistributor = new Redistributor(new Constraints(tables, TestData.attributes(), microData), settings);
+	    redistributor.run();
+	    outputs[run] = TestData.output(redistributor, new File(directory, "out" + run + ".csv"));
+	}
+	assertArrayEquals(outputs[0], outputs[1]);
+	
+    } // End of targetedRunMatchesRunFromTheSource.
+    
+    
+    
+    
+    
+    /**
+     * Checks two MicroData have the same attributes, people and values, and the same people for each value.
+     **/
+    private static void assertMatches(MicroData expected, MicroData actual) {
+	assertEquals(expected.getNumberOfPeople(), actual.getNumberOfPeople());
+	assertEquals(expected.getNumberOfAttributes(), actual.getNumberOfAttributes());
+	for (int attribute = 0; attribute < expected.getNumberOfAttributes(); attribute++) {
+	    assertEquals(expected.getAttributeName(attribute), actual.getAttributeName(attribute));
+	    AttributeIndex expectedIndex = new AttributeIndex(expected, attribute);
+	    AttributeIndex actualIndex = actual.getAttributeIndex(attribute);
+	    assertArrayEquals(expectedIndex.getValueStarts(), actualIndex.getValueStarts(), "attribute " + attribute);
+	    assertArrayEquals(expectedIndex.getPeople(), actualIndex.getPeople(), "attribute " + attribute);
+	}
+	for (int person = 0; person < expected.getNumberOfPeople(); person++) {
+	    assertEquals(expected.getID(person), actual.getID(person));
+	    for (int attribute = 0; attribute < expected.getNumberOfAttributes(); attribute++) {
+		assertEquals(expected.getValue(person, attribute), actual.getValue(person, attribute));
+	    }
+	}
+    }
+    
+// End of class.
+}
@@ -0,0 +1,103 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that MicroData keeps people as columns and skips lines it can't read.
+ * @version 1.0
+ */
+class MicroDataTest {
+    
+    @TempDir
+    File directory;				// Where the test files go.
+    
+    
+    /**
+     * Values that fit in a byte should be kept as bytes, and the rest as ints, with the same values either way.
+     **/
+    @Test
+    void keepsColumnsInTheSmallestType() throws IOException {
+	
+	MicroData microData = microData("ID,Sex,Income,Offset\nA,0,25000,-1\nB,1,300,0\nC,1,0,255\n");
+	
+	assertEquals(3, microData.getNumberOfPeople());
+	assertEquals(3, microData.getNumberOfAttributes());
+	assertEquals("Income", microData.getAttributeName(1));
+	assertNotNull(microData.getByteColumn(0));
+	assertNull(microData.getIntColumn(0));
+	assertNull(microData.getByteColumn(1));
+	assertNotNull(microData.getIntColumn(1));
+	assertNull(microData.getByteColumn(2), "-1 doesn't fit in a byte");
+	
+	assertEquals("B", microData.getID(1));
+	assertEquals(1, microData.getValue(2, 0));
+	assertEquals(25000, microData.getValue(0, 1));
+	assertEquals(-1, microData.getValue(0, 2));
+	assertEquals(255, microData.getValue(2, 2));
+	
+	Person person = microData.getPerson(1);
+	assertEquals("B", person.getID());
+	assertEquals(3, person.getNumberOfAttributes());
+	assertEquals(300, person.getValue(1));
+	
+    } // End of keepsColumnsInTheSmallestType.
+    
+    
+    
+    
+    
+    /**
+     * Lines with a bad ID or a bad value should be skipped, without moving any
+     * other person's ID or values out of line.
+     **/
+    @Test
+    void skipsBadLinesAndKeepsIDsInLine() throws IOException {
+	
+	MicroData microData = microData("ID,Sex,Age\nA,0,1\n\"B,1,2\nC,1,x\nD,1\nE,0,3\n");
+	
+	assertEquals(2, microData.getNumberOfPeople());
+	assertEquals(2, microData.getIDs().size());
+	assertEquals("A", microData.getID(0));
+	assertEquals("E", microData.getID(1));
+	assertEquals(0, microData.getValue(1, 0));
+	assertEquals(3, microData.getValue(1, 1));
+	
+    } // End of skipsBadLinesAndKeepsIDsInLine.
+    
+    
+    
+    
+    
+    /**
+     * Writes some text to a file and reads it as MicroData.
+     **/
+    private MicroData microData(String text) throws IOException {
+	File file = new File(directory, "people.csv");
+	TestData.write(file, text);
+	return new MicroData(file.getPath());
+    }
+    
+// End of class.
+}
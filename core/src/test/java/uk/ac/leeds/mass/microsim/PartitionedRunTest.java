@@ -0,0 +1,191 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.zip.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.function.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that runs split between workers, and joined back up, give the same results as one run.<P>
+ * Each area's random numbers come from the seed and the area's number in the
+ * whole table, so however the areas are split up they should get the same people.
+ * @version 1.0
+ */
+class PartitionedRunTest {
+    
+    private static final int NUMBER_OF_AREAS = 50;	// The number of areas in the tables.
+    private static final long SEED = 17;		// The seed for every run.
+    
+    @TempDir
+    File directory;				// Where the made up files and results go.
+    
+    
+    /**
+     * Splitting the areas between worker processes, and joining their files, should give the same file as one run.<P>
+     * The workers are BatchDistributors started with the test's class path.
+     **/
+    @Test
+    void partitionedRunMatchesSingleRun() throws IOException {
+	
+	TestData data = new TestData(directory, NUMBER_OF_AREAS, 5);
+	Redistributor single = singleRun(data);
+	byte[] expected = TestData.output(single, new File(directory, "single.csv"));
+	
+	File[] tableFiles = data.getTableFiles();
+	PartitionedRun run = new PartitionedRun(NUMBER_OF_AREAS, 3);
+	String[][] workerArguments = new String[3][];
+	File[] parts = new File[3];
+	File[] logs = new File[3];
+	File[] results = new File[3];
+	for (int worker = 0; worker < 3; worker++) {
+	    parts[worker] = new File(directory, "part" + worker + ".csv");
+	    logs[worker] = new File(directory, "part" + worker + ".log");
+	    results[worker] = new File(directory, "part" + worker + ".result");
+	    workerArguments[worker] = new String[] {
+		tableFiles[0].getPath(), data.getMicroDataFile().getPath(), parts[worker].getPath(),
+		"-table", tableFiles[1].getPath(), "-table", tableFiles[2].getPath(),
+		"-seed", String.valueOf(SEED), "-maxRuns", "10", "-shortcuts", "off", "-quiet",
+		"-areas", run.getFirstArea(worker) + ":" + run.getEndArea(worker),
+		"-result", results[worker].getPath()};
+	}
+	long totalError = run.run(workerArguments, logs, results);
+	File merged = new File(directory, "merged.csv");
+	PartitionedRun.merge(parts, merged, "csv");
+	
+	assertArrayEquals(expected, Files.readAllBytes(merged.toPath()));
+	assertEquals(single.getTotalError(), totalError);
+	
+    } // End of partitionedRunMatchesSingleRun.
+    
+    
+    
+    
+    
+    /**
+     * The areas should be shared out in consecutive runs, as evenly as they can be, with no more workers than areas.
+     **/
+    @Test
+    void sharesAreasOutEvenly() {
+	
+	PartitionedRun run = new PartitionedRun(10, 3);
+	assertEquals(3, run.getNumberOfWorkers());
+	int[] firstAreas = {0, 3, 6, 10};
+	for (int worker = 0; worker < 3; worker++) {
+	    assertEquals(firstAreas[worker], run.getFirstArea(worker));
+	    assertEquals(firstAreas[worker + 1], run.getEndArea(worker));
+	}
+	assertEquals(2, new PartitionedRun(2, 5).getNumberOfWorkers());
+	assertEquals(1, new PartitionedRun(7, 0).getNumberOfWorkers());
+	
+    } // End of sharesAreasOutEvenly.
+    
+    
+    
+    
+    
+    /**
+     * Binary, weights and gzipped parts, made here by runs of each worker's rows with the 
+     * area offset a worker would use, should join into the same file as one run writes.
+     **/
+    @Test
+    void mergesEveryFormat() throws IOException {
+	
+	TestData data = new TestData(directory, NUMBER_OF_AREAS, 5);
+	Redistributor single = singleRun(data);
+	PartitionedRun run = new PartitionedRun(NUMBER_OF_AREAS, 4);
+	Redistributor[] workers = new Redistributor[4];
+	MicroData microData = new MicroData(data.getMicroDataFile().getPath());
+	File[] tableFiles = data.getTableFiles();
+	for (int worker = 0; worker < 4; worker++) {
+	    Table[] tables = new Table[tableFiles.length];
+	    for (int table = 0; table < tables.length; table++) {
+		tables[table] = new Table(tableFiles[table].getPath(), run.getFirstArea(worker), run.getEndArea(worker));
+	    }
+	    RedistributionSettings settings = TestData.settings(SEED);
+	    settings.setAreaOffset(run.getFirstArea(worker));
+	    workers[worker] = new Redistributor(new Constraints(tables, TestData.attributes(), microData), settings);
+	    workers[worker].run();
+	}
+	
+	String[] formats = {"binary", "weights", "gzip"};
+	PopulationWriter[] writers = {new BinaryPopulationWriter(), new WeightsPopulationWriter(), new CsvPopulationWriter(true)};
+	for (int format = 0; format < formats.length; format++) {
+	    File expected = new File(directory, "single." + formats[format]);
+	    single.write(expected, writers[format]);
+	    File[] parts = new File[4];
+	    for (int worker = 0; worker < 4; worker++) {
+		parts[worker] = new File(directory, "part" + worker + "." + formats[format]);
+		workers[worker].write(parts[worker], writers[format]);
+	    }
+	    File merged = new File(directory, "merged." + formats[format]);
+	    PartitionedRun.merge(parts, merged, formats[format]);
+	    assertArrayEquals(contents(expected, format == 2), contents(merged, format == 2), formats[format]);
+	}
+	
+	final File[] parts = {new File(directory, "part0.binary")};
+	Executable indexed = new Executable() {
+	    public void execute() throws IOException {
+		PartitionedRun.merge(parts, new File(directory, "merged.mspi"), "indexed");
+	    }
+	};
+	assertThrows(IllegalArgumentException.class, indexed);
+	
+    } // End of mergesEveryFormat.
+    
+    
+    
+    
+    
+    /**
+     * Runs all the areas at once, in this process.
+     **/
+    private static Redistributor singleRun(TestData data) {
+	Redistributor redistributor = new Redistributor(data.readConstraints(), TestData.settings(SEED));
+	redistributor.run();
+	return redistributor;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads a file, ungzipping it if asked, as the gzip headers and blocks needn't match.
+     **/
+    private static byte[] contents(File file, boolean gzip) throws IOException {
+	if (!gzip) return Files.readAllBytes(file.toPath());
+	InputStream in = new GZIPInputStream(new FileInputStream(file));
+	try {
+	    ByteArrayOutputStream out = new ByteArrayOutputStream();
+	    byte[] buffer = new byte[1 << 16];
+	    for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) out.write(buffer, 0, read);
+	    return out.toByteArray();
+	} finally {
+	    in.close();
+	}
+    }
+    
+// End of class.
+}
@@ -0,0 +1,184 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.zip.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that each PopulationWriter writes the people in each area in its own format.<P>
+ * The population is made by hand: area X has A, C, A and area Y has B and C.
+ * @version 1.0
+ */
+class PopulationWriterTest {
+    
+    @TempDir
+    File directory;				// Where the test files go.
+    
+    private Constraints constraints = null;	// Two areas and three people.
+    private Population world = null;		// The people in each area.
+    
+    private static final String CSV = "Area,Person,Sex,Income\nX,A,0,25000\nX,C,0,0\nX,A,0,25000\nY,B,1,-7\nY,C,0,0\n";	// What the CSV should be.
+    
+    
+    /**
+     * Makes the areas and people for each test.
+     **/
+    @BeforeEach
+    void makePopulation() throws IOException {
+	
+	File file = new File(directory, "people.csv");
+	TestData.write(file, "ID,Sex,Income\nA,0,25000\nB,1,-7\nC,0,0\n");
+	Table table = new Table(2);
+	table.setID(0, "X");
+	table.setValue(0, 0, 3);
+	table.setID(1, "Y");
+	table.setValue(1, 0, 1);
+	table.setValue(1, 1, 1);
+	constraints = new Constraints(table, new MicroData(file.getPath()));
+	
+	world = new Population(2);
+	int[][] people = {{0, 2, 0}, {1, 2}};
+	for (int area = 0; area < people.length; area++) {
+	    world.createArea(area, people[area].length);
+	    for (int i = 0; i < people[area].length; i++) world.fillPerson(area, i, people[area][i]);
+	}
+	
+    } // End of makePopulation.
+    
+    
+    
+    
+    
+    /**
+     * The CSV should have a line for each person, with every attribute, named in the header.
+     **/
+    @Test
+    void writesCsv() throws IOException {
+	File file = new File(directory, "out.csv");
+	new CsvPopulationWriter(false).write(world, constraints, file);
+	assertEquals(CSV, new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+    
+    
+    
+    
+    
+    /**
+     * The gzipped CSV should unzip to the same as the plain one.
+     **/
+    @Test
+    void writesGzippedCsv() throws IOException {
+	
+	File file = new File(directory, "out.csv.gz");
+	new CsvPopulationWriter(true).write(world, constraints, file);
+	
+	InputStream in = new GZIPInputStream(new FileInputStream(file));
+	try {
+	    assertEquals(CSV, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+	} finally {
+	    in.close();
+	}
+	
+    } // End of writesGzippedCsv.
+    
+    
+    
+    
+    
+    /**
+     * The binary file should have the header, then each area's ID and MicroData positions.
+     **/
+    @Test
+    void writesBinary() throws IOException {
+	
+	File file = new File(directory, "out.mspb");
+	new BinaryPopulationWriter().write(world, constraints, file);
+	
+	DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+	try {
+	    assertEquals(BinaryPopulationWriter.MAGIC, in.readInt());
+	    assertEquals(BinaryPopulationWriter.VERSION, in.readInt());
+	    assertEquals(2, in.readInt());
+	    assertEquals(3, in.readInt());
+	    int[][] people = {{0, 2, 0}, {1, 2}};
+	    String[] ids = {"X", "Y"};
+	    for (int area = 0; area < 2; area++) {
+		byte[] id = new byte[in.readInt()];
+		in.readFully(id);
+		assertEquals(ids[area], new String(id, StandardCharsets.UTF_8));
+		assertEquals(people[area].length, in.readInt());
+		for (int i = 0; i < people[area].length; i++) assertEquals(people[area][i], in.readInt());
+	    }
+	    assertEquals(-1, in.read());
+	} finally {
+	    in.close();
+	}
+	
+    } // End of writesBinary.
+    
+    
+    
+    
+    
+    /**
+     * The weights should have a line for each person used in an area, with how many times, in MicroData order.
+     **/
+    @Test
+    void writesWeights() throws IOException {
+	File file = new File(directory, "out.weights");
+	new WeightsPopulationWriter().write(world, constraints, file);
+	assertEquals("Area,Person,Weight\nX,A,2\nX,C,1\nY,B,1\nY,C,1\n", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Numbers and text should come out the same through the buffer as through a String,
+     * however many times the buffer fills up.
+     **/
+    @Test
+    void bufferMatchesStrings() throws IOException {
+	
+	ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+	StringBuilder expected = new StringBuilder();
+	OutputBuffer out = new OutputBuffer(bytes);
+	int[] numbers = {0, 7, -1, 10, 99, 100, Integer.MAX_VALUE, Integer.MIN_VALUE};
+	for (int i = 0; i < 200000; i++) {
+	    int number = (i < numbers.length) ? numbers[i] : i * 7919 - 500000000;
+	    out.writeDecimal(number);
+	    out.writeString(",x\n");
+	    expected.append(number).append(",x\n");
+	}
+	out.close();
+	
+	assertEquals(expected.toString(), new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+	
+    } // End of bufferMatchesStrings.
+    
+// End of class.
+}
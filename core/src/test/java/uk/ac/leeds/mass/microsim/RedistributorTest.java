@@ -0,0 +1,131 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that a Redistributor gets areas right, and gets the same answer however it's run.<P>
+ * Every run checks each swap's error change against a full count of the area
+ * (see RedistributionSettings.setVerifyErrors), so a mistake in the quick
+ * error sums fails the run rather than just making the results worse.
+ * @version 1.0
+ */
+class RedistributorTest {
+    
+    @TempDir
+    File directory;				// Where the made up files and results go.
+    
+    
+    /**
+     * The sample table and people that come with the code should be matched exactly.<P>
+     * Shortcuts are off, so every area is annealed, which needs more runs at 
+     * each temperature than the other tests to get all the way there.
+     **/
+    @Test
+    void matchesTheSampleTable() {
+	
+	Table table = new Table("../EDGenderTable.txt");
+	MicroData microData = new MicroData("../MicroDataIndividuals.txt");
+	RedistributionSettings settings = TestData.settings(1);
+	settings.setMaxRuns(10000);
+	settings.setVerifyErrors(true);
+	
+	Redistributor redistributor = new Redistributor(table, microData, settings);
+	redistributor.run();
+	
+	assertEquals(0L, redistributor.getTotalError());
+	assertEquals(0L, TestData.recount(redistributor.getConstraints(), redistributor.getPopulation()));
+	Population world = redistributor.getPopulation();
+	for (int area = 0; area < table.getNumberOfAreas(); area++) {
+	    assertEquals(table.getTotalAreaPopulation(area), world.getAreaSize(area), "area " + table.getID(area));
+	}
+	
+    } // End of matchesTheSampleTable.
+    
+    
+    
+    
+    
+    /**
+     * The total error kept up to date swap by swap should be the same as counting it all again at the end.<P>
+     * This uses the made up data, with three tables and more than two categories 
+     * in some, so each swap changes several cells at once.
+     **/
+    @Test
+    void totalErrorMatchesARecount() throws IOException {
+	
+	TestData data = new TestData(directory, 20, 7);
+	Constraints constraints = data.readConstraints();
+	RedistributionSettings settings = TestData.settings(11);
+	settings.setVerifyErrors(true);
+	
+	Redistributor redistributor = new Redistributor(constraints, settings);
+	redistributor.run();
+	
+	assertTrue(redistributor.getTotalError() > 0, "the runs are kept short so some areas aren't matched");
+	assertEquals(TestData.recount(constraints, redistributor.getPopulation()), redistributor.getTotalError());
+	
+    } // End of totalErrorMatchesARecount.
+    
+    
+    
+    
+    
+    /**
+     * The same seed should give the same people in every area, whatever the number of threads.<P>
+     * This is tried with the defaults, and again with targeted swaps, weighted
+     * areas, the other generator and adaptive cooling, which all have state of
+     * their own that could end up shared between threads.
+     **/
+    @Test
+    void sameResultsWhateverTheNumberOfThreads() throws IOException {
+	
+	TestData data = new TestData(directory, 40, 7);
+	for (int variant = 0; variant < 2; variant++) {
+	    byte[] expected = null;
+	    for (int threads = 1; threads <= 4; threads++) {
+		RedistributionSettings settings = TestData.settings(11);
+		settings.setVerifyErrors(true);
+		settings.setNumberOfThreads(threads);
+		if (variant == 1) {
+		    settings.setTargetedProposals(0.5);
+		    settings.setWeightedPopulation(true);
+		    settings.setRandomSource(new XoroshiroRandomSource(11));
+		    settings.setCoolingSchedule(new AdaptiveCooling(5, 0.25, 40, 0.2));
+		}
+		Redistributor redistributor = new Redistributor(data.readConstraints(), settings);
+		redistributor.run();
+		byte[] output = TestData.output(redistributor, new File(directory, "out" + variant + "-" + threads + ".csv"));
+		if (expected == null) {
+		    expected = output;
+		} else {
+		    assertArrayEquals(expected, output, "variant " + variant + " with " + threads + " threads");
+		}
+	    }
+	}
+	
+    } // End of sameResultsWhateverTheNumberOfThreads.
+    
+// End of class.
+}
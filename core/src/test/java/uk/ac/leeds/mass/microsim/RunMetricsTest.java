@@ -0,0 +1,181 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that RunMetrics adds up to the run it measured, and writes the same in its CSV and JSON.
+ * @version 1.0
+ */
+class RunMetricsTest {
+    
+    @TempDir
+    File directory;				// Where the made up files and results go.
+    
+    
+    /**
+     * The metrics' errors should be the run's own, and the swaps should add up.
+     **/
+    @Test
+    void matchesTheRun() throws IOException {
+	
+	Redistributor redistributor = run();
+	RunMetrics metrics = redistributor.getMetrics();
+	Constraints constraints = redistributor.getConstraints();
+	
+	assertEquals(20, metrics.getNumberOfAreas());
+	assertEquals(redistributor.getTotalError(), metrics.getTotalAbsoluteError());
+	assertTrue(metrics.getSwapsProposed() > 0);
+	assertTrue(metrics.getSwapsAccepted() <= metrics.getSwapsProposed());
+	assertEquals(metrics.getSwapsProposed() - metrics.getSwapsAccepted(), metrics.getSwapsRejected());
+	assertTrue(metrics.getUphillAccepted() <= metrics.getUphillProposed());
+	assertTrue(metrics.getStartingError() >= metrics.getTotalAbsoluteError());
+	
+	long proposed = 0;
+	long people = 0;
+	for (int area = 0; area < 20; area++) {
+	    proposed = proposed + metrics.getSwapsProposed(area);
+	    people = people + constraints.getAreaPopulation(area);
+	    assertEquals((double)metrics.getTotalAbsoluteError(area) / constraints.getAreaPopulation(area), metrics.getStandardisedAbsoluteError(area), 1e-12);
+	    assertTrue(metrics.getRootMeanSquareError(area) <= metrics.getTotalAbsoluteError(area));
+	}
+	assertEquals(metrics.getSwapsProposed(), proposed);
+	assertEquals((double)metrics.getTotalAbsoluteError() / people, metrics.getStandardisedAbsoluteError(), 1e-12);
+	
+    } // End of matchesTheRun.
+    
+    
+    
+    
+    
+    /**
+     * The CSV should have a header and a line for each area, in area order, with the area's figures on.
+     **/
+    @Test
+    void writesCsv() throws IOException {
+	
+	Redistributor redistributor = run();
+	RunMetrics metrics = redistributor.getMetrics();
+	File file = new File(directory, "metrics.csv");
+	metrics.writeCsv(file);
+	
+	List<String> lines = Files.readAllLines(file.toPath());
+	assertEquals(21, lines.size());
+	assertEquals("Area,People,SwapsProposed,SwapsAccepted,SwapsRejected,UphillProposed,UphillAccepted,"
+	    + "Millis,StartingError,TAE,SAE,RMSE", lines.get(0));
+	for (int area = 0; area < 20; area++) {
+	    String[] fields = lines.get(area + 1).split(",");
+	    assertEquals(12, fields.length);
+	    assertEquals("Z" + area, fields[0]);
+	    assertEquals(redistributor.getConstraints().getAreaPopulation(area), Integer.parseInt(fields[1]));
+	    assertEquals(metrics.getSwapsProposed(area), Long.parseLong(fields[2]));
+	    assertEquals(metrics.getSwapsAccepted(area), Long.parseLong(fields[3]));
+	    assertEquals(metrics.getSwapsRejected(area), Long.parseLong(fields[4]));
+	    assertEquals(metrics.getStartingError(area), Integer.parseInt(fields[8]));
+	    assertEquals(metrics.getTotalAbsoluteError(area), Integer.parseInt(fields[9]));
+	    assertEquals(metrics.getRootMeanSquareError(area), Double.parseDouble(fields[11]));
+	}
+	
+    } // End of writesCsv.
+    
+    
+    
+    
+    
+    /**
+     * The JSON should hold the run's totals, histograms covering every area, and the worst areas worst first.
+     **/
+    @Test
+    void writesJson() throws IOException {
+	
+	Redistributor redistributor = run();
+	RunMetrics metrics = redistributor.getMetrics();
+	File file = new File(directory, "metrics.json");
+	metrics.writeJson(file);
+	
+	String json = new String(Files.readAllBytes(file.toPath()), "UTF-8");
+	assertTrue(json.startsWith("{\n") && json.endsWith("\n  ]\n}\n"), json);
+	assertTrue(json.contains("\n  \"areas\": 20,\n"), json);
+	assertTrue(json.contains("\n  \"swapsProposed\": " + metrics.getSwapsProposed() + ",\n"), json);
+	assertTrue(json.contains("\n  \"swapsAccepted\": " + metrics.getSwapsAccepted() + ",\n"), json);
+	assertTrue(json.contains("\n  \"startingError\": " + metrics.getStartingError() + ",\n"), json);
+	assertTrue(json.contains("\n  \"tae\": " + redistributor.getTotalError() + ",\n"), json);
+	assertTrue(json.contains("\n  \"rmse\": " + metrics.getRootMeanSquareError() + ",\n"), json);
+	
+	long[] errors = new long[20];
+	for (int area = 0; area < 20; area++) errors[area] = metrics.getTotalAbsoluteError(area);
+	assertTrue(json.contains("\n  \"taeHistogram\": " + Arrays.toString(RunMetrics.histogram(errors)) + ",\n"), json);
+	
+	// The worst area should have the highest TAE, and each after it no more than the one before.
+	
+	long highest = 0;
+	for (int area = 0; area < 20; area++) highest = Math.max(highest, errors[area]);
+	int worstAreas = 0;
+	long last = highest;
+	int at = json.indexOf("{\"area\": ");
+	while (at >= 0) {
+	    int start = json.indexOf("\"tae\": ", at) + 7;
+	    int tae = Integer.parseInt(json.substring(start, json.indexOf(',', start)));
+	    assertTrue((worstAreas > 0) ? (tae <= last) : (tae == highest), json);
+	    last = tae;
+	    worstAreas++;
+	    at = json.indexOf("{\"area\": ", start);
+	}
+	assertEquals(20, worstAreas);
+	
+    } // End of writesJson.
+    
+    
+    
+    
+    
+    /**
+     * Values should fall in power of two bands, with the histogram stopping at the highest used.
+     **/
+    @Test
+    void bandsValuesInPowersOfTwo() {
+	assertArrayEquals(new int[] {1, 1, 2, 2, 1}, RunMetrics.histogram(new long[] {0, 1, 2, 3, 4, 7, 8}));
+	assertArrayEquals(new int[] {3}, RunMetrics.histogram(new long[] {0, 0, -5}));
+	assertArrayEquals(new int[] {0}, RunMetrics.histogram(new long[0]));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Runs the made up data with too few runs to get every area right, so there are errors to measure.
+     **/
+    private Redistributor run() throws IOException {
+	TestData data = new TestData(directory, 20, 3);
+	Redistributor redistributor = new Redistributor(data.readConstraints(), TestData.settings(5));
+	redistributor.run();
+	assertTrue(redistributor.getTotalError() > 0);
+	return redistributor;
+    }
+    
+// End of class.
+}
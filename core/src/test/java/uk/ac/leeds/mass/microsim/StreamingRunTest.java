@@ -0,0 +1,130 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.file.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that streaming the areas through a block at a time gives the same results as one run.<P>
+ * Each area's random numbers come from the seed and the area's number in the
+ * whole table, so however the areas are split into blocks they should get the same people.
+ * @version 1.0
+ */
+class StreamingRunTest {
+    
+    private static final int NUMBER_OF_AREAS = 50;	// The number of areas in the tables.
+    private static final long SEED = 17;		// The seed for every run.
+    
+    @TempDir
+    File directory;				// Where the made up files and results go.
+    
+    
+    /**
+     * Streaming the areas through a few at a time should give the same file as running them all at once.
+     **/
+    @Test
+    void streamedRunMatchesSingleRun() throws IOException {
+	
+	TestData data = new TestData(directory, NUMBER_OF_AREAS, 5);
+	Redistributor single = singleRun(data, TestData.settings(SEED));
+	byte[] expected = TestData.output(single, new File(directory, "single.csv"));
+	
+	StreamingRun run = streamingRun(data, TestData.settings(SEED), 3);
+	run.setAreasPerBlock(7);
+	File streamed = new File(directory, "streamed.csv");
+	run.run(streamed, new CsvPopulationWriter(false));
+	
+	assertArrayEquals(expected, Files.readAllBytes(streamed.toPath()));
+	assertEquals(single.getTotalError(), run.getTotalError());
+	assertEquals(NUMBER_OF_AREAS, run.getNumberOfAreas());
+	
+    } // End of streamedRunMatchesSingleRun.
+    
+    
+    
+    
+    
+    /**
+     * Blocks of one area held one at a time, and one block bigger than the tables, should 
+     * give the same results too, as should runs with shortcuts and targeted swaps, which 
+     * share the first block's profiles and candidates with the rest.
+     **/
+    @Test
+    void anyBlocksGiveTheSameResults() throws IOException {
+	
+	TestData data = new TestData(directory, NUMBER_OF_AREAS, 5);
+	for (int variant = 0; variant < 2; variant++) {
+	    RedistributionSettings settings = TestData.settings(SEED);
+	    if (variant == 1) {
+		settings.setShortcutAreas(true);
+		settings.setTargetedProposals(0.5);
+	    }
+	    Redistributor single = singleRun(data, settings);
+	    File expected = new File(directory, "single" + variant + ".csv");
+	    single.write(expected, new WeightsPopulationWriter());
+	    
+	    int[][] blocks = {{1, 1, 1}, {1000, 0, 2}};
+	    for (int i = 0; i < blocks.length; i++) {
+		StreamingRun run = streamingRun(data, settings, blocks[i][2]);
+		run.setAreasPerBlock(blocks[i][0]);
+		if (blocks[i][1] > 0) run.setMaxBlocks(blocks[i][1]);
+		File streamed = new File(directory, "streamed" + variant + "-" + i + ".csv");
+		run.run(streamed, new WeightsPopulationWriter());
+		assertArrayEquals(Files.readAllBytes(expected.toPath()), Files.readAllBytes(streamed.toPath()), "variant " + variant + ", blocks " + i);
+		assertEquals(single.getTotalError(), run.getTotalError());
+	    }
+	}
+	
+    } // End of anyBlocksGiveTheSameResults.
+    
+    
+    
+    
+    
+    /**
+     * Runs all the areas at once, in this process.
+     **/
+    private static Redistributor singleRun(TestData data, RedistributionSettings settings) {
+	Redistributor redistributor = new Redistributor(data.readConstraints(), settings);
+	redistributor.run();
+	return redistributor;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Opens the tables for a StreamingRun, with some number of threads.
+     **/
+    private static StreamingRun streamingRun(TestData data, RedistributionSettings settings, int threads) throws IOException {
+	File[] tableFiles = data.getTableFiles();
+	TableReader[] readers = new TableReader[tableFiles.length];
+	for (int table = 0; table < readers.length; table++) readers[table] = new TableReader(tableFiles[table].getPath());
+	settings.setNumberOfThreads(threads);
+	return new StreamingRun(readers, TestData.attributes(), new MicroData(data.getMicroDataFile().getPath()), settings);
+    }
+    
+// End of class.
+}
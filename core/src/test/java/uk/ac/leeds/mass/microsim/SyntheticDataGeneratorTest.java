@@ -0,0 +1,151 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that the SyntheticDataGenerator makes the same files from the same seed, in the shape asked for.
+ * @version 1.0
+ */
+class SyntheticDataGeneratorTest {
+    
+    @TempDir
+    File directory;				// Where the made up files go.
+    
+    
+    /**
+     * The same seed should give byte for byte the same files, and a different seed different ones.
+     **/
+    @Test
+    void sameSeedSameFiles() throws IOException {
+	
+	byte[][] first = generate(42, 0.3, "first");
+	byte[][] second = generate(42, 0.3, "second");
+	byte[][] other = generate(43, 0.3, "other");
+	
+	assertArrayEquals(first[0], second[0]);
+	assertArrayEquals(first[1], second[1]);
+	assertFalse(Arrays.equals(first[0], other[0]));
+	assertFalse(Arrays.equals(first[1], other[1]));
+	
+    } // End of sameSeedSameFiles.
+    
+    
+    
+    
+    
+    /**
+     * Areas should be the size asked for, and the microdata should have someone in every category.
+     **/
+    @Test
+    void readsBackInShape() throws IOException {
+	
+	generate(7, 0, "shape");
+	Table table = new Table(new File(directory, "shape.table.csv").getPath());
+	MicroData microData = new MicroData(new File(directory, "shape.people.csv").getPath());
+	
+	assertEquals(200, table.getNumberOfAreas());
+	assertEquals(4, table.getNumberOfCategories());
+	assertEquals("A199", table.getID(199));
+	for (int area = 0; area < table.getNumberOfAreas(); area++) {
+	    assertTrue(table.getTotalAreaPopulation(area) >= 20);
+	    assertTrue(table.getTotalAreaPopulation(area) <= 30);
+	}
+	
+	assertEquals(500, microData.getNumberOfPeople());
+	for (int category = 0; category < 4; category++) assertEquals(category, microData.getValue(category, 0));
+	
+    } // End of readsBackInShape.
+    
+    
+    
+    
+    
+    /**
+     * Some categories should be left empty in some areas, but never all of an area's, 
+     * and with a chance of one, every area should have just one category with people in.
+     **/
+    @Test
+    void leavesCategoriesEmpty() throws IOException {
+	
+	generate(9, 0.5, "some");
+	Table table = new Table(new File(directory, "some.table.csv").getPath());
+	int emptyCells = 0;
+	for (int area = 0; area < table.getNumberOfAreas(); area++) {
+	    int used = usedCategories(table, area);
+	    assertTrue(used >= 1);
+	    emptyCells = emptyCells + (4 - used);
+	}
+	assertTrue(emptyCells > 0);
+	
+	generate(9, 1, "one");
+	table = new Table(new File(directory, "one.table.csv").getPath());
+	for (int area = 0; area < table.getNumberOfAreas(); area++) assertEquals(1, usedCategories(table, area));
+	
+    } // End of leavesCategoriesEmpty.
+    
+    
+    
+    
+    
+    /**
+     * Counts the categories of an area that have people in.
+     **/
+    private static int usedCategories(Table table, int area) {
+	int used = 0;
+	for (int category = 0; category < table.getNumberOfCategories(); category++) {
+	    if (table.getValue(area, category) > 0) used++;
+	}
+	return used;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes a table of 200 areas of 20 to 30 people in 4 categories, and 500 people, and reads the files back.
+     **/
+    private byte[][] generate(long seed, double emptyCategoryChance, String name) throws IOException {
+	
+	SyntheticDataGenerator generator = new SyntheticDataGenerator();
+	generator.setNumberOfAreas(200);
+	generator.setAreaSizes(20, 30);
+	generator.setNumberOfCategories(4);
+	generator.setEmptyCategoryChance(emptyCategoryChance);
+	generator.setNumberOfPeople(500);
+	generator.setSeed(seed);
+	
+	File table = new File(directory, name + ".table.csv");
+	File people = new File(directory, name + ".people.csv");
+	generator.writeTable(table);
+	generator.writeMicroData(people);
+	return new byte[][] {Files.readAllBytes(table.toPath()), Files.readAllBytes(people.toPath())};
+	
+    } // End of generate.
+    
+// End of class.
+}
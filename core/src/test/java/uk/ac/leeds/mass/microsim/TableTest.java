@@ -0,0 +1,90 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests reading Tables from files.
+ * @version 1.0
+ */
+class TableTest {
+    
+    @TempDir
+    File directory;				// Where the test files go.
+    
+    
+    /**
+     * A row that can't be read should be skipped, and the rows after it kept.
+     **/
+    @Test
+    void skipsBadRows() throws IOException {
+	
+	Table table = table("Area,Females,Males\nA,10,20\nB,x,30\nC,25\n\nD,15,5\n");
+	
+	assertEquals(2, table.getNumberOfCategories());
+	assertEquals(2, table.getNumberOfAreas());
+	assertEquals("A", table.getID(0));
+	assertEquals("D", table.getID(1));
+	assertEquals(15, table.getValue(1, 0));
+	assertEquals(5, table.getValue(1, 1));
+	assertEquals(20, table.getTotalAreaPopulation(1));
+	
+    } // End of skipsBadRows.
+    
+    
+    
+    
+    
+    /**
+     * The header line should set how many categories are read from each row, and what they're called.
+     **/
+    @Test
+    void readsAnyNumberOfCategories() throws IOException {
+	
+	Table table = table("Area,Under16,16to29,30to44,45to64,Over64\nA,1,2,3,4,5\nB,0,0,7,0,9\n");
+	
+	assertEquals(5, table.getNumberOfCategories());
+	assertEquals("30to44", table.getCategoryName(2));
+	assertEquals(2, table.getNumberOfAreas());
+	assertEquals(15, table.getTotalAreaPopulation(0));
+	assertEquals(16, table.getTotalAreaPopulation(1));
+	assertEquals(9, table.getValue(1, 4));
+	
+    } // End of readsAnyNumberOfCategories.
+    
+    
+    
+    
+    
+    /**
+     * Writes some text to a file and reads it as a Table.
+     **/
+    private Table table(String text) throws IOException {
+	File file = new File(directory, "table.csv");
+	TestData.write(file, text);
+	return new Table(file.getPath());
+    }
+    
+// End of class.
+}
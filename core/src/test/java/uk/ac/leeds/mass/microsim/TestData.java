@@ -0,0 +1,228 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+
+/**
+ * Made up tables and microdata for the tests, written to CSV files.<P>
+ * Each person has three attributes, with 3, 4 and 2 categories, and there is a
+ * table about each. An area's three tables are all counted from the same random
+ * sample of the people, so they agree with each other and can be matched exactly,
+ * but not without annealing.
+ * @version 1.0
+ */
+class TestData {
+    
+    static final int [] CATEGORIES = {3, 4, 2};	// The number of categories of each attribute.
+    static final int NUMBER_OF_PEOPLE = 200;	// The number of people in the microdata.
+    
+    private File microDataFile = null;		// The people.
+    private File [] tableFiles = null;		// One table about each attribute.
+    private int numberOfAreas = 0;		// The number of areas in each table.
+    
+    
+    /**
+     * Makes up the people and tables and writes them to a directory.<P>
+     * @param directory: where to write the files.
+     * @param numberOfAreas: the number of areas in each table.
+     * @param seed: the seed for making them up. The same seed gives the same files.
+     **/
+    TestData(File directory, int numberOfAreas, long seed) throws IOException {
+	
+	this.numberOfAreas = numberOfAreas;
+	Random random = new Random(seed);
+	
+	int[][] people = new int[NUMBER_OF_PEOPLE][CATEGORIES.length];
+	StringBuilder text = new StringBuilder("ID,Age,Tenure,Sex\n");
+	for (int person = 0; person < NUMBER_OF_PEOPLE; person++) {
+	    text.append("P" + person);
+	    for (int attribute = 0; attribute < CATEGORIES.length; attribute++) {
+		people[person][attribute] = random.nextInt(CATEGORIES[attribute]);
+		text.append("," + people[person][attribute]);
+	    }
+	    text.append("\n");
+	}
+	microDataFile = new File(directory, "people.csv");
+	write(microDataFile, text);
+	
+	// Count up each area's tables from a sample of the people.
+	
+	int[][][] counts = new int[CATEGORIES.length][numberOfAreas][];
+	for (int area = 0; area < numberOfAreas; area++) {
+	    for (int attribute = 0; attribute < CATEGORIES.length; attribute++) counts[attribute][area] = new int[CATEGORIES[attribute]];
+	    int size = 10 + random.nextInt(40);
+	    for (int i = 0; i < size; i++) {
+		int person = random.nextInt(NUMBER_OF_PEOPLE);
+		for (int attribute = 0; attribute < CATEGORIES.length; attribute++) counts[attribute][area][people[person][attribute]]++;
+	    }
+	}
+	
+	tableFiles = new File[CATEGORIES.length];
+	for (int attribute = 0; attribute < CATEGORIES.length; attribute++) {
+	    text = new StringBuilder("Area");
+	    for (int category = 0; category < CATEGORIES[attribute]; category++) text.append(",C" + category);
+	    text.append("\n");
+	    for (int area = 0; area < numberOfAreas; area++) {
+		text.append("Z" + area);
+		for (int category = 0; category < CATEGORIES[attribute]; category++) text.append("," + counts[attribute][area][category]);
+		text.append("\n");
+	    }
+	    tableFiles[attribute] = new File(directory, "table" + attribute + ".csv");
+	    write(tableFiles[attribute], text);
+	}
+	
+    } // End of constructor.
+    
+    
+    
+    
+    
+    /**
+     * Gets the microdata file.
+     **/
+    File getMicroDataFile() {
+	return microDataFile;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the table files, one about each attribute, in order.
+     **/
+    File[] getTableFiles() {
+	return tableFiles.clone();
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the number of areas in each table.
+     **/
+    int getNumberOfAreas() {
+	return numberOfAreas;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Reads the files back in as Constraints, with each table about the attribute of the same number.
+     **/
+    Constraints readConstraints() {
+	MicroData microData = new MicroData(microDataFile.getPath());
+	Table[] tables = new Table[tableFiles.length];
+	for (int table = 0; table < tables.length; table++) tables[table] = new Table(tableFiles[table].getPath());
+	return new Constraints(tables, attributes(), microData);
+    }
+    
+    
+    
+    
+    
+    /**
+     * Gets the attribute each table is about: 0, 1, 2.
+     **/
+    static int[] attributes() {
+	int[] attributes = new int[CATEGORIES.length];
+	for (int attribute = 0; attribute < attributes.length; attribute++) attributes[attribute] = attribute;
+	return attributes;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Makes the settings the tests run with.<P>
+     * These are the defaults, apart from the seed, fewer runs at each temperature 
+     * to keep the tests quick, and no shortcuts, so every area is annealed.
+     * @param seed: the seed for the run.
+     **/
+    static RedistributionSettings settings(long seed) {
+	RedistributionSettings settings = new RedistributionSettings();
+	settings.setSeed(seed);
+	settings.setMaxRuns(10);
+	settings.setShortcutAreas(false);
+	return settings;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes a Redistributor's population as CSV and reads the file back, for comparing runs.
+     * @param redistributor: a Redistributor that has been run.
+     * @param file: where to write it.
+     **/
+    static byte[] output(Redistributor redistributor, File file) throws IOException {
+	redistributor.write(file, new CsvPopulationWriter(false));
+	return Files.readAllBytes(file.toPath());
+    }
+    
+    
+    
+    
+    
+    /**
+     * Counts up the total error of a population from scratch.<P>
+     * This is the sum, over every area and cell, of the difference between the 
+     * table and the number of people in the area that fall in the cell. It goes 
+     * through every person, so it doesn't depend on anything the run kept track of.
+     * @param constraints: the tables the population was fitted to.
+     * @param world: the population.
+     **/
+    static long recount(Constraints constraints, Population world) {
+	long error = 0;
+	for (int area = 0; area < constraints.getNumberOfAreas(); area++) {
+	    int[] counts = new int[constraints.getNumberOfCells()];
+	    for (int slot = 0; slot < world.getNumberOfSlots(area); slot++) {
+		int person = world.getPerson(area, slot);
+		for (int constraint = 0; constraint < constraints.getNumberOfConstraints(); constraint++) {
+		    counts[constraints.getPersonCell(person, constraint)] += world.getSlotCount(area, slot);
+		}
+	    }
+	    for (int cell = 0; cell < counts.length; cell++) error = error + Math.abs(constraints.getTarget(area, cell) - counts[cell]);
+	}
+	return error;
+    }
+    
+    
+    
+    
+    
+    /**
+     * Writes some text to a file, as UTF-8.
+     **/
+    static void write(File file, CharSequence text) throws IOException {
+	Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+// End of class.
+}
@@ -0,0 +1,211 @@
+/**
+ * --Copyright notice-- 
+ *
+ * Copyright (c) School of Geography, University of Leeds. 
+ * http://www.geog.leeds.ac.uk/
+ * This software is licensed under 'The Artistic License' which can be found at 
+ * the Open Source Initiative website at... 
+ * http://www.opensource.org/licenses/artistic-license.php
+ * Please note that the optional Clause 8 does not apply to this code.
+ *
+ * The Standard Version source code, and associated documentation can be found at... 
+ * [online] http://mass.leeds.ac.uk/
+ * 
+ *
+ * --End of Copyright notice-- 
+ *
+ */
+
+package uk.ac.leeds.mass.microsim;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * Tests that a weighted Population holds the same people as one with a slot for every person.
+ * @version 1.0
+ */
+class WeightedPopulationTest {
+    
+    @TempDir
+    File directory;				// Where the made up files and results go.
+    
+    
+    /**
+     * After any run of swaps, each person should have as many copies in the weighted 
+     * area as slots in the expanded one, before and after trimming.
+     **/
+    @Test
+    void swapsKeepTheSameCopies() {
+	
+	Population expanded = new Population(1);
+	Population weighted = new Population(1, true);
+	expanded.createArea(0, 500);
+	weighted.createArea(0, 500);
+	Random random = new Random(5);
+	for (int i = 0; i < 500; i++) {
+	    int person = random.nextInt(40);
+	    expanded.fillPerson(0, i, person);
+	    weighted.fillPerson(0, i, person);
+	}
+	weighted.trimArea(0);
+	assertCopies(expanded, weighted);
+	
+	for (int swap = 0; swap < 20000; swap++) {
+	    int slot = random.nextInt(500);
+	    int leaving = expanded.getPerson(0, slot);
+	    int joining = random.nextInt(60);
+	    assertEquals(leaving, expanded.setPerson(0, slot, joining));
+	    int weightedSlot = weighted.replacePerson(0, findSlot(weighted, leaving), joining);
+	    assertEquals(joining, weighted.getPerson(0, weightedSlot));
+	    if (swap % 1000 == 0) assertCopies(expanded, weighted);
+	    if (swap % 3000 == 0) weighted.trimArea(0);
+	}
+	assertCopies(expanded, weighted);
+	weighted.trimArea(0);
+	assertCopies(expanded, weighted);
+	
+	// Trimmed slots hold each person used once, in MicroData order.
+	
+	for (int slot = 1; slot < weighted.getNumberOfSlots(0); slot++) {
+	    assertTrue(weighted.getPerson(0, slot - 1) < weighted.getPerson(0, slot));
+	    assertTrue(weighted.getSlotCount(0, slot) > 0);
+	}
+	
+    } // End of swapsKeepTheSameCopies.
+    
+    
+    
+    
+    
+    /**
+     * Picking each copy in turn should land in the slots in order, each as many times as its count.
+     **/
+    @Test
+    void picksSlotsInProportionToTheirCounts() {
+	
+	WeightedArea area = new WeightedArea(0, 0);
+	int[] counts = {3, 0, 1, 7, 2, 9, 1};
+	for (int person = 0; person < counts.length; person++) area.add(person * 10, counts[person]);
+	area.remove(area.findSlot(50), 4);
+	counts[5] = 5;
+	assertEquals(19, area.getSize());
+	
+	int rank = 0;
+	for (int slot = 0; slot < counts.length; slot++) {
+	    for (int copy = 0; copy < counts[slot]; copy++) assertEquals(slot, area.findRank(rank++), "rank " + (rank - 1));
+	}
+	assertEquals(-1, area.findSlot(11));
+	
+    } // End of picksSlotsInProportionToTheirCounts.
+    
+    
+    
+    
+    
+    /**
+     * A weighted run's people, written out or counted, should be the same as the same people 
+     * with a slot each, and given long enough both should match the tables.<P>
+     * The two don't make the same swaps, as picking the same copy lands on different 
+     * people when they're laid out differently, so their people aren't compared.
+     **/
+    @Test
+    void runMatchesExpandedRun() throws IOException {
+	
+	TestData data = new TestData(directory, 10, 12);
+	for (int layout = 0; layout < 2; layout++) {
+	    RedistributionSettings settings = TestData.settings(6);
+	    settings.setMaxRuns(5000);
+	    settings.setWeightedPopulation(layout == 1);
+	    settings.setVerifyErrors(true);
+	    Redistributor redistributor = new Redistributor(data.readConstraints(), settings);
+	    redistributor.run();
+	    assertEquals(layout == 1, redistributor.getPopulation().isWeighted());
+	    assertEquals(0L, redistributor.getTotalError());
+	}
+	
+	// Make a short weighted run, and copy its people out a slot each.
+	
+	RedistributionSettings settings = TestData.settings(6);
+	settings.setWeightedPopulation(true);
+	Redistributor redistributor = new Redistributor(data.readConstraints(), settings);
+	redistributor.run();
+	Constraints constraints = redistributor.getConstraints();
+	Population weighted = redistributor.getPopulation();
+	Population expanded = new Population(weighted.getNumberOfAreas());
+	for (int area = 0; area < weighted.getNumberOfAreas(); area++) {
+	    expanded.createArea(area, weighted.getAreaSize(area));
+	    int next = 0;
+	    for (int slot = 0; slot < weighted.getNumberOfSlots(area); slot++) {
+		for (int copy = 0; copy < weighted.getSlotCount(area, slot); copy++) expanded.fillPerson(area, next++, weighted.getPerson(area, slot));
+	    }
+	}
+	
+	assertTrue(redistributor.getTotalError() > 0);
+	assertEquals(redistributor.getTotalError(), TestData.recount(constraints, weighted));
+	assertEquals(redistributor.getTotalError(), TestData.recount(constraints, expanded));
+	PopulationWriter[] writers = {new CsvPopulationWriter(false), new WeightsPopulationWriter()};
+	for (int writer = 0; writer < writers.length; writer++) {
+	    File weightedFile = new File(directory, "weighted" + writer);
+	    File expandedFile = new File(directory, "expanded" + writer);
+	    writers[writer].write(weighted, constraints, weightedFile);
+	    writers[writer].write(expanded, constraints, expandedFile);
+	    assertArrayEquals(Files.readAllBytes(expandedFile.toPath()), Files.readAllBytes(weightedFile.toPath()), "writer " + writer);
+	}
+	
+    } // End of runMatchesExpandedRun.
+    
+    
+    
+    
+    
+    /**
+     * Checks each person has as many copies in a weighted area as slots in an expanded one.
+     **/
+    private static void assertCopies(Population expanded, Population weighted) {
+	TreeMap<Integer, Integer> expected = new TreeMap<Integer, Integer>();
+	TreeMap<Integer, Integer> actual = new TreeMap<Integer, Integer>();
+	for (int slot = 0; slot < expanded.getNumberOfSlots(0); slot++) {
+	    add(expected, expanded.getPerson(0, slot), 1);
+	}
+	for (int slot = 0; slot < weighted.getNumberOfSlots(0); slot++) {
+	    if (weighted.getSlotCount(0, slot) == 0) continue;
+	    add(actual, weighted.getPerson(0, slot), weighted.getSlotCount(0, slot));
+	}
+	assertEquals(expected, actual);
+	assertEquals(expanded.getAreaSize(0), weighted.getAreaSize(0));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Adds copies of a person to a count of each person.
+     **/
+    private static void add(TreeMap<Integer, Integer> copies, int person, int count) {
+	Integer before = copies.get(Integer.valueOf(person));
+	copies.put(Integer.valueOf(person), Integer.valueOf(((before == null) ? 0 : before.intValue()) + count));
+    }
+    
+    
+    
+    
+    
+    /**
+     * Finds the slot a person is in, in a weighted area.
+     **/
+    private static int findSlot(Population weighted, int person) {
+	for (int slot = 0; slot < weighted.getNumberOfSlots(0); slot++) {
+	    if ((weighted.getPerson(0, slot) == person) && (weighted.getSlotCount(0, slot) > 0)) return slot;
+	}
+	throw new IllegalStateException("Person " + person + " isn't in the area");
+    }
+    
+// End of class.
+}